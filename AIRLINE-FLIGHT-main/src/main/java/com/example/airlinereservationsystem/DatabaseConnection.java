@@ -1,5 +1,7 @@
 package com.example.airlinereservationsystem;
 
+import com.example.airlinereservationsystem.services.CustomerIdentityService;
+
 import java.sql.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -14,6 +16,11 @@ public final class DatabaseConnection {
 
     private static Connection connection;
 
+    // Target of the last successful connect, reused for dedicated connections
+    private static String activeUrl;
+    private static String activeUser;
+    private static String activePassword;
+
     private DatabaseConnection() { }
 
     public static Connection getConnection() throws SQLException {
@@ -26,6 +33,7 @@ public final class DatabaseConnection {
                             "new_user",
                             "gnjqdk8vU6Y61yTYgrisx0HOHnObPckA"
                     );
+                    rememberTarget(URL + "?sslmode=require", USER, PASSWORD);
                     LOGGER.info("Connected to Remote PostgreSQL Database Successfully!");
 
                 } catch (Exception e) {
@@ -33,6 +41,7 @@ public final class DatabaseConnection {
                     Class.forName("org.h2.Driver");
                     connection = DriverManager.getConnection(
                             "jdbc:h2:mem:demo;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+                    rememberTarget("jdbc:h2:mem:demo;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
                     LOGGER.info("H2 demo database connected");
                 }
             }
@@ -42,6 +51,24 @@ public final class DatabaseConnection {
         }
     }
 
+    /**
+     * Open a separate connection to the same database as {@link #getConnection()}.
+     * Long-running work (exports, streaming queries) uses this so it is not cut off when
+     * another caller closes the shared connection. The caller owns and must close it.
+     */
+    public static Connection openDedicatedConnection() throws SQLException {
+        if (activeUrl == null) {
+            getConnection();
+        }
+        return DriverManager.getConnection(activeUrl, activeUser, activePassword);
+    }
+
+    private static void rememberTarget(String url, String user, String password) {
+        activeUrl = url;
+        activeUser = user;
+        activePassword = password;
+    }
+
     public static void closeConnection() {
         try {
             if (connection != null && !connection.isClosed()) {
@@ -66,9 +93,13 @@ public final class DatabaseConnection {
                     password VARCHAR(100) NOT NULL,
                     full_name VARCHAR(100) NOT NULL,
                     role VARCHAR(20) NOT NULL,
-                    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                    cust_id INT
                 )
             """);
+            // Customer whose bookings a customer user sees; existing users are linked once by name
+            // (see CustomerBookingsService.linkUsers)
+            stmt.executeUpdate("ALTER TABLE users ADD COLUMN IF NOT EXISTS cust_id INT");
 
             // Customers table
             stmt.executeUpdate("""
@@ -107,9 +138,14 @@ public final class DatabaseConnection {
                     class_code TEXT,
                     total_eco_seats INT,
                     total_exe_seats INT,
-                    fleet_id INT REFERENCES fleet(fleet_id)
+                    fleet_id INT REFERENCES fleet(fleet_id),
+                    auth_eco_seats INT,
+                    auth_exe_seats INT
                 )
             """);
+            // Authorized (overbooking) capacity per cabin; NULL means physical seats only
+            stmt.executeUpdate("ALTER TABLE flights ADD COLUMN IF NOT EXISTS auth_eco_seats INT");
+            stmt.executeUpdate("ALTER TABLE flights ADD COLUMN IF NOT EXISTS auth_exe_seats INT");
 
             // Fare table
             stmt.executeUpdate("""
@@ -140,9 +176,15 @@ public final class DatabaseConnection {
                     profession VARCHAR(50),
                     security VARCHAR(50),
                     concession VARCHAR(30),
-                    travel_date DATE
+                    travel_date DATE,
+                    identity_key VARCHAR(130)
                 )
             """);
+            // Digits of tel_no and the folded name identifying the customer; made unique once existing
+            // duplicates are merged (see CustomerIdentityService.deduplicate)
+            stmt.executeUpdate("ALTER TABLE customer_details ADD COLUMN IF NOT EXISTS identity_key VARCHAR(130)");
+            // The phone alone was the key before; one number is shared by a whole family, so it must not be unique
+            stmt.executeUpdate("DROP INDEX IF EXISTS idx_customer_phone_key");
             
             // Reservations table (updated)
             stmt.executeUpdate("""
@@ -155,9 +197,20 @@ public final class DatabaseConnection {
                     status VARCHAR(20),
                     fare DECIMAL(10,2),
                     travel_date DATE,
-                    pnr VARCHAR(20)
+                    pnr VARCHAR(20),
+                    fare_bucket CHAR(1) DEFAULT 'Y',
+                    checked_in BOOLEAN DEFAULT FALSE,
+                    booked_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
                 )
             """);
+            stmt.executeUpdate("ALTER TABLE reservations ADD COLUMN IF NOT EXISTS fare_bucket CHAR(1) DEFAULT 'Y'");
+            stmt.executeUpdate("ALTER TABLE reservations ADD COLUMN IF NOT EXISTS checked_in BOOLEAN DEFAULT FALSE");
+            // When the booking was made, for booking curves; rows older than the column read as booked when it was added
+            stmt.executeUpdate("ALTER TABLE reservations ADD COLUMN IF NOT EXISTS booked_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP");
+            stmt.executeUpdate("CREATE INDEX IF NOT EXISTS idx_reservations_customer ON reservations (cust_id)");
+            // PNRs are numbered from this sequence (see ReservationService.nextPnrs); it starts above the
+            // six-digit numbers once taken from the clock, so old and new PNRs never meet
+            stmt.executeUpdate("CREATE SEQUENCE IF NOT EXISTS pnr_seq START WITH 1000000");
 
             // Cancellations table (updated)
             stmt.executeUpdate("""
@@ -175,14 +228,225 @@ public final class DatabaseConnection {
                 CREATE TABLE IF NOT EXISTS waiting_list (
                     wait_id SERIAL PRIMARY KEY,
                     flight_code INT REFERENCES flights(flight_code),
-                    cust_id INT REFERENCES customers(cust_id),
+                    cust_id INT REFERENCES customer_details(cust_id),
                     seat_class TEXT,
                     waiting_no INT,
-                    travel_date DATE
+                    travel_date DATE,
+                    priority_tier INT DEFAULT 1
+                )
+            """);
+            // Lower tiers are promoted first; within a tier, the order of wait_id
+            stmt.executeUpdate("ALTER TABLE waiting_list ADD COLUMN IF NOT EXISTS priority_tier INT DEFAULT 1");
+            stmt.executeUpdate("CREATE INDEX IF NOT EXISTS idx_waiting_list_queue ON waiting_list (flight_code, travel_date, seat_class)");
+
+            // Flight dates the airline cancelled; nothing more is sold on them (see ReservationService.cancelFlight)
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS cancelled_flights (
+                    flight_code INT REFERENCES flights(flight_code),
+                    travel_date DATE,
+                    cancelled_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                    PRIMARY KEY (flight_code, travel_date)
+                )
+            """);
+
+            // Concession discounts in basis points (2500 = 25%)
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS concession_rules (
+                    concession VARCHAR(30) PRIMARY KEY,
+                    discount_bp INT NOT NULL
+                )
+            """);
+
+            // Cancellation fees in basis points (1000 = 10%) by reason, from min_days_out days before departure.
+            // A NULL fare_bucket or concession matches any; the most specific matching rule applies
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS refund_rules (
+                    rule_id SERIAL PRIMARY KEY,
+                    reason VARCHAR(20) NOT NULL,
+                    fare_bucket CHAR(1),
+                    concession VARCHAR(30),
+                    min_days_out INT NOT NULL,
+                    fee_bp INT NOT NULL,
+                    description VARCHAR(80)
+                )
+            """);
+
+            // Nested fare buckets per cabin; flight_code 0 holds the network default.
+            // limit_bp is the share of the cabin (10000 = all seats) a bucket and all cheaper ones may sell,
+            // fare_bp the fare multiplier (10000 = the base fare)
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS fare_buckets (
+                    flight_code INT NOT NULL,
+                    seat_class VARCHAR(10) NOT NULL,
+                    bucket_code CHAR(1) NOT NULL,
+                    limit_bp INT NOT NULL,
+                    fare_bp INT NOT NULL,
+                    PRIMARY KEY (flight_code, seat_class, bucket_code)
+                )
+            """);
+
+            // Cabin layouts per fleet type; fleet_id 0 holds the default for flights without one.
+            // seat_pattern lists the letters across a row with | for each aisle, e.g. ABC|DEF
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS seat_layouts (
+                    fleet_id INT NOT NULL,
+                    seat_class VARCHAR(10) NOT NULL,
+                    seat_pattern VARCHAR(64) NOT NULL,
+                    first_row INT NOT NULL DEFAULT 1,
+                    exit_rows TEXT,
+                    blocked_seats TEXT,
+                    PRIMARY KEY (fleet_id, seat_class)
+                )
+            """);
+
+            // Seats held for a customer before booking; counted as sold until they expire or are booked
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS seat_holds (
+                    hold_id SERIAL PRIMARY KEY,
+                    flight_code INT NOT NULL,
+                    travel_date DATE NOT NULL,
+                    seat_class VARCHAR(10) NOT NULL,
+                    fare_bucket CHAR(1) NOT NULL,
+                    fare DECIMAL(10,2),
+                    expires_at TIMESTAMP NOT NULL
+                )
+            """);
+
+            // Seats freed by cancellations, waiting for the promotion worker to hand them to the waiting list.
+            // Pending rows count as sold; idempotency_key makes recording the same cancellation twice a no-op
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS promotion_outbox (
+                    outbox_id SERIAL PRIMARY KEY,
+                    idempotency_key VARCHAR(40) NOT NULL UNIQUE,
+                    flight_code INT NOT NULL,
+                    travel_date DATE NOT NULL,
+                    seat_class VARCHAR(10) NOT NULL,
+                    fare_bucket CHAR(1) NOT NULL,
+                    seat_number INT NOT NULL,
+                    status VARCHAR(10) DEFAULT 'Pending',
+                    attempts INT DEFAULT 0,
+                    next_attempt_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                    last_error TEXT,
+                    promoted_cust_id INT,
+                    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                    processed_at TIMESTAMP
+                )
+            """);
+
+            // No-show model per cabin; flight_code 0 holds the network default.
+            // The prior rate counts as prior_weight departed passengers until a flight has its own history,
+            // max_overbook_bp caps authorized seats above physical ones (1000 = 10% more)
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS overbooking_rules (
+                    flight_code INT NOT NULL,
+                    seat_class VARCHAR(10) NOT NULL,
+                    prior_no_show_bp INT NOT NULL,
+                    prior_weight INT NOT NULL,
+                    max_overbook_bp INT NOT NULL,
+                    PRIMARY KEY (flight_code, seat_class)
+                )
+            """);
+
+            // Running totals of departed bookings and no-shows, advanced one day at a time
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS no_show_stats (
+                    flight_code INT NOT NULL,
+                    seat_class VARCHAR(10) NOT NULL,
+                    departed INT NOT NULL DEFAULT 0,
+                    no_shows INT NOT NULL DEFAULT 0,
+                    PRIMARY KEY (flight_code, seat_class)
+                )
+            """);
+
+            // Last travel date folded into an incremental rollup, per rollup name
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS rollup_watermarks (
+                    name VARCHAR(50) PRIMARY KEY,
+                    last_date DATE NOT NULL
+                )
+            """);
+
+            // Append-only log of booking state changes, written in the same transaction as the change.
+            // origin identifies the running application that wrote the event
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS booking_events (
+                    event_seq BIGSERIAL PRIMARY KEY,
+                    event_type VARCHAR(20) NOT NULL,
+                    reservation_id INT,
+                    cust_id INT NOT NULL,
+                    flight_code INT NOT NULL,
+                    travel_date DATE NOT NULL,
+                    seat_class VARCHAR(10) NOT NULL,
+                    fare_bucket CHAR(1),
+                    seat_number INT DEFAULT 0,
+                    old_seat INT DEFAULT 0,
+                    amount DECIMAL(10,2),
+                    origin VARCHAR(36) NOT NULL,
+                    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                )
+            """);
+
+            // Booking totals per travel date, flight and cabin, kept up to date from booking_events.
+            // fares counts every booking ever made and refunds every refund paid, so revenue is their difference
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS booking_rollups (
+                    travel_date DATE NOT NULL,
+                    flight_code INT NOT NULL,
+                    seat_class VARCHAR(10) NOT NULL,
+                    booked INT NOT NULL DEFAULT 0,
+                    confirmed INT NOT NULL DEFAULT 0,
+                    cancelled INT NOT NULL DEFAULT 0,
+                    fares DECIMAL(12,2) NOT NULL DEFAULT 0,
+                    refunds DECIMAL(12,2) NOT NULL DEFAULT 0,
+                    PRIMARY KEY (travel_date, flight_code, seat_class)
+                )
+            """);
+
+            // Rendered reports, one row per version; input_seq is the newest booking event each reflects
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS report_artifacts (
+                    report_name VARCHAR(30) NOT NULL,
+                    version INT NOT NULL,
+                    input_seq BIGINT NOT NULL,
+                    generated_at TIMESTAMP NOT NULL,
+                    render_millis BIGINT,
+                    body TEXT NOT NULL,
+                    PRIMARY KEY (report_name, version)
+                )
+            """);
+
+            // Customers merged into another by CustomerIdentityService.deduplicate; booking_events keeps
+            // the merged ids, and readers map them to the survivor through this table
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS customer_merges (
+                    merged_cust_id INT PRIMARY KEY,
+                    survivor_cust_id INT NOT NULL
+                )
+            """);
+
+            // Last event handled by each durable consumer of booking_events
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS event_offsets (
+                    consumer VARCHAR(50) PRIMARY KEY,
+                    last_seq BIGINT NOT NULL,
+                    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                )
+            """);
+
+            // Sequence numbers a durable consumer stepped over before their events committed; an event
+            // that commits under one later is still delivered (see BookingEventLog)
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS event_gaps (
+                    consumer VARCHAR(50) NOT NULL,
+                    event_seq BIGINT NOT NULL,
+                    skipped_at TIMESTAMP NOT NULL,
+                    PRIMARY KEY (consumer, event_seq)
                 )
             """);
 
             insertSampleData(conn);
+            // Merge duplicate customers and make identity keys unique, before anything caches customer ids
+            CustomerIdentityService.getInstance().deduplicate(conn);
             LOGGER.info("Database setup completed successfully!");
 
         } catch (SQLException e) {
@@ -213,6 +477,52 @@ public final class DatabaseConnection {
                 }
             }
 
+            // Check and insert fleet
+            String checkFleet = "SELECT COUNT(*) FROM fleet";
+            try (PreparedStatement ps = conn.prepareStatement(checkFleet);
+                 ResultSet rs = ps.executeQuery()) {
+                if (rs.next() && rs.getInt(1) == 0) {
+                    String insertFleet = "INSERT INTO fleet (no_aircraft, club_pre_capacity, eco_capacity, engine_type, cruise_speed, air_length, wing_span) VALUES (?, ?, ?, ?, ?, ?, ?)";
+                    try (PreparedStatement insertPs = conn.prepareStatement(insertFleet)) {
+                        Object[][] fleetData = {
+                            {"7P-LAA", 30, 150, "CFM56-5B", "840 km/h", "37.6 m", "35.8 m"},
+                            {"7P-LAB", 20, 180, "CFM56-7B", "842 km/h", "39.5 m", "35.8 m"},
+                            {"7P-LAC", 0, 200, "CFM56-5B", "840 km/h", "44.5 m", "35.8 m"},
+                            {"7P-LAD", 40, 160, "CFM56-7B", "842 km/h", "39.5 m", "35.8 m"},
+                            {"7P-LAE", 25, 140, "CFM56-5B", "840 km/h", "33.8 m", "35.8 m"},
+                            {"7P-LRJ", 12, 88, "CF34-10E", "829 km/h", "36.2 m", "28.7 m"}
+                        };
+                        for (Object[] aircraft : fleetData) {
+                            insertPs.setString(1, (String) aircraft[0]);
+                            insertPs.setInt(2, (Integer) aircraft[1]);
+                            insertPs.setInt(3, (Integer) aircraft[2]);
+                            insertPs.setString(4, (String) aircraft[3]);
+                            insertPs.setString(5, (String) aircraft[4]);
+                            insertPs.setString(6, (String) aircraft[5]);
+                            insertPs.setString(7, (String) aircraft[6]);
+                            insertPs.executeUpdate();
+                        }
+                        LOGGER.info("Sample fleet data inserted successfully.");
+                    }
+                }
+            }
+
+            // Check and assign aircraft to sample flights that have none
+            String assignAircraft = """
+                UPDATE flights SET fleet_id = (SELECT fleet_id FROM fleet WHERE no_aircraft = ?)
+                WHERE flight_name = ? AND fleet_id IS NULL
+            """;
+            try (PreparedStatement ps = conn.prepareStatement(assignAircraft)) {
+                String[][] assignments = {{"7P-LAA", "Lesotho101"}, {"7P-LAB", "Maluti102"}, {"7P-LAC", "Basotho103"},
+                                          {"7P-LAD", "Mohale104"}, {"7P-LAE", "Katse105"}};
+                for (String[] assignment : assignments) {
+                    ps.setString(1, assignment[0]);
+                    ps.setString(2, assignment[1]);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+
             // Check and insert customers
             String checkCustomers = "SELECT COUNT(*) FROM customer_details";
             try (PreparedStatement ps = conn.prepareStatement(checkCustomers);
@@ -306,6 +616,150 @@ public final class DatabaseConnection {
                     }
                 }
             }
+
+            // Check and insert concession rules
+            String checkConcessions = "SELECT COUNT(*) FROM concession_rules";
+            try (PreparedStatement ps = conn.prepareStatement(checkConcessions);
+                 ResultSet rs = ps.executeQuery()) {
+                if (rs.next() && rs.getInt(1) == 0) {
+                    String insertConcession = "INSERT INTO concession_rules (concession, discount_bp) VALUES (?, ?)";
+                    try (PreparedStatement insertPs = conn.prepareStatement(insertConcession)) {
+                        Object[][] concessionData = {
+                            {"None", 0}, {"Student", 2500}, {"Senior Citizen", 1300}, {"Cancer Patient", 5690}
+                        };
+                        for (Object[] rule : concessionData) {
+                            insertPs.setString(1, (String) rule[0]);
+                            insertPs.setInt(2, (Integer) rule[1]);
+                            insertPs.executeUpdate();
+                        }
+                        LOGGER.info("Concession rules inserted successfully.");
+                    }
+                }
+            }
+
+            // Check and insert refund rules
+            String checkRefundRules = "SELECT COUNT(*) FROM refund_rules";
+            try (PreparedStatement ps = conn.prepareStatement(checkRefundRules);
+                 ResultSet rs = ps.executeQuery()) {
+                if (rs.next() && rs.getInt(1) == 0) {
+                    String insertRule = "INSERT INTO refund_rules (reason, min_days_out, fee_bp, description) VALUES (?, ?, ?, ?)";
+                    try (PreparedStatement insertPs = conn.prepareStatement(insertRule)) {
+                        Object[][] ruleData = {
+                            {"Voluntary", 1, 1000, "10% cancellation fee (more than 24 hours)"},
+                            {"Voluntary", 0, 2500, "25% cancellation fee (within 24 hours)"},
+                            {"Flight Cancelled", 0, 0, "Full refund (flight cancelled)"}
+                        };
+                        for (Object[] rule : ruleData) {
+                            insertPs.setString(1, (String) rule[0]);
+                            insertPs.setInt(2, (Integer) rule[1]);
+                            insertPs.setInt(3, (Integer) rule[2]);
+                            insertPs.setString(4, (String) rule[3]);
+                            insertPs.executeUpdate();
+                        }
+                        LOGGER.info("Refund rules inserted successfully.");
+                    }
+                }
+            }
+
+            // Check and insert network default fare buckets
+            String checkBuckets = "SELECT COUNT(*) FROM fare_buckets";
+            try (PreparedStatement ps = conn.prepareStatement(checkBuckets);
+                 ResultSet rs = ps.executeQuery()) {
+                if (rs.next() && rs.getInt(1) == 0) {
+                    String insertBucket = "INSERT INTO fare_buckets (flight_code, seat_class, bucket_code, limit_bp, fare_bp) VALUES (0, ?, ?, ?, ?)";
+                    try (PreparedStatement insertPs = conn.prepareStatement(insertBucket)) {
+                        Object[][] bucketData = {
+                            {"Y", 10000, 16000}, {"B", 8500, 12500}, {"M", 7000, 10000}, {"Q", 5000, 8500}
+                        };
+                        for (String seatClass : new String[] {"Economy", "Business"}) {
+                            for (Object[] bucket : bucketData) {
+                                insertPs.setString(1, seatClass);
+                                insertPs.setString(2, (String) bucket[0]);
+                                insertPs.setInt(3, (Integer) bucket[1]);
+                                insertPs.setInt(4, (Integer) bucket[2]);
+                                insertPs.executeUpdate();
+                            }
+                        }
+                        LOGGER.info("Fare buckets inserted successfully.");
+                    }
+                }
+            }
+
+            // Check and insert default seat layouts
+            String checkLayouts = "SELECT COUNT(*) FROM seat_layouts";
+            try (PreparedStatement ps = conn.prepareStatement(checkLayouts);
+                 ResultSet rs = ps.executeQuery()) {
+                if (rs.next() && rs.getInt(1) == 0) {
+                    String insertLayout = "INSERT INTO seat_layouts (fleet_id, seat_class, seat_pattern, first_row, exit_rows, blocked_seats) VALUES (0, ?, ?, ?, ?, ?)";
+                    try (PreparedStatement insertPs = conn.prepareStatement(insertLayout)) {
+                        Object[][] layoutData = {
+                            {"Business", "AC|DF", 1, "", ""},
+                            {"Economy", "ABC|DEF", 10, "14,15", ""}
+                        };
+                        for (Object[] layout : layoutData) {
+                            insertPs.setString(1, (String) layout[0]);
+                            insertPs.setString(2, (String) layout[1]);
+                            insertPs.setInt(3, (Integer) layout[2]);
+                            insertPs.setString(4, (String) layout[3]);
+                            insertPs.setString(5, (String) layout[4]);
+                            insertPs.executeUpdate();
+                        }
+                        LOGGER.info("Seat layouts inserted successfully.");
+                    }
+                }
+            }
+
+            // Check and insert seat layouts for aircraft that differ from the default
+            String checkFleetLayouts = "SELECT COUNT(*) FROM seat_layouts WHERE fleet_id <> 0";
+            try (PreparedStatement ps = conn.prepareStatement(checkFleetLayouts);
+                 ResultSet rs = ps.executeQuery()) {
+                if (rs.next() && rs.getInt(1) == 0) {
+                    String insertLayout = """
+                        INSERT INTO seat_layouts (fleet_id, seat_class, seat_pattern, first_row, exit_rows, blocked_seats)
+                        SELECT fleet_id, ?, ?, ?, ?, ? FROM fleet WHERE no_aircraft = ?
+                    """;
+                    try (PreparedStatement insertPs = conn.prepareStatement(insertLayout)) {
+                        Object[][] layoutData = {
+                            {"7P-LRJ", "Business", "A|CD", 1, "", ""},
+                            {"7P-LRJ", "Economy", "AC|DF", 5, "12,13", ""},
+                            {"7P-LAD", "Economy", "ABC|DEF", 12, "16,17", "12A,12F"}
+                        };
+                        for (Object[] layout : layoutData) {
+                            insertPs.setString(1, (String) layout[1]);
+                            insertPs.setString(2, (String) layout[2]);
+                            insertPs.setInt(3, (Integer) layout[3]);
+                            insertPs.setString(4, (String) layout[4]);
+                            insertPs.setString(5, (String) layout[5]);
+                            insertPs.setString(6, (String) layout[0]);
+                            insertPs.executeUpdate();
+                        }
+                        LOGGER.info("Fleet seat layouts inserted successfully.");
+                    }
+                }
+            }
+
+            // Check and insert network default overbooking rules
+            String checkOverbooking = "SELECT COUNT(*) FROM overbooking_rules";
+            try (PreparedStatement ps = conn.prepareStatement(checkOverbooking);
+                 ResultSet rs = ps.executeQuery()) {
+                if (rs.next() && rs.getInt(1) == 0) {
+                    String insertRule = "INSERT INTO overbooking_rules (flight_code, seat_class, prior_no_show_bp, prior_weight, max_overbook_bp) VALUES (0, ?, ?, ?, ?)";
+                    try (PreparedStatement insertPs = conn.prepareStatement(insertRule)) {
+                        Object[][] ruleData = {
+                            {"Economy", 800, 200, 1000},
+                            {"Business", 500, 100, 500}
+                        };
+                        for (Object[] rule : ruleData) {
+                            insertPs.setString(1, (String) rule[0]);
+                            insertPs.setInt(2, (Integer) rule[1]);
+                            insertPs.setInt(3, (Integer) rule[2]);
+                            insertPs.setInt(4, (Integer) rule[3]);
+                            insertPs.executeUpdate();
+                        }
+                        LOGGER.info("Overbooking rules inserted successfully.");
+                    }
+                }
+            }
         } catch (SQLException e) {
             LOGGER.log(Level.WARNING, "Failed to insert sample data", e);
         }
@@ -1,5 +1,20 @@
 package com.example.airlinereservationsystem;
 
+import com.example.airlinereservationsystem.services.AuthenticationService;
+import com.example.airlinereservationsystem.services.BookingPaceStore;
+import com.example.airlinereservationsystem.services.CustomerBookingsService;
+import com.example.airlinereservationsystem.services.FareEngine;
+import com.example.airlinereservationsystem.services.OverbookingService;
+import com.example.airlinereservationsystem.services.PassengerSearchIndex;
+import com.example.airlinereservationsystem.services.BookingCacheSync;
+import com.example.airlinereservationsystem.services.PromotionOutbox;
+import com.example.airlinereservationsystem.services.RefundEngine;
+import com.example.airlinereservationsystem.services.ReportService;
+import com.example.airlinereservationsystem.services.ReportingStore;
+import com.example.airlinereservationsystem.services.SeatHoldService;
+import com.example.airlinereservationsystem.services.SeatInventory;
+import com.example.airlinereservationsystem.services.SeatMapService;
+import com.example.airlinereservationsystem.services.WaitlistClearingJob;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -19,9 +34,27 @@ public class Main extends Application {
             try {
                 DatabaseConnection.setupDatabase();
                 LOGGER.info("Database setup completed successfully");
+                CustomerBookingsService.getInstance().linkUsers();
+                CustomerBookingsService.getInstance().start();
+                FareEngine.getInstance().refresh();
+                RefundEngine.getInstance().refresh();
+                SeatInventory.getInstance().refresh();
+                SeatMapService.getInstance().refresh();
+                // Tail bookings from other clients from the snapshot the seat counts were loaded at
+                BookingCacheSync.getInstance().start();
+                OverbookingService.getInstance().refresh();
+                SeatHoldService.getInstance().recover();
+                WaitlistClearingJob.getInstance().start();
+                PromotionOutbox.getInstance().start();
+                ReportingStore.getInstance().start();
+                BookingPaceStore.getInstance().start();
+                PassengerSearchIndex.getInstance().start();
+                ReportService.getInstance().start();
             } catch (Exception dbError) {
                 LOGGER.log(Level.WARNING, "Database setup failed, continuing in demo mode", dbError);
             }
+            // Tune password hashing before the first login is checked
+            AuthenticationService.getInstance().start();
 
             // Load the login screen first
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/example/airlinereservationsystem/login.fxml"));
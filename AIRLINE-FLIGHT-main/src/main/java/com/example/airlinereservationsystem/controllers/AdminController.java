@@ -2,7 +2,19 @@ package com.example.airlinereservationsystem.controllers;
 
 import com.example.airlinereservationsystem.DatabaseConnection;
 import com.example.airlinereservationsystem.models.User;
+import com.example.airlinereservationsystem.services.AuthenticationService;
+import com.example.airlinereservationsystem.services.DynamicPricingEngine;
+import com.example.airlinereservationsystem.services.ExportService;
+import com.example.airlinereservationsystem.services.FareEngine;
+import com.example.airlinereservationsystem.services.OverbookingService;
+import com.example.airlinereservationsystem.services.RefundEngine;
+import com.example.airlinereservationsystem.services.ReservationService;
+import com.example.airlinereservationsystem.services.SeatInventory;
+import com.example.airlinereservationsystem.services.SeatMapService;
+import com.example.airlinereservationsystem.services.SessionContext;
+import com.example.airlinereservationsystem.utils.Money;
 import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.concurrent.Task;
@@ -10,9 +22,14 @@ import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.FileChooser;
 
+import java.io.File;
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -34,6 +51,9 @@ public class AdminController {
     @FXML private PasswordField passwordField;
     @FXML private TextField fullNameField;
     @FXML private ComboBox<String> roleCombo;
+    @FXML private Button prevUsersBtn;
+    @FXML private Button nextUsersBtn;
+    @FXML private Label usersPageLabel;
     
     // System Statistics
     @FXML private Label totalUsersLabel;
@@ -46,6 +66,20 @@ public class AdminController {
     @FXML private TextArea sqlQueryArea;
     @FXML private TextArea queryResultArea;
     @FXML private Button executeQueryBtn;
+    @FXML private Button explainQueryBtn;
+    @FXML private Button cancelQueryBtn;
+    @FXML private Button clearQueryBtn;
+    @FXML private ComboBox<Integer> rowLimitCombo;
+    @FXML private Label queryStatsLabel;
+    @FXML private TableView<ObservableList<String>> queryResultTable;
+    
+    // Data Export
+    @FXML private ComboBox<ExportService.Dataset> exportDatasetCombo;
+    @FXML private ComboBox<ExportService.Format> exportFormatCombo;
+    @FXML private Button exportBtn;
+    @FXML private Button cancelExportBtn;
+    @FXML private ProgressBar exportProgress;
+    @FXML private Label exportStatusLabel;
     
     // Reservation Management
     @FXML private TableView<ReservationInfo> reservationsTable;
@@ -58,6 +92,19 @@ public class AdminController {
     private ObservableList<User> usersList = FXCollections.observableArrayList();
     private ObservableList<ReservationInfo> reservationsList = FXCollections.observableArrayList();
     
+    private ObservableList<ObservableList<String>> queryResultRows = FXCollections.observableArrayList();
+    
+    private static final int DEFAULT_ROW_LIMIT = 1000;
+    private static final int CONSOLE_FETCH_SIZE = 500;
+    private static final int RESULT_BATCH_SIZE = 200;
+    private Task<String> queryTask;
+    private volatile Statement runningStatement;
+    
+    private final ExportService exportService = new ExportService();
+    private final SessionContext session = SessionContext.getInstance();
+    private int usersPage;
+    private Task<ExportService.ExportResult> exportTask;
+    
     @FXML
     public void initialize() {
         try {
@@ -90,6 +137,9 @@ public class AdminController {
         statusColumn.setCellValueFactory(new PropertyValueFactory<>("status"));
         reservationsTable.setItems(reservationsList);
         
+        // SQL console results
+        queryResultTable.setItems(queryResultRows);
+        
         // Selection listeners
         usersTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
             if (newSelection != null) {
@@ -101,6 +151,14 @@ public class AdminController {
     private void setupComboBoxes() {
         roleCombo.setItems(FXCollections.observableArrayList("Admin", "Staff", "Customer"));
         roleCombo.setValue("Customer");
+        
+        rowLimitCombo.setItems(FXCollections.observableArrayList(100, 1000, 10000, 100000));
+        rowLimitCombo.setValue(DEFAULT_ROW_LIMIT);
+        
+        exportDatasetCombo.setItems(FXCollections.observableArrayList(ExportService.Dataset.values()));
+        exportDatasetCombo.setValue(ExportService.Dataset.RESERVATIONS);
+        exportFormatCombo.setItems(FXCollections.observableArrayList(ExportService.Format.values()));
+        exportFormatCombo.setValue(ExportService.Format.CSV);
     }
     
     private void loadSystemData() {
@@ -109,6 +167,8 @@ public class AdminController {
             protected Void call() throws Exception {
                 loadUsers();
                 loadReservations();
+                // Rules loaded within the last few minutes are kept; Refresh reloads them
+                session.refreshRules();
                 return null;
             }
         };
@@ -129,37 +189,59 @@ public class AdminController {
         new Thread(loadTask).start();
     }
     
+    /**
+     * Show the current page of users; pages are cached in the session until a user is changed
+     */
     private void loadUsers() throws SQLException {
-        String sql = "SELECT user_id, username, full_name, role, created_at FROM users ORDER BY created_at DESC";
+        int total = session.getUserCount();
+        int pages = Math.max(1, (total + SessionContext.USERS_PAGE_SIZE - 1) / SessionContext.USERS_PAGE_SIZE);
+        // Deleting users may have removed the last page
+        int page = usersPage = Math.min(usersPage, pages - 1);
+        List<User> users = session.getUsers(page);
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            
-            ObservableList<User> users = FXCollections.observableArrayList();
-            while (rs.next()) {
-                User user = new User(
-                    rs.getString("username"),
-                    "", // Don't load password for security
-                    rs.getString("full_name"),
-                    rs.getString("role")
-                );
-                user.setUserId(rs.getInt("user_id"));
-                user.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-                users.add(user);
-            }
-            
-            Platform.runLater(() -> {
-                usersList.clear();
-                usersList.addAll(users);
-            });
+        Platform.runLater(() -> {
+            usersList.setAll(users);
+            usersPageLabel.setText("Page " + (page + 1) + " of " + pages + " (" + total + " users)");
+            prevUsersBtn.setDisable(page == 0);
+            nextUsersBtn.setDisable(page + 1 >= pages);
+        });
+    }
+    
+    @FXML
+    protected void onPrevUsers(ActionEvent event) {
+        if (usersPage > 0) {
+            usersPage--;
+            showUsersPage();
         }
     }
     
+    @FXML
+    protected void onNextUsers(ActionEvent event) {
+        usersPage++;
+        showUsersPage();
+    }
+    
+    private void showUsersPage() {
+        Task<Void> pageTask = new Task<Void>() {
+            @Override
+            protected Void call() throws Exception {
+                loadUsers();
+                return null;
+            }
+        };
+        
+        pageTask.setOnFailed(e -> {
+            LOGGER.log(Level.SEVERE, "Failed to load users", pageTask.getException());
+            showError("Database Error", "Failed to load users: " + pageTask.getException().getMessage());
+        });
+        
+        new Thread(pageTask).start();
+    }
+    
     private void loadReservations() throws SQLException {
         String sql = """
             SELECT r.reservation_id, r.pnr, c.cust_name, f.flight_name, 
-                   r.seat_class, r.seat_number, r.status, r.travel_date
+                   r.seat_class, r.seat_number, r.status, r.travel_date, r.flight_code
             FROM reservations r
             JOIN customer_details c ON r.cust_id = c.cust_id
             JOIN flights f ON r.flight_code = f.flight_code
@@ -178,7 +260,9 @@ public class AdminController {
                     rs.getString("cust_name"),
                     rs.getString("flight_name"),
                     rs.getString("seat_class") + " - Seat " + rs.getInt("seat_number"),
-                    rs.getString("status")
+                    rs.getString("status"),
+                    rs.getInt("flight_code"),
+                    rs.getDate("travel_date").toLocalDate()
                 );
                 reservations.add(info);
             }
@@ -241,32 +325,52 @@ public class AdminController {
     
     @FXML
     protected void onAddUser(ActionEvent event) {
-        try {
-            if (!validateUserForm()) return;
-            
-            String sql = "INSERT INTO users (username, password, full_name, role, created_at) VALUES (?, ?, ?, ?, ?)";
-            
-            try (Connection conn = DatabaseConnection.getConnection();
-                 PreparedStatement ps = conn.prepareStatement(sql)) {
-                
-                ps.setString(1, usernameField.getText().trim());
-                ps.setString(2, passwordField.getText()); // In production, hash this
-                ps.setString(3, fullNameField.getText().trim());
-                ps.setString(4, roleCombo.getValue());
-                ps.setTimestamp(5, Timestamp.valueOf(LocalDateTime.now()));
-                
-                ps.executeUpdate();
+        if (!validateUserForm()) return;
+        
+        String username = usernameField.getText().trim();
+        String password = passwordField.getText();
+        String fullName = fullNameField.getText().trim();
+        String role = roleCombo.getValue();
+        
+        // Hashing the password is slow by design, so the insert runs on the authentication worker
+        Task<Void> addTask = new Task<Void>() {
+            @Override
+            protected Void call() throws Exception {
+                String sql = "INSERT INTO users (username, password, full_name, role, created_at) VALUES (?, ?, ?, ?, ?)";
                 
-                showInfo("Success", "User added successfully!");
-                clearUserForm();
+                try (Connection conn = DatabaseConnection.getConnection();
+                     PreparedStatement ps = conn.prepareStatement(sql)) {
+                    
+                    ps.setString(1, username);
+                    ps.setString(2, AuthenticationService.getInstance().hash(password));
+                    ps.setString(3, fullName);
+                    ps.setString(4, role);
+                    ps.setTimestamp(5, Timestamp.valueOf(LocalDateTime.now()));
+                    
+                    ps.executeUpdate();
+                }
+                return null;
+            }
+        };
+        
+        addTask.setOnSucceeded(e -> {
+            showInfo("Success", "User added successfully!");
+            clearUserForm();
+            session.invalidateUsers();
+            try {
                 loadUsers();
-                updateSystemStatistics();
-                
+            } catch (SQLException ex) {
+                LOGGER.log(Level.SEVERE, "Failed to reload users", ex);
             }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Failed to add user", e);
-            showError("Database Error", "Failed to add user: " + e.getMessage());
-        }
+            updateSystemStatistics();
+        });
+        
+        addTask.setOnFailed(e -> {
+            LOGGER.log(Level.SEVERE, "Failed to add user", addTask.getException());
+            showError("Database Error", "Failed to add user: " + addTask.getException().getMessage());
+        });
+        
+        AuthenticationService.getInstance().execute(addTask);
     }
     
     @FXML
@@ -294,6 +398,7 @@ public class AdminController {
                 
                 showInfo("Success", "User updated successfully!");
                 clearUserForm();
+                session.invalidateUsers();
                 loadUsers();
                 
             }
@@ -330,6 +435,7 @@ public class AdminController {
                             
                             showInfo("Success", "User deleted successfully!");
                             clearUserForm();
+                            session.invalidateUsers();
                             loadUsers();
                             updateSystemStatistics();
                         }
@@ -348,77 +454,307 @@ public class AdminController {
     
     @FXML
     protected void onExecuteQuery(ActionEvent event) {
-        try {
-            String query = sqlQueryArea.getText().trim();
-            if (query.isEmpty()) {
-                showError("Query Error", "Please enter a SQL query to execute.");
-                return;
-            }
-            
-            executeQueryBtn.setDisable(true);
-            queryResultArea.setText("Executing query...");
-            
-            Task<String> queryTask = new Task<String>() {
-                @Override
-                protected String call() throws Exception {
-                    try (Connection conn = DatabaseConnection.getConnection();
-                         Statement stmt = conn.createStatement()) {
+        String query = sqlQueryArea.getText().trim();
+        if (query.isEmpty()) {
+            showError("Query Error", "Please enter a SQL query to execute.");
+            return;
+        }
+        runConsoleStatement(query, false);
+    }
+    
+    @FXML
+    protected void onExplainQuery(ActionEvent event) {
+        String query = sqlQueryArea.getText().trim();
+        if (query.isEmpty()) {
+            showError("Query Error", "Please enter a SQL query to explain.");
+            return;
+        }
+        runConsoleStatement(query, true);
+    }
+    
+    @FXML
+    protected void onCancelQuery(ActionEvent event) {
+        Statement statement = runningStatement;
+        if (queryTask != null && queryTask.isRunning()) {
+            queryTask.cancel(false);
+        }
+        if (statement != null) {
+            // Statement.cancel asks the server to abort; do it off the FX thread
+            new Thread(() -> {
+                try {
+                    statement.cancel();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.WARNING, "Failed to cancel running query", e);
+                }
+            }).start();
+        }
+    }
+    
+    /**
+     * Run a console statement on its own connection. Result rows are fetched in chunks and
+     * appended to the result table in batches, up to the selected row limit.
+     * EXPLAIN ANALYZE really executes the statement, so it always runs in a rolled-back transaction.
+     */
+    private void runConsoleStatement(String query, boolean explain) {
+        String sql = stripTrailingSemicolon(query);
+        int rowLimit = rowLimitCombo.getValue() != null ? rowLimitCombo.getValue() : DEFAULT_ROW_LIMIT;
+        
+        queryResultTable.getColumns().clear();
+        queryResultRows.clear();
+        queryResultArea.setText(explain ? "Running EXPLAIN ANALYZE..." : "Executing query...");
+        executeQueryBtn.setDisable(true);
+        explainQueryBtn.setDisable(true);
+        cancelQueryBtn.setDisable(false);
+        // The stats label is bound and rows are still arriving until the statement finishes
+        clearQueryBtn.setDisable(true);
+        
+        queryTask = new Task<String>() {
+            @Override
+            protected String call() throws Exception {
+                long started = System.nanoTime();
+                try (Connection conn = DatabaseConnection.openDedicatedConnection();
+                     Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    
+                    // Autocommit off so PostgreSQL uses a cursor and honours the fetch size
+                    conn.setAutoCommit(false);
+                    stmt.setFetchSize(CONSOLE_FETCH_SIZE);
+                    stmt.setMaxRows(rowLimit + 1);
+                    runningStatement = stmt;
+                    
+                    try {
+                        if (explain) {
+                            String plan = explainAnalyze(stmt, sql);
+                            conn.rollback();
+                            return plan;
+                        }
                         
-                        if (query.toLowerCase().startsWith("select")) {
-                            try (ResultSet rs = stmt.executeQuery(query)) {
-                                StringBuilder result = new StringBuilder();
-                                ResultSetMetaData metaData = rs.getMetaData();
-                                int columnCount = metaData.getColumnCount();
-                                
-                                // Add column headers
-                                for (int i = 1; i <= columnCount; i++) {
-                                    result.append(metaData.getColumnName(i)).append("\t");
-                                }
-                                result.append("\n");
-                                
-                                // Add data rows
-                                while (rs.next()) {
-                                    for (int i = 1; i <= columnCount; i++) {
-                                        result.append(rs.getString(i)).append("\t");
-                                    }
-                                    result.append("\n");
-                                }
-                                
-                                return result.toString();
+                        String summary;
+                        // A query returns rows; an update count means DML or DDL, which may have changed data
+                        boolean changed = false;
+                        if (stmt.execute(sql)) {
+                            try (ResultSet rs = stmt.getResultSet()) {
+                                summary = streamRows(rs, rowLimit, started);
                             }
                         } else {
-                            int rowsAffected = stmt.executeUpdate(query);
-                            return "Query executed successfully. Rows affected: " + rowsAffected;
+                            int updated = stmt.getUpdateCount();
+                            summary = "Query executed successfully. Rows affected: " + updated;
+                            changed = updated >= 0;
+                        }
+                        conn.commit();
+                        
+                        if (changed) {
+                            // The statement may have changed fares, concession or refund rules, overbooking rules, seat layouts or bookings
+                            FareEngine.getInstance().refresh();
+                            RefundEngine.getInstance().refresh();
+                            SeatInventory.getInstance().refresh();
+                            SeatMapService.getInstance().refresh();
+                            OverbookingService.getInstance().refresh();
+                            DynamicPricingEngine.getInstance().invalidate();
+                            session.invalidateAll();
+                        }
+                        return summary;
+                    } catch (SQLException e) {
+                        try {
+                            conn.rollback();
+                        } catch (SQLException rollbackEx) {
+                            LOGGER.log(Level.SEVERE, "Failed to rollback console statement", rollbackEx);
                         }
+                        throw e;
+                    } finally {
+                        runningStatement = null;
                     }
                 }
-            };
+            }
             
-            queryTask.setOnSucceeded(e -> {
-                Platform.runLater(() -> {
-                    queryResultArea.setText(queryTask.getValue());
-                    executeQueryBtn.setDisable(false);
-                });
+            private String streamRows(ResultSet rs, int limit, long started) throws SQLException {
+                ResultSetMetaData metaData = rs.getMetaData();
+                int columnCount = metaData.getColumnCount();
+                String[] names = new String[columnCount];
+                for (int i = 1; i <= columnCount; i++) {
+                    names[i - 1] = metaData.getColumnLabel(i);
+                }
+                Platform.runLater(() -> createResultColumns(names));
+                
+                List<ObservableList<String>> batch = new ArrayList<>(RESULT_BATCH_SIZE);
+                int rows = 0;
+                boolean truncated = false;
+                while (rs.next()) {
+                    if (rows == limit) {
+                        truncated = true;
+                        break;
+                    }
+                    if (isCancelled()) break;
+                    
+                    ObservableList<String> row = FXCollections.observableArrayList();
+                    for (int i = 1; i <= columnCount; i++) {
+                        row.add(rs.getString(i));
+                    }
+                    batch.add(row);
+                    rows++;
+                    
+                    if (batch.size() == RESULT_BATCH_SIZE) {
+                        publishRows(batch);
+                        batch = new ArrayList<>(RESULT_BATCH_SIZE);
+                        updateMessage(formatQueryStats(rows, started));
+                    }
+                }
+                publishRows(batch);
+                updateMessage(formatQueryStats(rows, started));
+                
+                return truncated
+                    ? "Showing the first " + rows + " rows (row limit reached). Narrow the query or raise the limit."
+                    : rows + " row(s) returned.";
+            }
+        };
+        
+        queryStatsLabel.textProperty().bind(queryTask.messageProperty());
+        
+        queryTask.setOnSucceeded(e -> {
+            Platform.runLater(() -> {
+                finishConsoleStatement();
+                queryResultArea.setText(queryTask.getValue());
             });
-            
-            queryTask.setOnFailed(e -> {
-                Platform.runLater(() -> {
-                    queryResultArea.setText("Error: " + queryTask.getException().getMessage());
-                    executeQueryBtn.setDisable(false);
-                });
+        });
+        
+        queryTask.setOnCancelled(e -> {
+            Platform.runLater(() -> {
+                finishConsoleStatement();
+                queryResultArea.setText("Query cancelled after " + queryResultRows.size() + " row(s).");
             });
-            
-            new Thread(queryTask).start();
-            
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Failed to execute query", e);
-            showError("Query Error", "Failed to execute query: " + e.getMessage());
-            executeQueryBtn.setDisable(false);
+        });
+        
+        queryTask.setOnFailed(e -> {
+            Platform.runLater(() -> {
+                finishConsoleStatement();
+                queryResultArea.setText("Error: " + queryTask.getException().getMessage());
+            });
+        });
+        
+        new Thread(queryTask).start();
+    }
+    
+    private String explainAnalyze(Statement stmt, String sql) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (ResultSet rs = stmt.executeQuery("EXPLAIN ANALYZE " + sql)) {
+            while (rs.next()) {
+                plan.append(rs.getString(1)).append("\n");
+            }
+        }
+        return plan.toString();
+    }
+    
+    private void createResultColumns(String[] names) {
+        for (int i = 0; i < names.length; i++) {
+            final int index = i;
+            TableColumn<ObservableList<String>, String> column = new TableColumn<>(names[i]);
+            column.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().get(index)));
+            queryResultTable.getColumns().add(column);
+        }
+    }
+    
+    private void publishRows(List<ObservableList<String>> batch) {
+        if (batch.isEmpty()) return;
+        Platform.runLater(() -> queryResultRows.addAll(batch));
+    }
+    
+    private static String formatQueryStats(int rows, long startedNanos) {
+        double seconds = (System.nanoTime() - startedNanos) / 1_000_000_000.0;
+        long rate = seconds > 0 ? Math.round(rows / seconds) : rows;
+        return String.format("%,d rows • %.2f s • %,d rows/s", rows, seconds, rate);
+    }
+    
+    private static String stripTrailingSemicolon(String query) {
+        String sql = query.trim();
+        while (sql.endsWith(";")) {
+            sql = sql.substring(0, sql.length() - 1).trim();
+        }
+        return sql;
+    }
+    
+    private void finishConsoleStatement() {
+        String stats = queryStatsLabel.getText();
+        queryStatsLabel.textProperty().unbind();
+        queryStatsLabel.setText(stats);
+        executeQueryBtn.setDisable(false);
+        explainQueryBtn.setDisable(false);
+        cancelQueryBtn.setDisable(true);
+        clearQueryBtn.setDisable(false);
+    }
+    
+    @FXML
+    protected void onExportData(ActionEvent event) {
+        ExportService.Dataset dataset = exportDatasetCombo.getValue();
+        ExportService.Format format = exportFormatCombo.getValue();
+        if (dataset == null || format == null) {
+            showError("Export Error", "Please choose what to export and the file format.");
+            return;
+        }
+        
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export " + dataset);
+        chooser.setInitialFileName(dataset.name().toLowerCase() + "_" + LocalDate.now() + "." + format.getExtension());
+        chooser.getExtensionFilters().add(
+            new FileChooser.ExtensionFilter(format.toString(), "*." + format.getExtension()));
+        File file = chooser.showSaveDialog(exportBtn.getScene().getWindow());
+        if (file == null) return;
+        
+        exportTask = new Task<ExportService.ExportResult>() {
+            @Override
+            protected ExportService.ExportResult call() throws Exception {
+                return exportService.export(dataset, format, file.toPath(),
+                    (rows, total) -> {
+                        updateProgress(rows, Math.max(total, 1));
+                        updateMessage(String.format("Exported %,d of %,d rows...", rows, total));
+                    },
+                    this::isCancelled);
+            }
+        };
+        
+        exportProgress.progressProperty().bind(exportTask.progressProperty());
+        exportStatusLabel.textProperty().bind(exportTask.messageProperty());
+        exportBtn.setDisable(true);
+        cancelExportBtn.setDisable(false);
+        
+        exportTask.setOnSucceeded(e -> {
+            ExportService.ExportResult result = exportTask.getValue();
+            Platform.runLater(() -> {
+                finishExport(String.format("✅ Exported %,d rows (%,d KB) in %d ms",
+                    result.getRows(), result.getBytes() / 1024, result.getElapsedMillis()));
+                showInfo("Export Complete", result.getRows() + " rows written to " + result.getFile());
+            });
+        });
+        
+        exportTask.setOnCancelled(e -> Platform.runLater(() -> finishExport("⏹ Export cancelled")));
+        
+        exportTask.setOnFailed(e -> {
+            Platform.runLater(() -> {
+                finishExport("❌ Export failed");
+                showError("Export Error", "Failed to export data: " + exportTask.getException().getMessage());
+            });
+        });
+        
+        new Thread(exportTask).start();
+    }
+    
+    @FXML
+    protected void onCancelExport(ActionEvent event) {
+        if (exportTask != null && exportTask.isRunning()) {
+            // Don't interrupt: the export notices the flag and cleans up its partial file
+            exportTask.cancel(false);
         }
     }
     
+    private void finishExport(String status) {
+        exportProgress.progressProperty().unbind();
+        exportStatusLabel.textProperty().unbind();
+        exportStatusLabel.setText(status);
+        exportBtn.setDisable(false);
+        cancelExportBtn.setDisable(true);
+    }
+    
     @FXML
     protected void onRefreshData(ActionEvent event) {
+        session.invalidateAll();
         loadSystemData();
         updateSystemStatistics();
         systemStatusLabel.setText("🔄 Data refreshed");
@@ -439,19 +775,10 @@ public class AdminController {
         
         dialog.showAndWait().ifPresent(newSeat -> {
             try {
-                String sql = "UPDATE reservations SET seat_number = ? WHERE pnr = ?";
+                new ReservationService().reassignSeat(selectedReservation.getPnr(), Integer.parseInt(newSeat));
                 
-                try (Connection conn = DatabaseConnection.getConnection();
-                     PreparedStatement ps = conn.prepareStatement(sql)) {
-                    
-                    ps.setInt(1, Integer.parseInt(newSeat));
-                    ps.setString(2, selectedReservation.getPnr());
-                    
-                    ps.executeUpdate();
-                    
-                    showInfo("Success", "Seat reassigned successfully!");
-                    loadReservations();
-                }
+                showInfo("Success", "Seat reassigned successfully!");
+                loadReservations();
             } catch (Exception e) {
                 LOGGER.log(Level.SEVERE, "Failed to reassign seat", e);
                 showError("Database Error", "Failed to reassign seat: " + e.getMessage());
@@ -459,10 +786,58 @@ public class AdminController {
         });
     }
     
+    @FXML
+    protected void onCancelFlight(ActionEvent event) {
+        ReservationInfo selectedReservation = reservationsTable.getSelectionModel().getSelectedItem();
+        if (selectedReservation == null) {
+            showError("Selection Error", "Please select a reservation on the flight to cancel.");
+            return;
+        }
+        
+        Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
+        confirm.setTitle("Cancel Flight");
+        confirm.setHeaderText("Cancel " + selectedReservation.getFlightInfo() + " on " + selectedReservation.getTravelDate());
+        confirm.setContentText("Every confirmed booking on this flight date will be cancelled and refunded, its waiting list cleared "
+            + "and the date closed for sale. Continue?");
+        if (confirm.showAndWait().filter(response -> response == ButtonType.OK).isEmpty()) {
+            return;
+        }
+        
+        Task<ReservationService.FlightCancellationResult> cancelTask = new Task<ReservationService.FlightCancellationResult>() {
+            @Override
+            protected ReservationService.FlightCancellationResult call() throws Exception {
+                return new ReservationService().cancelFlight(selectedReservation.getFlightCode(),
+                                                             selectedReservation.getTravelDate());
+            }
+        };
+        
+        cancelTask.setOnSucceeded(e -> {
+            ReservationService.FlightCancellationResult result = cancelTask.getValue();
+            Platform.runLater(() -> {
+                showInfo("Flight Cancelled", String.format(
+                    "%d bookings cancelled and %d waiting passengers removed in %d ms.%nRefunds: M%s LSL%nFees kept: M%s LSL",
+                    result.getCancelled(), result.getWaitlistRemoved(), result.getDurationMillis(),
+                    Money.format(result.getRefundCents()), Money.format(result.getFeeCents())));
+                onRefreshData(null);
+            });
+        });
+        
+        cancelTask.setOnFailed(e -> {
+            LOGGER.log(Level.SEVERE, "Failed to cancel flight", cancelTask.getException());
+            Platform.runLater(() -> showError("Database Error", "Failed to cancel flight: " + cancelTask.getException().getMessage()));
+        });
+        
+        new Thread(cancelTask).start();
+    }
+    
     @FXML
     protected void onClearQuery(ActionEvent event) {
+        if (queryTask != null && queryTask.isRunning()) return;
         sqlQueryArea.clear();
         queryResultArea.clear();
+        queryResultTable.getColumns().clear();
+        queryResultRows.clear();
+        queryStatsLabel.setText("");
     }
     
     @FXML
@@ -587,13 +962,18 @@ public class AdminController {
         private String flightInfo;
         private String seatInfo;
         private String status;
+        private final int flightCode;
+        private final LocalDate travelDate;
         
-        public ReservationInfo(String pnr, String passengerName, String flightInfo, String seatInfo, String status) {
+        public ReservationInfo(String pnr, String passengerName, String flightInfo, String seatInfo, String status,
+                               int flightCode, LocalDate travelDate) {
             this.pnr = pnr;
             this.passengerName = passengerName;
             this.flightInfo = flightInfo;
             this.seatInfo = seatInfo;
             this.status = status;
+            this.flightCode = flightCode;
+            this.travelDate = travelDate;
         }
         
         // Getters
@@ -602,6 +982,8 @@ public class AdminController {
         public String getFlightInfo() { return flightInfo; }
         public String getSeatInfo() { return seatInfo; }
         public String getStatus() { return status; }
+        public int getFlightCode() { return flightCode; }
+        public LocalDate getTravelDate() { return travelDate; }
         
         // Setters for JavaFX property binding
         public void setPnr(String pnr) { this.pnr = pnr; }
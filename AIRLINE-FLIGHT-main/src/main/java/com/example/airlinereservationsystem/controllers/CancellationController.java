@@ -2,6 +2,13 @@ package com.example.airlinereservationsystem.controllers;
 
 import com.example.airlinereservationsystem.DatabaseConnection;
 import com.example.airlinereservationsystem.models.Reservation;
+import com.example.airlinereservationsystem.services.BookingEventLog;
+import com.example.airlinereservationsystem.services.PassengerSearchIndex;
+import com.example.airlinereservationsystem.services.PromotionOutbox;
+import com.example.airlinereservationsystem.services.RefundEngine;
+import com.example.airlinereservationsystem.services.ReservationService;
+import com.example.airlinereservationsystem.services.SeatInventory;
+import com.example.airlinereservationsystem.utils.Money;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -14,10 +21,10 @@ import javafx.scene.layout.VBox;
 import javafx.scene.layout.HBox;
 
 import java.sql.*;
-import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 /**
  * Controller for Flight Cancellation Module
@@ -26,6 +33,9 @@ import java.util.logging.Logger;
 public class CancellationController {
     private static final Logger LOGGER = Logger.getLogger(CancellationController.class.getName());
     
+    private ReservationService reservationService = new ReservationService();
+    private PassengerSearchIndex passengerSearch = PassengerSearchIndex.getInstance();
+    
     // Search Section
     @FXML private TextField pnrField;
     @FXML private Button searchBtn;
@@ -75,6 +85,9 @@ public class CancellationController {
     
     private ObservableList<Reservation> allBookings = FXCollections.observableArrayList();
     private Reservation selectedBooking;
+    // Amounts shown in the refund section, in cents
+    private long cancellationFeeCents;
+    private long refundCents;
     private int currentPage = 1;
     private final int itemsPerPage = 10;
     private int totalPages = 1;
@@ -151,6 +164,9 @@ public class CancellationController {
                         calculateRefund(booking);
                         showDetailsSection();
                         messageLabel.setText("✅ Booking found");
+                    } else if (passengerSearch.size() > 0) {
+                        hideDetailsSection();
+                        searchSimilarBookings(pnr);
                     } else {
                         hideDetailsSection();
                         messageLabel.setText("❌ No booking found with PNR: " + pnr);
@@ -177,9 +193,59 @@ public class CancellationController {
         }
     }
     
+    /**
+     * No exact match: list the bookings whose passenger name, phone number or PNR come closest
+     */
+    private void searchSimilarBookings(String query) {
+        searchProgress.setVisible(true);
+        searchBtn.setDisable(true);
+        messageLabel.setText("🔍 Searching similar bookings...");
+
+        Task<List<Reservation>> searchTask = new Task<List<Reservation>>() {
+            @Override
+            protected List<Reservation> call() throws Exception {
+                List<Integer> ids = passengerSearch.search(query, PassengerSearchIndex.DEFAULT_LIMIT).stream()
+                    .map(PassengerSearchIndex.Match::getReservationId)
+                    .collect(Collectors.toList());
+                return reservationService.getReservations(ids);
+            }
+        };
+
+        searchTask.setOnSucceeded(e -> {
+            Platform.runLater(() -> {
+                searchProgress.setVisible(false);
+                searchBtn.setDisable(false);
+
+                List<Reservation> matches = searchTask.getValue();
+                if (matches.isEmpty()) {
+                    messageLabel.setText("❌ No booking found for: " + query);
+                    showAlert("Not Found", "No booking found for: " + query);
+                    return;
+                }
+
+                allBookings.setAll(matches);
+                totalPages = (int) Math.ceil((double) allBookings.size() / itemsPerPage);
+                currentPage = 1;
+                updatePagination();
+                messageLabel.setText("🔍 " + matches.size() + " similar bookings, best match first - double-click one to select it");
+            });
+        });
+
+        searchTask.setOnFailed(e -> {
+            Platform.runLater(() -> {
+                searchProgress.setVisible(false);
+                searchBtn.setDisable(false);
+                messageLabel.setText("❌ Search failed");
+                LOGGER.log(Level.SEVERE, "Failed to search similar bookings", searchTask.getException());
+            });
+        });
+
+        new Thread(searchTask).start();
+    }
+    
     private Reservation searchBookingByPNR(String pnr) throws SQLException {
         String sql = """
-            SELECT r.*, c.cust_name, f.flight_name
+            SELECT r.*, c.cust_name, c.concession, f.flight_name
             FROM reservations r
             JOIN customer_details c ON r.cust_id = c.cust_id
             JOIN flights f ON r.flight_code = f.flight_code
@@ -202,10 +268,12 @@ public class CancellationController {
                     reservation.setTravelDate(rs.getDate("travel_date").toLocalDate());
                     reservation.setSeatClass(rs.getString("seat_class"));
                     reservation.setSeatNumber(rs.getInt("seat_number"));
-                    reservation.setFare(rs.getDouble("fare"));
+                    reservation.setFareCents(Money.read(rs, "fare"));
+                    reservation.setFareBucket(rs.getString("fare_bucket"));
                     reservation.setStatus(rs.getString("status"));
                     reservation.setFlightCode(rs.getInt("flight_code"));
                     reservation.setCustId(rs.getInt("cust_id"));
+                    reservation.setConcession(rs.getString("concession"));
                     
                     return reservation;
                 }
@@ -221,8 +289,8 @@ public class CancellationController {
         flightLabel.setText(booking.getFlightName());
         travelDateLabel.setText(booking.getTravelDate().toString());
         classLabel.setText(booking.getSeatClass());
-        seatLabel.setText(String.valueOf(booking.getSeatNumber()));
-        farePaidLabel.setText(String.format("M%.2f LSL", booking.getFare()));
+        seatLabel.setText(booking.getSeatLabel());
+        farePaidLabel.setText("M" + Money.format(booking.getFareCents()) + " LSL");
         statusLabel.setText(booking.getStatus());
         
         // Set status color
@@ -236,37 +304,26 @@ public class CancellationController {
     }
     
     private void calculateRefund(Reservation booking) {
-        double originalFare = booking.getFare();
-        double cancellationFee = 0.0;
-        double refundAmount = 0.0;
+        long originalFare = booking.getFareCents();
+        long cancellationFee;
+        long refundAmount;
         
         if ("Cancelled".equals(booking.getStatus())) {
             // Already cancelled
             cancellationFee = originalFare;
-            refundAmount = 0.0;
+            refundAmount = Money.ZERO;
         } else {
-            // Calculate cancellation fee based on time until departure
-            LocalDate travelDate = booking.getTravelDate();
-            LocalDate today = LocalDate.now();
-            long daysUntilTravel = ChronoUnit.DAYS.between(today, travelDate);
-            
-            if (daysUntilTravel > 1) {
-                // More than 24 hours: 10% fee
-                cancellationFee = originalFare * 0.10;
-            } else if (daysUntilTravel >= 0) {
-                // Within 24 hours: 25% fee
-                cancellationFee = originalFare * 0.25;
-            } else {
-                // Past travel date: No refund
-                cancellationFee = originalFare;
-            }
-            
-            refundAmount = originalFare - cancellationFee;
+            // Fee set by the refund rules for this fare, concession and time until departure
+            RefundEngine.Refund refund = RefundEngine.getInstance().quote(booking, RefundEngine.VOLUNTARY);
+            cancellationFee = refund.getFeeCents();
+            refundAmount = refund.getRefundCents();
         }
         
-        originalFareLabel.setText(String.format("M%.2f LSL", originalFare));
-        cancellationFeeLabel.setText(String.format("M%.2f LSL", cancellationFee));
-        refundAmountLabel.setText(String.format("M%.2f LSL", refundAmount));
+        cancellationFeeCents = cancellationFee;
+        refundCents = refundAmount;
+        originalFareLabel.setText("M" + Money.format(originalFare) + " LSL");
+        cancellationFeeLabel.setText("M" + Money.format(cancellationFee) + " LSL");
+        refundAmountLabel.setText("M" + Money.format(refundAmount) + " LSL");
         
         // Enable/disable cancel button
         cancelBookingBtn.setDisable("Cancelled".equals(booking.getStatus()));
@@ -330,7 +387,8 @@ public class CancellationController {
                     loadAllBookings();
                 } else {
                     messageLabel.setText("❌ Cancellation failed");
-                    showAlert("Cancellation Failed", "Failed to cancel booking. Please try again.");
+                    showAlert("Cancellation Failed", "This booking is no longer confirmed; it may already have been cancelled.");
+                    onSearchBooking(null);
                 }
             });
         });
@@ -353,11 +411,14 @@ public class CancellationController {
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false);
             
-            // 1. Update reservation status
-            String updateReservationSql = "UPDATE reservations SET status = 'Cancelled' WHERE reservation_id = ?";
+            // 1. Update reservation status; a booking already cancelled (here or by another user) is left alone
+            String updateReservationSql = "UPDATE reservations SET status = 'Cancelled' WHERE reservation_id = ? AND status = 'Confirmed'";
             try (PreparedStatement ps = conn.prepareStatement(updateReservationSql)) {
                 ps.setInt(1, selectedBooking.getReservationId());
-                ps.executeUpdate();
+                if (ps.executeUpdate() == 0) {
+                    conn.rollback();
+                    return false;
+                }
             }
             
             // 2. Insert cancellation record
@@ -366,20 +427,23 @@ public class CancellationController {
                 VALUES (?, CURRENT_DATE, ?, ?)
             """;
             
-            double refundAmount = Double.parseDouble(refundAmountLabel.getText().replace("M", "").replace(" LSL", ""));
-            double cancellationFee = Double.parseDouble(cancellationFeeLabel.getText().replace("M", "").replace(" LSL", ""));
-            
             try (PreparedStatement ps = conn.prepareStatement(insertCancellationSql)) {
                 ps.setInt(1, selectedBooking.getReservationId());
-                ps.setDouble(2, refundAmount);
-                ps.setDouble(3, cancellationFee);
+                Money.bind(ps, 2, refundCents);
+                Money.bind(ps, 3, cancellationFeeCents);
                 ps.executeUpdate();
             }
+            BookingEventLog.getInstance().append(conn, BookingEventLog.cancelled(selectedBooking, refundCents));
             
-            // 3. Check waiting list and promote if available
-            promoteFromWaitingList(conn, selectedBooking.getFlightCode(), selectedBooking.getSeatClass());
+            // 3. Hand the seat to the promotion worker; the first passenger waiting for the same date
+            //    takes it over after this commits
+            PromotionOutbox promotions = PromotionOutbox.getInstance();
+            promotions.enqueue(conn, "cancel-" + selectedBooking.getReservationId(), selectedBooking.getFlightCode(),
+                               selectedBooking.getTravelDate(), selectedBooking.getSeatClass(),
+                               SeatInventory.bucketIndex(selectedBooking.getFareBucket()), selectedBooking.getSeatNumber());
             
             conn.commit();
+            promotions.wake();
             return true;
             
         } catch (SQLException e) {
@@ -403,59 +467,6 @@ public class CancellationController {
         }
     }
     
-    private void promoteFromWaitingList(Connection conn, int flightCode, String seatClass) throws SQLException {
-        // Get first person from waiting list
-        String waitingSql = """
-            SELECT w.*, c.cust_name
-            FROM waiting_list w
-            JOIN customer_details c ON w.cust_id = c.cust_id
-            WHERE w.flight_code = ? AND w.seat_class = ?
-            ORDER BY w.waiting_no
-            LIMIT 1
-        """;
-        
-        try (PreparedStatement ps = conn.prepareStatement(waitingSql)) {
-            ps.setInt(1, flightCode);
-            ps.setString(2, seatClass);
-            
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    int custId = rs.getInt("cust_id");
-                    LocalDate travelDate = rs.getDate("travel_date").toLocalDate();
-                    
-                    // Create confirmed reservation
-                    String insertReservationSql = """
-                        INSERT INTO reservations (cust_id, flight_code, seat_class, seat_number, status, fare, travel_date, pnr)
-                        VALUES (?, ?, ?, ?, 'Confirmed', ?, ?, ?)
-                    """;
-                    
-                    try (PreparedStatement insertPs = conn.prepareStatement(insertReservationSql)) {
-                        insertPs.setInt(1, custId);
-                        insertPs.setInt(2, flightCode);
-                        insertPs.setString(3, seatClass);
-                        insertPs.setInt(4, selectedBooking.getSeatNumber()); // Assign the cancelled seat
-                        insertPs.setDouble(5, selectedBooking.getFare());
-                        insertPs.setDate(6, Date.valueOf(travelDate));
-                        insertPs.setString(7, "PNR" + System.currentTimeMillis() % 1000000);
-                        
-                        insertPs.executeUpdate();
-                    }
-                    
-                    // Remove from waiting list
-                    String deleteWaitingSql = "DELETE FROM waiting_list WHERE flight_code = ? AND cust_id = ? AND seat_class = ?";
-                    try (PreparedStatement deletePs = conn.prepareStatement(deleteWaitingSql)) {
-                        deletePs.setInt(1, flightCode);
-                        deletePs.setInt(2, custId);
-                        deletePs.setString(3, seatClass);
-                        deletePs.executeUpdate();
-                    }
-                    
-                    LOGGER.info("Promoted customer from waiting list: " + rs.getString("cust_name"));
-                }
-            }
-        }
-    }
-    
     @FXML
     protected void onSearchAnother(ActionEvent event) {
         pnrField.clear();
@@ -517,7 +528,8 @@ public class CancellationController {
                 reservation.setTravelDate(rs.getDate("travel_date").toLocalDate());
                 reservation.setSeatClass(rs.getString("seat_class"));
                 reservation.setSeatNumber(rs.getInt("seat_number"));
-                reservation.setFare(rs.getDouble("fare"));
+                reservation.setFareCents(Money.read(rs, "fare"));
+                reservation.setFareBucket(rs.getString("fare_bucket"));
                 reservation.setStatus(rs.getString("status"));
                 
                 bookings.add(reservation);
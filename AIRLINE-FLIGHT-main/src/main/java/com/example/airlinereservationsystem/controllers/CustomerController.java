@@ -1,8 +1,14 @@
 package com.example.airlinereservationsystem.controllers;
 
-import com.example.airlinereservationsystem.DatabaseConnection;
 import com.example.airlinereservationsystem.models.*;
+import com.example.airlinereservationsystem.services.CustomerBookingsService;
+import com.example.airlinereservationsystem.services.FareEngine;
+import com.example.airlinereservationsystem.services.RefundEngine;
 import com.example.airlinereservationsystem.services.ReservationService;
+import com.example.airlinereservationsystem.services.SeatHoldService;
+import com.example.airlinereservationsystem.services.SeatMapService;
+import com.example.airlinereservationsystem.services.SessionContext;
+import com.example.airlinereservationsystem.utils.Money;
 import javafx.animation.FadeTransition;
 import javafx.animation.Timeline;
 import javafx.application.Platform;
@@ -17,8 +23,10 @@ import javafx.scene.layout.VBox;
 import javafx.util.Duration;
 
 import java.sql.*;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -27,6 +35,11 @@ public class CustomerController {
     private static final Logger LOGGER = Logger.getLogger(CustomerController.class.getName());
     
     private ReservationService reservationService = new ReservationService();
+    private final SeatHoldService seatHolds = SeatHoldService.getInstance();
+    private final SeatMapService seatMaps = SeatMapService.getInstance();
+    private final CustomerBookingsService myBookings = CustomerBookingsService.getInstance();
+    // Seat held for the selected flight; only touched on the FX thread
+    private SeatHoldService.Hold currentHold;
     private User currentUser;
     private Customer currentCustomer;
     
@@ -56,6 +69,8 @@ public class CustomerController {
     @FXML private TableColumn<Flight, String> arrivalCol;
     @FXML private TableColumn<Flight, Integer> availableSeatsCol;
     @FXML private TableColumn<Flight, Double> fareCol;
+    @FXML private SeatMapPane seatMapPane;
+    @FXML private Label selectedSeatLabel;
     
     @FXML private Label baseFareLabel;
     @FXML private Label discountLabel;
@@ -137,7 +152,7 @@ public class CustomerController {
         mySeatCol.setCellValueFactory(cellData -> {
             Reservation res = cellData.getValue();
             return new javafx.beans.property.SimpleStringProperty(
-                res.getSeatClass() + " - Seat " + res.getSeatNumber());
+                res.getSeatClass() + " - Seat " + res.getSeatLabel());
         });
         myStatusCol.setCellValueFactory(new PropertyValueFactory<>("status"));
         myFareCol.setCellValueFactory(new PropertyValueFactory<>("fare"));
@@ -149,8 +164,18 @@ public class CustomerController {
         
         flightsTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
             if (newSelection != null) {
-                calculatePersonalizedFare(newSelection.getBaseFare());
+                calculatePersonalizedFare(newSelection.getBaseFareCents());
             }
+            holdSeat(newSelection);
+            showSeatMap(newSelection);
+        });
+        
+        seatMapPane.setOnSeatSelected(seat -> {
+            Flight flight = flightsTable.getSelectionModel().getSelectedItem();
+            if (flight == null) return;
+            selectedSeatLabel.setText(seat > 0 
+                ? "Seat " + seatMaps.label(flight.getFlightCode(), classCombo.getValue(), seat) + " selected" 
+                : "No seat picked - we'll choose one by your preference");
         });
         
         myBookingsTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
@@ -164,10 +189,14 @@ public class CustomerController {
         genderCombo.setItems(FXCollections.observableArrayList("Male", "Female", "Other"));
         genderCombo.setValue("Male");
         
-        routeCombo.setItems(FXCollections.observableArrayList(
-            "Any Route", "Maseru → Johannesburg", "Maseru → Cape Town", "Maseru → Durban",
-            "Maseru → Bloemfontein", "Johannesburg → Maseru", "Cape Town → Maseru", "Durban → Maseru"
-        ));
+        // Routes with fares, shared through the session
+        ObservableList<String> routes = FXCollections.observableArrayList("Any Route");
+        try {
+            routes.addAll(SessionContext.getInstance().getRoutes());
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to load routes", e);
+        }
+        routeCombo.setItems(routes);
         routeCombo.setValue("Any Route");
         
         classCombo.setItems(FXCollections.observableArrayList("Economy", "Business"));
@@ -187,7 +216,7 @@ public class CustomerController {
         concessionCombo.valueProperty().addListener((obs, oldVal, newVal) -> {
             updateConcessionInfo(newVal);
             if (flightsTable.getSelectionModel().getSelectedItem() != null) {
-                calculatePersonalizedFare(flightsTable.getSelectionModel().getSelectedItem().getBaseFare());
+                calculatePersonalizedFare(flightsTable.getSelectionModel().getSelectedItem().getBaseFareCents());
             }
         });
     }
@@ -256,6 +285,9 @@ public class CustomerController {
             registrationStatusLabel.setText("Registering customer profile...");
             
             currentCustomer = createCustomerFromRegistrationForm();
+            if (currentUser != null) {
+                linkProfile(currentCustomer);
+            }
             
             registrationStatusLabel.setText("✅ Registration successful! You can now search and book flights.");
             statusLabel.setText("Welcome " + currentCustomer.getName() + " - Profile registered successfully");
@@ -353,17 +385,29 @@ public class CustomerController {
             makeReservationBtn.setDisable(true);
             statusLabel.setText("Processing your reservation...");
             
+            // Book the held seat if the hold is for this flight, date and class
+            SeatHoldService.Hold hold = currentHold != null && currentHold.matches(selectedFlight.getFlightCode(),
+                travelDatePicker.getValue(), classCombo.getValue()) ? currentHold : null;
+            currentHold = null;
+            int requestedSeat = seatMapPane.getSelectedSeat();
+            
             Task<ReservationService.ReservationResult> reservationTask = new Task<ReservationService.ReservationResult>() {
                 @Override
                 protected ReservationService.ReservationResult call() throws Exception {
                     currentCustomer.setTravelDate(travelDatePicker.getValue());
                     
+                    if (hold != null) {
+                        return reservationService.makeReservation(currentCustomer, hold,
+                            seatPreferenceCombo.getValue(), requestedSeat, selectedFlight.getRoute());
+                    }
                     return reservationService.makeReservation(
                         currentCustomer,
                         selectedFlight.getFlightCode(),
                         classCombo.getValue(),
                         seatPreferenceCombo.getValue(),
-                        travelDatePicker.getValue()
+                        requestedSeat,
+                        travelDatePicker.getValue(),
+                        selectedFlight.getRoute()
                     );
                 }
             };
@@ -379,10 +423,12 @@ public class CustomerController {
                         showAlert("Booking Confirmed", 
                             "Your flight is booked!\n\n" +
                             "PNR: " + result.getPnr() + "\n" +
-                            "Seat: " + classCombo.getValue() + " - " + result.getSeatNumber() + "\n" +
-                            "Fare: LSL" + String.format("%.2f", result.getFare()) + "\n\n" +
+                            "Seat: " + classCombo.getValue() + " - " 
+                                + seatMaps.label(selectedFlight.getFlightCode(), classCombo.getValue(), result.getSeatNumber()) + "\n" +
+                            "Fare: LSL" + Money.format(result.getFareCents()) + "\n\n" +
                             "Please save your PNR for future reference.");
                         
+                        myBookings.invalidate(currentUser.getCustomerId());
                         loadMyBookings();
                         flightsTable.getSelectionModel().clearSelection();
                         clearFareDisplay();
@@ -401,6 +447,10 @@ public class CustomerController {
                 Platform.runLater(() -> {
                     reservationProgress.setVisible(false);
                     makeReservationBtn.setDisable(false);
+                    // A failed booking puts its hold back, so keep it for a retry
+                    if (hold != null && currentHold == null) {
+                        currentHold = hold;
+                    }
                     statusLabel.setText("Reservation failed");
                     showAlert("Booking Error", "Failed to process your reservation: " + reservationTask.getException().getMessage());
                 });
@@ -463,18 +513,43 @@ public class CustomerController {
     
     private void loadCustomerProfile() {
         statusLabel.setText(currentUser.getFullName() + " - Please complete your profile to start booking");
+        if (currentUser.getCustomerId() > 0) {
+            loadMyBookings();
+        }
+    }
+    
+    /**
+     * Link the logged-in user to the customer just registered, so their bookings can be found by it
+     */
+    private void linkProfile(Customer customer) {
+        Task<Integer> linkTask = new Task<Integer>() {
+            @Override
+            protected Integer call() throws Exception {
+                return myBookings.link(currentUser, customer);
+            }
+        };
+        
+        linkTask.setOnSucceeded(e -> Platform.runLater(this::loadMyBookings));
+        
+        linkTask.setOnFailed(e -> {
+            LOGGER.log(Level.WARNING, "Failed to link customer profile", linkTask.getException());
+            Platform.runLater(() -> statusLabel.setText("Profile saved for booking, but your bookings could not be loaded"));
+        });
+        
+        new Thread(linkTask).start();
     }
     
     private void loadMyBookings() {
-        if (currentCustomer == null) {
+        if (currentUser == null || currentUser.getCustomerId() <= 0) {
             showAlert("Registration Required", "Please complete your registration to view bookings.");
             return;
         }
         
+        int customerId = currentUser.getCustomerId();
         Task<List<Reservation>> loadTask = new Task<List<Reservation>>() {
             @Override
             protected List<Reservation> call() throws Exception {
-                return getCustomerReservations(currentCustomer.getPhoneNumber());
+                return myBookings.getBookings(customerId);
             }
         };
         
@@ -497,46 +572,6 @@ public class CustomerController {
         new Thread(loadTask).start();
     }
     
-    private List<Reservation> getCustomerReservations(String phoneNumber) throws Exception {
-        List<Reservation> reservations = new ArrayList<>();
-        
-        String sql = """
-            SELECT r.*, f.flight_name, c.cust_name
-            FROM reservations r
-            JOIN flights f ON r.flight_code = f.flight_code
-            JOIN customer_details c ON r.cust_id = c.cust_id
-            WHERE c.tel_no = ?
-            ORDER BY r.travel_date DESC, r.reservation_id DESC
-        """;
-        
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            ps.setString(1, phoneNumber);
-            
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    Reservation reservation = new Reservation();
-                    reservation.setReservationId(rs.getInt("reservation_id"));
-                    reservation.setPnr(rs.getString("pnr"));
-                    reservation.setCustomerId(rs.getInt("cust_id"));
-                    reservation.setFlightCode(rs.getInt("flight_code"));
-                    reservation.setSeatClass(rs.getString("seat_class"));
-                    reservation.setSeatNumber(rs.getInt("seat_number"));
-                    reservation.setStatus(rs.getString("status"));
-                    reservation.setFare(rs.getDouble("fare"));
-                    reservation.setTravelDate(rs.getDate("travel_date").toLocalDate());
-                    reservation.setFlightName(rs.getString("flight_name"));
-                    reservation.setCustomerName(rs.getString("cust_name"));
-                    
-                    reservations.add(reservation);
-                }
-            }
-        }
-        
-        return reservations;
-    }
-    
     private void enableBookingFeatures() {
         searchFlightsBtn.setDisable(false);
         statusLabel.setText("Profile registered! You can now search and book flights.");
@@ -581,17 +616,20 @@ public class CustomerController {
         return true;
     }
     
-    private void calculatePersonalizedFare(double baseFareAmount) {
+    private void calculatePersonalizedFare(long baseCents) {
         try {
             String concessionType = extractConcessionType(concessionCombo.getValue());
             
-            double discount = com.example.airlinereservationsystem.utils.ConcessionCalculator.calculateDiscount(baseFareAmount, concessionType);
-            double finalFare = baseFareAmount - discount;
+            // Exact cents arithmetic against the preloaded concession rules
+            FareEngine fares = FareEngine.getInstance();
+            long discountCents = fares.discountCents(baseCents, concessionType);
+            long finalCents = baseCents - discountCents;
+            double discountPercent = fares.discountBasisPoints(concessionType) / 100.0;
             
             Platform.runLater(() -> {
-                baseFareLabel.setText(String.format("LSL%.2f", baseFareAmount));
-                discountLabel.setText(String.format("LSL%.2f (%.1f%%)", discount, (discount/baseFareAmount)*100));
-                finalFareLabel.setText(String.format("LSL%.2f", finalFare));
+                baseFareLabel.setText("LSL" + Money.format(baseCents));
+                discountLabel.setText(String.format("LSL%s (%.1f%%)", Money.format(discountCents), discountPercent));
+                finalFareLabel.setText("LSL" + Money.format(finalCents));
             });
             
         } catch (Exception e) {
@@ -633,41 +671,25 @@ public class CustomerController {
     private void displayBookingForCancellation(Reservation reservation) {
         bookingDetailsBox.setVisible(true);
         
-        LocalDate travelDate = reservation.getTravelDate();
-        LocalDate today = LocalDate.now();
-        double fare = reservation.getFare();
-        
-        long daysUntilTravel = java.time.temporal.ChronoUnit.DAYS.between(today, travelDate);
-        
-        double cancellationFee;
-        String refundPolicy;
-        
-        if (daysUntilTravel < 0) {
-            cancellationFee = fare;
-            refundPolicy = "No refund (past travel date)";
-        } else if (daysUntilTravel < 1) {
-            cancellationFee = fare * 0.25;
-            refundPolicy = "25% cancellation fee (within 24 hours)";
-        } else {
-            cancellationFee = fare * 0.10;
-            refundPolicy = "10% cancellation fee (more than 24 hours)";
-        }
-        
-        double refundAmount = fare - cancellationFee;
+        long fare = reservation.getFareCents();
+        RefundEngine.Refund refund = RefundEngine.getInstance().quote(reservation, RefundEngine.VOLUNTARY);
+        long cancellationFee = refund.getFeeCents();
+        String refundPolicy = refund.getPolicy();
+        long refundAmount = refund.getRefundCents();
         
         bookingInfoLabel.setText(
             "PNR: " + reservation.getPnr() + "\n" +
             "Flight: " + reservation.getFlightName() + "\n" +
-            "Seat: " + reservation.getSeatClass() + " - " + reservation.getSeatNumber() + "\n" +
+            "Seat: " + reservation.getSeatClass() + " - " + reservation.getSeatLabel() + "\n" +
             "Travel Date: " + reservation.getTravelDate() + "\n" +
             "Status: " + reservation.getStatus()
         );
         
         refundInfoLabel.setText(
-            "Original Fare: LSL" + String.format("%.2f", fare) + "\n" +
+            "Original Fare: LSL" + Money.format(fare) + "\n" +
             "Cancellation Policy: " + refundPolicy + "\n" +
-            "Cancellation Fee: LSL" + String.format("%.2f", cancellationFee) + "\n" +
-            "Refund Amount: LSL" + String.format("%.2f", refundAmount)
+            "Cancellation Fee: LSL" + Money.format(cancellationFee) + "\n" +
+            "Refund Amount: LSL" + Money.format(refundAmount)
         );
     }
     
@@ -686,10 +708,11 @@ public class CustomerController {
                     statusLabel.setText("Booking cancelled successfully");
                     showAlert("Cancellation Successful", 
                         "Your booking has been cancelled.\n\n" +
-                        "Refund Amount: LSL" + String.format("%.2f", result.getRefundAmount()) + "\n" +
-                        "Cancellation Fee: LSL" + String.format("%.2f", result.getCancellationFee()) + "\n\n" +
+                        "Refund Amount: LSL" + Money.format(result.getRefundCents()) + "\n" +
+                        "Cancellation Fee: LSL" + Money.format(result.getCancellationFeeCents()) + "\n\n" +
                         "Refund will be processed within 5-7 business days.");
                     
+                    myBookings.invalidate(currentUser.getCustomerId());
                     loadMyBookings();
                     bookingDetailsBox.setVisible(false);
                     cancelPnrField.clear();
@@ -710,6 +733,94 @@ public class CustomerController {
         new Thread(cancellationTask).start();
     }
     
+    /**
+     * Swap the seat hold over to a newly selected flight, or just release it when the selection clears.
+     */
+    private void holdSeat(Flight flight) {
+        SeatHoldService.Hold previous = currentHold;
+        currentHold = null;
+        if (flight == null || travelDatePicker.getValue() == null || classCombo.getValue() == null) {
+            if (previous != null) {
+                new Thread(() -> seatHolds.release(previous)).start();
+            }
+            return;
+        }
+        
+        LocalDate travelDate = travelDatePicker.getValue();
+        String seatClass = classCombo.getValue();
+        Task<SeatHoldService.Hold> holdTask = new Task<SeatHoldService.Hold>() {
+            @Override
+            protected SeatHoldService.Hold call() throws Exception {
+                seatHolds.release(previous);
+                return seatHolds.hold(flight.getFlightCode(), travelDate, seatClass, flight.getRoute());
+            }
+        };
+        
+        holdTask.setOnSucceeded(e -> {
+            SeatHoldService.Hold hold = holdTask.getValue();
+            Platform.runLater(() -> {
+                if (hold == null) {
+                    statusLabel.setText("This flight has just sold out - you can still join the waiting list");
+                } else if (flightsTable.getSelectionModel().getSelectedItem() != flight) {
+                    // The selection moved on while the hold was being placed
+                    new Thread(() -> seatHolds.release(hold)).start();
+                } else {
+                    currentHold = hold;
+                    calculatePersonalizedFare(hold.getFareCents());
+                    String until = DateTimeFormatter.ofPattern("HH:mm").format(
+                        Instant.ofEpochMilli(hold.getExpiresAtMillis()).atZone(ZoneId.systemDefault()));
+                    statusLabel.setText("Seat held for you until " + until + " - complete your booking to keep it");
+                }
+            });
+        });
+        
+        holdTask.setOnFailed(e -> {
+            LOGGER.log(Level.WARNING, "Failed to hold seat", holdTask.getException());
+        });
+        
+        new Thread(holdTask).start();
+    }
+    
+    /**
+     * Draw the selected flight's cabin; taken seats are read once per flight date, then served from the cache.
+     */
+    private void showSeatMap(Flight flight) {
+        seatMapPane.clear();
+        if (flight == null || travelDatePicker.getValue() == null || classCombo.getValue() == null) {
+            selectedSeatLabel.setText("Select a flight to see its seats");
+            return;
+        }
+        LocalDate travelDate = travelDatePicker.getValue();
+        String seatClass = classCombo.getValue();
+        selectedSeatLabel.setText("Loading seats...");
+        
+        Task<SeatMap> seatTask = new Task<SeatMap>() {
+            @Override
+            protected SeatMap call() throws Exception {
+                seatMaps.takenSeats(flight.getFlightCode(), travelDate, seatClass);
+                return seatMaps.seatMap(flight.getFlightCode(), seatClass);
+            }
+        };
+        
+        seatTask.setOnSucceeded(e -> {
+            if (flightsTable.getSelectionModel().getSelectedItem() != flight) return;
+            try {
+                seatMapPane.show(seatTask.getValue(), seatMaps.takenSeats(flight.getFlightCode(), travelDate, seatClass), 0);
+                selectedSeatLabel.setText("Pick a green seat, or leave it to your seat preference");
+            } catch (SQLException ex) {
+                LOGGER.log(Level.WARNING, "Failed to draw seat map", ex);
+                selectedSeatLabel.setText("Seat map unavailable");
+            }
+        });
+        
+        seatTask.setOnFailed(e -> {
+            LOGGER.log(Level.WARNING, "Failed to load seat map", seatTask.getException());
+            selectedSeatLabel.setText("Seat map unavailable");
+        });
+        
+        new Thread(seatTask).start();
+    }
+    
     private void clearFareDisplay() {
         baseFareLabel.setText("LSL0.00");
         discountLabel.setText("LSL0.00");
@@ -2,6 +2,7 @@ package com.example.airlinereservationsystem.controllers;
 
 import com.example.airlinereservationsystem.DatabaseConnection;
 import com.example.airlinereservationsystem.models.User;
+import com.example.airlinereservationsystem.services.SessionContext;
 import javafx.animation.FadeTransition;
 import javafx.animation.Timeline;
 import javafx.application.Platform;
@@ -45,7 +46,7 @@ import java.util.logging.Logger;
 public class DashboardController {
     private static final Logger LOGGER = Logger.getLogger(DashboardController.class.getName());
     
-    private User currentUser;
+    private final SessionContext session = SessionContext.getInstance();
     
     // FXML Components
     @FXML private Label statusLabel;
@@ -94,6 +95,7 @@ public class DashboardController {
             loadBookingData();
             testDatabaseConnection();
             startTimeUpdater();
+            updateUIForUser();
             
             LOGGER.info("Dashboard Controller initialized successfully");
             
@@ -103,20 +105,16 @@ public class DashboardController {
         }
     }
     
-    public void setCurrentUser(User user) {
-        this.currentUser = user;
-        updateUIForUser();
-    }
-    
     private void updateUIForUser() {
+        User currentUser = session.getUser();
         if (currentUser != null) {
-            String roleIcon = currentUser.isAdmin() ? "👑" : currentUser.isStaff() ? "👨‍💼" : "👤";
+            String roleIcon = session.hasRole(SessionContext.ADMIN) ? "👑" : session.hasRole(SessionContext.STAFF) ? "👨‍💼" : "👤";
             if (userInfoLabel != null) {
                 userInfoLabel.setText(roleIcon + " " + currentUser.getFullName() + " (" + currentUser.getRole() + ")");
             }
             
             // Enable/disable features based on role
-            if (!currentUser.isStaff()) {
+            if (!session.hasRole(SessionContext.STAFF)) {
                 // Customers can only view, not manage
                 statusLabel.setText("🔒 Customer Mode - Limited Access");
             }
@@ -219,23 +217,25 @@ public class DashboardController {
             @Override
             protected Void call() throws Exception {
                 List<String> dbBookings = new ArrayList<>();
+                User currentUser = session.getUser();
+                boolean admin = session.hasRole(SessionContext.ADMIN);
                 String sql;
                 
                 // Role-based data filtering - only real recent bookings
-                if (currentUser != null && currentUser.isAdmin()) {
+                if (admin) {
                     // Admin sees all recent bookings
                     sql = "SELECT r.reservation_id, c.cust_name, f.flight_name, r.seat_class, r.status, r.travel_date " +
                           "FROM reservations r " +
                           "JOIN customer_details c ON r.cust_id = c.cust_id " +
                           "JOIN flights f ON r.flight_code = f.flight_code " +
                           "ORDER BY r.reservation_id DESC LIMIT 25";
-                } else if (currentUser != null && !currentUser.isAdmin()) {
-                    // Customers see only their own bookings
+                } else if (currentUser != null) {
+                    // Customers see only their own bookings, through the customer linked to their account
                     sql = "SELECT r.reservation_id, c.cust_name, f.flight_name, r.seat_class, r.status, r.travel_date " +
                           "FROM reservations r " +
                           "JOIN customer_details c ON r.cust_id = c.cust_id " +
                           "JOIN flights f ON r.flight_code = f.flight_code " +
-                          "WHERE c.cust_name = ? " +
+                          "WHERE r.cust_id = ? " +
                           "ORDER BY r.reservation_id DESC LIMIT 25";
                 } else {
                     // No user logged in - show existing real bookings only
@@ -250,8 +250,8 @@ public class DashboardController {
                      PreparedStatement ps = conn.prepareStatement(sql)) {
                     
                     // Set parameter for customer filter if needed
-                    if (currentUser != null && !currentUser.isAdmin()) {
-                        ps.setString(1, currentUser.getFullName());
+                    if (!admin && currentUser != null) {
+                        ps.setInt(1, currentUser.getCustomerId());
                     }
                     
                     try (ResultSet rs = ps.executeQuery()) {
@@ -273,7 +273,7 @@ public class DashboardController {
                     totalPages = (int) Math.ceil((double) totalRecords / itemsPerPage);
                     displayCurrentPage();
                     
-                    String accessLevel = currentUser != null && currentUser.isAdmin() ? "All bookings" : "Personal bookings only";
+                    String accessLevel = admin ? "All bookings" : "Personal bookings only";
                     LOGGER.info("Loaded " + totalRecords + " booking records (" + accessLevel + ")");
                 });
                 return null;
@@ -302,8 +302,8 @@ public class DashboardController {
             HBox header = new HBox(10);
             header.setStyle("-fx-background-color: #34495e; -fx-padding: 10; -fx-background-radius: 5;");
             String headerText = "PNR | Passenger | Flight | Class | Status | Travel Date";
-            if (currentUser != null) {
-                headerText += " (" + (currentUser.isAdmin() ? "Recent Bookings - All Users" : "Your Recent Bookings") + ")";
+            if (session.getUser() != null) {
+                headerText += " (" + (session.hasRole(SessionContext.ADMIN) ? "Recent Bookings - All Users" : "Your Recent Bookings") + ")";
             } else {
                 headerText += " (Real Database Records)";
             }
@@ -486,7 +486,7 @@ public class DashboardController {
     @FXML
     protected void onNewReservation(ActionEvent event) {
         try {
-            if (currentUser == null) {
+            if (session.getUser() == null) {
                 showError("Access Denied", "Please login to access this feature.");
                 return;
             }
@@ -522,19 +522,20 @@ public class DashboardController {
     @FXML
     protected void onManageReservations(ActionEvent event) {
         try {
+            User currentUser = session.getUser();
             if (currentUser == null) {
                 showError("Access Denied", "Please login to access this feature.");
                 return;
             }
             
-            if (!currentUser.isStaff()) {
+            if (!session.hasRole(SessionContext.STAFF)) {
                 showError("Access Denied", "Only Staff and Admin users can manage reservations.");
                 return;
             }
             
             statusLabel.setText("📋 Loading reservation management...");
             
-            String permissions = currentUser.isAdmin() ? 
+            String permissions = session.hasRole(SessionContext.ADMIN) ? 
                 "Full Admin Access - All reservations" :
                 "Staff Access - Assigned reservations";
             
@@ -572,7 +573,7 @@ public class DashboardController {
     @FXML
     protected void onAdminPanel(ActionEvent event) {
         try {
-            if (currentUser == null || !currentUser.isAdmin()) {
+            if (!session.hasRole(SessionContext.ADMIN)) {
                 showError("Access Denied", "Admin access required. Only administrators can access the admin panel.");
                 return;
             }
@@ -633,6 +634,7 @@ public class DashboardController {
             alert.showAndWait().ifPresent(response -> {
                 if (response == ButtonType.OK) {
                     try {
+                        SessionContext.getInstance().end();
                         FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/example/airlinereservationsystem/login.fxml"));
                         Scene scene = new Scene(loader.load(), 500, 700);
                         Stage stage = (Stage) statusLabel.getScene().getWindow();
@@ -1,17 +1,28 @@
 package com.example.airlinereservationsystem.controllers;
 
 import com.example.airlinereservationsystem.DatabaseConnection;
+import com.example.airlinereservationsystem.models.Fleet;
 import com.example.airlinereservationsystem.models.Flight;
+import com.example.airlinereservationsystem.services.DynamicPricingEngine;
+import com.example.airlinereservationsystem.services.FareEngine;
+import com.example.airlinereservationsystem.services.FleetService;
+import com.example.airlinereservationsystem.services.OverbookingService;
+import com.example.airlinereservationsystem.services.SeatInventory;
+import com.example.airlinereservationsystem.services.SeatMapService;
+import com.example.airlinereservationsystem.services.SessionContext;
+import com.example.airlinereservationsystem.services.WaitlistClearingJob;
+import com.example.airlinereservationsystem.services.WaitlistService;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 
 import java.sql.Connection;
-import java.sql.ResultSet;
 import java.sql.PreparedStatement;
-import java.sql.Statement;
+import java.sql.Types;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -35,6 +46,8 @@ public class FlightController {
     @FXML
     private TextField exeSeatsField;
     @FXML
+    private ComboBox<Fleet> fleetCombo;
+    @FXML
     private Button addButton;
     @FXML
     private Button updateButton;
@@ -44,6 +57,8 @@ public class FlightController {
     private Label statusLabel;
 
     private ObservableList<Flight> flightList = FXCollections.observableArrayList();
+    private final FleetService fleetService = new FleetService();
+    private final SessionContext session = SessionContext.getInstance();
 
     @FXML
     public void initialize() {
@@ -52,8 +67,19 @@ public class FlightController {
             ecoSeatsColumn.setCellValueFactory(new PropertyValueFactory<>("totalEcoSeats"));
             exeSeatsColumn.setCellValueFactory(new PropertyValueFactory<>("totalExeSeats"));
 
+            loadFleet();
             loadFlights();
 
+            // Seat counts come from the aircraft when one is picked
+            fleetCombo.valueProperty().addListener((obs, oldFleet, newFleet) -> {
+                if (newFleet != null) {
+                    ecoSeatsField.setText(String.valueOf(newFleet.getEcoCapacity()));
+                    exeSeatsField.setText(String.valueOf(newFleet.getClubPreCapacity()));
+                }
+                ecoSeatsField.setDisable(newFleet != null);
+                exeSeatsField.setDisable(newFleet != null);
+            });
+
             // Add a listener to populate the form when a row is selected
             flightTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> populateFormFromSelection());
         } catch (Exception e) {
@@ -61,21 +87,17 @@ public class FlightController {
         }
     }
 
+    private void loadFleet() {
+        try {
+            fleetCombo.setItems(FXCollections.observableArrayList(session.getFleet()));
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Failed to load fleet", e);
+        }
+    }
+
     private void loadFlights() {
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT * FROM flights")) {
-
-            flightList.clear();
-            while (rs.next()) {
-                flightList.add(new Flight(
-                        rs.getString("flight_name"),
-                        rs.getInt("flight_code"),
-                        rs.getString("class_code"),
-                        rs.getInt("total_exe_seats"),
-                        rs.getInt("total_eco_seats")
-                ));
-            }
+        try {
+            flightList.setAll(session.getFlights());
             flightTable.setItems(flightList);
             LOGGER.info("Loaded " + flightList.size() + " flights");
 
@@ -86,15 +108,26 @@ public class FlightController {
 
     @FXML
     private void handleAddFlight() {
-        String sql = "INSERT INTO flights(flight_name, class_code, total_eco_seats, total_exe_seats) VALUES(?,?,?,?)";
+        String sql = "INSERT INTO flights(flight_name, class_code, total_eco_seats, total_exe_seats, fleet_id) VALUES(?,?,?,?,?)";
+        Fleet aircraft = fleetCombo.getValue();
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, flightNameField.getText());
             pstmt.setString(2, classCodeField.getText());
-            pstmt.setInt(3, Integer.parseInt(ecoSeatsField.getText()));
-            pstmt.setInt(4, Integer.parseInt(exeSeatsField.getText()));
+            // An assigned aircraft decides the cabin sizes
+            pstmt.setInt(3, aircraft != null ? aircraft.getEcoCapacity() : Integer.parseInt(ecoSeatsField.getText()));
+            pstmt.setInt(4, aircraft != null ? aircraft.getClubPreCapacity() : Integer.parseInt(exeSeatsField.getText()));
+            if (aircraft != null) {
+                pstmt.setInt(5, aircraft.getFleetId());
+            } else {
+                pstmt.setNull(5, Types.INTEGER);
+            }
             pstmt.executeUpdate();
+            SeatInventory.getInstance().refresh();
+            SeatMapService.getInstance().refresh();
+            OverbookingService.getInstance().refresh();
             statusLabel.setText("Flight added successfully!");
+            session.invalidateFlights();
             loadFlights(); // Refresh the table
             clearFields();
         } catch (Exception e) {
@@ -111,6 +144,12 @@ public class FlightController {
             return;
         }
 
+        Fleet aircraft = fleetCombo.getValue();
+        if (aircraft != null) {
+            updateFlightAircraft(selectedFlight, aircraft);
+            return;
+        }
+
         String sql = "UPDATE flights SET flight_name = ?, class_code = ?, total_eco_seats = ?, total_exe_seats = ? WHERE flight_code = ?";
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -120,7 +159,13 @@ public class FlightController {
             pstmt.setInt(4, Integer.parseInt(exeSeatsField.getText()));
             pstmt.setInt(5, selectedFlight.getFlightCode());
             pstmt.executeUpdate();
+            SeatInventory.getInstance().setCapacity(selectedFlight.getFlightCode(),
+                Integer.parseInt(ecoSeatsField.getText()), Integer.parseInt(exeSeatsField.getText()));
+            OverbookingService.getInstance().capacityChanged(selectedFlight.getFlightCode(),
+                Integer.parseInt(ecoSeatsField.getText()), Integer.parseInt(exeSeatsField.getText()));
             statusLabel.setText("Flight updated successfully!");
+            reportWaitlistClearing("Flight updated successfully!");
+            session.invalidateFlights();
             loadFlights(); // Refresh the table
             clearFields();
         } catch (Exception e) {
@@ -129,6 +174,73 @@ public class FlightController {
         }
     }
 
+    /**
+     * Update a flight that has an aircraft; picking a different aircraft is an equipment swap
+     * that re-accommodates its upcoming bookings.
+     */
+    private void updateFlightAircraft(Flight selectedFlight, Fleet aircraft) {
+        String sql = "UPDATE flights SET flight_name = ?, class_code = ? WHERE flight_code = ?";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, flightNameField.getText());
+            pstmt.setString(2, classCodeField.getText());
+            pstmt.setInt(3, selectedFlight.getFlightCode());
+            pstmt.executeUpdate();
+        } catch (Exception e) {
+            statusLabel.setText("Error updating flight: " + e.getMessage());
+            LOGGER.log(Level.SEVERE, "Failed to update flight", e);
+            return;
+        }
+
+        if (aircraft.getFleetId() == selectedFlight.getFleetId()) {
+            statusLabel.setText("Flight updated successfully!");
+            session.invalidateFlights();
+            loadFlights();
+            clearFields();
+            return;
+        }
+
+        // The swap rewrites every upcoming booking of the flight, so it runs off the FX thread
+        Task<FleetService.SwapResult> swapTask = new Task<FleetService.SwapResult>() {
+            @Override
+            protected FleetService.SwapResult call() throws Exception {
+                return fleetService.assignAircraft(selectedFlight.getFlightCode(), aircraft.getFleetId());
+            }
+        };
+
+        swapTask.setOnSucceeded(e -> {
+            statusLabel.setText("Aircraft changed to " + aircraft.getAircraftNumber() + ": "
+                + swapTask.getValue().getSummary());
+            reportWaitlistClearing(statusLabel.getText());
+            updateButton.setDisable(false);
+            session.invalidateFlights();
+            loadFlights();
+            clearFields();
+        });
+
+        swapTask.setOnFailed(e -> {
+            statusLabel.setText("Error changing aircraft: " + swapTask.getException().getMessage());
+            LOGGER.log(Level.SEVERE, "Failed to change aircraft", swapTask.getException());
+            updateButton.setDisable(false);
+        });
+
+        statusLabel.setText("Changing aircraft to " + aircraft.getAircraftNumber() + "...");
+        updateButton.setDisable(true);
+        new Thread(swapTask).start();
+    }
+
+    /**
+     * A larger cabin frees seats for the waiting list; the clearing job runs in the background
+     * and its result is added to the status line when anyone was confirmed.
+     */
+    private void reportWaitlistClearing(String status) {
+        WaitlistClearingJob.getInstance().requestRun().thenAccept(result -> {
+            if (result.getCleared() > 0) {
+                Platform.runLater(() -> statusLabel.setText(status + " " + result.getSummary() + "."));
+            }
+        });
+    }
+
     @FXML
     private void handleDeleteFlight() {
         Flight selectedFlight = flightTable.getSelectionModel().getSelectedItem();
@@ -144,7 +256,8 @@ public class FlightController {
             try (PreparedStatement pstmt1 = conn.prepareStatement("DELETE FROM fare WHERE flight_code = ?");
                  PreparedStatement pstmt2 = conn.prepareStatement("DELETE FROM reservations WHERE flight_code = ?");
                  PreparedStatement pstmt3 = conn.prepareStatement("DELETE FROM waiting_list WHERE flight_code = ?");
-                 PreparedStatement pstmt4 = conn.prepareStatement("DELETE FROM flights WHERE flight_code = ?")) {
+                 PreparedStatement pstmt4 = conn.prepareStatement("DELETE FROM cancelled_flights WHERE flight_code = ?");
+                 PreparedStatement pstmt5 = conn.prepareStatement("DELETE FROM flights WHERE flight_code = ?")) {
                 
                 int flightCode = selectedFlight.getFlightCode();
                 
@@ -160,8 +273,16 @@ public class FlightController {
                 pstmt4.setInt(1, flightCode);
                 pstmt4.executeUpdate();
                 
+                pstmt5.setInt(1, flightCode);
+                pstmt5.executeUpdate();
+                
                 conn.commit();
+                FareEngine.getInstance().refresh();
+                SeatInventory.getInstance().removeFlight(flightCode);
+                DynamicPricingEngine.getInstance().invalidate();
+                WaitlistService.getInstance().invalidate(flightCode);
                 statusLabel.setText("Flight deleted successfully!");
+                session.invalidateFlights();
                 loadFlights();
             }
         } catch (Exception e) {
@@ -178,6 +299,9 @@ public class FlightController {
             classCodeField.setText(selectedFlight.getClassCode());
             ecoSeatsField.setText(String.valueOf(selectedFlight.getTotalEcoSeats()));
             exeSeatsField.setText(String.valueOf(selectedFlight.getTotalExeSeats()));
+            fleetCombo.setValue(fleetCombo.getItems().stream()
+                .filter(fleet -> fleet.getFleetId() == selectedFlight.getFleetId())
+                .findFirst().orElse(null));
         }
     }
 
@@ -193,6 +317,7 @@ public class FlightController {
         classCodeField.clear();
         ecoSeatsField.clear();
         exeSeatsField.clear();
+        fleetCombo.setValue(null);
     }
 
     @FXML
@@ -5,7 +5,10 @@ import com.example.airlinereservationsystem.models.User;
 import com.example.airlinereservationsystem.controllers.DashboardController;
 import com.example.airlinereservationsystem.controllers.StaffController;
 import com.example.airlinereservationsystem.controllers.CustomerController;
+import com.example.airlinereservationsystem.services.AuthenticationService;
+import com.example.airlinereservationsystem.services.SessionContext;
 import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -34,11 +37,13 @@ public class LoginController {
     @FXML private Label statusLabel;
 
     private static User currentUser;
+    private final AuthenticationService auth = AuthenticationService.getInstance();
 
     @FXML
     public void initialize() {
         try {
-            setupDefaultUsers();
+            // Default users are stored hashed, which is slow: leave it to the authentication worker
+            auth.execute(this::setupDefaultUsers);
             regRoleCombo.setItems(FXCollections.observableArrayList("Customer", "Staff", "Admin"));
             regRoleCombo.setValue("Customer");
         } catch (Exception e) {
@@ -54,7 +59,8 @@ public class LoginController {
                 password VARCHAR(100) NOT NULL,
                 full_name VARCHAR(100) NOT NULL,
                 role VARCHAR(20) NOT NULL,
-                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                cust_id INT
             )
         """;
 
@@ -81,7 +87,7 @@ public class LoginController {
             if (rs.next() && rs.getInt(1) == 0) {
                 try (PreparedStatement insertStmt = conn.prepareStatement(insertSQL)) {
                     insertStmt.setString(1, username);
-                    insertStmt.setString(2, password);
+                    insertStmt.setString(2, auth.hash(password));
                     insertStmt.setString(3, fullName);
                     insertStmt.setString(4, role);
                     insertStmt.executeUpdate();
@@ -103,14 +109,39 @@ public class LoginController {
                 return;
             }
 
-            User user = authenticateUser(username, password);
-            if (user != null) {
-                currentUser = user;
-                statusLabel.setText("✅ Login successful!");
-                navigateToDashboard();
-            } else {
-                statusLabel.setText("❌ Invalid username or password");
-            }
+            loginForm.setDisable(true);
+            statusLabel.setText("🔐 Signing in...");
+
+            Task<AuthenticationService.Result> loginTask = new Task<AuthenticationService.Result>() {
+                @Override
+                protected AuthenticationService.Result call() throws Exception {
+                    return auth.authenticate(username, password);
+                }
+            };
+
+            loginTask.setOnSucceeded(e -> {
+                loginForm.setDisable(false);
+                AuthenticationService.Result result = loginTask.getValue();
+                if (result.isSuccess()) {
+                    currentUser = result.getUser();
+                    SessionContext.getInstance().begin(currentUser);
+                    statusLabel.setText("✅ Login successful!");
+                    navigateToDashboard();
+                } else if (result.isThrottled()) {
+                    long seconds = (result.getRetryAfterMillis() + 999) / 1000;
+                    statusLabel.setText("⏳ Too many failed attempts - try again in " + seconds + " s");
+                } else {
+                    statusLabel.setText("❌ Invalid username or password");
+                }
+            });
+
+            loginTask.setOnFailed(e -> {
+                loginForm.setDisable(false);
+                LOGGER.log(Level.SEVERE, "Authentication failed", loginTask.getException());
+                statusLabel.setText("❌ Login error: " + loginTask.getException().getMessage());
+            });
+
+            auth.execute(loginTask);
 
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Login failed", e);
@@ -131,13 +162,32 @@ public class LoginController {
                 return;
             }
 
-            if (registerUser(username, password, fullName, role)) {
-                statusLabel.setText("✅ Account created successfully!");
-                clearRegisterFields();
-                showLogin(null);
-            } else {
-                statusLabel.setText("❌ Username already exists");
-            }
+            registerForm.setDisable(true);
+            Task<Boolean> registerTask = new Task<Boolean>() {
+                @Override
+                protected Boolean call() throws Exception {
+                    return registerUser(username, password, fullName, role);
+                }
+            };
+
+            registerTask.setOnSucceeded(e -> {
+                registerForm.setDisable(false);
+                if (registerTask.getValue()) {
+                    statusLabel.setText("✅ Account created successfully!");
+                    clearRegisterFields();
+                    showLogin(null);
+                } else {
+                    statusLabel.setText("❌ Username already exists");
+                }
+            });
+
+            registerTask.setOnFailed(e -> {
+                registerForm.setDisable(false);
+                LOGGER.log(Level.SEVERE, "Registration failed", registerTask.getException());
+                statusLabel.setText("❌ Registration error: " + registerTask.getException().getMessage());
+            });
+
+            auth.execute(registerTask);
 
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Registration failed", e);
@@ -163,35 +213,12 @@ public class LoginController {
         statusLabel.setText("");
     }
 
-    private User authenticateUser(String username, String password) {
-        String query = "SELECT * FROM users WHERE username = ? AND password = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(query)) {
-            ps.setString(1, username);
-            ps.setString(2, password);
-
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return new User(
-                            rs.getInt("user_id"),
-                            rs.getString("username"),
-                            rs.getString("full_name"),
-                            rs.getString("role")
-                    );
-                }
-            }
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Authentication failed", e);
-        }
-        return null;
-    }
-
     private boolean registerUser(String username, String password, String fullName, String role) {
         try (Connection conn = DatabaseConnection.getConnection()) {
             String query = "INSERT INTO users (username, password, full_name, role) VALUES (?, ?, ?, ?)";
             try (PreparedStatement ps = conn.prepareStatement(query)) {
                 ps.setString(1, username);
-                ps.setString(2, password);
+                ps.setString(2, auth.hash(password));
                 ps.setString(3, fullName);
                 ps.setString(4, role);
                 return ps.executeUpdate() > 0;
@@ -222,13 +249,9 @@ public class LoginController {
             FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlFile));
             Scene scene = new Scene(loader.load(), 1200, 800);
             
-            // Set the current user in the appropriate controller
+            // The dashboard and staff screens read the user from the session; the customer portal is given it
             Object controller = loader.getController();
-            if (controller instanceof DashboardController) {
-                ((DashboardController) controller).setCurrentUser(currentUser);
-            } else if (controller instanceof StaffController) {
-                ((StaffController) controller).setCurrentUser(currentUser);
-            } else if (controller instanceof CustomerController) {
+            if (controller instanceof CustomerController) {
                 ((CustomerController) controller).setCurrentUser(currentUser);
             }
             
@@ -3,8 +3,17 @@ package com.example.airlinereservationsystem.controllers;
 import com.example.airlinereservationsystem.DatabaseConnection;
 import com.example.airlinereservationsystem.models.Customer;
 import com.example.airlinereservationsystem.models.Flight;
-import com.example.airlinereservationsystem.models.Reservation;
-import com.example.airlinereservationsystem.utils.ConcessionCalculator;
+import com.example.airlinereservationsystem.models.SeatMap;
+import com.example.airlinereservationsystem.services.BookingEventLog;
+import com.example.airlinereservationsystem.services.CustomerIdentityService;
+import com.example.airlinereservationsystem.services.DynamicPricingEngine;
+import com.example.airlinereservationsystem.services.FareEngine;
+import com.example.airlinereservationsystem.services.ReservationService;
+import com.example.airlinereservationsystem.services.SeatInventory;
+import com.example.airlinereservationsystem.services.SeatMapService;
+import com.example.airlinereservationsystem.services.SessionContext;
+import com.example.airlinereservationsystem.services.WaitlistService;
+import com.example.airlinereservationsystem.utils.Money;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -16,6 +25,7 @@ import javafx.scene.control.cell.PropertyValueFactory;
 
 import java.sql.*;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -52,6 +62,10 @@ public class ReservationController {
     @FXML private TableColumn<Flight, Integer> availableSeatsCol;
     @FXML private TableColumn<Flight, Double> fareCol;
     
+    // Seat Selection
+    @FXML private SeatMapPane seatMapPane;
+    @FXML private Label selectedSeatLabel;
+    
     // Fare Calculation
     @FXML private Label baseFareLabel;
     @FXML private Label discountLabel;
@@ -63,8 +77,12 @@ public class ReservationController {
     @FXML private Label statusLabel;
     
     private ObservableList<Flight> availableFlights = FXCollections.observableArrayList();
-    private double baseFare = 0.0;
-    private double finalFare = 0.0;
+    private long baseFareCents = Money.ZERO;
+    private long finalFareCents = Money.ZERO;
+    private final SeatMapService seatMaps = SeatMapService.getInstance();
+    private final WaitlistService waitlist = WaitlistService.getInstance();
+    private final BookingEventLog events = BookingEventLog.getInstance();
+    private final CustomerIdentityService customers = CustomerIdentityService.getInstance();
     
     @FXML
     public void initialize() {
@@ -92,14 +110,66 @@ public class ReservationController {
         
         flightsTable.setItems(availableFlights);
         
-        // Selection listener for fare calculation
+        // Selection listener for fare calculation and the seat map
         flightsTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
             if (newSelection != null) {
-                calculateFare(newSelection.getBaseFare());
+                calculateFare(newSelection.getBaseFareCents());
             }
+            showSeatMap(newSelection);
+        });
+        
+        seatMapPane.setOnSeatSelected(seat -> {
+            Flight flight = flightsTable.getSelectionModel().getSelectedItem();
+            if (flight == null) return;
+            selectedSeatLabel.setText(seat > 0 
+                ? "Seat " + seatMaps.label(flight.getFlightCode(), classCombo.getValue(), seat) 
+                : "No seat picked - assigned by preference");
         });
     }
     
+    /**
+     * Draw the selected flight's cabin. Taken seats are read once per flight date in the background;
+     * after that the map is drawn from the seat map cache.
+     */
+    private void showSeatMap(Flight flight) {
+        seatMapPane.clear();
+        if (flight == null || classCombo.getValue() == null || travelDatePicker.getValue() == null) {
+            selectedSeatLabel.setText("Select a flight to see its seats");
+            return;
+        }
+        int flightCode = flight.getFlightCode();
+        String seatClass = classCombo.getValue();
+        LocalDate travelDate = travelDatePicker.getValue();
+        selectedSeatLabel.setText("Loading seats...");
+        
+        Task<SeatMap> seatTask = new Task<SeatMap>() {
+            @Override
+            protected SeatMap call() throws Exception {
+                seatMaps.takenSeats(flightCode, travelDate, seatClass);
+                return seatMaps.seatMap(flightCode, seatClass);
+            }
+        };
+        
+        seatTask.setOnSucceeded(e -> {
+            Flight current = flightsTable.getSelectionModel().getSelectedItem();
+            if (current == null || current.getFlightCode() != flightCode) return;
+            try {
+                seatMapPane.show(seatTask.getValue(), seatMaps.takenSeats(flightCode, travelDate, seatClass), 0);
+                selectedSeatLabel.setText("No seat picked - assigned by preference");
+            } catch (SQLException ex) {
+                LOGGER.log(Level.WARNING, "Failed to draw seat map", ex);
+                selectedSeatLabel.setText("Seat map unavailable");
+            }
+        });
+        
+        seatTask.setOnFailed(e -> {
+            LOGGER.log(Level.WARNING, "Failed to load seat map", seatTask.getException());
+            selectedSeatLabel.setText("Seat map unavailable");
+        });
+        
+        new Thread(seatTask).start();
+    }
+    
     private void setupComboBoxes() {
         // Gender options
         genderCombo.setItems(FXCollections.observableArrayList("Male", "Female", "Other"));
@@ -125,7 +195,7 @@ public class ReservationController {
         // Add listener for concession changes
         concessionCombo.valueProperty().addListener((obs, oldVal, newVal) -> {
             if (flightsTable.getSelectionModel().getSelectedItem() != null) {
-                calculateFare(flightsTable.getSelectionModel().getSelectedItem().getBaseFare());
+                calculateFare(flightsTable.getSelectionModel().getSelectedItem().getBaseFareCents());
             }
         });
     }
@@ -202,86 +272,63 @@ public class ReservationController {
     private ObservableList<Flight> searchAvailableFlights() throws SQLException {
         ObservableList<Flight> flights = FXCollections.observableArrayList();
         
-        String sql = """
-            SELECT f.*, fa.source_place, fa.dest_place, fa.depart_time, fa.arrival_time, fa.fare as base_fare,
-                   CASE WHEN ? = 'Economy' THEN f.total_eco_seats ELSE f.total_exe_seats END as total_seats,
-                   COALESCE(r.reserved_seats, 0) as reserved_seats,
-                   (CASE WHEN ? = 'Economy' THEN f.total_eco_seats ELSE f.total_exe_seats END - COALESCE(r.reserved_seats, 0)) as available_seats
-            FROM flights f
-            LEFT JOIN fare fa ON f.flight_code = fa.flight_code
-            LEFT JOIN (
-                SELECT flight_code, seat_class, COUNT(*) as reserved_seats
-                FROM reservations 
-                WHERE travel_date = ? AND status = 'Confirmed'
-                GROUP BY flight_code, seat_class
-            ) r ON f.flight_code = r.flight_code AND r.seat_class = ?
-            WHERE (CASE WHEN ? = 'Economy' THEN f.total_eco_seats ELSE f.total_exe_seats END - COALESCE(r.reserved_seats, 0)) > 0
-            ORDER BY f.flight_name
-        """;
+        // Seats left and prices come from the in-memory inventory, the schedule from the session
+        SeatInventory.getInstance().ensureLoaded();
+        DynamicPricingEngine pricing = DynamicPricingEngine.getInstance();
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            String selectedClass = classCombo.getValue();
-            LocalDate travelDate = travelDatePicker.getValue();
-            
-            ps.setString(1, selectedClass);
-            ps.setString(2, selectedClass);
-            ps.setDate(3, Date.valueOf(travelDate));
-            ps.setString(4, selectedClass);
-            ps.setString(5, selectedClass);
-            
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    Flight flight = new Flight(
-                        rs.getString("flight_name"),
-                        rs.getInt("flight_code"),
-                        rs.getString("class_code"),
-                        rs.getInt("total_exe_seats"),
-                        rs.getInt("total_eco_seats")
-                    );
-                    
-                    // Set properties from database
-                    flight.setAvailableSeats(rs.getInt("available_seats"));
-                    
-                    // Get fare from database or use default
-                    double dbFare = rs.getDouble("base_fare");
-                    flight.setBaseFare(dbFare > 0 ? dbFare : (selectedClass.equals("Economy") ? 850.0 : 2040.0));
-                    
-                    // Get route from database or use default
-                    String source = rs.getString("source_place");
-                    String dest = rs.getString("dest_place");
-                    flight.setRoute(source != null && dest != null ? source + " → " + dest : "Maseru → Johannesburg");
-                    
-                    // Get times from database or use default
-                    Time departTime = rs.getTime("depart_time");
-                    Time arrivalTime = rs.getTime("arrival_time");
-                    flight.setDepartureTime(departTime != null ? departTime.toString().substring(0,5) : "09:00");
-                    flight.setArrivalTime(arrivalTime != null ? arrivalTime.toString().substring(0,5) : "11:30");
-                    
-                    flights.add(flight);
-                }
-            }
+        String selectedClass = classCombo.getValue();
+        LocalDate travelDate = travelDatePicker.getValue();
+        
+        // Scheduled flights are shared between screens, so each result is a copy
+        for (Flight scheduled : SessionContext.getInstance().getSchedule()) {
+            Flight flight = new Flight(
+                scheduled.getFlightName(),
+                scheduled.getFlightCode(),
+                scheduled.getClassCode(),
+                scheduled.getTotalExeSeats(),
+                scheduled.getTotalEcoSeats()
+            );
+            flight.setFleetId(scheduled.getFleetId());
+            
+            // Route from the fare table or a default
+            String routeName = scheduled.getRoute();
+            flight.setRoute(routeName != null ? routeName : "Maseru → Johannesburg");
+            
+            // Seats left and dynamic fare for this flight, date, class and route
+            DynamicPricingEngine.Quote quote = pricing.quote(flight.getFlightCode(), travelDate, selectedClass, routeName);
+            if (quote.getSeatsLeft() <= 0) continue;
+            flight.setAvailableSeats(quote.getSeatsLeft());
+            flight.setBaseFareCents(quote.getPriceCents());
+            
+            // Times from the fare table or defaults
+            flight.setDepartureTime(scheduled.getDepartureTime() != null ? scheduled.getDepartureTime() : "09:00");
+            flight.setArrivalTime(scheduled.getArrivalTime() != null ? scheduled.getArrivalTime() : "11:30");
+            
+            flights.add(flight);
         }
         
         return flights;
     }
     
-    private void calculateFare(double baseFareAmount) {
+    private void calculateFare(long baseCents) {
         try {
-            this.baseFare = baseFareAmount;
+            this.baseFareCents = baseCents;
             String concessionType = concessionCombo.getValue();
             
             // Extract concession type from display text
             String actualConcessionType = extractConcessionType(concessionType);
             
-            double discount = ConcessionCalculator.calculateDiscount(baseFareAmount, actualConcessionType);
-            this.finalFare = baseFareAmount - discount;
+            // Exact cents arithmetic against the preloaded concession rules
+            FareEngine fares = FareEngine.getInstance();
+            long discountCents = fares.discountCents(baseCents, actualConcessionType);
+            long finalCents = Money.subtract(baseCents, discountCents);
+            this.finalFareCents = finalCents;
+            double discountPercent = fares.discountBasisPoints(actualConcessionType) / 100.0;
             
             Platform.runLater(() -> {
-                baseFareLabel.setText(String.format("M%.2f LSL", baseFareAmount));
-                discountLabel.setText(String.format("M%.2f LSL (%.1f%%)", discount, (discount/baseFareAmount)*100));
-                finalFareLabel.setText(String.format("M%.2f LSL", finalFare));
+                baseFareLabel.setText("M" + Money.format(baseCents) + " LSL");
+                discountLabel.setText(String.format("M%s LSL (%.1f%%)", Money.format(discountCents), discountPercent));
+                finalFareLabel.setText("M" + Money.format(finalCents) + " LSL");
             });
             
         } catch (Exception e) {
@@ -359,33 +406,59 @@ public class ReservationController {
     
     private String processReservation() throws SQLException {
         Connection conn = null;
+        SeatInventory inventory = SeatInventory.getInstance();
+        Flight selectedFlight = flightsTable.getSelectionModel().getSelectedItem();
+        String selectedClass = classCombo.getValue();
+        LocalDate travelDate = travelDatePicker.getValue();
+        int requestedSeat = seatMapPane.getSelectedSeat();
+        // Bucket and physical seat held for this booking; given back unless the booking commits
+        int heldBucket = -1;
+        int heldSeat = 0;
         try {
+            inventory.ensureLoaded();
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false);
             
             // 1. Insert customer
             int customerId = insertCustomer(conn);
             
-            // 2. Check seat availability and assign
-            Flight selectedFlight = flightsTable.getSelectionModel().getSelectedItem();
-            String selectedClass = classCombo.getValue();
-            
-            int assignedSeat = assignSeat(conn, selectedFlight.getFlightCode(), selectedClass);
+            // 2. Take a seat in the cheapest open fare bucket, then assign a physical seat;
+            //    an overbooked booking is confirmed with seat 0 and seated at check-in
+            heldBucket = inventory.sell(selectedFlight.getFlightCode(), travelDate, selectedClass);
             
-            if (assignedSeat > 0) {
-                // 3. Create confirmed reservation
-                String pnr = generatePNR();
-                insertReservation(conn, customerId, selectedFlight.getFlightCode(), selectedClass, assignedSeat, pnr, "Confirmed");
+            if (heldBucket >= 0) {
+                heldSeat = seatMaps.reserve(selectedFlight.getFlightCode(), travelDate, selectedClass,
+                                            requestedSeat, seatPreferenceCombo.getValue());
+                int assignedSeat = heldSeat;
+                
+                // 3. Create confirmed reservation, repriced in case the bucket moved since the search
+                long baseCents = DynamicPricingEngine.getInstance().priceCents(selectedFlight.getFlightCode(), travelDate,
+                    selectedClass, selectedFlight.getRoute(), heldBucket);
+                finalFareCents = FareEngine.getInstance().finalFareCents(baseCents,
+                    extractConcessionType(concessionCombo.getValue()));
+                String pnr = ReservationService.nextPnr(conn);
+                int reservationId = insertReservation(conn, customerId, selectedFlight.getFlightCode(), selectedClass, assignedSeat, pnr, "Confirmed", heldBucket);
+                events.append(conn, new BookingEventLog.Event(BookingEventLog.BOOKED, reservationId, customerId,
+                    selectedFlight.getFlightCode(), travelDate, selectedClass, heldBucket, assignedSeat, 0, finalFareCents));
+                ReservationService.requireScheduled(conn, selectedFlight.getFlightCode(), travelDate);
                 
                 conn.commit();
-                return "SUCCESS: Reservation confirmed!\nPNR: " + pnr + "\nSeat: " + assignedSeat + "\nFare: M" + String.format("%.2f", finalFare) + " LSL";
+                heldBucket = -1;
+                heldSeat = 0;
+                return "SUCCESS: Reservation confirmed!\nPNR: " + pnr + "\nSeat: " 
+                    + seatMaps.label(selectedFlight.getFlightCode(), selectedClass, assignedSeat) + "\nFare: M" + Money.format(finalFareCents) + " LSL";
                 
             } else {
-                // 4. Add to waiting list
-                int waitingNumber = addToWaitingList(conn, customerId, selectedFlight.getFlightCode(), selectedClass);
+                // 4. Add to waiting list for this travel date
+                WaitlistService.Entry entry = waitlist.enqueue(conn, customerId, selectedFlight.getFlightCode(),
+                    travelDate, selectedClass, WaitlistService.TIER_STANDARD);
+                events.append(conn, new BookingEventLog.Event(BookingEventLog.WAITLISTED, 0, customerId,
+                    selectedFlight.getFlightCode(), travelDate, selectedClass, -1, 0, 0, 0));
+                ReservationService.requireScheduled(conn, selectedFlight.getFlightCode(), travelDate);
                 
                 conn.commit();
-                return "WAITING: No seats available. Added to waiting list.\nWaiting Number: " + waitingNumber;
+                waitlist.enqueued(List.of(entry));
+                return "WAITING: No seats available. Added to waiting list.\nWaiting Number: " + entry.getWaitingNumber();
             }
             
         } catch (SQLException e) {
@@ -398,6 +471,10 @@ public class ReservationController {
             }
             throw e;
         } finally {
+            seatMaps.release(selectedFlight.getFlightCode(), travelDate, selectedClass, heldSeat);
+            if (heldBucket >= 0) {
+                inventory.released(selectedFlight.getFlightCode(), travelDate, selectedClass, heldBucket);
+            }
             if (conn != null) {
                 try {
                     conn.setAutoCommit(true);
@@ -410,169 +487,42 @@ public class ReservationController {
     }
     
     private int insertCustomer(Connection conn) throws SQLException {
-        String sql = """
-            INSERT INTO customer_details (cust_name, father_name, gender, dob, address, tel_no, profession, concession, travel_date)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
-        """;
-        
-        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setString(1, customerNameField.getText().trim());
-            ps.setString(2, fatherNameField.getText().trim());
-            ps.setString(3, genderCombo.getValue());
-            ps.setDate(4, Date.valueOf(dobPicker.getValue()));
-            ps.setString(5, addressArea.getText().trim());
-            ps.setString(6, phoneField.getText().trim());
-            ps.setString(7, professionField.getText().trim());
-            ps.setString(8, extractConcessionType(concessionCombo.getValue()));
-            ps.setDate(9, Date.valueOf(travelDatePicker.getValue()));
-            
-            ps.executeUpdate();
-            
-            try (ResultSet rs = ps.getGeneratedKeys()) {
-                if (rs.next()) {
-                    return rs.getInt(1);
-                }
-            }
-        }
-        
-        throw new SQLException("Failed to insert customer");
+        Customer customer = new Customer(customerNameField.getText().trim(), fatherNameField.getText().trim(),
+            genderCombo.getValue(), dobPicker.getValue(), addressArea.getText().trim(), phoneField.getText().trim(),
+            professionField.getText().trim(), extractConcessionType(concessionCombo.getValue()));
+        customer.setTravelDate(travelDatePicker.getValue());
+        return customers.resolve(conn, customer);
     }
     
-    private int assignSeat(Connection conn, int flightCode, String seatClass) throws SQLException {
-        // Check available seats
-        String checkSql = """
-            SELECT 
-                CASE WHEN ? = 'Economy' THEN f.total_eco_seats ELSE f.total_exe_seats END as total_seats,
-                COALESCE(COUNT(r.seat_number), 0) as reserved_seats
-            FROM flights f
-            LEFT JOIN reservations r ON f.flight_code = r.flight_code AND r.seat_class = ? AND r.status = 'Confirmed'
-            WHERE f.flight_code = ?
-            GROUP BY f.flight_code, f.total_eco_seats, f.total_exe_seats
-        """;
-        
-        try (PreparedStatement ps = conn.prepareStatement(checkSql)) {
-            ps.setString(1, seatClass);
-            ps.setString(2, seatClass);
-            ps.setInt(3, flightCode);
-            
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    int totalSeats = rs.getInt("total_seats");
-                    int reservedSeats = rs.getInt("reserved_seats");
-                    
-                    if (reservedSeats < totalSeats) {
-                        // Find next available seat
-                        return findNextAvailableSeat(conn, flightCode, seatClass, totalSeats);
-                    }
-                }
-            }
-        }
-        
-        return 0; // No seats available
-    }
-    
-    private int findNextAvailableSeat(Connection conn, int flightCode, String seatClass, int totalSeats) throws SQLException {
-        String seatPreference = seatPreferenceCombo.getValue();
-        
-        // Get reserved seats
-        String reservedSql = "SELECT seat_number FROM reservations WHERE flight_code = ? AND seat_class = ? AND status = 'Confirmed'";
-        
-        try (PreparedStatement ps = conn.prepareStatement(reservedSql)) {
-            ps.setInt(1, flightCode);
-            ps.setString(2, seatClass);
-            
-            try (ResultSet rs = ps.executeQuery()) {
-                boolean[] reserved = new boolean[totalSeats + 1];
-                while (rs.next()) {
-                    reserved[rs.getInt("seat_number")] = true;
-                }
-                
-                // Assign seat based on preference
-                if ("Window".equals(seatPreference)) {
-                    // Window seats: 1, 6, 7, 12, etc. (assuming 6 seats per row)
-                    for (int i = 1; i <= totalSeats; i++) {
-                        if (!reserved[i] && isWindowSeat(i)) {
-                            return i;
-                        }
-                    }
-                }
-                
-                // Find any available seat
-                for (int i = 1; i <= totalSeats; i++) {
-                    if (!reserved[i]) {
-                        return i;
-                    }
-                }
-            }
-        }
-        
-        return 0;
-    }
-    
-    private boolean isWindowSeat(int seatNumber) {
-        // Assuming 6 seats per row (A-F), window seats are A(1) and F(6)
-        int seatInRow = ((seatNumber - 1) % 6) + 1;
-        return seatInRow == 1 || seatInRow == 6;
-    }
-    
-    private void insertReservation(Connection conn, int customerId, int flightCode, String seatClass, int seatNumber, String pnr, String status) throws SQLException {
+    private int insertReservation(Connection conn, int customerId, int flightCode, String seatClass, int seatNumber, String pnr, String status, int fareBucket) throws SQLException {
         String sql = """
-            INSERT INTO reservations (cust_id, flight_code, seat_class, seat_number, status, fare, travel_date, pnr)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            INSERT INTO reservations (cust_id, flight_code, seat_class, seat_number, status, fare, travel_date, pnr, fare_bucket)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
         """;
         
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PreparedStatement ps = conn.prepareStatement(sql, new String[] { "reservation_id" })) {
             ps.setInt(1, customerId);
             ps.setInt(2, flightCode);
             ps.setString(3, seatClass);
             ps.setInt(4, seatNumber);
             ps.setString(5, status);
-            ps.setDouble(6, finalFare);
+            Money.bind(ps, 6, finalFareCents);
             ps.setDate(7, Date.valueOf(travelDatePicker.getValue()));
             ps.setString(8, pnr);
+            ps.setString(9, SeatInventory.bucketCode(fareBucket));
             
             ps.executeUpdate();
-        }
-    }
-    
-    private int addToWaitingList(Connection conn, int customerId, int flightCode, String seatClass) throws SQLException {
-        // Get next waiting number
-        String countSql = "SELECT COALESCE(MAX(waiting_no), 0) + 1 as next_waiting FROM waiting_list WHERE flight_code = ? AND seat_class = ?";
-        
-        int waitingNumber = 1;
-        try (PreparedStatement ps = conn.prepareStatement(countSql)) {
-            ps.setInt(1, flightCode);
-            ps.setString(2, seatClass);
             
-            try (ResultSet rs = ps.executeQuery()) {
+            try (ResultSet rs = ps.getGeneratedKeys()) {
                 if (rs.next()) {
-                    waitingNumber = rs.getInt("next_waiting");
+                    return rs.getInt(1);
                 }
             }
         }
         
-        // Insert into waiting list
-        String insertSql = """
-            INSERT INTO waiting_list (flight_code, cust_id, seat_class, waiting_no, travel_date)
-            VALUES (?, ?, ?, ?, ?)
-        """;
-        
-        try (PreparedStatement ps = conn.prepareStatement(insertSql)) {
-            ps.setInt(1, flightCode);
-            ps.setInt(2, customerId);
-            ps.setString(3, seatClass);
-            ps.setInt(4, waitingNumber);
-            ps.setDate(5, Date.valueOf(travelDatePicker.getValue()));
-            
-            ps.executeUpdate();
-        }
-        
-        return waitingNumber;
+        throw new SQLException("Failed to insert reservation");
     }
     
-    private String generatePNR() {
-        return "PNR" + System.currentTimeMillis() % 1000000;
-    }
     
     private boolean validateTravelDetails() {
         if (travelDatePicker.getValue() == null) {
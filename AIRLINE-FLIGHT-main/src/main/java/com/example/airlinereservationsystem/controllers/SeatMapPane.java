@@ -0,0 +1,112 @@
+package com.example.airlinereservationsystem.controllers;
+
+import com.example.airlinereservationsystem.models.SeatMap;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.control.ToggleButton;
+import javafx.scene.control.ToggleGroup;
+import javafx.scene.control.Tooltip;
+import javafx.scene.layout.GridPane;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Clickable seat map: one toggle per seat, placed by row and letter with a gap for each aisle.
+ * Taken seats are disabled and exit rows are outlined. Picking a free seat reports its number;
+ * picking it again clears the choice (reported as 0).
+ */
+public class SeatMapPane extends GridPane {
+
+    private static final String FREE_STYLE = "-fx-background-color: #2ecc71; -fx-text-fill: white; -fx-background-radius: 4;";
+    private static final String TAKEN_STYLE = "-fx-background-color: #bdc3c7; -fx-text-fill: #7f8c8d; -fx-background-radius: 4;";
+    private static final String SELECTED_STYLE = "-fx-background-color: #2980b9; -fx-text-fill: white; -fx-background-radius: 4;";
+    private static final String EXIT_BORDER = " -fx-border-color: #e67e22; -fx-border-width: 2; -fx-border-radius: 4;";
+
+    private final ToggleGroup seats = new ToggleGroup();
+    private IntConsumer onSeatSelected = seat -> { };
+    private int selectedSeat;
+
+    public SeatMapPane() {
+        setHgap(4);
+        setVgap(4);
+        setPadding(new Insets(10));
+        seats.selectedToggleProperty().addListener((obs, oldToggle, newToggle) -> {
+            selectedSeat = newToggle != null ? (Integer) newToggle.getUserData() : 0;
+            onSeatSelected.accept(selectedSeat);
+        });
+    }
+
+    public void setOnSeatSelected(IntConsumer onSeatSelected) {
+        this.onSeatSelected = onSeatSelected != null ? onSeatSelected : seat -> { };
+    }
+
+    /**
+     * @return Seat number picked on the map, or 0 for none
+     */
+    public int getSelectedSeat() {
+        return selectedSeat;
+    }
+
+    /**
+     * Draw a cabin. {@code taken} holds one column mask per row, as from the seat map service.
+     * The previously picked seat stays picked if it is still free.
+     */
+    public void show(SeatMap map, long[] taken, int keepSeat) {
+        clear();
+
+        // Grid column of each seat column, leaving one empty column per aisle
+        int[] gridColumn = new int[map.getColumnCount()];
+        int next = 1;
+        for (int c = 0; c < map.getColumnCount(); c++) {
+            gridColumn[c] = next++;
+            if (map.hasAisleAfter(c)) next++;
+            Label letter = new Label(String.valueOf(map.letter(c)));
+            letter.setStyle("-fx-font-weight: bold; -fx-text-fill: #34495e;");
+            letter.setMaxWidth(Double.MAX_VALUE);
+            letter.setAlignment(Pos.CENTER);
+            add(letter, gridColumn[c], 0);
+        }
+
+        ToggleButton keep = null;
+        for (int r = 0; r < map.getRowCount(); r++) {
+            Label rowLabel = new Label(map.rowNumber(r) + (map.isExitRow(r) ? " EXIT" : ""));
+            rowLabel.setStyle("-fx-text-fill: " + (map.isExitRow(r) ? "#e67e22" : "#7f8c8d") + "; -fx-font-size: 11px;");
+            add(rowLabel, 0, r + 1);
+
+            long present = map.seatMask(r);
+            long takenRow = r < taken.length ? taken[r] : 0;
+            for (int c = 0; c < map.getColumnCount(); c++) {
+                if ((present & (1L << c)) == 0) continue;
+                int seatNumber = map.seatNumber(r, c);
+                boolean isTaken = (takenRow & (1L << c)) != 0;
+                String border = map.isExitRow(r) ? EXIT_BORDER : "";
+
+                ToggleButton seat = new ToggleButton(String.valueOf(map.letter(c)));
+                seat.setUserData(seatNumber);
+                seat.setPrefSize(34, 28);
+                seat.setDisable(isTaken);
+                seat.setStyle((isTaken ? TAKEN_STYLE : FREE_STYLE) + border);
+                seat.setTooltip(new Tooltip(map.label(seatNumber) + (isTaken ? " (taken)" : "")
+                                            + (map.isExitRow(r) ? " - exit row" : "")));
+                seat.selectedProperty().addListener((obs, wasSelected, isSelected) ->
+                    seat.setStyle((isSelected ? SELECTED_STYLE : FREE_STYLE) + border));
+                seat.setToggleGroup(seats);
+                add(seat, gridColumn[c], r + 1);
+
+                if (seatNumber == keepSeat && !isTaken) keep = seat;
+            }
+        }
+
+        if (keep != null) keep.setSelected(true);
+    }
+
+    /**
+     * Remove every seat and clear the choice.
+     */
+    public void clear() {
+        seats.selectToggle(null);
+        seats.getToggles().clear();
+        getChildren().clear();
+    }
+}
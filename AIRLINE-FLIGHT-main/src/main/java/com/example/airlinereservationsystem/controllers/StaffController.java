@@ -1,7 +1,14 @@
 package com.example.airlinereservationsystem.controllers;
 
 import com.example.airlinereservationsystem.models.*;
+import com.example.airlinereservationsystem.services.FareEngine;
+import com.example.airlinereservationsystem.services.ManifestGenerator;
+import com.example.airlinereservationsystem.services.ManifestImportService;
+import com.example.airlinereservationsystem.services.PassengerSearchIndex;
+import com.example.airlinereservationsystem.services.ReportService;
 import com.example.airlinereservationsystem.services.ReservationService;
+import com.example.airlinereservationsystem.services.SessionContext;
+import com.example.airlinereservationsystem.utils.Money;
 import javafx.animation.FadeTransition;
 import javafx.animation.Timeline;
 import javafx.application.Platform;
@@ -13,18 +20,24 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.VBox;
+import javafx.stage.DirectoryChooser;
+import javafx.stage.FileChooser;
 import javafx.util.Duration;
 
+import java.io.File;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 public class StaffController {
     private static final Logger LOGGER = Logger.getLogger(StaffController.class.getName());
     
     private ReservationService reservationService = new ReservationService();
-    private User currentUser;
+    private ManifestImportService manifestImportService = new ManifestImportService();
+    private PassengerSearchIndex passengerSearch = PassengerSearchIndex.getInstance();
+    private final SessionContext session = SessionContext.getInstance();
     
     @FXML private TextField customerNameField;
     @FXML private TextField fatherNameField;
@@ -55,6 +68,7 @@ public class StaffController {
     
     @FXML private Button makeReservationBtn;
     @FXML private ProgressBar reservationProgress;
+    @FXML private Button importManifestBtn;
     
     @FXML private TableView<Reservation> reservationsTable;
     @FXML private TableColumn<Reservation, String> pnrCol;
@@ -76,10 +90,15 @@ public class StaffController {
     @FXML private VBox reservationDetailsBox;
     @FXML private Label reservationInfoLabel;
     @FXML private Button cancelReservationBtn;
+    @FXML private Button checkInBtn;
     
     @FXML private Button fadeEffectBtn;
     @FXML private Label statusLabel;
     @FXML private TextArea reportsArea;
+    @FXML private DatePicker manifestDatePicker;
+    @FXML private ComboBox<ManifestGenerator.Format> manifestFormatCombo;
+    @FXML private Button generateManifestsBtn;
+    @FXML private ProgressIndicator manifestProgress;
     
     private ObservableList<Flight> availableFlights = FXCollections.observableArrayList();
     private ObservableList<Reservation> allReservations = FXCollections.observableArrayList();
@@ -96,7 +115,10 @@ public class StaffController {
             setupVisualEffects();
             loadReservations();
             
-            statusLabel.setText("Staff Dashboard Ready - Assist customers with reservations");
+            User currentUser = session.getUser();
+            statusLabel.setText(currentUser != null
+                ? "Staff: " + currentUser.getFullName() + " - Ready to assist customers"
+                : "Staff Dashboard Ready - Assist customers with reservations");
             LOGGER.info("StaffController initialized successfully");
             
         } catch (Exception e) {
@@ -105,11 +127,6 @@ public class StaffController {
         }
     }
     
-    public void setCurrentUser(User user) {
-        this.currentUser = user;
-        statusLabel.setText("Staff: " + user.getFullName() + " - Ready to assist customers");
-    }
-    
     private void setupTables() {
         flightNameCol.setCellValueFactory(new PropertyValueFactory<>("flightName"));
         routeCol.setCellValueFactory(new PropertyValueFactory<>("route"));
@@ -125,7 +142,7 @@ public class StaffController {
         seatCol.setCellValueFactory(cellData -> {
             Reservation res = cellData.getValue();
             return new javafx.beans.property.SimpleStringProperty(
-                res.getSeatClass() + " - Seat " + res.getSeatNumber());
+                res.getSeatClass() + " - Seat " + res.getSeatLabel());
         });
         statusCol.setCellValueFactory(new PropertyValueFactory<>("status"));
         fareAmountCol.setCellValueFactory(new PropertyValueFactory<>("fare"));
@@ -133,7 +150,7 @@ public class StaffController {
         
         flightsTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
             if (newSelection != null) {
-                calculateFare(newSelection.getBaseFare());
+                calculateFare(newSelection.getBaseFareCents());
             }
         });
         
@@ -162,9 +179,13 @@ public class StaffController {
         ));
         concessionCombo.setValue("None");
         
+        manifestFormatCombo.setItems(FXCollections.observableArrayList(ManifestGenerator.Format.values()));
+        manifestFormatCombo.setValue(ManifestGenerator.Format.PAGED);
+        manifestDatePicker.setValue(LocalDate.now());
+        
         concessionCombo.valueProperty().addListener((obs, oldVal, newVal) -> {
             if (flightsTable.getSelectionModel().getSelectedItem() != null) {
-                calculateFare(flightsTable.getSelectionModel().getSelectedItem().getBaseFare());
+                calculateFare(flightsTable.getSelectionModel().getSelectedItem().getBaseFareCents());
             }
         });
     }
@@ -257,7 +278,8 @@ public class StaffController {
                         selectedFlight.getFlightCode(),
                         classCombo.getValue(),
                         seatPreferenceCombo.getValue(),
-                        travelDatePicker.getValue()
+                        travelDatePicker.getValue(),
+                        selectedFlight.getRoute()
                     );
                 }
             };
@@ -273,8 +295,8 @@ public class StaffController {
                         showAlert("Reservation Confirmed", 
                             "Customer reservation successful!\n" +
                             "PNR: " + result.getPnr() + "\n" +
-                            "Seat: " + result.getSeatNumber() + "\n" +
-                            "Fare: M" + String.format("%.2f", result.getFare()) + " LSL");
+                            "Seat: " + Reservation.seatLabel(result.getSeatNumber()) + "\n" +
+                            "Fare: M" + Money.format(result.getFareCents()) + " LSL");
                         clearCustomerForm();
                         loadReservations();
                     } else {
@@ -303,14 +325,106 @@ public class StaffController {
         }
     }
     
+    @FXML
+    protected void onImportManifest(ActionEvent event) {
+        try {
+            Flight selectedFlight = flightsTable.getSelectionModel().getSelectedItem();
+            if (travelDatePicker.getValue() == null || selectedFlight == null) {
+                showAlert("Validation Error", "Please select travel date and search/select a flight before importing a manifest");
+                return;
+            }
+            
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Select Passenger Manifest");
+            chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Manifest files", "*.csv", "*.json", "*.jsonl"),
+                new FileChooser.ExtensionFilter("All files", "*.*")
+            );
+            File file = chooser.showOpenDialog(importManifestBtn.getScene().getWindow());
+            if (file == null) {
+                return;
+            }
+            
+            int flightCode = selectedFlight.getFlightCode();
+            String seatClass = classCombo.getValue();
+            LocalDate travelDate = travelDatePicker.getValue();
+            
+            reservationProgress.setVisible(true);
+            importManifestBtn.setDisable(true);
+            statusLabel.setText("Importing manifest " + file.getName() + "...");
+            
+            Task<ManifestImportService.ImportResult> importTask = new Task<ManifestImportService.ImportResult>() {
+                @Override
+                protected ManifestImportService.ImportResult call() throws Exception {
+                    return manifestImportService.importManifest(file.toPath(), flightCode, seatClass, travelDate);
+                }
+            };
+            
+            importTask.setOnSucceeded(e -> {
+                ManifestImportService.ImportResult result = importTask.getValue();
+                Platform.runLater(() -> {
+                    reservationProgress.setVisible(false);
+                    importManifestBtn.setDisable(false);
+                    
+                    reportsArea.setText(formatImportReport(file.getName(), selectedFlight.getFlightName(), result));
+                    statusLabel.setText("Manifest imported in " + result.getElapsedMillis() + " ms");
+                    showAlert("Manifest Imported", 
+                        "Confirmed: " + result.count(ManifestImportService.RowResult.Status.CONFIRMED) + "\n" +
+                        "Waiting list: " + result.count(ManifestImportService.RowResult.Status.WAITLISTED) + "\n" +
+                        "Rejected: " + result.count(ManifestImportService.RowResult.Status.REJECTED) + "\n\n" +
+                        "Per-passenger results are in the Reports tab.");
+                    loadReservations();
+                });
+            });
+            
+            importTask.setOnFailed(e -> {
+                Platform.runLater(() -> {
+                    reservationProgress.setVisible(false);
+                    importManifestBtn.setDisable(false);
+                    statusLabel.setText("Manifest import failed");
+                    showAlert("Import Error", "Failed to import manifest: " + importTask.getException().getMessage());
+                });
+            });
+            
+            new Thread(importTask).start();
+            
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Failed to import manifest", e);
+            statusLabel.setText("Manifest import failed");
+        }
+    }
+    
+    private String formatImportReport(String fileName, String flightName, ManifestImportService.ImportResult result) {
+        StringBuilder report = new StringBuilder();
+        report.append("=== MANIFEST IMPORT: ").append(fileName).append(" ===\n");
+        report.append("Flight: ").append(flightName).append("\n");
+        report.append("Rows: ").append(result.getRows().size())
+              .append(" | Time: ").append(result.getElapsedMillis()).append(" ms\n\n");
+        
+        for (ManifestImportService.RowResult row : result.getRows()) {
+            report.append(String.format("Line %-5d %-11s %-25s %s%s%n",
+                row.getLineNumber(),
+                row.getStatus(),
+                row.getPassengerName().isEmpty() ? "(no name)" : row.getPassengerName(),
+                row.getPnr() != null ? row.getPnr() + " | " : "",
+                row.getMessage()));
+        }
+        return report.toString();
+    }
+    
     @FXML
     protected void onSearchPNR(ActionEvent event) {
         String pnr = pnrSearchField.getText().trim();
         if (pnr.isEmpty()) {
-            showAlert("Validation Error", "Please enter PNR number");
+            showAlert("Validation Error", "Please enter a PNR, passenger name or phone number");
             return;
         }
-        
+
+        if (passengerSearch.size() > 0) {
+            searchPassengers(pnr);
+            return;
+        }
+
         for (Reservation reservation : allReservations) {
             if (reservation.getPnr().equals(pnr)) {
                 reservationsTable.getSelectionModel().select(reservation);
@@ -324,6 +438,54 @@ public class StaffController {
         showAlert("Not Found", "No reservation found with PNR: " + pnr);
         statusLabel.setText("Reservation not found: " + pnr);
     }
+
+    /**
+     * Show the reservations whose passenger name, phone number or PNR best match the query
+     */
+    private void searchPassengers(String query) {
+        Task<List<Reservation>> searchTask = new Task<List<Reservation>>() {
+            @Override
+            protected List<Reservation> call() throws Exception {
+                List<Integer> ids = passengerSearch.search(query, PassengerSearchIndex.DEFAULT_LIMIT).stream()
+                    .map(PassengerSearchIndex.Match::getReservationId)
+                    .collect(Collectors.toList());
+                return reservationService.getReservations(ids);
+            }
+        };
+
+        searchTask.setOnSucceeded(e -> {
+            List<Reservation> matches = searchTask.getValue();
+            Platform.runLater(() -> {
+                if (matches.isEmpty()) {
+                    showAlert("Not Found", "No reservation found for: " + query);
+                    statusLabel.setText("Reservation not found: " + query);
+                    return;
+                }
+
+                allReservations.setAll(matches);
+                currentPage = 1;
+                totalPages = Math.max(1, (int) Math.ceil((double) matches.size() / itemsPerPage));
+                updatePaginationControls();
+
+                Reservation top = matches.get(0);
+                reservationsTable.getSelectionModel().select(top);
+                reservationsTable.scrollTo(top);
+                displayReservationDetails(top);
+                statusLabel.setText(matches.size() == 1
+                    ? "Reservation found: " + top.getPnr()
+                    : matches.size() + " reservations match \"" + query + "\", best match first");
+            });
+        });
+
+        searchTask.setOnFailed(e -> {
+            Platform.runLater(() -> {
+                statusLabel.setText("Search failed");
+                LOGGER.log(Level.SEVERE, "Failed to search reservations", searchTask.getException());
+            });
+        });
+
+        new Thread(searchTask).start();
+    }
     
     @FXML
     protected void onCancelReservation(ActionEvent event) {
@@ -360,8 +522,8 @@ public class StaffController {
                     statusLabel.setText("Reservation cancelled successfully");
                     showAlert("Cancellation Successful", 
                         "Reservation cancelled!\n" +
-                        "Refund Amount: M" + String.format("%.2f", result.getRefundAmount()) + " LSL\n" +
-                        "Cancellation Fee: M" + String.format("%.2f", result.getCancellationFee()) + " LSL");
+                        "Refund Amount: M" + Money.format(result.getRefundCents()) + " LSL\n" +
+                        "Cancellation Fee: M" + Money.format(result.getCancellationFeeCents()) + " LSL");
                     loadReservations();
                     reservationDetailsBox.setVisible(false);
                 } else {
@@ -381,70 +543,170 @@ public class StaffController {
         new Thread(cancellationTask).start();
     }
     
+    @FXML
+    protected void onCheckIn(ActionEvent event) {
+        Reservation selectedReservation = reservationsTable.getSelectionModel().getSelectedItem();
+        if (selectedReservation == null) {
+            showAlert("Selection Error", "Please select a reservation to check in");
+            return;
+        }
+        if (!"Confirmed".equals(selectedReservation.getStatus())) {
+            showAlert("Check-in Error", "Only confirmed reservations can be checked in");
+            return;
+        }
+        
+        String pnr = selectedReservation.getPnr();
+        Task<ReservationService.CheckInResult> checkInTask = new Task<ReservationService.CheckInResult>() {
+            @Override
+            protected ReservationService.CheckInResult call() throws Exception {
+                return reservationService.checkIn(pnr);
+            }
+        };
+        
+        checkInTask.setOnSucceeded(e -> {
+            ReservationService.CheckInResult result = checkInTask.getValue();
+            Platform.runLater(() -> {
+                if (result.isBoarded()) {
+                    statusLabel.setText("Passenger checked in: " + pnr);
+                    showAlert("Check-in Complete", 
+                        result.getMessage() + "\n" +
+                        "PNR: " + pnr + "\n" +
+                        "Seat: " + selectedReservation.getSeatClass() + " - " + result.getSeatNumber());
+                    loadReservations();
+                } else {
+                    statusLabel.setText("Denied boarding: " + pnr);
+                    showAlert("Denied Boarding", result.getMessage());
+                }
+            });
+        });
+        
+        checkInTask.setOnFailed(e -> {
+            Platform.runLater(() -> {
+                statusLabel.setText("Check-in error");
+                showAlert("Check-in Error", "Error: " + checkInTask.getException().getMessage());
+            });
+        });
+        
+        new Thread(checkInTask).start();
+    }
+    
     @FXML
     protected void onGenerateReport(ActionEvent event) {
-        Task<String> reportTask = new Task<String>() {
+        // The recent reservations come from the page on screen; everything else is the cached report
+        StringBuilder recent = new StringBuilder("\nRECENT RESERVATIONS (Last 10):\n");
+        allReservations.stream()
+            .limit(10)
+            .forEach(r -> {
+                recent.append("- ").append(r.getPnr())
+                      .append(" | ").append(r.getCustomerName())
+                      .append(" | ").append(r.getFlightName())
+                      .append(" | ").append(r.getStatus())
+                      .append("\n");
+            });
+        showReport(ReportService.SUMMARY, "STAFF SUMMARY REPORT", recent.toString());
+    }
+    
+    @FXML
+    protected void onRevenueReport(ActionEvent event) {
+        showReport(ReportService.DAILY_SALES, "DAILY SALES REPORT", "");
+    }
+    
+    @FXML
+    protected void onCancellationReport(ActionEvent event) {
+        showReport(ReportService.CANCELLATIONS, "CANCELLATION AND REFUND REPORT", "");
+    }
+    
+    @FXML
+    protected void onManifestReport(ActionEvent event) {
+        showReport(ReportService.MANIFESTS, "FLIGHT MANIFESTS", "");
+    }
+    
+    @FXML
+    protected void onWaitlistReport(ActionEvent event) {
+        showReport(ReportService.WAITLIST, "WAITING LIST STATUS", "");
+    }
+    
+    @FXML
+    protected void onBookingPaceReport(ActionEvent event) {
+        showReport(ReportService.BOOKING_PACE, "BOOKING PACE REPORT", "");
+    }
+    
+    /**
+     * Show a report from the report service: at once if its cached version is current,
+     * otherwise as soon as it has been rendered.
+     */
+    @FXML
+    protected void onGenerateDayManifests(ActionEvent event) {
+        LocalDate date = manifestDatePicker.getValue();
+        ManifestGenerator.Format format = manifestFormatCombo.getValue();
+        if (date == null || format == null) {
+            showAlert("Validation Error", "Please choose a departure date and manifest format");
+            return;
+        }
+        
+        DirectoryChooser chooser = new DirectoryChooser();
+        chooser.setTitle("Save Manifests For " + date);
+        File directory = chooser.showDialog(generateManifestsBtn.getScene().getWindow());
+        if (directory == null) {
+            return;
+        }
+        
+        manifestProgress.setVisible(true);
+        generateManifestsBtn.setDisable(true);
+        statusLabel.setText("Generating manifests for " + date + "...");
+        
+        Task<ManifestGenerator.GenerationResult> manifestTask = new Task<ManifestGenerator.GenerationResult>() {
             @Override
-            protected String call() throws Exception {
-                StringBuilder report = new StringBuilder();
-                report.append("=== STAFF SUMMARY REPORT ===\n");
-                report.append("Generated by: ").append(currentUser.getFullName()).append("\n");
-                report.append("Date: ").append(java.time.LocalDateTime.now()).append("\n\n");
-                
-                long confirmedReservations = allReservations.stream()
-                    .filter(r -> "Confirmed".equals(r.getStatus()))
-                    .count();
-                
-                long cancelledReservations = allReservations.stream()
-                    .filter(r -> "Cancelled".equals(r.getStatus()))
-                    .count();
-                
-                double totalRevenue = allReservations.stream()
-                    .filter(r -> "Confirmed".equals(r.getStatus()))
-                    .mapToDouble(Reservation::getFare)
-                    .sum();
-                
-                report.append("RESERVATION STATISTICS:\n");
-                report.append("- Total Reservations: ").append(allReservations.size()).append("\n");
-                report.append("- Confirmed: ").append(confirmedReservations).append("\n");
-                report.append("- Cancelled: ").append(cancelledReservations).append("\n");
-                report.append("- Total Revenue: M").append(String.format("%.2f", totalRevenue)).append(" LSL\n\n");
-                
-                long economySeats = allReservations.stream()
-                    .filter(r -> "Economy".equals(r.getSeatClass()) && "Confirmed".equals(r.getStatus()))
-                    .count();
-                
-                long businessSeats = allReservations.stream()
-                    .filter(r -> "Business".equals(r.getSeatClass()) && "Confirmed".equals(r.getStatus()))
-                    .count();
-                
-                report.append("SEAT ALLOCATION:\n");
-                report.append("- Economy Class: ").append(economySeats).append(" seats\n");
-                report.append("- Business Class: ").append(businessSeats).append(" seats\n\n");
-                
-                report.append("RECENT RESERVATIONS (Last 10):\n");
-                allReservations.stream()
-                    .limit(10)
-                    .forEach(r -> {
-                        report.append("- ").append(r.getPnr())
-                              .append(" | ").append(r.getCustomerName())
-                              .append(" | ").append(r.getFlightName())
-                              .append(" | ").append(r.getStatus())
-                              .append("\n");
-                    });
-                
-                return report.toString();
+            protected ManifestGenerator.GenerationResult call() throws Exception {
+                return ManifestGenerator.getInstance().generateDay(date, format, directory.toPath());
             }
         };
         
-        reportTask.setOnSucceeded(e -> {
+        manifestTask.setOnSucceeded(e -> {
+            ManifestGenerator.GenerationResult result = manifestTask.getValue();
+            Platform.runLater(() -> {
+                manifestProgress.setVisible(false);
+                generateManifestsBtn.setDisable(false);
+                
+                StringBuilder report = new StringBuilder();
+                report.append("=== DAY MANIFESTS: ").append(date).append(" ===\n");
+                report.append("Format: ").append(result.getFormat()).append("\n");
+                report.append("Folder: ").append(result.getDirectory()).append("\n");
+                report.append("Flights: ").append(result.getFlights())
+                      .append(" | Passengers: ").append(result.getPassengers()).append("\n\n");
+                result.getFiles().forEach(f -> report.append("- ").append(f.getFileName()).append("\n"));
+                reportsArea.setText(report.toString());
+                statusLabel.setText("Generated " + result.getFlights() + " manifests in " + result.getElapsedMillis() + " ms");
+            });
+        });
+        
+        manifestTask.setOnFailed(e -> {
             Platform.runLater(() -> {
-                reportsArea.setText(reportTask.getValue());
-                statusLabel.setText("Summary report generated");
+                manifestProgress.setVisible(false);
+                generateManifestsBtn.setDisable(false);
+                statusLabel.setText("Manifest generation failed");
+                showAlert("Manifest Error", "Failed to generate manifests: " + manifestTask.getException().getMessage());
             });
         });
         
-        new Thread(reportTask).start();
+        new Thread(manifestTask).start();
+    }
+    
+    private void showReport(String reportName, String title, String footer) {
+        statusLabel.setText("Preparing report...");
+        ReportService.getInstance().get(reportName).whenComplete((artifact, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                LOGGER.log(Level.SEVERE, "Failed to generate report " + reportName, error);
+                statusLabel.setText("Report failed");
+                showAlert("Report Error", "Failed to generate report: " + error.getMessage());
+                return;
+            }
+            reportsArea.setText("=== " + title + " ===\n"
+                + "Requested by: " + session.getUser().getFullName() + "\n"
+                + "Generated: " + artifact.getGeneratedAt().withNano(0) + " (version " + artifact.getVersion() + ")\n\n"
+                + artifact.getBody() + footer);
+            statusLabel.setText(title.charAt(0) + title.substring(1).toLowerCase() + " ready");
+        }));
     }
     
     @FXML
@@ -520,17 +782,20 @@ public class StaffController {
             startRecord, endRecord, allReservations.size()));
     }
     
-    private void calculateFare(double baseFareAmount) {
+    private void calculateFare(long baseCents) {
         try {
             String concessionType = extractConcessionType(concessionCombo.getValue());
             
-            double discount = com.example.airlinereservationsystem.utils.ConcessionCalculator.calculateDiscount(baseFareAmount, concessionType);
-            double finalFare = baseFareAmount - discount;
+            // Exact cents arithmetic against the preloaded concession rules
+            FareEngine fares = FareEngine.getInstance();
+            long discountCents = fares.discountCents(baseCents, concessionType);
+            long finalCents = baseCents - discountCents;
+            double discountPercent = fares.discountBasisPoints(concessionType) / 100.0;
             
             Platform.runLater(() -> {
-                baseFareLabel.setText(String.format("M%.2f LSL", baseFareAmount));
-                discountLabel.setText(String.format("M%.2f LSL (%.1f%%)", discount, (discount/baseFareAmount)*100));
-                finalFareLabel.setText(String.format("M%.2f LSL", finalFare));
+                baseFareLabel.setText("M" + Money.format(baseCents) + " LSL");
+                discountLabel.setText(String.format("M%s LSL (%.1f%%)", Money.format(discountCents), discountPercent));
+                finalFareLabel.setText("M" + Money.format(finalCents) + " LSL");
             });
             
         } catch (Exception e) {
@@ -604,10 +869,10 @@ public class StaffController {
             "PNR: " + reservation.getPnr() + "\n" +
             "Passenger: " + reservation.getCustomerName() + "\n" +
             "Flight: " + reservation.getFlightName() + "\n" +
-            "Seat: " + reservation.getSeatClass() + " - " + reservation.getSeatNumber() + "\n" +
-            "Fare: M" + String.format("%.2f", reservation.getFare()) + " LSL\n" +
+            "Seat: " + reservation.getSeatClass() + " - " + reservation.getSeatLabel() + "\n" +
+            "Fare: M" + Money.format(reservation.getFareCents()) + " LSL\n" +
             "Travel Date: " + reservation.getTravelDate() + "\n" +
-            "Status: " + reservation.getStatus()
+            "Status: " + reservation.getStatus() + (reservation.isCheckedIn() ? " (checked in)" : "")
         );
     }
     
@@ -6,6 +6,7 @@ import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 
 public class Fleet {
+    private final IntegerProperty fleetId;
     private final StringProperty aircraftNumber;
     private final IntegerProperty clubPreCapacity;
     private final IntegerProperty ecoCapacity;
@@ -14,8 +15,9 @@ public class Fleet {
     private final StringProperty airLength;
     private final StringProperty wingSpan;
 
-    public Fleet(String aircraftNumber, int clubPreCapacity, int ecoCapacity,
+    public Fleet(int fleetId, String aircraftNumber, int clubPreCapacity, int ecoCapacity,
                  String engineType, String cruiseSpeed, String airLength, String wingSpan) {
+        this.fleetId = new SimpleIntegerProperty(fleetId);
         this.aircraftNumber = new SimpleStringProperty(aircraftNumber);
         this.clubPreCapacity = new SimpleIntegerProperty(clubPreCapacity);
         this.ecoCapacity = new SimpleIntegerProperty(ecoCapacity);
@@ -25,6 +27,7 @@ public class Fleet {
         this.wingSpan = new SimpleStringProperty(wingSpan);
     }
 
+    public IntegerProperty fleetIdProperty() { return fleetId; }
     public StringProperty aircraftNumberProperty() { return aircraftNumber; }
     public IntegerProperty clubPreCapacityProperty() { return clubPreCapacity; }
     public IntegerProperty ecoCapacityProperty() { return ecoCapacity; }
@@ -32,4 +35,14 @@ public class Fleet {
     public StringProperty cruiseSpeedProperty() { return cruiseSpeed; }
     public StringProperty airLengthProperty() { return airLength; }
     public StringProperty wingSpanProperty() { return wingSpan; }
+
+    public int getFleetId() { return fleetId.get(); }
+    public String getAircraftNumber() { return aircraftNumber.get(); }
+    public int getClubPreCapacity() { return clubPreCapacity.get(); }
+    public int getEcoCapacity() { return ecoCapacity.get(); }
+
+    @Override
+    public String toString() {
+        return aircraftNumber.get() + " (" + clubPreCapacity.get() + " Business / " + ecoCapacity.get() + " Economy)";
+    }
 }
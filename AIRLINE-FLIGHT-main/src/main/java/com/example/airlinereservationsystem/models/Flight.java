@@ -1,5 +1,6 @@
 package com.example.airlinereservationsystem.models;
 
+import com.example.airlinereservationsystem.utils.Money;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
@@ -46,7 +47,8 @@ public class Flight {
     private String departureTime;
     private String arrivalTime;
     private int availableSeats;
-    private double baseFare;
+    private long baseFareCents;
+    private int fleetId;
     
     public String getRoute() { return route; }
     public void setRoute(String route) { this.route = route; }
@@ -60,6 +62,13 @@ public class Flight {
     public int getAvailableSeats() { return availableSeats; }
     public void setAvailableSeats(int availableSeats) { this.availableSeats = availableSeats; }
     
-    public double getBaseFare() { return baseFare; }
-    public void setBaseFare(double baseFare) { this.baseFare = baseFare; }
+    public long getBaseFareCents() { return baseFareCents; }
+    public void setBaseFareCents(long baseFareCents) { this.baseFareCents = baseFareCents; }
+    
+    // For table display only; use getBaseFareCents() for arithmetic
+    public double getBaseFare() { return Money.toDouble(baseFareCents); }
+    
+    // Assigned aircraft; 0 when none is assigned
+    public int getFleetId() { return fleetId; }
+    public void setFleetId(int fleetId) { this.fleetId = fleetId; }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.example.airlinereservationsystem.models;
 
+import com.example.airlinereservationsystem.utils.Money;
+
 import java.time.LocalDate;
 
 /**
@@ -12,25 +14,28 @@ public class Reservation {
     private String seatClass;
     private int seatNumber;
     private String status;
-    private double fare;
+    private long fareCents;
     private LocalDate travelDate;
     private String pnr;
+    private String fareBucket = "Y";
+    private boolean checkedIn;
     
     // Additional fields for display
     private String passengerName;
     private String flightName;
+    private String concession;
     
     // Constructors
     public Reservation() {}
     
     public Reservation(int custId, int flightCode, String seatClass, int seatNumber, 
-                      String status, double fare, LocalDate travelDate, String pnr) {
+                      String status, long fareCents, LocalDate travelDate, String pnr) {
         this.custId = custId;
         this.flightCode = flightCode;
         this.seatClass = seatClass;
         this.seatNumber = seatNumber;
         this.status = status;
-        this.fare = fare;
+        this.fareCents = fareCents;
         this.travelDate = travelDate;
         this.pnr = pnr;
     }
@@ -54,11 +59,21 @@ public class Reservation {
     public int getSeatNumber() { return seatNumber; }
     public void setSeatNumber(int seatNumber) { this.seatNumber = seatNumber; }
     
+    // Overbooked passengers hold seat 0 until check-in gives them a physical seat
+    public String getSeatLabel() { return seatLabel(seatNumber); }
+    
+    public static String seatLabel(int seatNumber) {
+        return seatNumber > 0 ? String.valueOf(seatNumber) : "Assigned at check-in";
+    }
+    
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
     
-    public double getFare() { return fare; }
-    public void setFare(double fare) { this.fare = fare; }
+    public long getFareCents() { return fareCents; }
+    public void setFareCents(long fareCents) { this.fareCents = fareCents; }
+    
+    // For table display only; use getFareCents() for arithmetic
+    public double getFare() { return Money.toDouble(fareCents); }
     
     public LocalDate getTravelDate() { return travelDate; }
     public void setTravelDate(LocalDate travelDate) { this.travelDate = travelDate; }
@@ -66,6 +81,12 @@ public class Reservation {
     public String getPnr() { return pnr; }
     public void setPnr(String pnr) { this.pnr = pnr; }
     
+    public String getFareBucket() { return fareBucket; }
+    public void setFareBucket(String fareBucket) { this.fareBucket = fareBucket; }
+    
+    public boolean isCheckedIn() { return checkedIn; }
+    public void setCheckedIn(boolean checkedIn) { this.checkedIn = checkedIn; }
+    
     public String getPassengerName() { return passengerName; }
     public void setPassengerName(String passengerName) { this.passengerName = passengerName; }
     
@@ -76,6 +97,9 @@ public class Reservation {
     public String getFlightName() { return flightName; }
     public void setFlightName(String flightName) { this.flightName = flightName; }
     
+    public String getConcession() { return concession; }
+    public void setConcession(String concession) { this.concession = concession; }
+    
     @Override
     public String toString() {
         return "Reservation{" +
@@ -0,0 +1,201 @@
+package com.example.airlinereservationsystem.models;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Seat layout of one cabin: rows of lettered seats split by aisles, with exit rows and blocked seats.
+ * Seat numbers 1..capacity run row by row from the front, left to right, skipping blocked seats,
+ * so the seat number stored on a reservation maps to one row and letter.
+ *
+ * Each row is a bitmask over its columns (bit 0 = the first letter), which lets the seat allocator
+ * find runs of free seats with a few shifts and ANDs.
+ */
+public final class SeatMap {
+    private final String seatClass;
+    private final int firstRow;
+    private final String letters;
+    private final long aisleAfter;      // bit c: an aisle between column c and c + 1
+    private final long[] rowSeats;      // [row] -> columns that hold a numbered seat
+    private final int[] firstSeatOfRow; // [row] -> seat number of its first seat
+    private final boolean[] exitRows;   // [row]
+    private final long[] segments;      // columns of each block between aisles
+    private final int capacity;
+
+    private SeatMap(String seatClass, int firstRow, String letters, long aisleAfter, long[] rowSeats,
+                    boolean[] exitRows, int capacity) {
+        this.seatClass = seatClass;
+        this.firstRow = firstRow;
+        this.letters = letters;
+        this.aisleAfter = aisleAfter;
+        this.rowSeats = rowSeats;
+        this.exitRows = exitRows;
+        this.capacity = capacity;
+        this.firstSeatOfRow = new int[rowSeats.length];
+        int next = 1;
+        for (int r = 0; r < rowSeats.length; r++) {
+            firstSeatOfRow[r] = next;
+            next += Long.bitCount(rowSeats[r]);
+        }
+
+        int blocks = Long.bitCount(aisleAfter) + 1;
+        this.segments = new long[blocks];
+        int block = 0;
+        for (int c = 0; c < letters.length(); c++) {
+            segments[block] |= 1L << c;
+            if ((aisleAfter & (1L << c)) != 0) block++;
+        }
+    }
+
+    /**
+     * Lay out {@code capacity} seats on as many rows as they need.
+     * @param pattern Seat letters across a row, with {@code |} for each aisle, e.g. {@code ABC|DEF}
+     * @param exitRowList Comma-separated row numbers, e.g. {@code 14,15}
+     * @param blockedList Comma-separated seats that are never sold, e.g. {@code 10A,10F}
+     */
+    public static SeatMap of(String seatClass, String pattern, int firstRow, String exitRowList,
+                             String blockedList, int capacity) {
+        StringBuilder letters = new StringBuilder();
+        long aisleAfter = 0;
+        for (char ch : pattern.trim().toCharArray()) {
+            if (ch == '|') {
+                if (letters.length() > 0) aisleAfter |= 1L << (letters.length() - 1);
+            } else if (Character.isLetter(ch) && letters.length() < Long.SIZE) {
+                letters.append(Character.toUpperCase(ch));
+            }
+        }
+        if (letters.length() == 0) letters.append("ABCDEF");
+        long allColumns = letters.length() == Long.SIZE ? -1L : (1L << letters.length()) - 1;
+        aisleAfter &= allColumns >>> 1;
+
+        Set<Integer> exits = new HashSet<>();
+        for (String row : split(exitRowList)) {
+            try {
+                exits.add(Integer.parseInt(row));
+            } catch (NumberFormatException ignored) {
+                // Skip malformed entries rather than failing the whole layout
+            }
+        }
+        Set<String> blocked = new HashSet<>(Arrays.asList(split(blockedList.toUpperCase())));
+
+        long[] rows = new long[Math.max(1, capacity)];
+        int rowCount = 0;
+        int placed = 0;
+        while (placed < capacity && rowCount < rows.length) {
+            int rowNumber = firstRow + rowCount;
+            long mask = 0;
+            for (int c = 0; c < letters.length() && placed < capacity; c++) {
+                if (blocked.contains(rowNumber + String.valueOf(letters.charAt(c)))) continue;
+                mask |= 1L << c;
+                placed++;
+            }
+            rows[rowCount++] = mask;
+        }
+
+        long[] rowSeats = Arrays.copyOf(rows, rowCount);
+        boolean[] exitRows = new boolean[rowCount];
+        for (int r = 0; r < rowCount; r++) {
+            exitRows[r] = exits.contains(firstRow + r);
+        }
+        return new SeatMap(seatClass, firstRow, letters.toString(), aisleAfter, rowSeats, exitRows, placed);
+    }
+
+    private static String[] split(String list) {
+        if (list == null || list.isBlank()) return new String[0];
+        return Arrays.stream(list.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toArray(String[]::new);
+    }
+
+    public String getSeatClass() { return seatClass; }
+    public int getCapacity() { return capacity; }
+    public int getRowCount() { return rowSeats.length; }
+    public int getColumnCount() { return letters.length(); }
+
+    public int rowNumber(int row) { return firstRow + row; }
+    public char letter(int column) { return letters.charAt(column); }
+    public boolean isExitRow(int row) { return exitRows[row]; }
+    public boolean hasAisleAfter(int column) { return (aisleAfter & (1L << column)) != 0; }
+
+    /**
+     * @return Columns of a row that hold a numbered seat
+     */
+    public long seatMask(int row) {
+        return rowSeats[row];
+    }
+
+    /**
+     * @return Column masks of each block of seats between aisles, left to right
+     */
+    public long[] segments() {
+        return segments.clone();
+    }
+
+    /**
+     * @return Columns at either side of the cabin
+     */
+    public long windowMask() {
+        return 1L | (1L << (letters.length() - 1));
+    }
+
+    /**
+     * @return Columns next to an aisle
+     */
+    public long aisleMask() {
+        return aisleAfter | (aisleAfter << 1);
+    }
+
+    /**
+     * @return Seat number at a row and column, or 0 if that position holds no seat
+     */
+    public int seatNumber(int row, int column) {
+        long mask = rowSeats[row];
+        if ((mask & (1L << column)) == 0) return 0;
+        return firstSeatOfRow[row] + Long.bitCount(mask & ((1L << column) - 1));
+    }
+
+    /**
+     * @return Seat number of a label such as {@code 12C}, or 0 if this cabin has no such seat
+     */
+    public int seatNumber(String label) {
+        if (label == null || label.length() < 2) return 0;
+        int column = letters.indexOf(Character.toUpperCase(label.charAt(label.length() - 1)));
+        if (column < 0) return 0;
+        try {
+            int row = Integer.parseInt(label.substring(0, label.length() - 1)) - firstRow;
+            return row >= 0 && row < rowSeats.length ? seatNumber(row, column) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * @return Row index of a seat, or -1 if there is no such seat
+     */
+    public int rowOf(int seatNumber) {
+        if (seatNumber < 1 || seatNumber > capacity) return -1;
+        int row = Arrays.binarySearch(firstSeatOfRow, seatNumber);
+        return row >= 0 ? row : -row - 2;
+    }
+
+    /**
+     * @return Column index of a seat, or -1 if there is no such seat
+     */
+    public int columnOf(int seatNumber) {
+        int row = rowOf(seatNumber);
+        if (row < 0) return -1;
+        long mask = rowSeats[row];
+        for (int skip = seatNumber - firstSeatOfRow[row]; skip > 0; skip--) {
+            mask &= mask - 1;
+        }
+        return Long.numberOfTrailingZeros(mask);
+    }
+
+    /**
+     * @return Row and letter, e.g. {@code 12C}, or the plain number if it is outside the map
+     */
+    public String label(int seatNumber) {
+        int row = rowOf(seatNumber);
+        if (row < 0) return Reservation.seatLabel(seatNumber);
+        return rowNumber(row) + String.valueOf(letter(columnOf(seatNumber)));
+    }
+}
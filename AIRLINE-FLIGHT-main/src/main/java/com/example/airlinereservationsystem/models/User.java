@@ -9,6 +9,8 @@ public class User {
     private String password;
     private String fullName;
     private String role;
+    // Customer whose bookings are this user's; 0 until linked
+    private int customerId;
     private LocalDateTime createdAt;
     
     public User(String username, String password, String fullName, String role) {
@@ -32,6 +34,7 @@ public class User {
     public String getPassword() { return password; }
     public String getFullName() { return fullName; }
     public String getRole() { return role; }
+    public int getCustomerId() { return customerId; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     
     // Setters
@@ -40,6 +43,7 @@ public class User {
     public void setPassword(String password) { this.password = password; }
     public void setFullName(String fullName) { this.fullName = fullName; }
     public void setRole(String role) { this.role = role; }
+    public void setCustomerId(int customerId) { this.customerId = customerId; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
     // Role checks
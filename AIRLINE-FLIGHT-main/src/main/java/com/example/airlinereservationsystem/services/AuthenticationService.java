@@ -0,0 +1,302 @@
+package com.example.airlinereservationsystem.services;
+
+import com.example.airlinereservationsystem.DatabaseConnection;
+import com.example.airlinereservationsystem.models.User;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.sql.*;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Checks and stores user passwords as salted PBKDF2 hashes.
+ *
+ * A stored password reads {@code pbkdf2-sha256$iterations$salt$hash}, so each keeps the cost it was
+ * hashed with. The cost for new hashes is tuned at startup to take about {@link #TARGET_MILLIS} on this
+ * machine. Passwords still stored in plain text, or hashed at a clearly lower cost, are rehashed when
+ * their user next logs in.
+ *
+ * Hashing is deliberately slow, so it runs on the single authentication worker ({@link #execute(Runnable)})
+ * and never on the FX thread. Failed logins are counted per username in memory, striped over a few locks;
+ * after {@link #FREE_FAILURES} failures each further attempt must wait twice as long as the last, so
+ * guessing is throttled without writing to the database on every attempt.
+ */
+public final class AuthenticationService {
+    private static final Logger LOGGER = Logger.getLogger(AuthenticationService.class.getName());
+
+    private static final AuthenticationService INSTANCE = new AuthenticationService();
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256$";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    // Cost tuning: time a short derivation and scale it up to the target
+    private static final long TARGET_MILLIS = 100;
+    private static final int CALIBRATION_ITERATIONS = 20_000;
+    private static final int CALIBRATION_RUNS = 5;
+    private static final int MIN_ITERATIONS = 100_000;
+    private static final int MAX_ITERATIONS = 5_000_000;
+
+    // Throttling: failures allowed before waiting, the first wait and the longest
+    private static final int FREE_FAILURES = 5;
+    private static final long FIRST_DELAY_MILLIS = 1_000;
+    private static final long MAX_DELAY_MILLIS = 15 * 60_000;
+    // A username's failures are forgotten this long after its last one
+    private static final long FORGET_AFTER_MILLIS = 15 * 60_000;
+    private static final int STRIPES = 16;
+    private static final int STRIPE_CAPACITY = 1_024;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "auth-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile int iterations = MIN_ITERATIONS;
+    // Hash checked for unknown usernames, so they take as long to reject as a wrong password
+    private volatile String decoy;
+
+    AuthenticationService() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public static AuthenticationService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Tune the hashing cost in the background; work submitted after this runs with the tuned cost.
+     */
+    public void start() {
+        worker.execute(this::calibrate);
+    }
+
+    /**
+     * Run work that hashes or checks passwords on the authentication worker
+     */
+    public void execute(Runnable task) {
+        worker.execute(task);
+    }
+
+    /**
+     * @return Iterations new hashes are made with
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Salted hash of a password for the users table, at the current cost
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        int cost = iterations;
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + cost + "$" + base64.encodeToString(salt) + "$" + base64.encodeToString(derive(password, salt, cost));
+    }
+
+    /**
+     * Check a login, rehashing the stored password when it is plain text or hashed at a lower cost.
+     * Slow by design; call it from the authentication worker.
+     */
+    public Result authenticate(String username, String password) throws SQLException {
+        String key = username.toLowerCase();
+        long now = System.currentTimeMillis();
+        long wait = stripe(key).waitMillis(key, now);
+        if (wait > 0) {
+            return Result.throttled(wait);
+        }
+
+        String sql = "SELECT * FROM users WHERE username = ?";
+        User user = null;
+        String stored = null;
+        try (Connection conn = DatabaseConnection.openDedicatedConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, username);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    user = new User(rs.getInt("user_id"), rs.getString("username"), rs.getString("full_name"), rs.getString("role"));
+                    user.setCustomerId(rs.getInt("cust_id"));
+                    stored = rs.getString("password");
+                }
+            }
+        }
+
+        if (user == null) {
+            matches(password, decoy());
+            stripe(key).failed(key, System.currentTimeMillis());
+            return Result.rejected();
+        }
+        if (!matches(password, stored)) {
+            stripe(key).failed(key, System.currentTimeMillis());
+            return Result.rejected();
+        }
+
+        stripe(key).succeeded(key);
+        if (needsRehash(stored)) {
+            rehash(user, stored, password);
+        }
+        return Result.accepted(user);
+    }
+
+    private void rehash(User user, String stored, String password) {
+        // Only replaces the password that was checked, in case it was changed meanwhile
+        String sql = "UPDATE users SET password = ? WHERE user_id = ? AND password = ?";
+        try (Connection conn = DatabaseConnection.openDedicatedConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, hash(password));
+            ps.setInt(2, user.getUserId());
+            ps.setString(3, stored);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to rehash password of user " + user.getUsername(), e);
+        }
+    }
+
+    private boolean needsRehash(String stored) {
+        if (!stored.startsWith(PREFIX)) return true;
+        String[] parts = stored.substring(PREFIX.length()).split("\\$");
+        // Tuning varies a little from run to run; only a clearly cheaper hash is worth redoing
+        return Integer.parseInt(parts[0]) < iterations * 3L / 4;
+    }
+
+    private boolean matches(String password, String stored) {
+        if (stored == null) return false;
+        if (!stored.startsWith(PREFIX)) {
+            // Not yet migrated: stored in plain text. Still hash once, so it takes as long as a hashed one
+            matches(password, decoy());
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = stored.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 3) return false;
+        try {
+            Base64.Decoder base64 = Base64.getDecoder();
+            byte[] expected = base64.decode(parts[2]);
+            return MessageDigest.isEqual(derive(password, base64.decode(parts[1]), Integer.parseInt(parts[0])), expected);
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Unreadable password hash", e);
+            return false;
+        }
+    }
+
+    private String decoy() {
+        String hash = decoy;
+        if (hash == null || needsRehash(hash)) {
+            hash = decoy = hash("decoy");
+        }
+        return hash;
+    }
+
+    private void calibrate() {
+        long best = Long.MAX_VALUE;
+        byte[] salt = new byte[SALT_BYTES];
+        for (int run = 0; run < CALIBRATION_RUNS; run++) {
+            long started = System.nanoTime();
+            derive("calibration", salt, CALIBRATION_ITERATIONS);
+            best = Math.min(best, System.nanoTime() - started);
+        }
+        long tuned = CALIBRATION_ITERATIONS * TARGET_MILLIS * 1_000_000 / Math.max(best, 1);
+        iterations = (int) Math.max(MIN_ITERATIONS, Math.min(MAX_ITERATIONS, tuned / 1_000 * 1_000));
+        LOGGER.info("Password hashing tuned to " + iterations + " iterations (" + TARGET_MILLIS + " ms target)");
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " unavailable", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private Stripe stripe(String key) {
+        return stripes[Math.floorMod(key.hashCode(), STRIPES)];
+    }
+
+    /**
+     * Failed logins of the usernames hashing to one lock; the least recently tried are dropped when full
+     */
+    private static final class Stripe {
+        private final Map<String, Failures> failures = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Failures> eldest) {
+                return size() > STRIPE_CAPACITY;
+            }
+        };
+
+        synchronized long waitMillis(String key, long now) {
+            Failures entry = failures.get(key);
+            if (entry == null) return 0;
+            if (now - entry.last >= FORGET_AFTER_MILLIS) {
+                failures.remove(key);
+                return 0;
+            }
+            return Math.max(0, entry.blockedUntil - now);
+        }
+
+        synchronized void failed(String key, long now) {
+            Failures entry = failures.get(key);
+            if (entry == null || now - entry.last >= FORGET_AFTER_MILLIS) {
+                entry = new Failures();
+                failures.put(key, entry);
+            }
+            entry.count++;
+            entry.last = now;
+            int extra = entry.count - FREE_FAILURES;
+            if (extra > 0) {
+                long delay = FIRST_DELAY_MILLIS << Math.min(extra - 1, 20);
+                entry.blockedUntil = now + Math.min(delay, MAX_DELAY_MILLIS);
+            }
+        }
+
+        synchronized void succeeded(String key) {
+            failures.remove(key);
+        }
+    }
+
+    private static final class Failures {
+        int count;
+        long last;
+        long blockedUntil;
+    }
+
+    /**
+     * Outcome of one login attempt
+     */
+    public static final class Result {
+        private final User user;
+        private final long retryAfterMillis;
+
+        private Result(User user, long retryAfterMillis) {
+            this.user = user;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        static Result accepted(User user) { return new Result(user, 0); }
+        static Result rejected() { return new Result(null, 0); }
+        static Result throttled(long retryAfterMillis) { return new Result(null, retryAfterMillis); }
+
+        public boolean isSuccess() { return user != null; }
+        public boolean isThrottled() { return retryAfterMillis > 0; }
+        public User getUser() { return user; }
+        public long getRetryAfterMillis() { return retryAfterMillis; }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.airlinereservationsystem.services;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Keeps this application's seat inventory, seat maps and waiting lists in line with bookings made by
+ * other copies of the application sharing the database.
+ *
+ * Changes made here already update the caches directly, so only events from another origin are applied.
+ * Counts follow what a reload would see: a cancelled seat stays sold until it is promoted into or released,
+ * and a flight date the airline cancelled closes for sale.
+ */
+public final class BookingCacheSync implements BookingEventLog.Handler {
+    private static final Logger LOGGER = Logger.getLogger(BookingCacheSync.class.getName());
+
+    private static final BookingCacheSync INSTANCE = new BookingCacheSync(BookingEventLog.getInstance(),
+        SeatInventory.getInstance(), SeatMapService.getInstance(), WaitlistService.getInstance());
+
+    private final BookingEventLog log;
+    private final SeatInventory inventory;
+    private final SeatMapService seatMaps;
+    private final WaitlistService waitlist;
+
+    BookingCacheSync(BookingEventLog log, SeatInventory inventory, SeatMapService seatMaps, WaitlistService waitlist) {
+        this.log = log;
+        this.inventory = inventory;
+        this.seatMaps = seatMaps;
+        this.waitlist = waitlist;
+    }
+
+    public static BookingCacheSync getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start applying the events the seat inventory's last load did not see. Seat maps and waiting lists
+     * load later and on demand; seats and queue invalidations applied twice leave them unchanged.
+     */
+    public void start() throws SQLException {
+        log.subscribe("cache-sync", inventory.loadedAt(), this);
+    }
+
+    @Override
+    public void handle(List<BookingEventLog.Event> events) {
+        int applied = 0;
+        for (BookingEventLog.Event event : events) {
+            if (log.getOrigin().equals(event.getOrigin())) continue;
+            apply(event);
+            applied++;
+        }
+        if (applied > 0) {
+            LOGGER.fine("Applied " + applied + " booking events from other clients");
+        }
+    }
+
+    void apply(BookingEventLog.Event event) {
+        int flightCode = event.getFlightCode();
+        String seatClass = event.getSeatClass();
+        switch (event.getType()) {
+            case BookingEventLog.BOOKED, BookingEventLog.CLEARED -> {
+                inventory.booked(flightCode, event.getTravelDate(), seatClass, event.getFareBucket(), 1);
+                seatMaps.occupy(flightCode, event.getTravelDate(), seatClass, event.getSeatNumber());
+            }
+            case BookingEventLog.PROMOTED, BookingEventLog.CHECKED_IN ->
+                seatMaps.occupy(flightCode, event.getTravelDate(), seatClass, event.getSeatNumber());
+            case BookingEventLog.RELEASED, BookingEventLog.OFFLOADED -> {
+                inventory.released(flightCode, event.getTravelDate(), seatClass, event.getFareBucket());
+                seatMaps.release(flightCode, event.getTravelDate(), seatClass, event.getSeatNumber());
+            }
+            case BookingEventLog.RESEATED -> {
+                seatMaps.release(flightCode, event.getTravelDate(), seatClass, event.getOldSeat());
+                seatMaps.occupy(flightCode, event.getTravelDate(), seatClass, event.getSeatNumber());
+            }
+            case BookingEventLog.FLIGHT_CANCELLED -> inventory.cancelled(flightCode, event.getTravelDate());
+            default -> {
+                // Cancelled: the seat passes to the promotion outbox, or is released by an event of its own
+                // when the airline cancelled the flight, and stays taken until then
+            }
+        }
+        switch (event.getType()) {
+            case BookingEventLog.WAITLISTED, BookingEventLog.PROMOTED, BookingEventLog.CLEARED ->
+                waitlist.invalidateQueue(SeatInventory.key(flightCode, event.getTravelDate(), FareEngine.classId(seatClass)));
+            case BookingEventLog.FLIGHT_CANCELLED -> waitlist.invalidate(flightCode);
+            default -> {
+            }
+        }
+    }
+}
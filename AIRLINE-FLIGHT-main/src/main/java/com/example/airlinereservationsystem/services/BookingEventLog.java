@@ -0,0 +1,684 @@
+package com.example.airlinereservationsystem.services;
+
+import com.example.airlinereservationsystem.DatabaseConnection;
+import com.example.airlinereservationsystem.models.Reservation;
+import com.example.airlinereservationsystem.utils.Money;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Append-only log of booking state changes in {@code booking_events}.
+ *
+ * Every change to reservations, cancellations and the waiting list appends its events in the same
+ * transaction, so the log holds exactly the committed changes. Events are numbered by a sequence;
+ * consumers tail the log from the last number they handled instead of rescanning the base tables.
+ *
+ * Sequence numbers are handed out at insert time, so a later number can commit before an earlier one,
+ * and a rolled-back insert leaves a hole. Readers therefore stop at a hole and only step over it once it
+ * has stayed open for {@link #GAP_GRACE_MILLIS}. The numbers stepped over are watched for another
+ * {@link #GAP_RETENTION_MILLIS}, durable consumers' in {@code event_gaps} so a restart keeps them, and an
+ * event that commits under one of them after all is delivered then, behind newer ones.
+ */
+public final class BookingEventLog {
+    private static final Logger LOGGER = Logger.getLogger(BookingEventLog.class.getName());
+
+    private static final BookingEventLog INSTANCE = new BookingEventLog();
+
+    public static final String BOOKED = "Booked";
+    public static final String WAITLISTED = "Waitlisted";
+    public static final String CANCELLED = "Cancelled";
+    /** Confirmed from the waiting list into a seat freed by a cancellation */
+    public static final String PROMOTED = "Promoted";
+    /** Confirmed from the waiting list into a seat that was free for sale, e.g. after the cabin grew */
+    public static final String CLEARED = "Cleared";
+    /** A freed seat went back on sale because nobody was waiting for it */
+    public static final String RELEASED = "Released";
+    public static final String CHECKED_IN = "CheckedIn";
+    public static final String RESEATED = "Reseated";
+    /** Cancelled by the airline after a smaller aircraft was substituted; the seat does not exist any more */
+    public static final String OFFLOADED = "Offloaded";
+    /** The airline cancelled a flight date; its bookings are cancelled and released in events of their own */
+    public static final String FLIGHT_CANCELLED = "FlightCancelled";
+
+    static final long GAP_GRACE_MILLIS = 10_000;
+    // A stepped-over number still unused after this was rolled back; no transaction here stays open as long
+    static final long GAP_RETENTION_MILLIS = 60 * 60_000;
+
+    private static final long POLL_MILLIS = 500;
+    private static final int BATCH_SIZE = 500;
+    // Sequence numbers below the head searched for events not yet committed when a position is taken
+    private static final int POSITION_WINDOW = 1_000;
+    private static final String SELECT_EVENTS = """
+        SELECT e.event_seq, e.event_type, e.reservation_id, COALESCE(m.survivor_cust_id, e.cust_id) AS cust_id,
+               e.flight_code, e.travel_date, e.seat_class, e.fare_bucket, e.seat_number, e.old_seat, e.amount, e.origin
+        FROM booking_events e
+        LEFT JOIN customer_merges m ON m.merged_cust_id = e.cust_id
+    """;
+
+    /** Marks events written by this running application, so caches can skip their own changes */
+    private final String origin = UUID.randomUUID().toString();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService tailer;
+
+    BookingEventLog() {
+    }
+
+    public static BookingEventLog getInstance() {
+        return INSTANCE;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    /**
+     * Append events inside the caller's transaction with one batched insert.
+     */
+    public void append(Connection conn, List<Event> events) throws SQLException {
+        if (events.isEmpty()) return;
+        String sql = """
+            INSERT INTO booking_events (event_type, reservation_id, cust_id, flight_code, travel_date, seat_class,
+                                        fare_bucket, seat_number, old_seat, amount, origin)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (Event event : events) {
+                ps.setString(1, event.type);
+                if (event.reservationId > 0) {
+                    ps.setInt(2, event.reservationId);
+                } else {
+                    ps.setNull(2, Types.INTEGER);
+                }
+                ps.setInt(3, event.customerId);
+                ps.setInt(4, event.flightCode);
+                ps.setDate(5, Date.valueOf(event.travelDate));
+                ps.setString(6, event.seatClass);
+                ps.setString(7, event.fareBucket >= 0 ? SeatInventory.bucketCode(event.fareBucket) : null);
+                ps.setInt(8, event.seatNumber);
+                ps.setInt(9, event.oldSeat);
+                Money.bind(ps, 10, event.amountCents);
+                ps.setString(11, origin);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    public void append(Connection conn, Event event) throws SQLException {
+        append(conn, List.of(event));
+    }
+
+    /**
+     * Event for a cancelled reservation; the amount is the refund.
+     */
+    public static Event cancelled(Reservation reservation, long refundCents) {
+        return new Event(CANCELLED, reservation.getReservationId(), reservation.getCustId(),
+                         reservation.getFlightCode(), reservation.getTravelDate(), reservation.getSeatClass(),
+                         SeatInventory.bucketIndex(reservation.getFareBucket()), reservation.getSeatNumber(), 0, refundCents);
+    }
+
+    /**
+     * @return Sequence number of the newest event, or 0 if the log is empty
+     */
+    public long head() throws SQLException {
+        try (Connection conn = DatabaseConnection.openDedicatedConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT COALESCE(MAX(event_seq), 0) FROM booking_events");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Where the log stands as seen by the caller's transaction. Taken in the same repeatable-read
+     * transaction that loads a cache, a subscription started from it delivers exactly the events that
+     * load did not see, including ones numbered below the head that had not committed yet.
+     */
+    public Position position(Connection conn) throws SQLException {
+        long head;
+        try (PreparedStatement ps = conn.prepareStatement("SELECT COALESCE(MAX(event_seq), 0) FROM booking_events");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            head = rs.getLong(1);
+        }
+        List<Long> visible = new ArrayList<>();
+        long from = Math.max(0, head - POSITION_WINDOW);
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT event_seq FROM booking_events WHERE event_seq > ? ORDER BY event_seq")) {
+            ps.setLong(1, from);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    visible.add(rs.getLong(1));
+                }
+            }
+        }
+        // Resume before the first hole and skip what was already visible after it
+        long expected = from + 1;
+        for (int i = 0; i < visible.size(); i++) {
+            if (visible.get(i) != expected) {
+                return new Position(expected - 1, new HashSet<>(visible.subList(i, visible.size())));
+            }
+            expected++;
+        }
+        return new Position(head, Set.of());
+    }
+
+    /**
+     * Read committed events after a sequence number, in order. Events keep the customer id they were
+     * written with; a customer since merged into another reads as the one it was merged into.
+     */
+    public List<Event> read(Connection conn, long afterSeq, int limit) throws SQLException {
+        String sql = SELECT_EVENTS + " WHERE e.event_seq > ? ORDER BY e.event_seq LIMIT ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, afterSeq);
+            ps.setInt(2, limit);
+            return readEvents(ps);
+        }
+    }
+
+    /**
+     * Read the committed events among the given sequence numbers, in order.
+     */
+    private List<Event> read(Connection conn, List<Long> seqs) throws SQLException {
+        String marks = seqs.stream().map(seq -> "?").collect(Collectors.joining(", "));
+        try (PreparedStatement ps = conn.prepareStatement(
+                SELECT_EVENTS + " WHERE e.event_seq IN (" + marks + ") ORDER BY e.event_seq")) {
+            for (int i = 0; i < seqs.size(); i++) {
+                ps.setLong(i + 1, seqs.get(i));
+            }
+            return readEvents(ps);
+        }
+    }
+
+    private static List<Event> readEvents(PreparedStatement ps) throws SQLException {
+        List<Event> events = new ArrayList<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                String bucket = rs.getString("fare_bucket");
+                Event event = new Event(rs.getString("event_type"), rs.getInt("reservation_id"), rs.getInt("cust_id"),
+                                        rs.getInt("flight_code"), rs.getDate("travel_date").toLocalDate(),
+                                        rs.getString("seat_class"), bucket != null ? SeatInventory.bucketIndex(bucket) : -1,
+                                        rs.getInt("seat_number"), rs.getInt("old_seat"), Money.read(rs, "amount"));
+                event.seq = rs.getLong("event_seq");
+                event.origin = rs.getString("origin");
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Last sequence number a durable consumer has handled, or 0 for a new consumer.
+     */
+    public long offset(Connection conn, String consumer) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT last_seq FROM event_offsets WHERE consumer = ?")) {
+            ps.setString(1, consumer);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong("last_seq") : 0;
+            }
+        }
+    }
+
+    /**
+     * Record a durable consumer's offset, inside the transaction that applied the events when it has one.
+     */
+    public void saveOffset(Connection conn, String consumer, long lastSeq) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "UPDATE event_offsets SET last_seq = ?, updated_at = CURRENT_TIMESTAMP WHERE consumer = ?")) {
+            ps.setLong(1, lastSeq);
+            ps.setString(2, consumer);
+            if (ps.executeUpdate() > 0) return;
+        }
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO event_offsets (consumer, last_seq, updated_at) VALUES (?, ?, CURRENT_TIMESTAMP)")) {
+            ps.setString(1, consumer);
+            ps.setLong(2, lastSeq);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Record a durable consumer's offset at a position taken with {@link #position} in the caller's
+     * transaction, e.g. the one that rebuilt the consumer's state. The events visible there count as
+     * handled; those still uncommitted below the newest visible one are delivered when they commit.
+     */
+    public void saveOffset(Connection conn, String consumer, Position position) throws SQLException {
+        long lastSeq = position.afterSeq;
+        for (long seq : position.seen) {
+            lastSeq = Math.max(lastSeq, seq);
+        }
+        List<Long> pending = new ArrayList<>();
+        for (long seq = position.afterSeq + 1; seq < lastSeq; seq++) {
+            if (!position.seen.contains(seq)) pending.add(seq);
+        }
+        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM event_gaps WHERE consumer = ?")) {
+            ps.setString(1, consumer);
+            ps.executeUpdate();
+        }
+        saveGaps(conn, consumer, pending, System.currentTimeMillis());
+        saveOffset(conn, consumer, lastSeq);
+    }
+
+    /**
+     * Move a consumer's offset only if it still stands where this reader left it.
+     * @return false if another reader has moved it meanwhile
+     */
+    private boolean advanceOffset(Connection conn, String consumer, long fromSeq, long toSeq) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "UPDATE event_offsets SET last_seq = ?, updated_at = CURRENT_TIMESTAMP WHERE consumer = ? AND last_seq = ?")) {
+            ps.setLong(1, toSeq);
+            ps.setString(2, consumer);
+            ps.setLong(3, fromSeq);
+            if (ps.executeUpdate() > 0) return true;
+        }
+        if (fromSeq != 0 || offset(conn, consumer) != 0) return false;
+        // First batch for a new consumer; a concurrent insert fails on the key and is retried
+        saveOffset(conn, consumer, toSeq);
+        return true;
+    }
+
+    /**
+     * Sequence numbers a durable consumer stepped over and still watches, with when each was stepped over.
+     */
+    private Map<Long, Long> loadGaps(Connection conn, String consumer) throws SQLException {
+        Map<Long, Long> gaps = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT event_seq, skipped_at FROM event_gaps WHERE consumer = ?")) {
+            ps.setString(1, consumer);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    gaps.put(rs.getLong("event_seq"), rs.getTimestamp("skipped_at").getTime());
+                }
+            }
+        }
+        return gaps;
+    }
+
+    private void saveGaps(Connection conn, String consumer, List<Long> seqs, long skippedAt) throws SQLException {
+        if (seqs.isEmpty()) return;
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO event_gaps (consumer, event_seq, skipped_at) VALUES (?, ?, ?)")) {
+            for (long seq : seqs) {
+                ps.setString(1, consumer);
+                ps.setLong(2, seq);
+                ps.setTimestamp(3, new Timestamp(skippedAt));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Stop watching sequence numbers.
+     * @return Per number, 1 if this call removed it and 0 if another reader already had
+     */
+    private int[] deleteGaps(Connection conn, String consumer, List<Long> seqs) throws SQLException {
+        if (seqs.isEmpty()) return new int[0];
+        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM event_gaps WHERE consumer = ? AND event_seq = ?")) {
+            for (long seq : seqs) {
+                ps.setString(1, consumer);
+                ps.setLong(2, seq);
+                ps.addBatch();
+            }
+            return ps.executeBatch();
+        }
+    }
+
+    /**
+     * Deliver events to a handler as they are committed. A durable consumer resumes from its saved offset
+     * and the offset is saved after each batch it handles; otherwise delivery starts at the current head.
+     * A batch whose handler throws is delivered again on the next poll.
+     */
+    public void subscribe(String consumer, boolean durable, Handler handler) throws SQLException {
+        Subscription subscription;
+        if (durable) {
+            try (Connection conn = DatabaseConnection.openDedicatedConnection()) {
+                subscription = new Subscription(consumer, true, handler, null, offset(conn, consumer));
+                subscription.gaps.putAll(loadGaps(conn, consumer));
+            }
+        } else {
+            subscription = new Subscription(consumer, false, handler, null, head());
+        }
+        subscriptions.add(subscription);
+        startTailer();
+        LOGGER.info("Event consumer " + consumer + " tailing from " + subscription.lastSeq);
+    }
+
+    /**
+     * Deliver events to a handler from a position taken with {@link #position}, skipping the events that
+     * were already visible there.
+     */
+    public void subscribe(String consumer, Position from, Handler handler) {
+        Subscription subscription = new Subscription(consumer, false, handler, null, from.afterSeq);
+        subscription.skip.addAll(from.seen);
+        subscriptions.add(subscription);
+        startTailer();
+        LOGGER.info("Event consumer " + consumer + " tailing from " + from.afterSeq
+            + (from.seen.isEmpty() ? "" : ", skipping " + from.seen.size() + " events already seen"));
+    }
+
+    /**
+     * Deliver events to a durable consumer that writes to the database. Each batch is applied and the
+     * consumer's offset saved in one transaction, so every event takes effect exactly once.
+     */
+    public void subscribe(String consumer, TransactionalHandler handler) throws SQLException {
+        Subscription subscription;
+        try (Connection conn = DatabaseConnection.openDedicatedConnection()) {
+            subscription = new Subscription(consumer, true, null, handler, offset(conn, consumer));
+            subscription.gaps.putAll(loadGaps(conn, consumer));
+        }
+        subscriptions.add(subscription);
+        startTailer();
+        LOGGER.info("Event consumer " + consumer + " tailing from " + subscription.lastSeq);
+    }
+
+    private synchronized void startTailer() {
+        if (tailer != null) return;
+        tailer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "booking-event-tailer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        tailer.scheduleWithFixedDelay(this::poll, POLL_MILLIS, POLL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void poll() {
+        // An exception escaping here would stop the tailer for good
+        try (Connection conn = DatabaseConnection.openDedicatedConnection()) {
+            for (Subscription subscription : subscriptions) {
+                deliver(conn, subscription);
+            }
+        } catch (SQLException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to read booking events", e);
+        }
+    }
+
+    private void deliver(Connection conn, Subscription subscription) throws SQLException {
+        if (!subscription.gaps.isEmpty()) {
+            deliverLate(conn, subscription);
+        }
+        List<Event> events = contiguous(read(conn, subscription.lastSeq, BATCH_SIZE), subscription);
+        if (events.isEmpty()) return;
+        long lastSeq = events.get(events.size() - 1).seq;
+        List<Long> holes = holes(subscription.lastSeq, events);
+        long now = System.currentTimeMillis();
+        if (!subscription.skip.isEmpty()) {
+            events = new ArrayList<>(events);
+            events.removeIf(event -> subscription.skip.contains(event.seq));
+            subscription.skip.removeIf(seq -> seq <= lastSeq);
+            if (events.isEmpty()) {
+                subscription.lastSeq = lastSeq;
+                holes.forEach(seq -> subscription.gaps.put(seq, now));
+                return;
+            }
+        }
+        if (subscription.transactional != null) {
+            deliverInTransaction(conn, subscription, events, lastSeq, holes, now);
+            return;
+        }
+        try {
+            subscription.handler.handle(events);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Event consumer " + subscription.consumer + " failed; retrying", e);
+            return;
+        }
+        subscription.lastSeq = lastSeq;
+        holes.forEach(seq -> subscription.gaps.put(seq, now));
+        if (subscription.durable) {
+            saveGaps(conn, subscription.consumer, holes, now);
+            saveOffset(conn, subscription.consumer, lastSeq);
+        }
+    }
+
+    private void deliverInTransaction(Connection conn, Subscription subscription, List<Event> events,
+                                      long lastSeq, List<Long> holes, long now) throws SQLException {
+        try {
+            conn.setAutoCommit(false);
+            // Move the offset first: if another running copy got there first, it row-locks us out
+            // until it commits, then this finds the offset moved and skips what it applied
+            if (!advanceOffset(conn, subscription.consumer, subscription.lastSeq, lastSeq)) {
+                conn.rollback();
+                subscription.lastSeq = offset(conn, subscription.consumer);
+                // Take over watching the numbers the other copy stepped over
+                subscription.gaps.putAll(loadGaps(conn, subscription.consumer));
+                return;
+            }
+            saveGaps(conn, subscription.consumer, holes, now);
+            subscription.transactional.handle(conn, events);
+            conn.commit();
+            subscription.lastSeq = lastSeq;
+            holes.forEach(seq -> subscription.gaps.put(seq, now));
+        } catch (SQLException | RuntimeException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException rollbackEx) {
+                LOGGER.log(Level.SEVERE, "Failed to rollback transaction", rollbackEx);
+            }
+            LOGGER.log(Level.WARNING, "Event consumer " + subscription.consumer + " failed; retrying", e);
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Deliver events that committed under sequence numbers the subscription had stepped over, and stop
+     * watching numbers stepped over longer than {@link #GAP_RETENTION_MILLIS} ago. A transactional consumer
+     * applies them in the transaction that stops watching them, so each takes effect exactly once.
+     */
+    private void deliverLate(Connection conn, Subscription subscription) throws SQLException {
+        long now = System.currentTimeMillis();
+        List<Long> expired = new ArrayList<>();
+        subscription.gaps.forEach((seq, skippedAt) -> {
+            if (now - skippedAt >= GAP_RETENTION_MILLIS) expired.add(seq);
+        });
+        if (!expired.isEmpty()) {
+            if (subscription.durable) {
+                deleteGaps(conn, subscription.consumer, expired);
+            }
+            expired.forEach(subscription.gaps::remove);
+        }
+        if (subscription.gaps.isEmpty()) return;
+
+        List<Long> watched = new ArrayList<>(subscription.gaps.keySet());
+        Collections.sort(watched);
+        List<Event> late = read(conn, watched.subList(0, Math.min(watched.size(), BATCH_SIZE)));
+        if (late.isEmpty()) return;
+        List<Long> seqs = late.stream().map(event -> event.seq).collect(Collectors.toList());
+        LOGGER.info("Event consumer " + subscription.consumer + " receiving " + late.size() + " events committed late");
+
+        if (subscription.transactional == null) {
+            try {
+                subscription.handler.handle(late);
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Event consumer " + subscription.consumer + " failed; retrying", e);
+                return;
+            }
+            seqs.forEach(subscription.gaps::remove);
+            if (subscription.durable) {
+                deleteGaps(conn, subscription.consumer, seqs);
+            }
+            return;
+        }
+        try {
+            conn.setAutoCommit(false);
+            // As with the offset, another running copy may have applied some of them already
+            int[] claimed = deleteGaps(conn, subscription.consumer, seqs);
+            List<Event> unapplied = new ArrayList<>();
+            for (int i = 0; i < late.size(); i++) {
+                if (claimed[i] == 1) unapplied.add(late.get(i));
+            }
+            if (!unapplied.isEmpty()) {
+                subscription.transactional.handle(conn, unapplied);
+            }
+            conn.commit();
+            seqs.forEach(subscription.gaps::remove);
+        } catch (SQLException | RuntimeException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException rollbackEx) {
+                LOGGER.log(Level.SEVERE, "Failed to rollback transaction", rollbackEx);
+            }
+            LOGGER.log(Level.WARNING, "Event consumer " + subscription.consumer + " failed; retrying", e);
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Sequence numbers after {@code afterSeq} missing from a batch read in order.
+     */
+    static List<Long> holes(long afterSeq, List<Event> events) {
+        List<Long> holes = new ArrayList<>();
+        long expected = afterSeq + 1;
+        for (Event event : events) {
+            for (long seq = expected; seq < event.seq; seq++) {
+                holes.add(seq);
+            }
+            expected = event.seq + 1;
+        }
+        return holes;
+    }
+
+    /**
+     * Events up to the first hole in the sequence, or past it once it has been open long enough.
+     */
+    static List<Event> contiguous(List<Event> events, Subscription subscription) {
+        long expected = subscription.lastSeq + 1;
+        for (int i = 0; i < events.size(); i++) {
+            long seq = events.get(i).seq;
+            if (seq == expected) {
+                expected++;
+                continue;
+            }
+            long now = System.currentTimeMillis();
+            if (subscription.gapSeq != expected) {
+                subscription.gapSeq = expected;
+                subscription.gapSeenAt = now;
+            }
+            if (now - subscription.gapSeenAt < GAP_GRACE_MILLIS) {
+                return events.subList(0, i);
+            }
+            LOGGER.fine("Skipping sequence " + expected + ".." + (seq - 1) + " for " + subscription.consumer);
+            expected = seq + 1;
+        }
+        return events;
+    }
+
+    /**
+     * Receives events in sequence order.
+     */
+    @FunctionalInterface
+    public interface Handler {
+        void handle(List<Event> events) throws Exception;
+    }
+
+    /**
+     * Applies events inside the transaction that also records the consumer's offset.
+     */
+    @FunctionalInterface
+    public interface TransactionalHandler {
+        void handle(Connection conn, List<Event> events) throws SQLException;
+    }
+
+    /**
+     * One booking state change. Reservation id is 0 for waiting list events and fare bucket -1 where
+     * none applies; the amount is the fare for bookings and promotions and the refund for cancellations.
+     */
+    public static final class Event {
+        private final String type;
+        private final int reservationId;
+        private final int customerId;
+        private final int flightCode;
+        private final LocalDate travelDate;
+        private final String seatClass;
+        private final int fareBucket;
+        private final int seatNumber;
+        private final int oldSeat;
+        private final long amountCents;
+        private long seq;
+        private String origin;
+
+        public Event(String type, int reservationId, int customerId, int flightCode, LocalDate travelDate,
+                     String seatClass, int fareBucket, int seatNumber, int oldSeat, long amountCents) {
+            this.type = type;
+            this.reservationId = reservationId;
+            this.customerId = customerId;
+            this.flightCode = flightCode;
+            this.travelDate = travelDate;
+            this.seatClass = seatClass;
+            this.fareBucket = fareBucket;
+            this.seatNumber = seatNumber;
+            this.oldSeat = oldSeat;
+            this.amountCents = amountCents;
+        }
+
+        public String getType() { return type; }
+        public int getReservationId() { return reservationId; }
+        public int getCustomerId() { return customerId; }
+        public int getFlightCode() { return flightCode; }
+        public LocalDate getTravelDate() { return travelDate; }
+        public String getSeatClass() { return seatClass; }
+        public int getFareBucket() { return fareBucket; }
+        public int getSeatNumber() { return seatNumber; }
+        public int getOldSeat() { return oldSeat; }
+        public long getAmountCents() { return amountCents; }
+        /** Sequence number; 0 until read back from the log */
+        public long getSeq() { return seq; }
+        public String getOrigin() { return origin; }
+    }
+
+    /**
+     * A point in the log: the last sequence number delivery starts after, and events after it that were
+     * already seen.
+     */
+    public static final class Position {
+        private final long afterSeq;
+        private final Set<Long> seen;
+
+        Position(long afterSeq, Set<Long> seen) {
+            this.afterSeq = afterSeq;
+            this.seen = seen;
+        }
+
+        public long getAfterSeq() { return afterSeq; }
+    }
+
+    static final class Subscription {
+        final String consumer;
+        final boolean durable;
+        final Handler handler;
+        final TransactionalHandler transactional;
+        // Events after lastSeq to step over; only touched by the tailer once subscribed
+        final Set<Long> skip = new HashSet<>();
+        // Numbers at or below lastSeq stepped over before their events committed, with when
+        final Map<Long, Long> gaps = new HashMap<>();
+        long lastSeq;
+        long gapSeq = -1;
+        long gapSeenAt;
+
+        Subscription(String consumer, boolean durable, Handler handler, TransactionalHandler transactional,
+                     long lastSeq) {
+            this.consumer = consumer;
+            this.durable = durable;
+            this.handler = handler;
+            this.transactional = transactional;
+            this.lastSeq = lastSeq;
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package com.example.airlinereservationsystem.services;
+
+import com.example.airlinereservationsystem.DatabaseConnection;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory column store of every reservation, for booking curves and pace against last year.
+ *
+ * Each reservation is one position across primitive columns: its id, the flight (dictionary encoded into
+ * a {@code char}), the departure day, how many days before departure it was booked and whether it still
+ * holds a seat. Questions are answered by plain loops over those arrays, which stay fast at tens of
+ * millions of rows where the same GROUP BY on {@code reservations} would not.
+ *
+ * Rows are loaded in reservation id order, picking up where the last load stopped whenever a booking
+ * event arrives. A gap in the ids just before a recent booking may be a booking that has not committed
+ * yet, so loading stops there until the gap is older than {@link BookingEventLog#GAP_GRACE_MILLIS}.
+ * Cancellations and offloads flip the row in place. Readers work on a published snapshot and never
+ * wait for a load.
+ */
+public final class BookingPaceStore implements BookingEventLog.Handler {
+    private static final Logger LOGGER = Logger.getLogger(BookingPaceStore.class.getName());
+
+    private static final BookingPaceStore INSTANCE = new BookingPaceStore(BookingEventLog.getInstance());
+
+    // Same weekday a year earlier, which is what comparable departures are matched on
+    static final int YEAR_DAYS = 364;
+    static final int MAX_LEAD_DAYS = Short.MAX_VALUE;
+
+    private static final int FETCH_SIZE = 10_000;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private static final byte ACTIVE = 1;
+    private static final byte INACTIVE = 0;
+    // Booked before booked_at was recorded; still counted in totals but not on any curve
+    private static final short UNKNOWN_LEAD = -1;
+
+    private final BookingEventLog log;
+    private final Map<Integer, Integer> flightIndex = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService loader = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "booking-pace-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Written only while holding the store's lock; readers take the published snapshot
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private char[] flights = new char[INITIAL_CAPACITY];
+    private int[] departures = new int[INITIAL_CAPACITY];
+    private short[] leads = new short[INITIAL_CAPACITY];
+    private byte[] active = new byte[INITIAL_CAPACITY];
+    private int[] flightCodes = new int[64];
+    private String[] flightNames = new String[64];
+    private int size;
+    private int lastId;
+    private long gapSeenAt;
+    private volatile Columns columns = new Columns(this);
+
+    BookingPaceStore(BookingEventLog log) {
+        this.log = log;
+    }
+
+    public static BookingPaceStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Follow booking events and load existing reservations in the background.
+     */
+    public void start() throws SQLException {
+        log.subscribe("booking-pace", false, this);
+        loader.execute(this::refreshQuietly);
+    }
+
+    @Override
+    public void handle(List<BookingEventLog.Event> events) throws SQLException {
+        boolean added = false;
+        List<Integer> removed = new ArrayList<>();
+        for (BookingEventLog.Event event : events) {
+            switch (event.getType()) {
+                case BookingEventLog.BOOKED, BookingEventLog.PROMOTED, BookingEventLog.CLEARED -> added = true;
+                case BookingEventLog.CANCELLED, BookingEventLog.OFFLOADED -> removed.add(event.getReservationId());
+                default -> {
+                }
+            }
+        }
+        if (added) refresh();
+        if (!removed.isEmpty()) deactivate(removed);
+    }
+
+    /**
+     * Load reservations created since the last load.
+     * @return The number of rows added
+     */
+    public synchronized int refresh() throws SQLException {
+        String sql = """
+            SELECT r.reservation_id, r.flight_code, f.flight_name, r.status, r.travel_date, r.booked_at,
+                   r.booked_at < LOCALTIMESTAMP - INTERVAL '%d' SECOND AS settled
+            FROM reservations r
+            JOIN flights f ON f.flight_code = r.flight_code
+            WHERE r.reservation_id > ?
+            ORDER BY r.reservation_id
+        """.formatted(BookingEventLog.GAP_GRACE_MILLIS / 1000);
+        long started = System.nanoTime();
+        int before = size;
+        boolean gapPending = false;
+        try (Connection conn = DatabaseConnection.openDedicatedConnection()) {
+            // PostgreSQL only honours the fetch size inside a transaction
+            conn.setAutoCommit(false);
+            conn.setReadOnly(true);
+            try (PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(FETCH_SIZE);
+                ps.setInt(1, lastId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        int id = rs.getInt("reservation_id");
+                        Timestamp bookedAt = rs.getTimestamp("booked_at");
+                        // Anything missing before a row booked that long ago was rolled back, not in flight
+                        boolean settled = bookedAt == null || rs.getBoolean("settled");
+                        if (size > 0 && id != lastId + 1 && !settled && !gapExpired()) {
+                            gapPending = true;
+                            break;
+                        }
+                        gapSeenAt = 0;
+                        LocalDate departure = rs.getDate("travel_date").toLocalDate();
+                        append(id, rs.getInt("flight_code"), rs.getString("flight_name"), (int) departure.toEpochDay(),
+                            bookedAt == null ? UNKNOWN_LEAD : lead(departure, bookedAt.toLocalDateTime().toLocalDate()),
+                            "Confirmed".equals(rs.getString("status")));
+                    }
+                }
+            }
+            conn.commit();
+        }
+        publish();
+
+        if (gapPending) {
+            // Come back once the gap may be skipped, in case no further booking event arrives
+            loader.schedule(this::refreshQuietly, BookingEventLog.GAP_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        int added = size - before;
+        if (added > 0) {
+            LOGGER.info(String.format("Loaded %d reservations into the booking pace store in %d ms (%d total)",
+                added, (System.nanoTime() - started) / 1_000_000, size));
+        }
+        return added;
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to load reservations into the booking pace store", e);
+        }
+    }
+
+    private boolean gapExpired() {
+        long now = System.currentTimeMillis();
+        if (gapSeenAt == 0) {
+            gapSeenAt = now;
+        }
+        return now - gapSeenAt >= BookingEventLog.GAP_GRACE_MILLIS;
+    }
+
+    private static short lead(LocalDate departure, LocalDate bookedOn) {
+        long days = departure.toEpochDay() - bookedOn.toEpochDay();
+        return (short) Math.max(0, Math.min(days, MAX_LEAD_DAYS));
+    }
+
+    /**
+     * Add one reservation. Ids must arrive in ascending order.
+     */
+    synchronized void append(int id, int flightCode, String flightName, int departureDay, short lead, boolean holdsSeat) {
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            flights = Arrays.copyOf(flights, capacity);
+            departures = Arrays.copyOf(departures, capacity);
+            leads = Arrays.copyOf(leads, capacity);
+            active = Arrays.copyOf(active, capacity);
+        }
+        ids[size] = id;
+        flights[size] = encode(flightCode, flightName);
+        departures[size] = departureDay;
+        leads[size] = lead;
+        active[size] = holdsSeat ? ACTIVE : INACTIVE;
+        size++;
+        lastId = id;
+    }
+
+    private char encode(int flightCode, String flightName) {
+        Integer index = flightIndex.get(flightCode);
+        if (index != null) {
+            return (char) index.intValue();
+        }
+        int next = flightIndex.size();
+        if (next > Character.MAX_VALUE) {
+            throw new IllegalStateException("Booking pace store holds at most " + (Character.MAX_VALUE + 1) + " flights");
+        }
+        if (next == flightCodes.length) {
+            flightCodes = Arrays.copyOf(flightCodes, next * 2);
+            flightNames = Arrays.copyOf(flightNames, next * 2);
+        }
+        flightCodes[next] = flightCode;
+        flightNames[next] = flightName;
+        flightIndex.put(flightCode, next);
+        return (char) next;
+    }
+
+    /**
+     * Make rows appended so far visible to readers
+     */
+    synchronized void publish() {
+        columns = new Columns(this);
+    }
+
+    private synchronized void deactivate(List<Integer> reservationIds) {
+        for (int reservationId : reservationIds) {
+            int row = Arrays.binarySearch(ids, 0, size, reservationId);
+            // Not loaded yet: the load will read its current status
+            if (row >= 0) active[row] = INACTIVE;
+        }
+        publish();
+    }
+
+    /**
+     * @return Reservations held in memory
+     */
+    public int size() {
+        return columns.size;
+    }
+
+    /**
+     * Bookings still holding a seat on one departure, by how many days before departure they were made
+     * @return Index {@code d} counts bookings made {@code d} days out, up to {@code maxDaysOut}
+     */
+    public int[] curve(int flightCode, LocalDate departure, int maxDaysOut) {
+        Columns c = columns;
+        int[] counts = new int[maxDaysOut + 1];
+        Integer index = flightIndex.get(flightCode);
+        if (index == null) return counts;
+
+        char flight = (char) index.intValue();
+        int day = (int) departure.toEpochDay();
+        char[] flights = c.flights;
+        int[] departures = c.departures;
+        short[] leads = c.leads;
+        byte[] active = c.active;
+        for (int i = 0; i < c.size; i++) {
+            if (flights[i] == flight && departures[i] == day && active[i] == ACTIVE) {
+                int lead = leads[i];
+                if (lead >= 0 && lead <= maxDaysOut) counts[lead]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Bookings on hand for every flight departing on a day, against the same flight on the same weekday
+     * a year earlier at the same number of days out. One pass over the columns covers all flights.
+     * @param asOf The day the comparison is made; bookings made later are not counted
+     */
+    public List<Pace> pace(LocalDate departure, LocalDate asOf) {
+        Columns c = columns;
+        int day = (int) departure.toEpochDay();
+        int lastYear = day - YEAR_DAYS;
+        int daysOut = (int) Math.max(0, day - asOf.toEpochDay());
+
+        int[] onHand = new int[c.flightCount];
+        int[] lastYearOnHand = new int[c.flightCount];
+        int[] lastYearFinal = new int[c.flightCount];
+        char[] flights = c.flights;
+        int[] departures = c.departures;
+        short[] leads = c.leads;
+        byte[] active = c.active;
+        for (int i = 0; i < c.size; i++) {
+            if (active[i] != ACTIVE) continue;
+            int departs = departures[i];
+            if (departs == day) {
+                if (leads[i] >= daysOut) onHand[flights[i]]++;
+            } else if (departs == lastYear) {
+                lastYearFinal[flights[i]]++;
+                if (leads[i] >= daysOut) lastYearOnHand[flights[i]]++;
+            }
+        }
+
+        List<Pace> pace = new ArrayList<>();
+        for (int f = 0; f < c.flightCount; f++) {
+            if (onHand[f] == 0 && lastYearFinal[f] == 0) continue;
+            pace.add(new Pace(c.flightCodes[f], c.flightNames[f], departure, daysOut,
+                onHand[f], lastYearOnHand[f], lastYearFinal[f]));
+        }
+        pace.sort((a, b) -> a.flightName.compareTo(b.flightName));
+        return pace;
+    }
+
+    /**
+     * The columns as of one publish. Arrays are shared with the writer, which only ever writes past
+     * {@code size} or flips a row's active flag, so a reader never sees a half-written row.
+     */
+    private static final class Columns {
+        final int size;
+        final char[] flights;
+        final int[] departures;
+        final short[] leads;
+        final byte[] active;
+        final int flightCount;
+        final int[] flightCodes;
+        final String[] flightNames;
+
+        Columns(BookingPaceStore store) {
+            this.size = store.size;
+            this.flights = store.flights;
+            this.departures = store.departures;
+            this.leads = store.leads;
+            this.active = store.active;
+            this.flightCount = store.flightIndex.size();
+            this.flightCodes = store.flightCodes;
+            this.flightNames = store.flightNames;
+        }
+    }
+
+    /**
+     * Bookings on hand for one departure against the same point last year
+     */
+    public static final class Pace {
+        private final int flightCode;
+        private final String flightName;
+        private final LocalDate departure;
+        private final int daysOut;
+        private final int onHand;
+        private final int lastYearOnHand;
+        private final int lastYearFinal;
+
+        Pace(int flightCode, String flightName, LocalDate departure, int daysOut,
+             int onHand, int lastYearOnHand, int lastYearFinal) {
+            this.flightCode = flightCode;
+            this.flightName = flightName;
+            this.departure = departure;
+            this.daysOut = daysOut;
+            this.onHand = onHand;
+            this.lastYearOnHand = lastYearOnHand;
+            this.lastYearFinal = lastYearFinal;
+        }
+
+        public int getFlightCode() { return flightCode; }
+        public String getFlightName() { return flightName; }
+        public LocalDate getDeparture() { return departure; }
+        public int getDaysOut() { return daysOut; }
+        public int getOnHand() { return onHand; }
+        public int getLastYearOnHand() { return lastYearOnHand; }
+        public int getLastYearFinal() { return lastYearFinal; }
+        public int getVariance() { return onHand - lastYearOnHand; }
+
+        /**
+         * @return Bookings on hand plus the bookings last year's departure still picked up from this point
+         */
+        public int getProjected() {
+            return onHand + lastYearFinal - lastYearOnHand;
+        }
+    }
+}
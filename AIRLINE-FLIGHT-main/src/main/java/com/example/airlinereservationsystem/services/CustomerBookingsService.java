@@ -0,0 +1,206 @@
+package com.example.airlinereservationsystem.services;
+
+import com.example.airlinereservationsystem.DatabaseConnection;
+import com.example.airlinereservationsystem.models.Customer;
+import com.example.airlinereservationsystem.models.Reservation;
+import com.example.airlinereservationsystem.models.User;
+import com.example.airlinereservationsystem.utils.Money;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The bookings of a logged-in customer, found through the customer linked to their user account.
+ *
+ * Users are linked to a customer_details row in users.cust_id when they register their profile, and
+ * users existing before the link was added are matched once by name (see {@link #linkUsers()}). Each
+ * customer's bookings are cached in a small LRU and dropped on any booking event for that customer, so
+ * the next look reloads them by the indexed customer id.
+ */
+public final class CustomerBookingsService implements BookingEventLog.Handler {
+    private static final Logger LOGGER = Logger.getLogger(CustomerBookingsService.class.getName());
+
+    private static final int CACHE_SIZE = 1_000;
+    private static final String LINK_INDEX = "idx_users_customer";
+
+    private static final CustomerBookingsService INSTANCE = new CustomerBookingsService(BookingEventLog.getInstance(),
+        CustomerIdentityService.getInstance(), CACHE_SIZE);
+
+    private static final String BOOKINGS_SQL = """
+        SELECT r.*, f.flight_name, c.cust_name, c.concession
+        FROM reservations r
+        JOIN flights f ON r.flight_code = f.flight_code
+        JOIN customer_details c ON r.cust_id = c.cust_id
+        WHERE r.cust_id = ?
+        ORDER BY r.travel_date DESC, r.reservation_id DESC
+    """;
+
+    private final BookingEventLog log;
+    private final CustomerIdentityService customers;
+    private final Map<Integer, List<Reservation>> cached;
+    // Bumped by every invalidation, so a load overlapping one is not cached
+    private final AtomicLong invalidations = new AtomicLong();
+
+    CustomerBookingsService(BookingEventLog log, CustomerIdentityService customers, int cacheSize) {
+        this.log = log;
+        this.customers = customers;
+        this.cached = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Reservation>> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public static CustomerBookingsService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start dropping cached bookings as booking events for their customers are committed
+     */
+    public void start() throws SQLException {
+        log.subscribe("customer-bookings", false, this);
+    }
+
+    @Override
+    public void handle(List<BookingEventLog.Event> events) {
+        for (BookingEventLog.Event event : events) {
+            if (event.getCustomerId() > 0) {
+                invalidate(event.getCustomerId());
+            }
+        }
+    }
+
+    /**
+     * Drop a customer's cached bookings; for changes made here, which are seen before their events arrive
+     */
+    public void invalidate(int customerId) {
+        invalidations.incrementAndGet();
+        cached.remove(customerId);
+    }
+
+    /**
+     * @return The customer's bookings, latest travel date first; empty for a user not linked to a customer
+     */
+    public List<Reservation> getBookings(int customerId) throws SQLException {
+        if (customerId <= 0) return List.of();
+
+        List<Reservation> bookings = cached.get(customerId);
+        if (bookings != null) return bookings;
+
+        long seen = invalidations.get();
+        bookings = List.copyOf(load(customerId));
+        if (invalidations.get() == seen) {
+            cached.put(customerId, bookings);
+        }
+        return bookings;
+    }
+
+    /**
+     * Link a user to the customer with these details, creating or updating the customer as bookings do
+     * @return The customer's id, also set on the user
+     */
+    public int link(User user, Customer customer) throws SQLException {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.openDedicatedConnection();
+            conn.setAutoCommit(false);
+
+            int customerId = customers.resolve(conn, customer);
+            try (PreparedStatement ps = conn.prepareStatement("UPDATE users SET cust_id = ? WHERE user_id = ?")) {
+                ps.setInt(1, customerId);
+                ps.setInt(2, user.getUserId());
+                ps.executeUpdate();
+            }
+
+            conn.commit();
+            user.setCustomerId(customerId);
+            return customerId;
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    LOGGER.log(Level.SEVERE, "Failed to rollback transaction", rollbackEx);
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.WARNING, "Failed to close connection", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * One-time link of existing customer users to the customer of the same name. Names shared by more
+     * than one customer are left unlinked until the user registers their profile. Runs after duplicate
+     * customers are merged, and is skipped once the link index exists.
+     * @return Users linked
+     */
+    public int linkUsers() throws SQLException {
+        String sql = """
+            UPDATE users SET cust_id = (SELECT MIN(c.cust_id) FROM customer_details c WHERE c.cust_name = users.full_name)
+            WHERE cust_id IS NULL AND role = 'Customer'
+              AND (SELECT COUNT(*) FROM customer_details c WHERE c.cust_name = users.full_name) = 1
+        """;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (CustomerIdentityService.hasIndex(conn, "users", LINK_INDEX)) {
+                return 0;
+            }
+            int linked;
+            try (Statement stmt = conn.createStatement()) {
+                linked = stmt.executeUpdate(sql);
+                stmt.executeUpdate("CREATE INDEX IF NOT EXISTS " + LINK_INDEX + " ON users (cust_id)");
+            }
+            LOGGER.info("Linked " + linked + " users to their customers");
+            return linked;
+        }
+    }
+
+    private List<Reservation> load(int customerId) throws SQLException {
+        List<Reservation> reservations = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.openDedicatedConnection();
+             PreparedStatement ps = conn.prepareStatement(BOOKINGS_SQL)) {
+
+            ps.setInt(1, customerId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Reservation reservation = new Reservation();
+                    reservation.setReservationId(rs.getInt("reservation_id"));
+                    reservation.setPnr(rs.getString("pnr"));
+                    reservation.setCustomerId(rs.getInt("cust_id"));
+                    reservation.setFlightCode(rs.getInt("flight_code"));
+                    reservation.setSeatClass(rs.getString("seat_class"));
+                    reservation.setSeatNumber(rs.getInt("seat_number"));
+                    reservation.setStatus(rs.getString("status"));
+                    reservation.setFareCents(Money.read(rs, "fare"));
+                    reservation.setTravelDate(rs.getDate("travel_date").toLocalDate());
+                    reservation.setFareBucket(rs.getString("fare_bucket"));
+                    reservation.setFlightName(rs.getString("flight_name"));
+                    reservation.setCustomerName(rs.getString("cust_name"));
+                    reservation.setConcession(rs.getString("concession"));
+
+                    reservations.add(reservation);
+                }
+            }
+        }
+        return reservations;
+    }
+}
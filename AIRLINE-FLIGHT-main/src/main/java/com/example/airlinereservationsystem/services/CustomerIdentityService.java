@@ -0,0 +1,568 @@
+package com.example.airlinereservationsystem.services;
+
+import com.example.airlinereservationsystem.models.Customer;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Resolves customer details to one customer_details row per passenger: a phone number and a name.
+ *
+ * Families and groups often give one phone number for everyone, so the phone alone does not identify a
+ * passenger. The identity key (see {@link #identityKey(String, String)}) is the phone's digits and the
+ * name folded to lower case, stored in identity_key under a unique index: "+266-5888-1001" and
+ * "266 5888 1001" for "Ann Smith" are the same customer, while "Bob Smith" on that number is another.
+ * Inserts skip on conflict and fall back to updating the existing row, so concurrent bookings for one
+ * passenger cannot create two customers. An existing customer's name is never changed. Recently resolved
+ * ids are kept in a small LRU, letting a repeat customer be updated by primary key without a lookup.
+ */
+public final class CustomerIdentityService {
+    private static final Logger LOGGER = Logger.getLogger(CustomerIdentityService.class.getName());
+
+    private static final int CACHE_SIZE = 10_000;
+    private static final int BATCH_SIZE = 200;
+    private static final String UNIQUE_INDEX = "idx_customer_identity";
+
+    private static final CustomerIdentityService INSTANCE = new CustomerIdentityService(CACHE_SIZE);
+
+    // Columns copied from the newest duplicate when customers are merged; the oldest keeps its name
+    private static final String[] DETAIL_COLUMNS = {
+        "father_name", "gender", "dob", "address", "tel_no", "profession", "security", "concession", "travel_date"
+    };
+
+    // Columns holding a customer id, repointed to the surviving customer when duplicates are merged.
+    // booking_events is append-only and keeps the old ids; readers map them through customer_merges
+    private static final String[][] CUSTOMER_REFERENCES = {
+        { "reservations", "cust_id" },
+        { "waiting_list", "cust_id" },
+        { "promotion_outbox", "promoted_cust_id" },
+        { "users", "cust_id" }
+    };
+
+    private static final String INSERT_SQL = """
+        INSERT INTO customer_details (cust_name, father_name, gender, dob, address, tel_no, profession, concession, travel_date, identity_key)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        ON CONFLICT DO NOTHING
+    """;
+
+    // Details left blank keep their stored value. The name is part of the identity and is never rewritten
+    private static final String UPDATE_SQL = """
+        UPDATE customer_details
+        SET father_name = COALESCE(?, father_name), gender = COALESCE(?, gender),
+            dob = COALESCE(?, dob), address = COALESCE(?, address), tel_no = COALESCE(?, tel_no),
+            profession = COALESCE(?, profession), concession = COALESCE(?, concession), travel_date = COALESCE(?, travel_date)
+        WHERE cust_id = ? AND identity_key = ?
+    """;
+
+    private final Map<String, Integer> recent;
+    // Set once the unique identity index is known to exist
+    private volatile boolean indexed;
+
+    CustomerIdentityService(int cacheSize) {
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public static CustomerIdentityService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Identity key of a passenger: the phone's digits and the name in lower case with single spaces,
+     * or null when either is missing
+     */
+    public static String identityKey(String name, String phone) {
+        String digits = normalize(phone);
+        if (digits == null || name == null || name.isBlank()) {
+            return null;
+        }
+        return digits + "|" + name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Digits of a phone number, or null when it has none
+     */
+    public static String normalize(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.length() > 0 ? digits.toString() : null;
+    }
+
+    /**
+     * Find or create the customer with these details' phone number and name, and bring the other stored
+     * details up to date. Runs on the caller's connection, inside its transaction.
+     * @return The customer's id
+     */
+    public int resolve(Connection conn, Customer customer) throws SQLException {
+        requireIndex(conn);
+        String key = identityKey(customer.getName(), customer.getPhoneNumber());
+        if (key == null) {
+            // Nothing to match on; always a new customer
+            return insert(conn, customer, null);
+        }
+
+        Integer cached = recent.get(key);
+        if (cached != null) {
+            try (PreparedStatement ps = conn.prepareStatement(UPDATE_SQL)) {
+                bindUpdate(ps, cached, key, customer);
+                if (ps.executeUpdate() == 1) {
+                    return cached;
+                }
+            }
+            // Merged away, or inserted by a transaction that rolled back
+            recent.remove(key, cached);
+        }
+
+        int custId = insert(conn, customer, key);
+        if (custId == 0) {
+            custId = findIds(conn, List.of(key)).getOrDefault(key, 0);
+            if (custId == 0) {
+                throw new SQLException("Failed to insert customer");
+            }
+            try (PreparedStatement ps = conn.prepareStatement(UPDATE_SQL)) {
+                bindUpdate(ps, custId, key, customer);
+                ps.executeUpdate();
+            }
+        }
+        recent.put(key, custId);
+        return custId;
+    }
+
+    /**
+     * Resolve many customers at once with batched statements, as {@link #resolve(Connection, Customer)}
+     * does for one. Details with the same identity key resolve to one id; the first one's details are kept.
+     * @return Customer id of each of the details, in the same order
+     */
+    public List<Integer> resolveAll(Connection conn, List<Customer> customers) throws SQLException {
+        requireIndex(conn);
+        Map<String, Customer> byKey = new LinkedHashMap<>();
+        for (Customer customer : customers) {
+            String key = identityKey(customer.getName(), customer.getPhoneNumber());
+            if (key != null) {
+                byKey.putIfAbsent(key, customer);
+            }
+        }
+
+        // 1. Known customers, from the cache or the index
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> uncached = new ArrayList<>();
+        for (String key : byKey.keySet()) {
+            Integer cached = recent.get(key);
+            if (cached != null) {
+                ids.put(key, cached);
+            } else {
+                uncached.add(key);
+            }
+        }
+        ids.putAll(findIds(conn, uncached));
+
+        // 2. Update their details; a cached id that no longer matches is looked up again below
+        List<String> missing = new ArrayList<>(update(conn, ids, byKey));
+        for (String key : byKey.keySet()) {
+            if (!ids.containsKey(key)) {
+                missing.add(key);
+            }
+        }
+        missing.forEach(ids::remove);
+
+        // 3. Insert the rest; rows another transaction inserted first are updated instead
+        if (!missing.isEmpty()) {
+            List<String> conflicted = new ArrayList<>();
+            try (PreparedStatement ps = conn.prepareStatement(INSERT_SQL)) {
+                for (int from = 0; from < missing.size(); from += BATCH_SIZE) {
+                    List<String> chunk = missing.subList(from, Math.min(from + BATCH_SIZE, missing.size()));
+                    for (String key : chunk) {
+                        bindInsert(ps, byKey.get(key), key);
+                        ps.addBatch();
+                    }
+                    int[] counts = ps.executeBatch();
+                    for (int i = 0; i < counts.length; i++) {
+                        if (counts[i] == 0) {
+                            conflicted.add(chunk.get(i));
+                        }
+                    }
+                }
+            }
+
+            Map<String, Integer> inserted = findIds(conn, missing);
+            if (inserted.size() < missing.size()) {
+                throw new SQLException("Failed to insert " + (missing.size() - inserted.size()) + " customers");
+            }
+            ids.putAll(inserted);
+
+            Map<String, Integer> existing = new HashMap<>();
+            conflicted.forEach(key -> existing.put(key, inserted.get(key)));
+            update(conn, existing, byKey);
+        }
+
+        ids.forEach(recent::put);
+        List<Integer> resolved = new ArrayList<>(customers.size());
+        for (Customer customer : customers) {
+            String key = identityKey(customer.getName(), customer.getPhoneNumber());
+            // Nothing to match on; always a new customer
+            resolved.add(key != null ? ids.get(key) : insert(conn, customer, null));
+        }
+        return resolved;
+    }
+
+    /**
+     * One-time migration to unique identity keys, run by database setup on its connection. Fills
+     * identity_key for customers saved before it existed, merges customers sharing a key, i.e. the same
+     * phone and name, into the oldest of them (taking the newest non-blank details other than the name),
+     * and creates the unique index. Merging repoints reservations, waiting list entries and promotions to
+     * the surviving customer, 200 duplicates per transaction, and records each merged id in
+     * customer_merges for readers of the booking event log. A merge that fails part way leaves the index
+     * missing, so setup fails and customers are not resolved until it is run again.
+     * Does nothing once the index exists.
+     * @return Number of duplicate customers merged away
+     */
+    public int deduplicate(Connection conn) throws SQLException {
+        if (hasIndex(conn, "customer_details", UNIQUE_INDEX)) {
+            indexed = true;
+            return 0;
+        }
+        int merged = 0;
+        try {
+            long started = System.nanoTime();
+            conn.setAutoCommit(false);
+
+            int keyed = backfillKeys(conn);
+            conn.commit();
+
+            List<Merge> merges = findDuplicates(conn);
+            for (int from = 0; from < merges.size(); ) {
+                // Close a batch at BATCH_SIZE duplicates, but never split one customer's duplicates
+                int to = from;
+                int duplicates = 0;
+                while (to < merges.size() && (duplicates == 0 || duplicates + merges.get(to).duplicates.size() <= BATCH_SIZE)) {
+                    duplicates += merges.get(to++).duplicates.size();
+                }
+                merge(conn, merges.subList(from, to));
+                conn.commit();
+                merged += duplicates;
+                from = to;
+            }
+            recent.clear();
+
+            conn.setAutoCommit(true);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("CREATE UNIQUE INDEX IF NOT EXISTS " + UNIQUE_INDEX + " ON customer_details (identity_key)");
+            }
+            indexed = true;
+            LOGGER.info("Keyed " + keyed + " customers and merged " + merged + " duplicates into "
+                + merges.size() + " customers in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+            return merged;
+        } catch (SQLException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException rollbackEx) {
+                LOGGER.log(Level.SEVERE, "Failed to rollback transaction", rollbackEx);
+            }
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Without the unique index, concurrent bookings would create duplicate customers again; refuse
+     * rather than insert them.
+     */
+    private void requireIndex(Connection conn) throws SQLException {
+        if (indexed) return;
+        if (!hasIndex(conn, "customer_details", UNIQUE_INDEX)) {
+            throw new SQLException("Customer index " + UNIQUE_INDEX + " is missing; run database setup to merge duplicate customers");
+        }
+        indexed = true;
+    }
+
+    private int insert(Connection conn, Customer customer, String key) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(INSERT_SQL, new String[] { "cust_id" })) {
+            bindInsert(ps, customer, key);
+            if (ps.executeUpdate() == 0) {
+                return 0;
+            }
+            try (ResultSet rs = ps.getGeneratedKeys()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        }
+        throw new SQLException("Failed to insert customer");
+    }
+
+    /**
+     * Update the details of customers by id
+     * @return Keys whose id no longer has that key
+     */
+    private List<String> update(Connection conn, Map<String, Integer> ids, Map<String, Customer> byKey) throws SQLException {
+        List<String> stale = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return stale;
+        }
+        List<String> keys = new ArrayList<>(ids.keySet());
+        try (PreparedStatement ps = conn.prepareStatement(UPDATE_SQL)) {
+            for (int from = 0; from < keys.size(); from += BATCH_SIZE) {
+                List<String> chunk = keys.subList(from, Math.min(from + BATCH_SIZE, keys.size()));
+                for (String key : chunk) {
+                    bindUpdate(ps, ids.get(key), key, byKey.get(key));
+                    ps.addBatch();
+                }
+                int[] counts = ps.executeBatch();
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 0) {
+                        stale.add(chunk.get(i));
+                        recent.remove(chunk.get(i));
+                    }
+                }
+            }
+        }
+        return stale;
+    }
+
+    private Map<String, Integer> findIds(Connection conn, List<String> keys) throws SQLException {
+        Map<String, Integer> ids = new HashMap<>();
+        for (int from = 0; from < keys.size(); from += BATCH_SIZE) {
+            List<String> chunk = keys.subList(from, Math.min(from + BATCH_SIZE, keys.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            String sql = "SELECT cust_id, identity_key FROM customer_details WHERE identity_key IN (" + placeholders + ")";
+
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    ps.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        ids.put(rs.getString("identity_key"), rs.getInt("cust_id"));
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static void bindInsert(PreparedStatement ps, Customer customer, String key) throws SQLException {
+        ps.setString(1, customer.getName());
+        ps.setString(2, text(customer.getFatherName()));
+        ps.setString(3, text(customer.getGender()));
+        ps.setDate(4, date(customer.getDateOfBirth()));
+        ps.setString(5, text(customer.getAddress()));
+        ps.setString(6, text(customer.getPhoneNumber()));
+        ps.setString(7, text(customer.getProfession()));
+        ps.setString(8, text(customer.getConcession()));
+        ps.setDate(9, date(customer.getTravelDate()));
+        ps.setString(10, key);
+    }
+
+    private static void bindUpdate(PreparedStatement ps, int custId, String key, Customer customer) throws SQLException {
+        ps.setString(1, text(customer.getFatherName()));
+        ps.setString(2, text(customer.getGender()));
+        ps.setDate(3, date(customer.getDateOfBirth()));
+        ps.setString(4, text(customer.getAddress()));
+        ps.setString(5, text(customer.getPhoneNumber()));
+        ps.setString(6, text(customer.getProfession()));
+        ps.setString(7, text(customer.getConcession()));
+        ps.setDate(8, date(customer.getTravelDate()));
+        ps.setInt(9, custId);
+        ps.setString(10, key);
+    }
+
+    private static String text(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static Date date(LocalDate value) {
+        return value != null ? Date.valueOf(value) : null;
+    }
+
+    /**
+     * Whether the table has an index of this name, however the database cases its identifiers
+     */
+    static boolean hasIndex(Connection conn, String table, String index) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        String stored = meta.storesUpperCaseIdentifiers() ? table.toUpperCase() : table.toLowerCase();
+        try (ResultSet rs = meta.getIndexInfo(null, null, stored, false, false)) {
+            while (rs.next()) {
+                if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private int backfillKeys(Connection conn) throws SQLException {
+        String selectSql = "SELECT cust_id, cust_name, tel_no FROM customer_details WHERE identity_key IS NULL AND tel_no IS NOT NULL";
+        String updateSql = "UPDATE customer_details SET identity_key = ? WHERE cust_id = ?";
+
+        int keyed = 0;
+        try (PreparedStatement select = conn.prepareStatement(selectSql);
+             PreparedStatement update = conn.prepareStatement(updateSql)) {
+            select.setFetchSize(1000);
+            try (ResultSet rs = select.executeQuery()) {
+                int pending = 0;
+                while (rs.next()) {
+                    String key = identityKey(rs.getString("cust_name"), rs.getString("tel_no"));
+                    if (key == null) continue;
+
+                    update.setString(1, key);
+                    update.setInt(2, rs.getInt("cust_id"));
+                    update.addBatch();
+                    keyed++;
+                    if (++pending == BATCH_SIZE) {
+                        update.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    update.executeBatch();
+                }
+            }
+        }
+        return keyed;
+    }
+
+    private List<Merge> findDuplicates(Connection conn) throws SQLException {
+        String sql = """
+            SELECT cust_id, identity_key, father_name, gender, dob, address, tel_no, profession, security,
+                   concession, travel_date
+            FROM customer_details
+            WHERE identity_key IN (SELECT identity_key FROM customer_details GROUP BY identity_key HAVING COUNT(*) > 1)
+            ORDER BY identity_key, cust_id
+        """;
+
+        List<Merge> merges = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            Merge current = null;
+            String currentKey = null;
+            while (rs.next()) {
+                String key = rs.getString("identity_key");
+                int custId = rs.getInt("cust_id");
+                if (!key.equals(currentKey)) {
+                    current = new Merge(custId);
+                    currentKey = key;
+                    merges.add(current);
+                } else {
+                    current.duplicates.add(custId);
+                }
+                // Rows come oldest first, so the newest non-blank value of each column wins
+                for (int i = 0; i < DETAIL_COLUMNS.length; i++) {
+                    Object value = rs.getObject(DETAIL_COLUMNS[i]);
+                    if (value != null && !(value instanceof String && ((String) value).isBlank())) {
+                        current.details[i] = value;
+                    }
+                }
+            }
+        }
+        return merges;
+    }
+
+    private void merge(Connection conn, List<Merge> merges) throws SQLException {
+        List<Integer> survivors = new ArrayList<>();
+        List<Integer> duplicates = new ArrayList<>();
+        for (Merge merge : merges) {
+            for (int duplicate : merge.duplicates) {
+                survivors.add(merge.survivor);
+                duplicates.add(duplicate);
+            }
+        }
+        String placeholders = String.join(",", Collections.nCopies(duplicates.size(), "?"));
+
+        // One pass over each referencing table per batch: CASE maps every duplicate to its survivor
+        String cases = String.join(" ", Collections.nCopies(duplicates.size(), "WHEN ? THEN ?"));
+        for (String[] reference : CUSTOMER_REFERENCES) {
+            String column = reference[1];
+            String sql = "UPDATE " + reference[0] + " SET " + column + " = CASE " + column + " " + cases
+                + " END WHERE " + column + " IN (" + placeholders + ")";
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                int index = 1;
+                for (int i = 0; i < duplicates.size(); i++) {
+                    ps.setInt(index++, duplicates.get(i));
+                    ps.setInt(index++, survivors.get(i));
+                }
+                for (int duplicate : duplicates) {
+                    ps.setInt(index++, duplicate);
+                }
+                ps.executeUpdate();
+            }
+        }
+
+        // Earlier merges into a customer now merged away point at its survivor, so one lookup always suffices
+        String chained = "UPDATE customer_merges SET survivor_cust_id = CASE survivor_cust_id " + cases
+            + " END WHERE survivor_cust_id IN (" + placeholders + ")";
+        try (PreparedStatement ps = conn.prepareStatement(chained)) {
+            int index = 1;
+            for (int i = 0; i < duplicates.size(); i++) {
+                ps.setInt(index++, duplicates.get(i));
+                ps.setInt(index++, survivors.get(i));
+            }
+            for (int duplicate : duplicates) {
+                ps.setInt(index++, duplicate);
+            }
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO customer_merges (merged_cust_id, survivor_cust_id) VALUES (?, ?)")) {
+            for (int i = 0; i < duplicates.size(); i++) {
+                ps.setInt(1, duplicates.get(i));
+                ps.setInt(2, survivors.get(i));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM customer_details WHERE cust_id IN (" + placeholders + ")")) {
+            for (int i = 0; i < duplicates.size(); i++) {
+                ps.setInt(i + 1, duplicates.get(i));
+            }
+            ps.executeUpdate();
+        }
+
+        String updateSql = "UPDATE customer_details SET " + String.join(" = ?, ", DETAIL_COLUMNS) + " = ? WHERE cust_id = ?";
+        try (PreparedStatement ps = conn.prepareStatement(updateSql)) {
+            for (Merge merge : merges) {
+                for (int i = 0; i < DETAIL_COLUMNS.length; i++) {
+                    ps.setObject(i + 1, merge.details[i]);
+                }
+                ps.setInt(DETAIL_COLUMNS.length + 1, merge.survivor);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Customers sharing one identity key, merged into the oldest
+     */
+    private static final class Merge {
+        final int survivor;
+        final List<Integer> duplicates = new ArrayList<>();
+        final Object[] details = new Object[DETAIL_COLUMNS.length];
+
+        Merge(int survivor) {
+            this.survivor = survivor;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.airlinereservationsystem.services;
+
+import com.example.airlinereservationsystem.utils.Money;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prices a seat per flight, travel date and cabin from the route base fare, the cheapest fare
+ * bucket still open and the days left before departure.
+ * Buckets close as the cabin fills, so the price rises with load. Bucket state comes from
+ * {@link SeatInventory}, never from the database. Every inventory change reprices the affected
+ * flight and publishes the result to the availability cache that searches read from.
+ */
+public final class DynamicPricingEngine implements SeatInventory.Listener {
+
+    private static final DynamicPricingEngine INSTANCE = new DynamicPricingEngine(
+        SeatInventory.getInstance(), FareEngine.getInstance());
+
+    // Advance-purchase bands: a band applies from its minimum days before departure
+    private static final int[] ADVANCE_MIN_DAYS = { 60, 21, 7, 0 };
+    private static final int[] ADVANCE_MULTIPLIER_BP = { 9_000, 10_000, 11_500, 13_500 };
+
+    private final SeatInventory inventory;
+    private final FareEngine fares;
+    private final ConcurrentHashMap<Long, Quote> availability = new ConcurrentHashMap<>();
+
+    // Today's epoch day, recomputed only once the clock passes the next local midnight
+    private volatile long todayEpochDay;
+    private volatile long nextMidnightMillis;
+
+    DynamicPricingEngine(SeatInventory inventory, FareEngine fares) {
+        this.inventory = inventory;
+        this.fares = fares;
+        inventory.addListener(this);
+    }
+
+    public static DynamicPricingEngine getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Current seats left and price for a flight, served from the availability cache.
+     * A cached quote is reused until inventory changes, the day rolls over or the route differs.
+     */
+    public Quote quote(int flightCode, LocalDate travelDate, String seatClass, String route) {
+        int classId = FareEngine.classId(seatClass);
+        long key = SeatInventory.key(flightCode, travelDate, classId);
+        long today = today();
+        Quote cached = availability.get(key);
+        if (cached != null && cached.pricedOnEpochDay == today && sameRoute(cached.route, route)) {
+            return cached;
+        }
+        Quote fresh = price(key, route, today);
+        availability.put(key, fresh);
+        return fresh;
+    }
+
+    /**
+     * Dynamic base fare (before concessions) in cents for the cheapest open bucket,
+     * computed directly without the cache.
+     */
+    public long priceCents(int flightCode, long travelEpochDay, int classId, String route, long todayEpochDay) {
+        int bucket = Math.max(0, inventory.lowestOpenBucket(flightCode, travelEpochDay, classId));
+        return bucketPriceCents(flightCode, travelEpochDay, classId, route, bucket, todayEpochDay);
+    }
+
+    public long priceCents(int flightCode, LocalDate travelDate, String seatClass, String route) {
+        return priceCents(flightCode, travelDate.toEpochDay(), FareEngine.classId(seatClass), route, today());
+    }
+
+    /**
+     * Dynamic base fare (before concessions) in cents for a seat sold in a given bucket.
+     */
+    public long priceCents(int flightCode, LocalDate travelDate, String seatClass, String route, int bucket) {
+        return bucketPriceCents(flightCode, travelDate.toEpochDay(), FareEngine.classId(seatClass), route, bucket, today());
+    }
+
+    private long bucketPriceCents(int flightCode, long travelEpochDay, int classId, String route, int bucket,
+                                  long todayEpochDay) {
+        String seatClass = classId == FareEngine.BUSINESS ? "Business" : "Economy";
+        long base = fares.baseFareCents(flightCode, seatClass, route);
+        return adjust(base, inventory.fareBasisPoints(flightCode, classId, bucket), travelEpochDay - todayEpochDay);
+    }
+
+    @Override
+    public void inventoryChanged(long key) {
+        if (key == SeatInventory.ALL) {
+            availability.clear();
+            return;
+        }
+        // Republish only quotes someone has asked for; others are priced on first request
+        long today = today();
+        availability.computeIfPresent(key, (k, previous) -> price(k, previous.route, today));
+    }
+
+    /**
+     * Drop every cached quote, e.g. after the fare table changes.
+     */
+    public void invalidate() {
+        availability.clear();
+    }
+
+    private long today() {
+        if (System.currentTimeMillis() >= nextMidnightMillis) {
+            LocalDate today = LocalDate.now();
+            todayEpochDay = today.toEpochDay();
+            nextMidnightMillis = today.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+        return todayEpochDay;
+    }
+
+    private Quote price(long key, String route, long today) {
+        int flightCode = SeatInventory.flightCode(key);
+        long travelDay = SeatInventory.epochDay(key);
+        int classId = SeatInventory.classId(key);
+        String seatClass = classId == FareEngine.BUSINESS ? "Business" : "Economy";
+
+        long base = fares.baseFareCents(flightCode, seatClass, route);
+        int load = inventory.loadFactorBasisPoints(flightCode, travelDay, classId);
+        int bucket = inventory.lowestOpenBucket(flightCode, travelDay, classId);
+        // Seats left in the cabin; zero once every bucket is closed
+        int seatsLeft = bucket < 0 ? 0 : Math.max(0, inventory.authorized(flightCode, classId) - inventory.sold(key));
+        int priced = Math.max(0, bucket);
+        return new Quote(route, seatsLeft, load, SeatInventory.bucketCode(priced), base,
+                         adjust(base, inventory.fareBasisPoints(flightCode, classId, priced), travelDay - today), today);
+    }
+
+    private static long adjust(long baseCents, int bucketFareBp, long daysToDeparture) {
+        long cents = Money.applyBasisPoints(baseCents, bucketFareBp);
+        return Money.applyBasisPoints(cents, ADVANCE_MULTIPLIER_BP[advanceIndex(daysToDeparture)]);
+    }
+
+    private static int advanceIndex(long daysToDeparture) {
+        for (int i = 0; i < ADVANCE_MIN_DAYS.length; i++) {
+            if (daysToDeparture >= ADVANCE_MIN_DAYS[i]) return i;
+        }
+        return ADVANCE_MIN_DAYS.length - 1;
+    }
+
+    private static boolean sameRoute(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Availability and price for one flight, date and cabin at a point in time.
+     */
+    public static final class Quote {
+        private final String route;
+        private final int seatsLeft;
+        private final int loadFactorBasisPoints;
+        private final String bucket;
+        private final long baseFareCents;
+        private final long priceCents;
+        private final long pricedOnEpochDay;
+
+        Quote(String route, int seatsLeft, int loadFactorBasisPoints, String bucket,
+              long baseFareCents, long priceCents, long pricedOnEpochDay) {
+            this.route = route;
+            this.seatsLeft = seatsLeft;
+            this.loadFactorBasisPoints = loadFactorBasisPoints;
+            this.bucket = bucket;
+            this.baseFareCents = baseFareCents;
+            this.priceCents = priceCents;
+            this.pricedOnEpochDay = pricedOnEpochDay;
+        }
+
+        public String getRoute() { return route; }
+        public int getSeatsLeft() { return seatsLeft; }
+        public int getLoadFactorBasisPoints() { return loadFactorBasisPoints; }
+        public String getBucket() { return bucket; }
+        public long getBaseFareCents() { return baseFareCents; }
+        public long getPriceCents() { return priceCents; }
+    }
+}
@@ -0,0 +1,365 @@
+package com.example.airlinereservationsystem.services;
+
+import com.example.airlinereservationsystem.DatabaseConnection;
+import com.example.airlinereservationsystem.utils.ChannelWriter;
+import com.example.airlinereservationsystem.utils.ColumnarWriter;
+import com.example.airlinereservationsystem.utils.ColumnarWriter.ColumnType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.*;
+import java.time.ZoneOffset;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Service class for exporting reservations, cancellations and revenue to files.
+ * Rows are streamed from a forward-only cursor straight into a buffered file channel,
+ * so memory use stays the same no matter how many rows are exported.
+ */
+public class ExportService {
+    private static final Logger LOGGER = Logger.getLogger(ExportService.class.getName());
+
+    private static final int FETCH_SIZE = 1000;
+    private static final int ROW_GROUP_SIZE = 4096;
+
+    public enum Dataset {
+        RESERVATIONS("Reservations", """
+            SELECT r.reservation_id, r.pnr, c.cust_name, c.tel_no, f.flight_name,
+                   r.seat_class, r.seat_number, r.status, r.fare, r.travel_date
+            FROM reservations r
+            JOIN customer_details c ON r.cust_id = c.cust_id
+            JOIN flights f ON r.flight_code = f.flight_code
+            ORDER BY r.reservation_id
+        """),
+        CANCELLATIONS("Cancellations", """
+            SELECT x.cancel_id, x.reservation_id, r.pnr, c.cust_name, f.flight_name,
+                   r.seat_class, r.travel_date, x.cancel_date, x.refund_amount, x.cancellation_fee
+            FROM cancellations x
+            JOIN reservations r ON x.reservation_id = r.reservation_id
+            JOIN customer_details c ON r.cust_id = c.cust_id
+            JOIN flights f ON r.flight_code = f.flight_code
+            ORDER BY x.cancel_id
+        """),
+        REVENUE("Revenue", """
+            SELECT f.flight_name, r.travel_date, r.seat_class,
+                   COUNT(*) AS bookings, CAST(SUM(r.fare) AS DECIMAL(12,2)) AS revenue
+            FROM reservations r
+            JOIN flights f ON r.flight_code = f.flight_code
+            WHERE r.status = 'Confirmed'
+            GROUP BY f.flight_name, r.travel_date, r.seat_class
+            ORDER BY r.travel_date, f.flight_name, r.seat_class
+        """);
+
+        private final String label;
+        private final String sql;
+
+        Dataset(String label, String sql) {
+            this.label = label;
+            this.sql = sql;
+        }
+
+        @Override
+        public String toString() { return label; }
+    }
+
+    public enum Format {
+        CSV("CSV", "csv"),
+        COLUMNAR("Columnar (binary)", "arc");
+
+        private final String label;
+        private final String extension;
+
+        Format(String label, String extension) {
+            this.label = label;
+            this.extension = extension;
+        }
+
+        public String getExtension() { return extension; }
+
+        @Override
+        public String toString() { return label; }
+    }
+
+    /**
+     * Receives progress updates while an export runs.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(long rowsWritten, long totalRows);
+    }
+
+    /**
+     * Export a dataset to a file. The file is written under a temporary name and only
+     * moved into place once complete, so a cancelled or failed export leaves nothing behind.
+     * @param cancelled Polled between rows; returning true stops the export
+     */
+    public ExportResult export(Dataset dataset, Format format, Path target,
+                               ProgressListener progress, BooleanSupplier cancelled)
+            throws IOException, SQLException {
+        long started = System.nanoTime();
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+
+        // Dedicated connection: the shared one may be closed by other screens mid-export
+        try (Connection conn = DatabaseConnection.openDedicatedConnection()) {
+            long totalRows = countRows(conn, dataset);
+
+            // PostgreSQL only honours the fetch size inside a transaction
+            conn.setAutoCommit(false);
+            conn.setReadOnly(true);
+
+            long rows = 0;
+            boolean completed = false;
+            try (PreparedStatement ps = conn.prepareStatement(dataset.sql,
+                         ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(FETCH_SIZE);
+
+                try (ResultSet rs = ps.executeQuery();
+                     RowWriter writer = openWriter(format, new ChannelWriter(partial), rs.getMetaData())) {
+                    progress.onProgress(0, totalRows);
+                    while (rs.next()) {
+                        writer.write(rs);
+                        rows++;
+                        if (rows % FETCH_SIZE == 0) {
+                            progress.onProgress(rows, totalRows);
+                            if (cancelled.getAsBoolean()) break;
+                        }
+                    }
+                    completed = !cancelled.getAsBoolean();
+                }
+                conn.commit();
+            } finally {
+                if (!completed) {
+                    Files.deleteIfExists(partial);
+                }
+            }
+
+            long elapsed = (System.nanoTime() - started) / 1_000_000;
+            if (!completed) {
+                LOGGER.info("Export of " + dataset + " cancelled after " + rows + " rows");
+                return new ExportResult(dataset, format, target, rows, 0, elapsed, true);
+            }
+
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+            progress.onProgress(rows, totalRows);
+            long bytes = Files.size(target);
+            LOGGER.info(String.format("Exported %d %s rows to %s (%d bytes) in %d ms",
+                rows, dataset, target, bytes, elapsed));
+            return new ExportResult(dataset, format, target, rows, bytes, elapsed, false);
+
+        } catch (IOException | SQLException e) {
+            LOGGER.log(Level.SEVERE, "Export of " + dataset + " failed", e);
+            throw e;
+        }
+    }
+
+    private long countRows(Connection conn, Dataset dataset) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) FROM (" + dataset.sql + ") t");
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private RowWriter openWriter(Format format, ChannelWriter out, ResultSetMetaData meta)
+            throws IOException, SQLException {
+        try {
+            return format == Format.CSV ? new CsvRowWriter(out, meta) : new ColumnarRowWriter(out, meta);
+        } catch (IOException | SQLException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    private interface RowWriter extends AutoCloseable {
+        void write(ResultSet rs) throws IOException, SQLException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+        private final ChannelWriter out;
+        private final int columns;
+
+        CsvRowWriter(ChannelWriter out, ResultSetMetaData meta) throws IOException, SQLException {
+            this.out = out;
+            this.columns = meta.getColumnCount();
+            for (int i = 1; i <= columns; i++) {
+                if (i > 1) out.writeByte(',');
+                writeField(meta.getColumnLabel(i).toLowerCase());
+            }
+            out.writeByte('\n');
+        }
+
+        @Override
+        public void write(ResultSet rs) throws IOException, SQLException {
+            for (int i = 1; i <= columns; i++) {
+                if (i > 1) out.writeByte(',');
+                String value = rs.getString(i);
+                if (value != null) writeField(value);
+            }
+            out.writeByte('\n');
+        }
+
+        private void writeField(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char ch = value.charAt(i);
+                quote = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+            }
+            if (!quote) {
+                out.writeText(value);
+                return;
+            }
+            out.writeByte('"');
+            out.writeText(value.replace("\"", "\"\""));
+            out.writeByte('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private static class ColumnarRowWriter implements RowWriter {
+        private final ColumnarWriter writer;
+        private final ColumnType[] types;
+        private final int[] scales;
+
+        ColumnarRowWriter(ChannelWriter out, ResultSetMetaData meta) throws IOException, SQLException {
+            int columns = meta.getColumnCount();
+            String[] names = new String[columns];
+            types = new ColumnType[columns];
+            scales = new int[columns];
+            for (int i = 0; i < columns; i++) {
+                names[i] = meta.getColumnLabel(i + 1).toLowerCase();
+                types[i] = columnType(meta.getColumnType(i + 1));
+                if (types[i] == ColumnType.DECIMAL) {
+                    scales[i] = meta.getScale(i + 1);
+                    if (scales[i] < 0 || scales[i] > 18) {
+                        types[i] = ColumnType.FLOAT64;
+                        scales[i] = 0;
+                    }
+                }
+            }
+            writer = new ColumnarWriter(out, names, types, scales, ROW_GROUP_SIZE);
+        }
+
+        private static ColumnType columnType(int sqlType) {
+            switch (sqlType) {
+                case Types.BIGINT:
+                case Types.INTEGER:
+                case Types.SMALLINT:
+                case Types.TINYINT:
+                    return ColumnType.INT64;
+                case Types.NUMERIC:
+                case Types.DECIMAL:
+                    return ColumnType.DECIMAL;
+                case Types.REAL:
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    return ColumnType.FLOAT64;
+                case Types.DATE:
+                    return ColumnType.DATE;
+                case Types.TIMESTAMP:
+                    return ColumnType.TIMESTAMP;
+                case Types.BOOLEAN:
+                case Types.BIT:
+                    return ColumnType.BOOLEAN;
+                default:
+                    return ColumnType.STRING;
+            }
+        }
+
+        @Override
+        public void write(ResultSet rs) throws IOException, SQLException {
+            for (int i = 0; i < types.length; i++) {
+                int col = i + 1;
+                switch (types[i]) {
+                    case INT64: {
+                        long value = rs.getLong(col);
+                        if (rs.wasNull()) writer.setNull(i); else writer.setLong(i, value);
+                        break;
+                    }
+                    case DECIMAL: {
+                        BigDecimal value = rs.getBigDecimal(col);
+                        if (value == null) writer.setNull(i);
+                        else writer.setLong(i, value.setScale(scales[i], RoundingMode.HALF_UP).unscaledValue().longValueExact());
+                        break;
+                    }
+                    case FLOAT64: {
+                        double value = rs.getDouble(col);
+                        if (rs.wasNull()) writer.setNull(i); else writer.setDouble(i, value);
+                        break;
+                    }
+                    case DATE: {
+                        Date value = rs.getDate(col);
+                        if (value == null) writer.setNull(i); else writer.setLong(i, value.toLocalDate().toEpochDay());
+                        break;
+                    }
+                    case TIMESTAMP: {
+                        Timestamp value = rs.getTimestamp(col);
+                        if (value == null) {
+                            writer.setNull(i);
+                        } else {
+                            java.time.Instant instant = value.toLocalDateTime().toInstant(ZoneOffset.UTC);
+                            writer.setLong(i, instant.getEpochSecond() * 1_000_000 + instant.getNano() / 1_000);
+                        }
+                        break;
+                    }
+                    case BOOLEAN: {
+                        boolean value = rs.getBoolean(col);
+                        if (rs.wasNull()) writer.setNull(i); else writer.setLong(i, value ? 1 : 0);
+                        break;
+                    }
+                    default: {
+                        String value = rs.getString(col);
+                        if (value == null) writer.setNull(i); else writer.setString(i, value);
+                    }
+                }
+            }
+            writer.endRow();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    // Result class
+    public static class ExportResult {
+        private final Dataset dataset;
+        private final Format format;
+        private final Path file;
+        private final long rows;
+        private final long bytes;
+        private final long elapsedMillis;
+        private final boolean cancelled;
+
+        public ExportResult(Dataset dataset, Format format, Path file, long rows, long bytes,
+                            long elapsedMillis, boolean cancelled) {
+            this.dataset = dataset;
+            this.format = format;
+            this.file = file;
+            this.rows = rows;
+            this.bytes = bytes;
+            this.elapsedMillis = elapsedMillis;
+            this.cancelled = cancelled;
+        }
+
+        public Dataset getDataset() { return dataset; }
+        public Format getFormat() { return format; }
+        public Path getFile() { return file; }
+        public long getRows() { return rows; }
+        public long getBytes() { return bytes; }
+        public long getElapsedMillis() { return elapsedMillis; }
+        public boolean isCancelled() { return cancelled; }
+    }
+}
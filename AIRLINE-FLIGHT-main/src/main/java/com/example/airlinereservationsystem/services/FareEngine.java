@@ -0,0 +1,242 @@
+package com.example.airlinereservationsystem.services;
+
+import com.example.airlinereservationsystem.DatabaseConnection;
+import com.example.airlinereservationsystem.utils.Money;
+
+import java.sql.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+/**
+ * Prices bookings from the fare table and the concession rules.
+ * Both are loaded into an immutable snapshot of primitive-keyed lookup tables; {@link #refresh()}
+ * builds a new snapshot and swaps it in atomically, so pricing never waits on the database and
+ * never sees a half-loaded table. All amounts are whole cents and all arithmetic is exact.
+ */
+public final class FareEngine {
+    private static final Logger LOGGER = Logger.getLogger(FareEngine.class.getName());
+
+    private static final FareEngine INSTANCE = new FareEngine();
+
+    public static final int ECONOMY = 0;
+    public static final int BUSINESS = 1;
+
+    // Used when a flight has no fare row for the requested class
+    private static final long DEFAULT_ECONOMY_CENTS = 85_000;
+    private static final long DEFAULT_BUSINESS_CENTS = 204_000;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.defaults());
+
+    private FareEngine() { }
+
+    public static FareEngine getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Reload fares and concession rules and publish them as one new snapshot.
+     */
+    public void refresh() throws SQLException {
+        String fareSql = """
+            SELECT flight_code, class_code, source_place, dest_place, fare
+            FROM fare
+            WHERE flight_code IS NOT NULL AND fare IS NOT NULL
+            ORDER BY fare_id
+        """;
+        String concessionSql = "SELECT concession, discount_bp FROM concession_rules";
+
+        Snapshot.Builder builder = new Snapshot.Builder();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement(fareSql);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long cents = Money.read(rs, "fare");
+                    String route = routeName(rs.getString("source_place"), rs.getString("dest_place"));
+                    String classCode = rs.getString("class_code");
+                    int flightCode = rs.getInt("flight_code");
+                    if ("BOTH".equalsIgnoreCase(classCode)) {
+                        builder.addFare(flightCode, ECONOMY, route, cents);
+                        builder.addFare(flightCode, BUSINESS, route, cents);
+                    } else {
+                        builder.addFare(flightCode, classId(classCode), route, cents);
+                    }
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(concessionSql);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    builder.addConcession(rs.getString("concession"), rs.getInt("discount_bp"));
+                }
+            }
+        }
+
+        Snapshot next = builder.build();
+        snapshot.set(next);
+        LOGGER.info("Fare engine loaded " + next.fareCount + " fares and " + next.concessions.size() + " concession rules");
+    }
+
+    /**
+     * Base fare for a flight and class on a route ("Source → Dest").
+     * Falls back to the flight's first listed fare for that class when the route is unknown or null,
+     * then to the default class fare.
+     */
+    public long baseFareCents(int flightCode, String seatClass, String route) {
+        Snapshot s = snapshot.get();
+        int classId = classId(seatClass);
+        if (route != null) {
+            Integer routeId = s.routeIds.get(route);
+            if (routeId != null) {
+                long cents = s.fares.get(key(flightCode, classId, routeId));
+                if (cents >= 0) return cents;
+            }
+        }
+        long cents = s.fares.get(key(flightCode, classId, 0));
+        if (cents >= 0) return cents;
+        return classId == BUSINESS ? DEFAULT_BUSINESS_CENTS : DEFAULT_ECONOMY_CENTS;
+    }
+
+    public long baseFareCents(int flightCode, String seatClass) {
+        return baseFareCents(flightCode, seatClass, null);
+    }
+
+    /**
+     * @return Discount in basis points (1/100 of a percent) for a concession, 0 if none applies
+     */
+    public int discountBasisPoints(String concession) {
+        if (concession == null) return 0;
+        Integer bp = snapshot.get().concessions.get(concession);
+        return bp != null ? bp : 0;
+    }
+
+    /**
+     * Discount on a base fare, rounded half-up to the cent.
+     */
+    public long discountCents(long baseCents, String concession) {
+        return Money.applyBasisPoints(baseCents, discountBasisPoints(concession));
+    }
+
+    public long finalFareCents(long baseCents, String concession) {
+        return Money.subtract(baseCents, discountCents(baseCents, concession));
+    }
+
+    public long finalFareCents(int flightCode, String seatClass, String route, String concession) {
+        return finalFareCents(baseFareCents(flightCode, seatClass, route), concession);
+    }
+
+    public static int classId(String seatClass) {
+        return "Business".equalsIgnoreCase(seatClass) ? BUSINESS : ECONOMY;
+    }
+
+    public static String routeName(String source, String dest) {
+        return source != null && dest != null ? source + " → " + dest : null;
+    }
+
+    private static long key(int flightCode, int classId, int routeId) {
+        return ((long) flightCode << 32) | ((long) classId << 24) | routeId;
+    }
+
+    /**
+     * Immutable pricing tables. Route id 0 holds each flight's default fare per class.
+     */
+    private static final class Snapshot {
+        final LongLongTable fares;
+        final Map<String, Integer> routeIds;
+        final Map<String, Integer> concessions;
+        final int fareCount;
+
+        Snapshot(LongLongTable fares, Map<String, Integer> routeIds, Map<String, Integer> concessions, int fareCount) {
+            this.fares = fares;
+            this.routeIds = routeIds;
+            this.concessions = concessions;
+            this.fareCount = fareCount;
+        }
+
+        /**
+         * Rules in effect before the first load: the standard concessions and no fares.
+         */
+        static Snapshot defaults() {
+            Builder builder = new Builder();
+            builder.addConcession("Student", 2500);
+            builder.addConcession("Senior Citizen", 1300);
+            builder.addConcession("Cancer Patient", 5690);
+            return builder.build();
+        }
+
+        static final class Builder {
+            private final Map<Long, Long> fares = new HashMap<>();
+            private final Map<String, Integer> routeIds = new HashMap<>();
+            private final Map<String, Integer> concessions = new HashMap<>();
+            private int fareCount;
+
+            void addFare(int flightCode, int classId, String route, long cents) {
+                fareCount++;
+                // First fare listed for a flight and class is its default
+                fares.putIfAbsent(key(flightCode, classId, 0), cents);
+                if (route != null) {
+                    int routeId = routeIds.computeIfAbsent(route, r -> routeIds.size() + 1);
+                    fares.putIfAbsent(key(flightCode, classId, routeId), cents);
+                }
+            }
+
+            void addConcession(String name, int basisPoints) {
+                concessions.put(name, basisPoints);
+            }
+
+            Snapshot build() {
+                LongLongTable table = new LongLongTable(fares.size());
+                fares.forEach(table::put);
+                return new Snapshot(table, Map.copyOf(routeIds), Map.copyOf(concessions), fareCount);
+            }
+        }
+    }
+
+    /**
+     * Open-addressing hash table from long keys to non-negative long values.
+     * Filled once while building a snapshot and read-only afterwards.
+     */
+    private static final class LongLongTable {
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private final long[] keys;
+        private final long[] values;
+        private final int mask;
+
+        LongLongTable(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(4, expected * 2) - 1) << 1;
+            keys = new long[capacity];
+            values = new long[capacity];
+            mask = capacity - 1;
+            Arrays.fill(keys, EMPTY);
+        }
+
+        void put(long key, long value) {
+            int slot = slot(key);
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        /**
+         * @return The value for the key, or -1 when absent
+         */
+        long get(long key) {
+            int slot = slot(key);
+            while (true) {
+                long k = keys[slot];
+                if (k == key) return values[slot];
+                if (k == EMPTY) return -1;
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private int slot(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.example.airlinereservationsystem.services;
+
+import com.example.airlinereservationsystem.DatabaseConnection;
+import com.example.airlinereservationsystem.models.Fleet;
+import com.example.airlinereservationsystem.models.SeatMap;
+import com.example.airlinereservationsystem.utils.Money;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Service class for the aircraft fleet and which aircraft flies each flight.
+ * A flight's cabin sizes and seat layout come from its aircraft. Swapping the aircraft
+ * re-accommodates every upcoming booking in one pass: passengers keep their seat label where
+ * the new cabin has it, the rest are reseated, and any beyond what the new cabin may sell are
+ * offloaded to the front of the waiting list with a full refund.
+ */
+public class FleetService {
+    private static final Logger LOGGER = Logger.getLogger(FleetService.class.getName());
+
+    private static final int BATCH_SIZE = 200;
+
+    /**
+     * Get every aircraft in the fleet
+     */
+    public List<Fleet> getAllFleets() throws SQLException {
+        List<Fleet> fleets = new ArrayList<>();
+        String sql = """
+            SELECT fleet_id, no_aircraft, club_pre_capacity, eco_capacity, engine_type, cruise_speed, air_length, wing_span
+            FROM fleet ORDER BY no_aircraft
+        """;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                fleets.add(new Fleet(rs.getInt("fleet_id"), rs.getString("no_aircraft"),
+                                     rs.getInt("club_pre_capacity"), rs.getInt("eco_capacity"),
+                                     rs.getString("engine_type"), rs.getString("cruise_speed"),
+                                     rs.getString("air_length"), rs.getString("wing_span")));
+            }
+        }
+        return fleets;
+    }
+
+    /**
+     * Put another aircraft on a flight and re-accommodate its upcoming bookings.
+     * Booking priority is checked-in passengers first, then the earliest bookings.
+     */
+    public SwapResult assignAircraft(int flightCode, int fleetId) throws SQLException {
+        SeatInventory inventory = SeatInventory.getInstance();
+        SeatMapService seatMaps = SeatMapService.getInstance();
+        OverbookingService overbooking = OverbookingService.getInstance();
+        seatMaps.ensureLoaded();
+
+        int[] seats = new int[2];
+        SwapResult result;
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.openDedicatedConnection();
+            conn.setAutoCommit(false);
+
+            // 1. New cabin sizes from the aircraft
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT club_pre_capacity, eco_capacity FROM fleet WHERE fleet_id = ?")) {
+                ps.setInt(1, fleetId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new SQLException("Aircraft not found with id: " + fleetId);
+                    }
+                    seats[FareEngine.BUSINESS] = rs.getInt("club_pre_capacity");
+                    seats[FareEngine.ECONOMY] = rs.getInt("eco_capacity");
+                }
+            }
+
+            String flightSql = "UPDATE flights SET fleet_id = ?, total_eco_seats = ?, total_exe_seats = ? WHERE flight_code = ?";
+            try (PreparedStatement ps = conn.prepareStatement(flightSql)) {
+                ps.setInt(1, fleetId);
+                ps.setInt(2, seats[FareEngine.ECONOMY]);
+                ps.setInt(3, seats[FareEngine.BUSINESS]);
+                ps.setInt(4, flightCode);
+                if (ps.executeUpdate() == 0) {
+                    throw new SQLException("Flight not found with code: " + flightCode);
+                }
+            }
+
+            // 2. Every upcoming booking in one read, grouped by date and cabin in priority order
+            String bookingsSql = """
+                SELECT reservation_id, cust_id, seat_class, seat_number, travel_date, fare, fare_bucket
+                FROM reservations
+                WHERE flight_code = ? AND status = 'Confirmed' AND travel_date >= CURRENT_DATE
+                ORDER BY travel_date, seat_class, checked_in DESC, reservation_id
+            """;
+            List<Booking> bookings = new ArrayList<>();
+            try (PreparedStatement ps = conn.prepareStatement(bookingsSql)) {
+                ps.setInt(1, flightCode);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        bookings.add(new Booking(rs.getInt("reservation_id"), rs.getInt("cust_id"),
+                                                 rs.getString("seat_class"), rs.getInt("seat_number"),
+                                                 rs.getDate("travel_date").toLocalDate(), Money.read(rs, "fare"),
+                                                 SeatInventory.bucketIndex(rs.getString("fare_bucket"))));
+                    }
+                }
+            }
+
+            // 3. Plan each date and cabin in memory against the old and new seat maps
+            SeatMap[] oldMaps = new SeatMap[2];
+            SeatMap[] newMaps = new SeatMap[2];
+            int[] authorized = new int[2];
+            for (String seatClass : new String[] { "Economy", "Business" }) {
+                int classId = FareEngine.classId(seatClass);
+                oldMaps[classId] = seatMaps.seatMap(flightCode, seatClass);
+                newMaps[classId] = seatMaps.seatMapFor(fleetId, seatClass, seats[classId]);
+                authorized[classId] = overbooking.authorizedSeats(flightCode, classId, seats[classId]);
+            }
+            for (int from = 0; from < bookings.size(); ) {
+                int to = from;
+                Booking first = bookings.get(from);
+                while (to < bookings.size() && bookings.get(to).travelDate.equals(first.travelDate)
+                       && bookings.get(to).seatClass.equals(first.seatClass)) {
+                    to++;
+                }
+                int classId = FareEngine.classId(first.seatClass);
+                reaccommodate(bookings.subList(from, to), oldMaps[classId], newMaps[classId], authorized[classId]);
+                from = to;
+            }
+
+            // 4. Write the plan with batched statements
+            result = writePlan(conn, flightCode, bookings);
+
+            conn.commit();
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    LOGGER.log(Level.SEVERE, "Failed to rollback transaction", rollbackEx);
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.WARNING, "Failed to close connection", e);
+                }
+            }
+        }
+
+        // 5. Bring the caches in line with the new aircraft
+        overbooking.capacityChanged(flightCode, seats[FareEngine.ECONOMY], seats[FareEngine.BUSINESS]);
+        inventory.refresh();
+        seatMaps.refresh();
+        DynamicPricingEngine.getInstance().invalidate();
+        WaitlistService.getInstance().invalidate(flightCode);
+        LOGGER.info("Aircraft " + fleetId + " assigned to flight " + flightCode + ": " + result.getSummary());
+        return result;
+    }
+
+    /**
+     * Plan one date and cabin. The first {@code authorized} bookings stay confirmed: they keep their
+     * seat label if the new cabin has it free, otherwise take the first free seat, otherwise seat 0
+     * (assigned at check-in). The rest are offloaded.
+     */
+    static void reaccommodate(List<Booking> bookings, SeatMap oldMap, SeatMap newMap, int authorized) {
+        long[] taken = new long[newMap.getRowCount()];
+        List<Booking> moving = new ArrayList<>();
+
+        for (int i = 0; i < bookings.size(); i++) {
+            Booking booking = bookings.get(i);
+            if (i >= authorized) {
+                booking.offloaded = true;
+                continue;
+            }
+            if (booking.oldSeat <= 0) continue;
+            int seat = newMap.seatNumber(oldMap.label(booking.oldSeat));
+            int row = newMap.rowOf(seat);
+            if (row >= 0 && (taken[row] & (1L << newMap.columnOf(seat))) == 0) {
+                taken[row] |= 1L << newMap.columnOf(seat);
+                booking.newSeat = seat;
+                booking.sameSeat = true;
+            } else {
+                moving.add(booking);
+            }
+        }
+
+        int row = 0;
+        for (Booking booking : moving) {
+            while (row < taken.length && (newMap.seatMask(row) & ~taken[row]) == 0) row++;
+            if (row == taken.length) break;
+            int column = Long.numberOfTrailingZeros(newMap.seatMask(row) & ~taken[row]);
+            taken[row] |= 1L << column;
+            booking.newSeat = newMap.seatNumber(row, column);
+        }
+    }
+
+    private SwapResult writePlan(Connection conn, int flightCode, List<Booking> bookings) throws SQLException {
+        int kept = 0;
+        int reseated = 0;
+        int unseated = 0;
+        List<Booking> offloaded = new ArrayList<>();
+        List<BookingEventLog.Event> events = new ArrayList<>();
+
+        try (PreparedStatement ps = conn.prepareStatement(
+                "UPDATE reservations SET seat_number = ? WHERE reservation_id = ?")) {
+            int pending = 0;
+            for (Booking booking : bookings) {
+                if (booking.offloaded) {
+                    offloaded.add(booking);
+                    continue;
+                }
+                if (booking.sameSeat) {
+                    kept++;
+                } else if (booking.newSeat > 0) {
+                    reseated++;
+                } else {
+                    unseated++;
+                }
+                // The same seat label can have another number on the new aircraft
+                if (booking.newSeat == booking.oldSeat) continue;
+                ps.setInt(1, booking.newSeat);
+                ps.setInt(2, booking.reservationId);
+                ps.addBatch();
+                events.add(booking.event(BookingEventLog.RESEATED, flightCode, booking.newSeat, booking.oldSeat, booking.fareCents));
+                if (++pending == BATCH_SIZE) {
+                    ps.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                ps.executeBatch();
+            }
+        }
+
+        int offloadedCount = offloaded.isEmpty() ? 0 : offload(conn, flightCode, offloaded, events);
+        BookingEventLog.getInstance().append(conn, events);
+        return new SwapResult(kept, reseated, unseated, offloadedCount);
+    }
+
+    /**
+     * Cancel offloaded bookings with a full refund and put their passengers at the front of the
+     * waiting list for their date, ahead of everyone already waiting. A booking the passenger
+     * cancelled meanwhile is left alone.
+     * @return Bookings offloaded
+     */
+    private int offload(Connection conn, int flightCode, List<Booking> offloaded,
+                        List<BookingEventLog.Event> events) throws SQLException {
+        // The status check claims each booking, as in ReservationService.cancelFlight
+        String cancelSql = "UPDATE reservations SET status = 'Cancelled' WHERE reservation_id = ? AND status = 'Confirmed'";
+        String refundSql = """
+            INSERT INTO cancellations (reservation_id, cancel_date, refund_amount, cancellation_fee)
+            VALUES (?, CURRENT_TIMESTAMP, ?, 0)
+        """;
+        int[] claimed;
+        try (PreparedStatement ps = conn.prepareStatement(cancelSql)) {
+            for (Booking booking : offloaded) {
+                ps.setInt(1, booking.reservationId);
+                ps.addBatch();
+            }
+            claimed = ps.executeBatch();
+        }
+
+        List<Booking> claimedBookings = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(refundSql)) {
+            for (int i = 0; i < offloaded.size(); i++) {
+                if (claimed[i] != 1) continue;
+                Booking booking = offloaded.get(i);
+                ps.setInt(1, booking.reservationId);
+                Money.bind(ps, 2, booking.fareCents);
+                ps.addBatch();
+                claimedBookings.add(booking);
+
+                events.add(booking.event(BookingEventLog.OFFLOADED, flightCode, booking.oldSeat, 0, booking.fareCents));
+                events.add(new BookingEventLog.Event(BookingEventLog.WAITLISTED, 0, booking.customerId, flightCode,
+                    booking.travelDate, booking.seatClass, -1, 0, 0, 0));
+            }
+            ps.executeBatch();
+        }
+
+        // Offloaded bookings arrive grouped by date and cabin, in priority order; the reaccommodation
+        // tier puts them ahead of everyone already waiting
+        for (int from = 0; from < claimedBookings.size(); ) {
+            Booking first = claimedBookings.get(from);
+            List<Integer> customerIds = new ArrayList<>();
+            int to = from;
+            while (to < claimedBookings.size() && claimedBookings.get(to).travelDate.equals(first.travelDate)
+                   && claimedBookings.get(to).seatClass.equals(first.seatClass)) {
+                customerIds.add(claimedBookings.get(to++).customerId);
+            }
+            WaitlistService.getInstance().enqueueAll(conn, customerIds, flightCode, first.travelDate,
+                                                     first.seatClass, WaitlistService.TIER_REACCOMMODATION);
+            from = to;
+        }
+        return claimedBookings.size();
+    }
+
+    /**
+     * One upcoming booking being re-accommodated
+     */
+    static final class Booking {
+        final int reservationId;
+        final int customerId;
+        final String seatClass;
+        final int oldSeat;
+        final LocalDate travelDate;
+        final long fareCents;
+        final int fareBucket;
+        int newSeat;
+        boolean sameSeat;
+        boolean offloaded;
+
+        Booking(int reservationId, int customerId, String seatClass, int oldSeat, LocalDate travelDate, long fareCents,
+                int fareBucket) {
+            this.reservationId = reservationId;
+            this.customerId = customerId;
+            this.seatClass = seatClass;
+            this.oldSeat = oldSeat;
+            this.travelDate = travelDate;
+            this.fareCents = fareCents;
+            this.fareBucket = fareBucket;
+        }
+
+        BookingEventLog.Event event(String type, int flightCode, int seat, int previousSeat, long amountCents) {
+            return new BookingEventLog.Event(type, reservationId, customerId, flightCode, travelDate, seatClass,
+                                             fareBucket, seat, previousSeat, amountCents);
+        }
+    }
+
+    /**
+     * Outcome of an aircraft swap
+     */
+    public static class SwapResult {
+        private final int kept;
+        private final int reseated;
+        private final int unseated;
+        private final int offloaded;
+
+        public SwapResult(int kept, int reseated, int unseated, int offloaded) {
+            this.kept = kept;
+            this.reseated = reseated;
+            this.unseated = unseated;
+            this.offloaded = offloaded;
+        }
+
+        public int getKept() { return kept; }
+        public int getReseated() { return reseated; }
+        public int getUnseated() { return unseated; }
+        public int getOffloaded() { return offloaded; }
+
+        public String getSummary() {
+            return kept + " kept their seat, " + reseated + " reseated, " + unseated
+                + " to be seated at check-in, " + offloaded + " offloaded to the waiting list";
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package com.example.airlinereservationsystem.services;
+
+import com.example.airlinereservationsystem.DatabaseConnection;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Builds passenger manifests and boarding lists for every departure in a date range.
+ * All confirmed passengers are fetched in one query ordered by flight and seat, split per flight
+ * and rendered in parallel, so a whole day of departures costs one round trip.
+ */
+public final class ManifestGenerator {
+    private static final Logger LOGGER = Logger.getLogger(ManifestGenerator.class.getName());
+
+    private static final ManifestGenerator INSTANCE = new ManifestGenerator(SeatMapService.getInstance());
+
+    private static final int FETCH_SIZE = 1000;
+    private static final int PAGE_LINES = 60;
+    private static final int PAGE_WIDTH = 80;
+    // Lines a printed page spends on its heading and column titles
+    private static final int PAGE_HEADER_LINES = 5;
+
+    public enum Format {
+        TEXT("Text", "txt"),
+        CSV("CSV", "csv"),
+        PAGED("Print layout", "prn");
+
+        private final String label;
+        private final String extension;
+
+        Format(String label, String extension) {
+            this.label = label;
+            this.extension = extension;
+        }
+
+        public String getExtension() { return extension; }
+
+        @Override
+        public String toString() { return label; }
+    }
+
+    private final SeatMapService seatMaps;
+    private final ForkJoinPool flightPool = new ForkJoinPool();
+
+    ManifestGenerator(SeatMapService seatMaps) {
+        this.seatMaps = seatMaps;
+    }
+
+    public static ManifestGenerator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return One manifest per flight and travel date, in flight order, with passengers by cabin and seat
+     */
+    public List<FlightManifest> load(Connection conn, LocalDate from, LocalDate to) throws SQLException {
+        String sql = """
+            SELECT r.flight_code, f.flight_name, r.travel_date, r.seat_class, r.seat_number, r.pnr, c.cust_name, r.checked_in
+            FROM reservations r
+            JOIN flights f ON f.flight_code = r.flight_code
+            JOIN customer_details c ON c.cust_id = r.cust_id
+            WHERE r.status = 'Confirmed' AND r.travel_date >= ? AND r.travel_date <= ?
+            ORDER BY f.flight_name, r.flight_code, r.travel_date, r.seat_class, r.seat_number
+        """;
+        seatMaps.ensureLoaded();
+        List<FlightManifest> manifests = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setDate(1, Date.valueOf(from));
+            ps.setDate(2, Date.valueOf(to));
+            try (ResultSet rs = ps.executeQuery()) {
+                FlightManifest current = null;
+                while (rs.next()) {
+                    int flightCode = rs.getInt("flight_code");
+                    LocalDate travelDate = rs.getDate("travel_date").toLocalDate();
+                    if (current == null || current.flightCode != flightCode || !current.travelDate.equals(travelDate)) {
+                        current = new FlightManifest(flightCode, rs.getString("flight_name"), travelDate);
+                        manifests.add(current);
+                    }
+                    current.passengers.add(new Passenger(rs.getString("seat_class"), rs.getInt("seat_number"),
+                        rs.getString("pnr"), rs.getString("cust_name"), rs.getBoolean("checked_in")));
+                }
+            }
+        }
+        return manifests;
+    }
+
+    /**
+     * Render every manifest in parallel and join them in flight order
+     */
+    public String renderAll(List<FlightManifest> manifests, Format format) {
+        if (manifests.isEmpty()) return "";
+        List<String> sections = flightPool.invoke(new RenderTask(manifests, format, 0, manifests.size()));
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < sections.size(); i++) {
+            String section = sections.get(i);
+            // Only the first CSV section keeps its header row
+            if (format == Format.CSV && i > 0) section = section.substring(section.indexOf('\n') + 1);
+            out.append(section);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Write one manifest file per departure on the given day. Files are rendered in parallel and each
+     * is written under a temporary name first, so a failed run never leaves a half-written manifest.
+     */
+    public GenerationResult generateDay(LocalDate date, Format format, Path directory) throws IOException, SQLException {
+        long started = System.nanoTime();
+        List<FlightManifest> manifests;
+        // Dedicated connection: the shared one may be closed by other screens mid-run
+        try (Connection conn = DatabaseConnection.openDedicatedConnection()) {
+            // PostgreSQL only honours the fetch size inside a transaction
+            conn.setAutoCommit(false);
+            conn.setReadOnly(true);
+            manifests = load(conn, date, date);
+            conn.commit();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Failed to load manifests for " + date, e);
+            throw e;
+        }
+        long loaded = System.nanoTime();
+
+        Files.createDirectories(directory);
+        List<Path> files = List.of();
+        if (!manifests.isEmpty()) {
+            try {
+                files = flightPool.invoke(new WriteTask(manifests, format, directory, 0, manifests.size()));
+            } catch (UncheckedIOException e) {
+                LOGGER.log(Level.SEVERE, "Failed to write manifests for " + date, e.getCause());
+                throw e.getCause();
+            }
+        }
+        int passengers = manifests.stream().mapToInt(m -> m.passengers.size()).sum();
+
+        long elapsed = (System.nanoTime() - started) / 1_000_000;
+        LOGGER.info(String.format("Generated %d manifests (%d passengers) for %s in %d ms (query %d ms)",
+            manifests.size(), passengers, date, elapsed, (loaded - started) / 1_000_000));
+        return new GenerationResult(date, format, directory, files, passengers, elapsed);
+    }
+
+    public String render(FlightManifest manifest, Format format) {
+        return switch (format) {
+            case TEXT -> renderText(manifest);
+            case CSV -> renderCsv(manifest);
+            case PAGED -> renderPaged(manifest);
+        };
+    }
+
+    private String renderText(FlightManifest manifest) {
+        StringBuilder out = new StringBuilder();
+        out.append("\n=== ").append(manifest.flightName).append(" | ").append(manifest.travelDate).append(" ===\n");
+        String seatClass = null;
+        for (Passenger passenger : manifest.passengers) {
+            if (!passenger.seatClass.equals(seatClass)) {
+                seatClass = passenger.seatClass;
+                out.append(seatClass).append(":\n");
+            }
+            out.append("  ").append(passengerLine(manifest, passenger)).append('\n');
+        }
+        out.append(totalsLine(manifest)).append('\n');
+        return out.toString();
+    }
+
+    private String renderCsv(FlightManifest manifest) {
+        StringBuilder out = new StringBuilder("flight_name,travel_date,seat_class,seat,pnr,passenger,checked_in\n");
+        for (Passenger passenger : manifest.passengers) {
+            out.append(csvField(manifest.flightName)).append(',')
+               .append(manifest.travelDate).append(',')
+               .append(csvField(passenger.seatClass)).append(',')
+               .append(seatLabel(manifest, passenger)).append(',')
+               .append(csvField(passenger.pnr)).append(',')
+               .append(csvField(passenger.passengerName)).append(',')
+               .append(passenger.checkedIn).append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * Fixed-width pages of {@value #PAGE_LINES} lines, each with its own heading and separated by form
+     * feeds, so the output can be printed or turned into a PDF one page per sheet.
+     */
+    private String renderPaged(FlightManifest manifest) {
+        int perPage = PAGE_LINES - PAGE_HEADER_LINES;
+        int pages = Math.max(1, (manifest.passengers.size() + 1 + perPage - 1) / perPage);
+        String rule = "-".repeat(PAGE_WIDTH);
+        StringBuilder out = new StringBuilder();
+        for (int page = 0; page < pages; page++) {
+            if (page > 0) out.append('\f');
+            String title = "PASSENGER MANIFEST  " + manifest.flightName + "  " + manifest.travelDate;
+            String pageNo = "Page " + (page + 1) + " of " + pages;
+            out.append(title).append(" ".repeat(Math.max(1, PAGE_WIDTH - title.length() - pageNo.length())))
+               .append(pageNo).append('\n')
+               .append(rule).append('\n')
+               .append(String.format("  %-5s %-10s %-30s %-10s %s%n", "SEAT", "PNR", "PASSENGER", "CABIN", "BOARDING"))
+               .append(rule).append('\n')
+               .append('\n');
+            int lines = PAGE_HEADER_LINES;
+            int first = page * perPage;
+            int last = Math.min(manifest.passengers.size(), first + perPage);
+            for (int i = first; i < last; i++) {
+                out.append("  ").append(passengerLine(manifest, manifest.passengers.get(i))).append('\n');
+                lines++;
+            }
+            if (page == pages - 1) {
+                out.append(totalsLine(manifest)).append('\n');
+                lines++;
+            }
+            // Pad short pages so every page occupies the same number of lines
+            out.append("\n".repeat(PAGE_LINES - lines));
+        }
+        return out.toString();
+    }
+
+    private String passengerLine(FlightManifest manifest, Passenger passenger) {
+        return String.format("%-5s %-10s %-30s %-10s %s", seatLabel(manifest, passenger), passenger.pnr,
+            passenger.passengerName, passenger.seatClass, passenger.checkedIn ? "checked in" : "");
+    }
+
+    private String totalsLine(FlightManifest manifest) {
+        return String.format("Passengers: %d | Checked in: %d | Not yet boarded: %d",
+            manifest.passengers.size(), manifest.getCheckedIn(), manifest.passengers.size() - manifest.getCheckedIn());
+    }
+
+    private String seatLabel(FlightManifest manifest, Passenger passenger) {
+        return passenger.seatNumber > 0
+            ? seatMaps.label(manifest.flightCode, passenger.seatClass, passenger.seatNumber) : "-";
+    }
+
+    private static String csvField(String value) {
+        if (value == null) return "";
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == ',' || ch == '"' || ch == '\n' || ch == '\r') {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+        }
+        return value;
+    }
+
+    private static String fileName(FlightManifest manifest, Format format) {
+        String flight = manifest.flightName.replaceAll("[^A-Za-z0-9-]+", "_");
+        return "manifest_" + flight + "_" + manifest.flightCode + "_" + manifest.travelDate + "." + format.getExtension();
+    }
+
+    private Path write(FlightManifest manifest, Format format, Path directory) throws IOException {
+        Path target = directory.resolve(fileName(manifest, format));
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        try {
+            Files.writeString(partial, render(manifest, format), StandardCharsets.UTF_8);
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+        return target;
+    }
+
+    /**
+     * Renders a range of manifests, splitting it until each task has one flight
+     */
+    private final class RenderTask extends RecursiveTask<List<String>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<FlightManifest> manifests;
+        private final Format format;
+        private final int from;
+        private final int to;
+
+        RenderTask(List<FlightManifest> manifests, Format format, int from, int to) {
+            this.manifests = manifests;
+            this.format = format;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<String> compute() {
+            if (to - from == 1) {
+                return List.of(render(manifests.get(from), format));
+            }
+            int middle = (from + to) >>> 1;
+            RenderTask left = new RenderTask(manifests, format, from, middle);
+            left.fork();
+            List<String> right = new RenderTask(manifests, format, middle, to).compute();
+            List<String> joined = new ArrayList<>(left.join());
+            joined.addAll(right);
+            return joined;
+        }
+    }
+
+    /**
+     * Renders and writes a range of manifests, one file per flight
+     */
+    private final class WriteTask extends RecursiveTask<List<Path>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<FlightManifest> manifests;
+        private final Format format;
+        private final Path directory;
+        private final int from;
+        private final int to;
+
+        WriteTask(List<FlightManifest> manifests, Format format, Path directory, int from, int to) {
+            this.manifests = manifests;
+            this.format = format;
+            this.directory = directory;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Path> compute() {
+            if (to - from == 1) {
+                try {
+                    return List.of(write(manifests.get(from), format, directory));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            int middle = (from + to) >>> 1;
+            WriteTask left = new WriteTask(manifests, format, directory, from, middle);
+            left.fork();
+            List<Path> right = new WriteTask(manifests, format, directory, middle, to).compute();
+            List<Path> joined = new ArrayList<>(left.join());
+            joined.addAll(right);
+            return joined;
+        }
+    }
+
+    /**
+     * Confirmed passengers of one flight on one day
+     */
+    public static final class FlightManifest {
+        private final int flightCode;
+        private final String flightName;
+        private final LocalDate travelDate;
+        private final List<Passenger> passengers = new ArrayList<>();
+
+        FlightManifest(int flightCode, String flightName, LocalDate travelDate) {
+            this.flightCode = flightCode;
+            this.flightName = flightName;
+            this.travelDate = travelDate;
+        }
+
+        public int getFlightCode() { return flightCode; }
+        public String getFlightName() { return flightName; }
+        public LocalDate getTravelDate() { return travelDate; }
+        public List<Passenger> getPassengers() { return Collections.unmodifiableList(passengers); }
+        public int getCheckedIn() { return (int) passengers.stream().filter(p -> p.checkedIn).count(); }
+    }
+
+    /**
+     * One passenger line of a manifest
+     */
+    public static final class Passenger {
+        private final String seatClass;
+        private final int seatNumber;
+        private final String pnr;
+        private final String passengerName;
+        private final boolean checkedIn;
+
+        Passenger(String seatClass, int seatNumber, String pnr, String passengerName, boolean checkedIn) {
+            this.seatClass = seatClass;
+            this.seatNumber = seatNumber;
+            this.pnr = pnr;
+            this.passengerName = passengerName;
+            this.checkedIn = checkedIn;
+        }
+
+        public String getSeatClass() { return seatClass; }
+        public int getSeatNumber() { return seatNumber; }
+        public String getPnr() { return pnr; }
+        public String getPassengerName() { return passengerName; }
+        public boolean isCheckedIn() { return checkedIn; }
+    }
+
+    // Result class
+    public static class GenerationResult {
+        private final LocalDate date;
+        private final Format format;
+        private final Path directory;
+        private final List<Path> files;
+        private final int passengers;
+        private final long elapsedMillis;
+
+        public GenerationResult(LocalDate date, Format format, Path directory, List<Path> files,
+                                int passengers, long elapsedMillis) {
+            this.date = date;
+            this.format = format;
+            this.directory = directory;
+            this.files = files;
+            this.passengers = passengers;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public LocalDate getDate() { return date; }
+        public Format getFormat() { return format; }
+        public Path getDirectory() { return directory; }
+        public List<Path> getFiles() { return files; }
+        public int getFlights() { return files.size(); }
+        public int getPassengers() { return passengers; }
+        public long getElapsedMillis() { return elapsedMillis; }
+    }
+}
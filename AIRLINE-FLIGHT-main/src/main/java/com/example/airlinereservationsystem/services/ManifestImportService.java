@@ -0,0 +1,444 @@
+package com.example.airlinereservationsystem.services;
+
+import com.example.airlinereservationsystem.DatabaseConnection;
+import com.example.airlinereservationsystem.models.Customer;
+import com.example.airlinereservationsystem.models.Reservation;
+import com.example.airlinereservationsystem.utils.ManifestParser;
+import com.example.airlinereservationsystem.utils.Money;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Service class for bulk group and charter bookings from a passenger manifest.
+ * The whole manifest is booked in one transaction on its own connection: customers are upserted in
+ * batches, each party is seated together from the cached seat map (same row, else adjacent rows), every
+ * passenger takes a seat from {@link SeatInventory} in the cheapest bucket its nested limits leave open,
+ * and reservations are written with one batched insert. Seats taken are given back if the import fails.
+ */
+public class ManifestImportService {
+    private static final Logger LOGGER = Logger.getLogger(ManifestImportService.class.getName());
+
+    private static final int BATCH_SIZE = 200;
+    private static final Set<String> CONCESSIONS = Set.of("None", "Student", "Senior Citizen", "Cancer Patient");
+
+    /**
+     * Import a manifest file and book every valid passenger onto one flight.
+     * @param manifest CSV or JSON manifest (see {@link ManifestParser})
+     * @param flightCode Flight to book
+     * @param seatClass "Economy" or "Business"
+     * @param travelDate Travel date for the whole manifest
+     * @return Per-row outcome of the import
+     */
+    public ImportResult importManifest(Path manifest, int flightCode, String seatClass,
+                                       LocalDate travelDate) throws IOException, SQLException {
+        long started = System.nanoTime();
+
+        // 1. Stream the manifest into rows
+        List<ManifestRow> rows = new ArrayList<>();
+        try (Reader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+            ManifestParser.parse(manifest.getFileName().toString(), reader,
+                (line, values) -> rows.add(new ManifestRow(line, values)));
+        }
+
+        // 2. Validate rows in parallel; results keep manifest order
+        List<RowResult> results = rows.parallelStream()
+            .map(row -> validate(row, travelDate))
+            .collect(Collectors.toList());
+
+        List<ManifestRow> valid = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (results.get(i) == null) {
+                valid.add(rows.get(i));
+            }
+        }
+
+        if (!valid.isEmpty()) {
+            Map<ManifestRow, RowResult> booked = bookRows(valid, flightCode, seatClass, travelDate);
+            for (int i = 0; i < rows.size(); i++) {
+                if (results.get(i) == null) {
+                    results.set(i, booked.get(rows.get(i)));
+                }
+            }
+        }
+
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        LOGGER.info("Imported manifest " + manifest.getFileName() + ": " + rows.size() + " rows in " + elapsedMs + " ms");
+        return new ImportResult(results, elapsedMs);
+    }
+
+    private RowResult validate(ManifestRow row, LocalDate travelDate) {
+        List<String> errors = new ArrayList<>();
+
+        if (row.name.isEmpty()) {
+            errors.add("name is required");
+        }
+        if (row.phone.isEmpty()) {
+            errors.add("phone is required");
+        } else if (!row.phone.matches("[+0-9() -]{5,20}")) {
+            errors.add("phone '" + row.phone + "' is not a valid number");
+        }
+        if (row.dobText.isEmpty()) {
+            errors.add("dob is required");
+        } else {
+            try {
+                row.dob = LocalDate.parse(row.dobText);
+                if (row.dob.isAfter(LocalDate.now())) {
+                    errors.add("dob is in the future");
+                }
+            } catch (DateTimeParseException e) {
+                errors.add("dob '" + row.dobText + "' must be yyyy-MM-dd");
+            }
+        }
+        if (!CONCESSIONS.contains(row.concession)) {
+            errors.add("unknown concession '" + row.concession + "'");
+        }
+        if (travelDate.isBefore(LocalDate.now())) {
+            errors.add("travel date is in the past");
+        }
+
+        if (errors.isEmpty()) {
+            return null;
+        }
+        return RowResult.rejected(row.lineNumber, row.name, String.join("; ", errors));
+    }
+
+    private Map<ManifestRow, RowResult> bookRows(List<ManifestRow> rows, int flightCode, String seatClass,
+                                                 LocalDate travelDate) throws SQLException {
+        Map<ManifestRow, RowResult> results = new IdentityHashMap<>();
+        SeatMapService seatMaps = SeatMapService.getInstance();
+        SeatInventory inventory = SeatInventory.getInstance();
+        Connection conn = null;
+        // Physical seats taken on the seat map and rows sold a seat in the inventory;
+        // given back unless the import commits
+        List<Integer> heldSeats = new ArrayList<>();
+        List<ManifestRow> sold = new ArrayList<>();
+        try {
+            inventory.ensureLoaded();
+            conn = DatabaseConnection.openDedicatedConnection();
+            conn.setAutoCommit(false);
+
+            // 1. Upsert customers in batches
+            upsertCustomers(conn, rows, travelDate);
+
+            // 2-3. Seat each party together on the seat map, largest parties first
+            Map<String, List<ManifestRow>> parties = new LinkedHashMap<>();
+            for (ManifestRow row : rows) {
+                parties.computeIfAbsent(row.partyKey(), k -> new ArrayList<>()).add(row);
+            }
+            List<List<ManifestRow>> ordered = new ArrayList<>(parties.values());
+            ordered.sort((a, b) -> Integer.compare(b.size(), a.size()));
+
+            List<ManifestRow> seated = new ArrayList<>();
+            List<ManifestRow> unplaced = new ArrayList<>();
+            for (List<ManifestRow> party : ordered) {
+                int[] seats = seatMaps.reserveGroup(flightCode, travelDate, seatClass, party.size());
+                for (int i = 0; i < party.size(); i++) {
+                    if (seats[i] > 0) {
+                        party.get(i).seat = seats[i];
+                        heldSeats.add(seats[i]);
+                        seated.add(party.get(i));
+                    } else {
+                        unplaced.add(party.get(i));
+                    }
+                }
+            }
+
+            // 4. Sell each passenger a seat in the cheapest open bucket, seated passengers first.
+            // Passengers without a physical seat are confirmed with seat 0 (assigned at check-in)
+            // while the cabin's overbooking allowance lasts; the rest go to the waiting list
+            List<ManifestRow> waitlisted = new ArrayList<>();
+            seated.addAll(unplaced);
+            for (ManifestRow row : seated) {
+                row.bucket = inventory.sell(flightCode, travelDate, seatClass);
+                if (row.bucket >= 0) {
+                    sold.add(row);
+                } else {
+                    row.waitlisted = true;
+                    waitlisted.add(row);
+                }
+            }
+
+            // 5. Write reservations and waiting list entries in batches
+            insertReservations(conn, rows, flightCode, seatClass, travelDate, results);
+            List<WaitlistService.Entry> waiting =
+                insertWaitingList(conn, waitlisted, flightCode, seatClass, travelDate, results);
+            ReservationService.requireScheduled(conn, flightCode, travelDate);
+
+            conn.commit();
+            heldSeats.clear();
+            sold.clear();
+            // Seats of waitlisted passengers go back on the map
+            for (ManifestRow row : waitlisted) {
+                seatMaps.release(flightCode, travelDate, seatClass, row.seat);
+            }
+            WaitlistService.getInstance().enqueued(waiting);
+            return results;
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    LOGGER.log(Level.SEVERE, "Failed to rollback manifest import", rollbackEx);
+                }
+            }
+            throw e;
+        } finally {
+            for (int seat : heldSeats) {
+                seatMaps.release(flightCode, travelDate, seatClass, seat);
+            }
+            for (ManifestRow row : sold) {
+                inventory.released(flightCode, travelDate, seatClass, row.bucket);
+            }
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.WARNING, "Failed to close connection", e);
+                }
+            }
+        }
+    }
+
+    private void upsertCustomers(Connection conn, List<ManifestRow> rows, LocalDate travelDate) throws SQLException {
+        List<Customer> customers = new ArrayList<>(rows.size());
+        for (ManifestRow row : rows) {
+            customers.add(row.toCustomer(travelDate));
+        }
+        List<Integer> ids = CustomerIdentityService.getInstance().resolveAll(conn, customers);
+        for (int i = 0; i < rows.size(); i++) {
+            rows.get(i).customerId = ids.get(i);
+        }
+    }
+
+    private void insertReservations(Connection conn, List<ManifestRow> rows, int flightCode, String seatClass,
+                                    LocalDate travelDate, Map<ManifestRow, RowResult> results) throws SQLException {
+        String sql = """
+            INSERT INTO reservations (cust_id, flight_code, seat_class, seat_number, status, fare, travel_date, pnr, fare_bucket)
+            VALUES (?, ?, ?, ?, 'Confirmed', ?, ?, ?, ?)
+        """;
+
+        FareEngine fares = FareEngine.getInstance();
+        DynamicPricingEngine pricing = DynamicPricingEngine.getInstance();
+        // Base fare of each bucket, priced once for the whole manifest
+        long[] baseFares = new long[SeatInventory.BUCKETS];
+        Arrays.fill(baseFares, -1);
+        // One PNR per confirmed passenger, claimed from the sequence in one query
+        int confirmed = (int) rows.stream().filter(row -> !row.waitlisted).count();
+        Iterator<String> pnrs = ReservationService.nextPnrs(conn, confirmed).iterator();
+        List<BookingEventLog.Event> booked = new ArrayList<>();
+
+        try (PreparedStatement ps = conn.prepareStatement(sql, new String[] { "reservation_id" })) {
+            List<ManifestRow> pending = new ArrayList<>();
+            for (ManifestRow row : rows) {
+                if (row.waitlisted) continue;
+
+                String pnr = pnrs.next();
+                if (baseFares[row.bucket] < 0) {
+                    baseFares[row.bucket] = pricing.priceCents(flightCode, travelDate, seatClass, null, row.bucket);
+                }
+                long fareCents = fares.finalFareCents(baseFares[row.bucket], row.concession);
+
+                ps.setInt(1, row.customerId);
+                ps.setInt(2, flightCode);
+                ps.setString(3, seatClass);
+                ps.setInt(4, row.seat);
+                Money.bind(ps, 5, fareCents);
+                ps.setDate(6, Date.valueOf(travelDate));
+                ps.setString(7, pnr);
+                ps.setString(8, SeatInventory.bucketCode(row.bucket));
+                ps.addBatch();
+
+                results.put(row, RowResult.confirmed(row.lineNumber, row.name, pnr, row.seat, fareCents));
+
+                pending.add(row);
+                if (pending.size() == BATCH_SIZE) {
+                    executeReservationBatch(ps, pending, flightCode, seatClass, travelDate, results, booked);
+                }
+            }
+            if (!pending.isEmpty()) {
+                executeReservationBatch(ps, pending, flightCode, seatClass, travelDate, results, booked);
+            }
+        }
+        BookingEventLog.getInstance().append(conn, booked);
+    }
+
+    /**
+     * Run one batch of reservation inserts and collect a booking event per row from the generated ids.
+     */
+    private void executeReservationBatch(PreparedStatement ps, List<ManifestRow> pending, int flightCode,
+                                         String seatClass, LocalDate travelDate, Map<ManifestRow, RowResult> results,
+                                         List<BookingEventLog.Event> booked) throws SQLException {
+        ps.executeBatch();
+        try (ResultSet rs = ps.getGeneratedKeys()) {
+            for (ManifestRow row : pending) {
+                if (!rs.next()) throw new SQLException("Failed to insert reservation");
+                booked.add(new BookingEventLog.Event(BookingEventLog.BOOKED, rs.getInt(1), row.customerId,
+                    flightCode, travelDate, seatClass, row.bucket, row.seat, 0, results.get(row).getFareCents()));
+            }
+        }
+        pending.clear();
+    }
+
+    private List<WaitlistService.Entry> insertWaitingList(Connection conn, List<ManifestRow> rows, int flightCode,
+                                                          String seatClass, LocalDate travelDate,
+                                                          Map<ManifestRow, RowResult> results) throws SQLException {
+        List<Integer> waiting = new ArrayList<>();
+        for (ManifestRow row : rows) {
+            waiting.add(row.customerId);
+        }
+        List<WaitlistService.Entry> entries = WaitlistService.getInstance().enqueueAll(conn, waiting, flightCode,
+            travelDate, seatClass, WaitlistService.TIER_STANDARD);
+        List<BookingEventLog.Event> waitlisted = new ArrayList<>();
+        for (WaitlistService.Entry entry : entries) {
+            waitlisted.add(new BookingEventLog.Event(BookingEventLog.WAITLISTED, 0, entry.getCustomerId(), flightCode,
+                travelDate, seatClass, -1, 0, 0, 0));
+        }
+        BookingEventLog.getInstance().append(conn, waitlisted);
+        for (int i = 0; i < rows.size(); i++) {
+            ManifestRow row = rows.get(i);
+            results.put(row, RowResult.waitlisted(row.lineNumber, row.name, entries.get(i).getWaitingNumber()));
+        }
+        return entries;
+    }
+
+    /**
+     * One passenger row from the manifest.
+     */
+    private static class ManifestRow {
+        final int lineNumber;
+        final String name;
+        final String fatherName;
+        final String gender;
+        final String dobText;
+        final String address;
+        final String phone;
+        final String profession;
+        final String concession;
+        final String party;
+        LocalDate dob;
+        int customerId;
+        int seat;
+        int bucket = -1;
+        boolean waitlisted;
+
+        ManifestRow(int lineNumber, Map<String, String> values) {
+            this.lineNumber = lineNumber;
+            this.name = value(values, "name", "cust_name", "passenger");
+            this.fatherName = value(values, "father_name", "father");
+            this.gender = value(values, "gender");
+            this.dobText = value(values, "dob", "date_of_birth");
+            this.address = value(values, "address");
+            this.phone = value(values, "phone", "tel_no", "telephone");
+            this.profession = value(values, "profession");
+            String concessionValue = value(values, "concession");
+            this.concession = concessionValue.isEmpty() ? "None" : concessionValue;
+            this.party = value(values, "group", "party", "group_code");
+        }
+
+        String partyKey() {
+            // Passengers without a group code each form their own party
+            return party.isEmpty() ? "#" + lineNumber : party;
+        }
+
+        Customer toCustomer(LocalDate travelDate) {
+            Customer customer = new Customer(name, fatherName, gender, dob, address, phone, profession, concession);
+            customer.setTravelDate(travelDate);
+            return customer;
+        }
+
+        private static String value(Map<String, String> values, String... keys) {
+            for (String key : keys) {
+                String v = values.get(key);
+                if (v != null && !v.isBlank()) {
+                    return v.trim();
+                }
+            }
+            return "";
+        }
+    }
+
+    // Result classes
+    public static class RowResult {
+        public enum Status { CONFIRMED, WAITLISTED, REJECTED }
+
+        private final int lineNumber;
+        private final String passengerName;
+        private final Status status;
+        private final String pnr;
+        private final int seatNumber;
+        private final long fareCents;
+        private final int waitingNumber;
+        private final String message;
+
+        private RowResult(int lineNumber, String passengerName, Status status, String pnr,
+                          int seatNumber, long fareCents, int waitingNumber, String message) {
+            this.lineNumber = lineNumber;
+            this.passengerName = passengerName;
+            this.status = status;
+            this.pnr = pnr;
+            this.seatNumber = seatNumber;
+            this.fareCents = fareCents;
+            this.waitingNumber = waitingNumber;
+            this.message = message;
+        }
+
+        static RowResult confirmed(int line, String name, String pnr, int seat, long fareCents) {
+            return new RowResult(line, name, Status.CONFIRMED, pnr, seat, fareCents, 0, "Seat " + Reservation.seatLabel(seat));
+        }
+
+        static RowResult waitlisted(int line, String name, int waitingNumber) {
+            return new RowResult(line, name, Status.WAITLISTED, null, 0, 0, waitingNumber,
+                "Waiting list #" + waitingNumber);
+        }
+
+        static RowResult rejected(int line, String name, String reason) {
+            return new RowResult(line, name, Status.REJECTED, null, 0, 0, 0, reason);
+        }
+
+        public int getLineNumber() { return lineNumber; }
+        public String getPassengerName() { return passengerName; }
+        public Status getStatus() { return status; }
+        public String getPnr() { return pnr; }
+        public int getSeatNumber() { return seatNumber; }
+        public long getFareCents() { return fareCents; }
+        public int getWaitingNumber() { return waitingNumber; }
+        public String getMessage() { return message; }
+    }
+
+    public static class ImportResult {
+        private final List<RowResult> rows;
+        private final long elapsedMillis;
+
+        public ImportResult(List<RowResult> rows, long elapsedMillis) {
+            this.rows = rows;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public List<RowResult> getRows() { return rows; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        public long count(RowResult.Status status) {
+            return rows.stream().filter(r -> r.getStatus() == status).count();
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.airlinereservationsystem.services;
+
+import com.example.airlinereservationsystem.DatabaseConnection;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Decides how many seats each cabin may sell above its physical size from the share of
+ * booked passengers who did not fly.
+ *
+ * A departed booking is a no-show if it was still confirmed but never checked in, or if it was
+ * cancelled on or after the travel date. Running totals per flight and cabin live in
+ * {@code no_show_stats}; {@link #refresh()} folds in only the travel dates since the last run
+ * (tracked in {@code rollup_watermarks}), so the history is read once and never per booking.
+ * Until a flight has its own history, the configured prior rate in {@code overbooking_rules}
+ * carries most of the weight.
+ */
+public final class OverbookingService {
+    private static final Logger LOGGER = Logger.getLogger(OverbookingService.class.getName());
+
+    private static final OverbookingService INSTANCE = new OverbookingService(SeatInventory.getInstance());
+
+    static final String WATERMARK = "no_show_stats";
+
+    // Used when overbooking_rules has no row for a flight, not even the network default (flight code 0)
+    private static final int DEFAULT_PRIOR_NO_SHOW_BP = 0;
+    private static final int DEFAULT_PRIOR_WEIGHT = 1;
+    private static final int DEFAULT_MAX_OVERBOOK_BP = 0;
+
+    private final SeatInventory inventory;
+    // flight code -> [class] -> {no-show rate bp, max overbook bp}
+    private final Map<Integer, int[][]> models = new ConcurrentHashMap<>();
+
+    OverbookingService(SeatInventory inventory) {
+        this.inventory = inventory;
+    }
+
+    public static OverbookingService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Fold travel dates up to yesterday into the no-show totals, then recompute and store
+     * every flight's authorized seats and hand them to the seat inventory.
+     */
+    public synchronized void refresh() throws SQLException {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        Map<Integer, int[]> capacities = new HashMap<>();
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.openDedicatedConnection();
+            conn.setAutoCommit(false);
+
+            LocalDate watermark = readWatermark(conn);
+            if (watermark == null) {
+                // Bookings made before check-in was recorded cannot tell flown from no-show; start from here
+                writeWatermark(conn, yesterday, false);
+            } else if (watermark.isBefore(yesterday)) {
+                int folded = foldNoShows(conn, watermark, yesterday);
+                writeWatermark(conn, yesterday, true);
+                LOGGER.info("Folded no-shows for " + folded + " cabins through " + yesterday);
+            }
+
+            loadModels(conn);
+
+            String flightsSql = "SELECT flight_code, total_eco_seats, total_exe_seats FROM flights";
+            try (PreparedStatement ps = conn.prepareStatement(flightsSql);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int flightCode = rs.getInt("flight_code");
+                    capacities.put(flightCode, new int[] {
+                        authorizedSeats(flightCode, FareEngine.ECONOMY, rs.getInt("total_eco_seats")),
+                        authorizedSeats(flightCode, FareEngine.BUSINESS, rs.getInt("total_exe_seats"))
+                    });
+                }
+            }
+
+            String updateSql = "UPDATE flights SET auth_eco_seats = ?, auth_exe_seats = ? WHERE flight_code = ?";
+            try (PreparedStatement ps = conn.prepareStatement(updateSql)) {
+                for (Map.Entry<Integer, int[]> entry : capacities.entrySet()) {
+                    ps.setInt(1, entry.getValue()[0]);
+                    ps.setInt(2, entry.getValue()[1]);
+                    ps.setInt(3, entry.getKey());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+
+            conn.commit();
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    LOGGER.log(Level.SEVERE, "Failed to rollback transaction", rollbackEx);
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.WARNING, "Failed to close connection", e);
+                }
+            }
+        }
+
+        capacities.forEach((flightCode, seats) -> inventory.setAuthorized(flightCode, seats[0], seats[1]));
+        LOGGER.info("Authorized capacity set for " + capacities.size() + " flights");
+    }
+
+    /**
+     * Re-authorize one flight after its cabins are resized, from the rates of the last refresh.
+     */
+    public void capacityChanged(int flightCode, int economySeats, int businessSeats) throws SQLException {
+        int economy = authorizedSeats(flightCode, FareEngine.ECONOMY, economySeats);
+        int business = authorizedSeats(flightCode, FareEngine.BUSINESS, businessSeats);
+        String sql = "UPDATE flights SET auth_eco_seats = ?, auth_exe_seats = ? WHERE flight_code = ?";
+        try (Connection conn = DatabaseConnection.openDedicatedConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, economy);
+            ps.setInt(2, business);
+            ps.setInt(3, flightCode);
+            ps.executeUpdate();
+        }
+        inventory.setAuthorized(flightCode, economy, business);
+    }
+
+    /**
+     * @return Expected share of booked passengers who will not fly, in basis points
+     */
+    public int noShowBasisPoints(int flightCode, int classId) {
+        return model(flightCode, classId)[0];
+    }
+
+    /**
+     * Seats to sell so that, after the expected no-shows, about {@code seats} passengers turn up.
+     * Never below the physical seats and never more than the rule's overbooking cap above them.
+     */
+    public int authorizedSeats(int flightCode, int classId, int seats) {
+        if (seats <= 0) return 0;
+        int[] model = model(flightCode, classId);
+        int cap = seats + (int) ((long) seats * model[1] / 10_000);
+        if (model[0] >= 10_000) return cap;
+        int expected = (int) ((long) seats * 10_000 / (10_000 - model[0]));
+        return Math.max(seats, Math.min(cap, expected));
+    }
+
+    private int[] model(int flightCode, int classId) {
+        int[][] own = models.get(flightCode);
+        if (own != null && own[classId] != null) return own[classId];
+        int[][] network = models.get(0);
+        if (network != null && network[classId] != null) return network[classId];
+        return new int[] { DEFAULT_PRIOR_NO_SHOW_BP, DEFAULT_MAX_OVERBOOK_BP };
+    }
+
+    /**
+     * Blend each cabin's observed no-show rate with its rule's prior, weighted by departed bookings.
+     */
+    private void loadModels(Connection conn) throws SQLException {
+        String rulesSql = "SELECT flight_code, seat_class, prior_no_show_bp, prior_weight, max_overbook_bp FROM overbooking_rules";
+        String statsSql = "SELECT flight_code, seat_class, departed, no_shows FROM no_show_stats";
+
+        // flight code -> [class] -> {prior bp, prior weight, max overbook bp}
+        Map<Integer, int[][]> rules = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(rulesSql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                rules.computeIfAbsent(rs.getInt("flight_code"), f -> new int[2][])[FareEngine.classId(rs.getString("seat_class"))] =
+                    new int[] { rs.getInt("prior_no_show_bp"), Math.max(1, rs.getInt("prior_weight")), rs.getInt("max_overbook_bp") };
+            }
+        }
+
+        Map<Integer, int[][]> next = new HashMap<>();
+        rules.forEach((flightCode, classes) -> {
+            int[][] model = new int[2][];
+            for (int classId = 0; classId < 2; classId++) {
+                if (classes[classId] != null) {
+                    model[classId] = new int[] { classes[classId][0], classes[classId][2] };
+                }
+            }
+            next.put(flightCode, model);
+        });
+
+        try (PreparedStatement ps = conn.prepareStatement(statsSql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                int flightCode = rs.getInt("flight_code");
+                int classId = FareEngine.classId(rs.getString("seat_class"));
+                int[] rule = rule(rules, flightCode, classId);
+                long departed = rs.getLong("departed");
+                long noShows = rs.getLong("no_shows");
+                int rateBp = (int) ((noShows * 10_000 + (long) rule[0] * rule[1]) / (departed + rule[1]));
+                next.computeIfAbsent(flightCode, f -> new int[2][])[classId] = new int[] { rateBp, rule[2] };
+            }
+        }
+
+        models.clear();
+        models.putAll(next);
+    }
+
+    private static int[] rule(Map<Integer, int[][]> rules, int flightCode, int classId) {
+        int[][] own = rules.get(flightCode);
+        if (own != null && own[classId] != null) return own[classId];
+        int[][] network = rules.get(0);
+        if (network != null && network[classId] != null) return network[classId];
+        return new int[] { DEFAULT_PRIOR_NO_SHOW_BP, DEFAULT_PRIOR_WEIGHT, DEFAULT_MAX_OVERBOOK_BP };
+    }
+
+    /**
+     * Add departed bookings and no-shows for travel dates in (from, to] to the running totals.
+     * @return Number of flight cabins updated
+     */
+    private int foldNoShows(Connection conn, LocalDate from, LocalDate to) throws SQLException {
+        String deltaSql = """
+            SELECT r.flight_code, r.seat_class, COUNT(*) AS departed,
+                   SUM(CASE WHEN r.status = 'Confirmed' AND r.checked_in THEN 0 ELSE 1 END) AS no_shows
+            FROM reservations r
+            LEFT JOIN cancellations c ON c.reservation_id = r.reservation_id
+            WHERE r.travel_date > ? AND r.travel_date <= ?
+              AND (r.status = 'Confirmed' OR (r.status = 'Cancelled' AND c.cancel_date >= r.travel_date))
+            GROUP BY r.flight_code, r.seat_class
+        """;
+        String updateSql = "UPDATE no_show_stats SET departed = departed + ?, no_shows = no_shows + ? WHERE flight_code = ? AND seat_class = ?";
+        String insertSql = "INSERT INTO no_show_stats (flight_code, seat_class, departed, no_shows) VALUES (?, ?, ?, ?)";
+
+        int cabins = 0;
+        try (PreparedStatement ps = conn.prepareStatement(deltaSql);
+             PreparedStatement updatePs = conn.prepareStatement(updateSql);
+             PreparedStatement insertPs = conn.prepareStatement(insertSql)) {
+            ps.setDate(1, Date.valueOf(from));
+            ps.setDate(2, Date.valueOf(to));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    updatePs.setInt(1, rs.getInt("departed"));
+                    updatePs.setInt(2, rs.getInt("no_shows"));
+                    updatePs.setInt(3, rs.getInt("flight_code"));
+                    updatePs.setString(4, rs.getString("seat_class"));
+                    if (updatePs.executeUpdate() == 0) {
+                        insertPs.setInt(1, rs.getInt("flight_code"));
+                        insertPs.setString(2, rs.getString("seat_class"));
+                        insertPs.setInt(3, rs.getInt("departed"));
+                        insertPs.setInt(4, rs.getInt("no_shows"));
+                        insertPs.executeUpdate();
+                    }
+                    cabins++;
+                }
+            }
+        }
+        return cabins;
+    }
+
+    private static LocalDate readWatermark(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT last_date FROM rollup_watermarks WHERE name = ?")) {
+            ps.setString(1, WATERMARK);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getDate("last_date").toLocalDate() : null;
+            }
+        }
+    }
+
+    private static void writeWatermark(Connection conn, LocalDate date, boolean exists) throws SQLException {
+        String sql = exists
+            ? "UPDATE rollup_watermarks SET last_date = ? WHERE name = ?"
+            : "INSERT INTO rollup_watermarks (last_date, name) VALUES (?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setDate(1, Date.valueOf(date));
+            ps.setString(2, WATERMARK);
+            ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,622 @@
+package com.example.airlinereservationsystem.services;
+
+import com.example.airlinereservationsystem.DatabaseConnection;
+
+import java.sql.*;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory trigram index of every reservation by passenger name, phone number and PNR, for staff
+ * lookups that do not know the exact PNR.
+ *
+ * Text is folded to lower-case letters and digits without accents, and each field is split into
+ * overlapping three-character trigrams, starting with a word break so that prefixes rank first. Every
+ * trigram has a posting list of the rows containing it, in row order. A query matches the rows sharing
+ * enough of its trigrams: all of them for short queries, allowing one or two typos for longer ones.
+ * Any match appears in one of the shortest lists, so only those are merged, newest row first, and the
+ * longer lists are probed for the rows found. When every list is long, counting all of them in one pass
+ * is cheaper, and is used instead.
+ *
+ * Rows are loaded in reservation id order like {@link BookingPaceStore}, and the first load is indexed
+ * in parallel. Cancellations update the row in place. Names and phone numbers are those at booking
+ * time until the next restart.
+ */
+public final class PassengerSearchIndex implements BookingEventLog.Handler {
+    private static final Logger LOGGER = Logger.getLogger(PassengerSearchIndex.class.getName());
+
+    private static final PassengerSearchIndex INSTANCE = new PassengerSearchIndex(BookingEventLog.getInstance());
+
+    public static final int DEFAULT_LIMIT = 50;
+
+    // Folded characters: 0 is a word break, 1-26 the letters and 27-36 the digits
+    private static final int ALPHABET = 37;
+    private static final int TRIGRAMS = ALPHABET * ALPHABET * ALPHABET;
+    private static final byte BREAK = 0;
+    // Longer queries are cut short, which keeps trigram counts within a byte
+    private static final int MAX_QUERY_LENGTH = 64;
+
+    private static final int FETCH_SIZE = 10_000;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    // Loads adding more rows than this are indexed in parallel
+    private static final int PARALLEL_THRESHOLD = 50_000;
+    // Merging an entry, with its probes into the longer lists, costs about as much as counting this many
+    private static final int MERGE_COST = 8;
+
+    private final BookingEventLog log;
+    private final Map<Integer, String> flightNames = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService loader = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "passenger-search-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Written only while holding the index's lock; readers take the published snapshot.
+    // Posting lists hold row + 1, so an unwritten 0 is never mistaken for the first row
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int[] flightCodes = new int[INITIAL_CAPACITY];
+    private int[] travelDays = new int[INITIAL_CAPACITY];
+    private String[] pnrs = new String[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private String[] phones = new String[INITIAL_CAPACITY];
+    private String[] statuses = new String[INITIAL_CAPACITY];
+    private final int[][] postings = new int[TRIGRAMS][];
+    private final int[] postingSizes = new int[TRIGRAMS];
+    private int size;
+    private int indexed;
+    private int lastId;
+    private long gapSeenAt;
+    private volatile Snapshot snapshot = new Snapshot(this);
+
+    PassengerSearchIndex(BookingEventLog log) {
+        this.log = log;
+    }
+
+    public static PassengerSearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Follow booking events and build the index from existing reservations in the background.
+     */
+    public void start() throws SQLException {
+        log.subscribe("passenger-search", false, this);
+        loader.execute(this::refreshQuietly);
+    }
+
+    @Override
+    public void handle(List<BookingEventLog.Event> events) throws SQLException {
+        boolean added = false;
+        List<Integer> cancelled = new ArrayList<>();
+        for (BookingEventLog.Event event : events) {
+            switch (event.getType()) {
+                case BookingEventLog.BOOKED, BookingEventLog.PROMOTED, BookingEventLog.CLEARED -> added = true;
+                case BookingEventLog.CANCELLED, BookingEventLog.OFFLOADED -> cancelled.add(event.getReservationId());
+                default -> {
+                }
+            }
+        }
+        if (added) refresh();
+        if (!cancelled.isEmpty()) setStatus(cancelled, "Cancelled");
+    }
+
+    /**
+     * Load and index reservations created since the last load.
+     * @return The number of rows added
+     */
+    public synchronized int refresh() throws SQLException {
+        String sql = """
+            SELECT r.reservation_id, r.pnr, r.flight_code, f.flight_name, r.travel_date, r.status, r.booked_at,
+                   c.cust_name, c.tel_no, r.booked_at < LOCALTIMESTAMP - INTERVAL '%d' SECOND AS settled
+            FROM reservations r
+            JOIN flights f ON f.flight_code = r.flight_code
+            JOIN customer_details c ON c.cust_id = r.cust_id
+            WHERE r.reservation_id > ?
+            ORDER BY r.reservation_id
+        """.formatted(BookingEventLog.GAP_GRACE_MILLIS / 1000);
+        long started = System.nanoTime();
+        int before = size;
+        boolean gapPending = false;
+        try (Connection conn = DatabaseConnection.openDedicatedConnection()) {
+            // PostgreSQL only honours the fetch size inside a transaction
+            conn.setAutoCommit(false);
+            conn.setReadOnly(true);
+            try (PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(FETCH_SIZE);
+                ps.setInt(1, lastId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        int id = rs.getInt("reservation_id");
+                        // Anything missing before a row booked that long ago was rolled back, not in flight
+                        boolean settled = rs.getTimestamp("booked_at") == null || rs.getBoolean("settled");
+                        if (size > 0 && id != lastId + 1 && !settled && !gapExpired()) {
+                            gapPending = true;
+                            break;
+                        }
+                        gapSeenAt = 0;
+                        append(id, rs.getString("pnr"), rs.getString("cust_name"), rs.getString("tel_no"),
+                            rs.getInt("flight_code"), rs.getString("flight_name"),
+                            (int) rs.getDate("travel_date").toLocalDate().toEpochDay(), rs.getString("status"));
+                    }
+                }
+            }
+            conn.commit();
+        }
+        publish();
+
+        if (gapPending) {
+            // Come back once the gap may be skipped, in case no further booking event arrives
+            loader.schedule(this::refreshQuietly, BookingEventLog.GAP_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        int added = size - before;
+        if (added > 0) {
+            LOGGER.info(String.format("Indexed %d reservations for passenger search in %d ms (%d total)",
+                added, (System.nanoTime() - started) / 1_000_000, size));
+        }
+        return added;
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to load reservations into the passenger search index", e);
+        }
+    }
+
+    private boolean gapExpired() {
+        long now = System.currentTimeMillis();
+        if (gapSeenAt == 0) {
+            gapSeenAt = now;
+        }
+        return now - gapSeenAt >= BookingEventLog.GAP_GRACE_MILLIS;
+    }
+
+    /**
+     * Add one reservation; it is indexed on the next {@link #publish()}. Ids must arrive in ascending order.
+     */
+    synchronized void append(int id, String pnr, String name, String phone, int flightCode, String flightName,
+                             int travelDay, String status) {
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            flightCodes = Arrays.copyOf(flightCodes, capacity);
+            travelDays = Arrays.copyOf(travelDays, capacity);
+            pnrs = Arrays.copyOf(pnrs, capacity);
+            names = Arrays.copyOf(names, capacity);
+            phones = Arrays.copyOf(phones, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+        }
+        ids[size] = id;
+        flightCodes[size] = flightCode;
+        travelDays[size] = travelDay;
+        pnrs[size] = pnr;
+        names[size] = name;
+        phones[size] = phone;
+        statuses[size] = status;
+        flightNames.putIfAbsent(flightCode, flightName);
+        size++;
+        lastId = id;
+    }
+
+    /**
+     * Index the rows appended so far and make them visible to readers
+     */
+    synchronized void publish() {
+        if (size - indexed > PARALLEL_THRESHOLD) {
+            indexParallel(indexed, size);
+        } else {
+            for (int row = indexed; row < size; row++) {
+                indexRow(row, postings, postingSizes);
+            }
+        }
+        indexed = size;
+        snapshot = new Snapshot(this);
+    }
+
+    /**
+     * Index a range of rows on all cores: each part builds its own posting lists, which are then
+     * appended to the shared ones in row order.
+     */
+    private void indexParallel(int from, int to) {
+        int parts = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), (to - from) / (PARALLEL_THRESHOLD / 4)));
+        int[][][] partPostings = new int[parts][][];
+        int[][] partSizes = new int[parts][];
+        IntStream.range(0, parts).parallel().forEach(part -> {
+            int[][] lists = new int[TRIGRAMS][];
+            int[] sizes = new int[TRIGRAMS];
+            int end = from + (int) ((long) (to - from) * (part + 1) / parts);
+            for (int row = from + (int) ((long) (to - from) * part / parts); row < end; row++) {
+                indexRow(row, lists, sizes);
+            }
+            partPostings[part] = lists;
+            partSizes[part] = sizes;
+        });
+        IntStream.range(0, TRIGRAMS).parallel().forEach(trigram -> {
+            int total = postingSizes[trigram];
+            for (int[] sizes : partSizes) total += sizes[trigram];
+            if (total == postingSizes[trigram]) return;
+
+            int[] list = postings[trigram] == null ? new int[total] : postings[trigram];
+            if (list.length < total) list = Arrays.copyOf(list, Math.max(total, list.length * 2));
+            int at = postingSizes[trigram];
+            for (int part = 0; part < parts; part++) {
+                int count = partSizes[part][trigram];
+                if (count > 0) {
+                    System.arraycopy(partPostings[part][trigram], 0, list, at, count);
+                    at += count;
+                }
+            }
+            postings[trigram] = list;
+            postingSizes[trigram] = total;
+        });
+    }
+
+    private void indexRow(int row, int[][] lists, int[] sizes) {
+        int entry = row + 1;
+        // Phone numbers are indexed as bare digits, the way queries without letters are folded
+        byte[][] fields = { fold(names[row], true), fold(pnrs[row], true), withoutBreaks(fold(phones[row], false)) };
+        for (byte[] folded : fields) {
+            for (int i = 0; i + 2 < folded.length; i++) {
+                int trigram = trigram(folded, i);
+                int count = sizes[trigram];
+                int[] list = lists[trigram];
+                // Repeated in the row: it is already the list's last entry
+                if (count > 0 && list[count - 1] == entry) continue;
+                if (list == null) {
+                    list = lists[trigram] = new int[4];
+                } else if (count == list.length) {
+                    list = lists[trigram] = Arrays.copyOf(list, count * 2);
+                }
+                list[count] = entry;
+                sizes[trigram] = count + 1;
+            }
+        }
+    }
+
+    private synchronized void setStatus(List<Integer> reservationIds, String status) {
+        for (int reservationId : reservationIds) {
+            int row = Arrays.binarySearch(ids, 0, size, reservationId);
+            // Not loaded yet: the load will read its current status
+            if (row >= 0) statuses[row] = status;
+        }
+    }
+
+    /**
+     * @return Reservations in the index
+     */
+    public int size() {
+        return snapshot.size;
+    }
+
+    /**
+     * Find reservations by passenger name, phone number or PNR, or a prefix or misspelling of one.
+     * Queries without letters are matched as phone or PNR digits anywhere in the number.
+     * @return Up to {@code limit} matches, best first; among equally good matches the newest booking first
+     */
+    public List<Match> search(String query, int limit) {
+        Snapshot s = snapshot;
+        boolean digitsOnly = query != null && query.chars().noneMatch(Character::isLetter);
+        byte[] folded = fold(query, !digitsOnly);
+        if (digitsOnly) {
+            folded = withoutBreaks(folded);
+        }
+        if (folded.length > MAX_QUERY_LENGTH) {
+            folded = Arrays.copyOf(folded, MAX_QUERY_LENGTH);
+        }
+        int[] trigrams = distinctTrigrams(folded);
+        if (trigrams.length == 0 || s.size == 0 || limit <= 0) return List.of();
+
+        // Each typo breaks up to three trigrams; never accept fewer than half of them
+        int total = trigrams.length;
+        int typos = total <= 3 ? 0 : total <= 6 ? 1 : 2;
+        int required = Math.max(total - 3 * typos, (total + 1) / 2);
+
+        int[][] lists = new int[total][];
+        int[] lengths = new int[total];
+        Integer[] order = new Integer[total];
+        for (int i = 0; i < total; i++) {
+            lists[i] = s.postings[trigrams[i]];
+            lengths[i] = visibleLength(lists[i], s.size);
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(lengths[a], lengths[b]));
+
+        // A row matching enough trigrams appears in at least one of the shortest total - required + 1 lists.
+        // Merging those costs about their entries times their number, counting about all entries once
+        int scanned = total - required + 1;
+        long scannedEntries = 0;
+        long allEntries = 0;
+        for (int k = 0; k < total; k++) {
+            if (k < scanned) scannedEntries += lengths[order[k]];
+            allEntries += lengths[order[k]];
+        }
+        PriorityQueue<Long> best = scannedEntries * scanned * MERGE_COST <= allEntries
+            ? merge(lists, lengths, order, required, limit)
+            : count(lists, lengths, order, required, limit, s.size);
+
+        List<Match> matches = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            long key = best.poll();
+            int row = (int) key - 1;
+            matches.add(new Match(s.ids[row], s.pnrs[row], s.names[row], s.phones[row], s.flightCodes[row],
+                flightNames.get(s.flightCodes[row]), LocalDate.ofEpochDay(s.travelDays[row]), s.statuses[row],
+                (double) (key >>> 32) / total));
+        }
+        Collections.reverse(matches);
+        return matches;
+    }
+
+    /**
+     * Merge the shortest lists newest row first and probe the others for each row found. Once the best
+     * are full, a later (older) row needs more matched trigrams to get in, so fewer lists need merging.
+     * @return Keys of the best rows, see {@link #offer}
+     */
+    private static PriorityQueue<Long> merge(int[][] lists, int[] lengths, Integer[] order, int required, int limit) {
+        int total = lists.length;
+        int scanned = total - required + 1;
+        int needed = required;
+        int[] cursors = new int[total];
+        for (int i = 0; i < total; i++) {
+            cursors[i] = lengths[i] - 1;
+        }
+        PriorityQueue<Long> best = new PriorityQueue<>();
+        while (needed <= total) {
+            int entry = 0;
+            for (int k = 0; k < scanned; k++) {
+                int i = order[k];
+                if (cursors[i] >= 0) entry = Math.max(entry, lists[i][cursors[i]]);
+            }
+            if (entry == 0) break;
+
+            int matched = 0;
+            for (int k = 0; k < scanned; k++) {
+                int i = order[k];
+                if (cursors[i] >= 0 && lists[i][cursors[i]] == entry) {
+                    matched++;
+                    cursors[i]--;
+                }
+            }
+            for (int k = scanned; k < total && matched + total - k >= needed; k++) {
+                int i = order[k];
+                cursors[i] = seek(lists[i], cursors[i], entry);
+                if (cursors[i] >= 0 && lists[i][cursors[i]] == entry) matched++;
+            }
+            if (matched >= needed && offer(best, matched, entry, limit)) {
+                needed = (int) (best.peek() >>> 32) + 1;
+                scanned = Math.min(scanned, total - needed + 1);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Count every list's rows in one array, then collect the rows of the shortest lists that counted
+     * enough. Cheaper than merging when every list is long.
+     */
+    private static PriorityQueue<Long> count(int[][] lists, int[] lengths, Integer[] order, int required, int limit,
+                                             int rows) {
+        byte[] counts = new byte[rows + 1];
+        for (int i = 0; i < lists.length; i++) {
+            int[] list = lists[i];
+            for (int j = lengths[i] - 1; j >= 0; j--) {
+                counts[list[j]]++;
+            }
+        }
+        PriorityQueue<Long> best = new PriorityQueue<>();
+        for (int k = 0; k <= lists.length - required; k++) {
+            int[] list = lists[order[k]];
+            for (int j = lengths[order[k]] - 1; j >= 0; j--) {
+                int entry = list[j];
+                int matched = counts[entry];
+                if (matched >= required) {
+                    // Each row once, even when it is in several of these lists
+                    counts[entry] = 0;
+                    offer(best, matched, entry, limit);
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Keep a row among the best {@code limit}, keyed so that higher is better: more trigrams matched,
+     * then the later row
+     * @return Whether the best are full
+     */
+    private static boolean offer(PriorityQueue<Long> best, int matched, int entry, int limit) {
+        long key = ((long) matched << 32) | entry;
+        if (best.size() < limit) {
+            best.add(key);
+        } else if (key > best.peek()) {
+            best.poll();
+            best.add(key);
+        }
+        return best.size() == limit;
+    }
+
+    /**
+     * Entries of a posting list that were indexed by the snapshot: the list is sorted, and anything the
+     * writer appended since is either past the snapshot's rows or not yet visible (0)
+     */
+    private static int visibleLength(int[] list, int rows) {
+        if (list == null) return 0;
+        int low = 0;
+        int high = list.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int entry = list[mid];
+            if (entry != 0 && entry <= rows) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Last position at or before {@code from} whose entry is not above {@code entry}, galloping back
+     * since the entries asked for only decrease
+     * @return -1 when every entry up to {@code from} is above it
+     */
+    private static int seek(int[] list, int from, int entry) {
+        if (from < 0 || list[from] <= entry) return from;
+        int step = 1;
+        int high = from;
+        int low = from - 1;
+        while (low >= 0 && list[low] > entry) {
+            high = low;
+            step <<= 1;
+            low = from - step;
+        }
+        low = Math.max(low, -1);
+        // list[low] <= entry (or low is -1) and list[high] > entry
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (list[mid] > entry) {
+                high = mid;
+            } else {
+                low = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Fold text to codes of {@link #ALPHABET}: accents dropped, letters lower-cased, every run of other
+     * characters one word break. With {@code leadingBreak} the text starts with a break, so the first
+     * trigram marks the start of a word.
+     */
+    static byte[] fold(String text, boolean leadingBreak) {
+        if (text == null) return new byte[0];
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        byte[] codes = new byte[decomposed.length() + 1];
+        int length = 0;
+        boolean lastBreak = true;
+        if (leadingBreak) codes[length++] = BREAK;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            c = Character.toLowerCase(c);
+            if (c >= 'a' && c <= 'z') {
+                codes[length++] = (byte) (c - 'a' + 1);
+                lastBreak = false;
+            } else if (c >= '0' && c <= '9') {
+                codes[length++] = (byte) (c - '0' + 27);
+                lastBreak = false;
+            } else if (!lastBreak) {
+                codes[length++] = BREAK;
+                lastBreak = true;
+            }
+        }
+        if (length > 0 && codes[length - 1] == BREAK && (length > 1 || !leadingBreak)) length--;
+        return Arrays.copyOf(codes, length);
+    }
+
+    private static byte[] withoutBreaks(byte[] folded) {
+        byte[] codes = new byte[folded.length];
+        int length = 0;
+        for (byte code : folded) {
+            if (code != BREAK) codes[length++] = code;
+        }
+        return Arrays.copyOf(codes, length);
+    }
+
+    private static int trigram(byte[] folded, int at) {
+        return (folded[at] * ALPHABET + folded[at + 1]) * ALPHABET + folded[at + 2];
+    }
+
+    private static int[] distinctTrigrams(byte[] folded) {
+        if (folded.length < 3) return new int[0];
+        int[] trigrams = new int[folded.length - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = trigram(folded, i);
+        }
+        return Arrays.stream(trigrams).distinct().toArray();
+    }
+
+    /**
+     * The rows and posting lists as of one publish. Arrays are shared with the writer, which only ever
+     * writes past {@code size}, appends to posting lists or changes a row's status.
+     */
+    private static final class Snapshot {
+        final int size;
+        final int[] ids;
+        final int[] flightCodes;
+        final int[] travelDays;
+        final String[] pnrs;
+        final String[] names;
+        final String[] phones;
+        final String[] statuses;
+        final int[][] postings;
+
+        Snapshot(PassengerSearchIndex index) {
+            this.size = index.indexed;
+            this.ids = index.ids;
+            this.flightCodes = index.flightCodes;
+            this.travelDays = index.travelDays;
+            this.pnrs = index.pnrs;
+            this.names = index.names;
+            this.phones = index.phones;
+            this.statuses = index.statuses;
+            // Lists grown later are new arrays; this keeps the ones holding the published entries
+            this.postings = index.postings.clone();
+        }
+    }
+
+    /**
+     * One reservation found by a search
+     */
+    public static final class Match {
+        private final int reservationId;
+        private final String pnr;
+        private final String passengerName;
+        private final String phone;
+        private final int flightCode;
+        private final String flightName;
+        private final LocalDate travelDate;
+        private final String status;
+        private final double score;
+
+        Match(int reservationId, String pnr, String passengerName, String phone, int flightCode, String flightName,
+              LocalDate travelDate, String status, double score) {
+            this.reservationId = reservationId;
+            this.pnr = pnr;
+            this.passengerName = passengerName;
+            this.phone = phone;
+            this.flightCode = flightCode;
+            this.flightName = flightName;
+            this.travelDate = travelDate;
+            this.status = status;
+            this.score = score;
+        }
+
+        public int getReservationId() { return reservationId; }
+        public String getPnr() { return pnr; }
+        public String getPassengerName() { return passengerName; }
+        public String getPhone() { return phone; }
+        public int getFlightCode() { return flightCode; }
+        public String getFlightName() { return flightName; }
+        public LocalDate getTravelDate() { return travelDate; }
+        public String getStatus() { return status; }
+
+        /**
+         * @return Share of the query's trigrams found, 1.0 for a full match
+         */
+        public double getScore() { return score; }
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.airlinereservationsystem.services;
+
+import com.example.airlinereservationsystem.DatabaseConnection;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hands seats freed by cancellations to the waiting list outside the cancelling transaction.
+ *
+ * A cancellation records the freed seat in {@code promotion_outbox} as part of its own commit and
+ * returns. The seat stays sold and taken (the inventory and seat maps count pending rows on reload)
+ * until a background worker promotes the first passenger waiting for that date, or releases the seat
+ * if nobody is. Each row is claimed, processed and moved out of {@code Pending} in one transaction,
+ * so it is acted on at most once however many workers pick it up. Failures are retried with
+ * exponential backoff; after {@link #MAX_ATTEMPTS} the row is marked failed and the seat goes back on sale.
+ */
+public final class PromotionOutbox {
+    private static final Logger LOGGER = Logger.getLogger(PromotionOutbox.class.getName());
+
+    private static final PromotionOutbox INSTANCE = new PromotionOutbox(SeatInventory.getInstance(),
+        SeatMapService.getInstance(), WaitlistService.getInstance(), BookingEventLog.getInstance());
+
+    public static final int MAX_ATTEMPTS = 5;
+
+    private static final long POLL_MILLIS = 1_000;
+    private static final long FIRST_RETRY_MILLIS = 2_000;
+    private static final int BATCH_SIZE = 50;
+
+    private final SeatInventory inventory;
+    private final SeatMapService seatMaps;
+    private final WaitlistService waitlist;
+    private final BookingEventLog events;
+    private ScheduledExecutorService worker;
+
+    PromotionOutbox(SeatInventory inventory, SeatMapService seatMaps, WaitlistService waitlist, BookingEventLog events) {
+        this.inventory = inventory;
+        this.seatMaps = seatMaps;
+        this.waitlist = waitlist;
+        this.events = events;
+    }
+
+    public static PromotionOutbox getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Record a freed seat inside the cancelling transaction. Recording the same key again does nothing.
+     * @param idempotencyKey Identifies the cancellation, e.g. {@code cancel-<reservation id>}
+     * @return true if the seat was recorded
+     */
+    public boolean enqueue(Connection conn, String idempotencyKey, int flightCode, LocalDate travelDate,
+                           String seatClass, int fareBucket, int seatNumber) throws SQLException {
+        String sql = """
+            INSERT INTO promotion_outbox (idempotency_key, flight_code, travel_date, seat_class, fare_bucket, seat_number)
+            SELECT ?, ?, ?, ?, ?, ?
+            WHERE NOT EXISTS (SELECT 1 FROM promotion_outbox WHERE idempotency_key = ?)
+        """;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, idempotencyKey);
+            ps.setInt(2, flightCode);
+            ps.setDate(3, Date.valueOf(travelDate));
+            ps.setString(4, seatClass);
+            ps.setString(5, SeatInventory.bucketCode(fareBucket));
+            ps.setInt(6, Math.max(0, seatNumber));
+            ps.setString(7, idempotencyKey);
+            return ps.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Start the worker; rows left pending by a previous run are picked up on its first pass.
+     */
+    public synchronized void start() {
+        if (worker != null) return;
+        worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "waitlist-promotion");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.scheduleWithFixedDelay(this::processDue, 0, POLL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Process pending rows now instead of at the next poll, e.g. right after a cancellation commits.
+     */
+    public synchronized void wake() {
+        if (worker != null) {
+            worker.execute(this::processDue);
+        }
+    }
+
+    /**
+     * Process every row that is due.
+     * @return Rows processed, whether promoted or released
+     */
+    public int processDue() {
+        // An exception escaping here would stop the worker for good
+        try {
+            int processed = 0;
+            for (Row row : loadDue()) {
+                if (process(row)) processed++;
+            }
+            return processed;
+        } catch (SQLException | RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Waiting list promotion failed", e);
+            return 0;
+        }
+    }
+
+    private List<Row> loadDue() throws SQLException {
+        String sql = """
+            SELECT outbox_id, flight_code, travel_date, seat_class, fare_bucket, seat_number, attempts
+            FROM promotion_outbox
+            WHERE status = 'Pending' AND next_attempt_at <= CURRENT_TIMESTAMP
+            ORDER BY outbox_id
+            LIMIT ?
+        """;
+        List<Row> rows = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.openDedicatedConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, BATCH_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new Row(rs.getInt("outbox_id"), rs.getInt("flight_code"), rs.getDate("travel_date").toLocalDate(),
+                                     rs.getString("seat_class"), SeatInventory.bucketIndex(rs.getString("fare_bucket")),
+                                     rs.getInt("seat_number"), rs.getInt("attempts")));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Promote into one freed seat, or release it if nobody is waiting for its date.
+     * @return false if the row failed or had already been processed
+     */
+    private boolean process(Row row) {
+        List<WaitlistService.Entry> promoted = List.of();
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.openDedicatedConnection();
+            conn.setAutoCommit(false);
+
+            // 1. Claim the row; a worker that gets here second waits for the first to finish and finds it done
+            String claimSql = "UPDATE promotion_outbox SET attempts = attempts + 1 WHERE outbox_id = ? AND status = 'Pending'";
+            try (PreparedStatement ps = conn.prepareStatement(claimSql)) {
+                ps.setInt(1, row.outboxId);
+                if (ps.executeUpdate() == 0) {
+                    conn.rollback();
+                    return false;
+                }
+            }
+
+            // 2. Promote into the seat, then record the outcome in the same transaction
+            promoted = new ReservationService().promoteWaitingList(conn, row.flightCode, row.seatClass,
+                row.travelDate, row.fareBucket, new int[] { row.seatNumber }, BookingEventLog.PROMOTED);
+
+            String doneSql = "UPDATE promotion_outbox SET status = ?, promoted_cust_id = ?, processed_at = CURRENT_TIMESTAMP WHERE outbox_id = ?";
+            try (PreparedStatement ps = conn.prepareStatement(doneSql)) {
+                ps.setString(1, promoted.isEmpty() ? "Released" : "Promoted");
+                if (promoted.isEmpty()) {
+                    ps.setNull(2, Types.INTEGER);
+                } else {
+                    ps.setInt(2, promoted.get(0).getCustomerId());
+                }
+                ps.setInt(3, row.outboxId);
+                ps.executeUpdate();
+            }
+            if (promoted.isEmpty()) {
+                events.append(conn, row.releasedEvent());
+            }
+
+            conn.commit();
+            if (promoted.isEmpty()) {
+                inventory.released(row.flightCode, row.travelDate, row.seatClass, row.fareBucket);
+                seatMaps.release(row.flightCode, row.travelDate, row.seatClass, row.seatNumber);
+            }
+            promoted = List.of();
+            return true;
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    LOGGER.log(Level.SEVERE, "Failed to rollback transaction", rollbackEx);
+                }
+            }
+            waitlist.restore(promoted);
+            recordFailure(row, e);
+            return false;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.WARNING, "Failed to close connection", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Schedule a retry with exponential backoff, or give the seat up after the last attempt.
+     */
+    private void recordFailure(Row row, SQLException cause) {
+        int attempts = row.attempts + 1;
+        boolean giveUp = attempts >= MAX_ATTEMPTS;
+        String sql = """
+            UPDATE promotion_outbox
+            SET status = ?, attempts = ?, next_attempt_at = ?, last_error = ?
+            WHERE outbox_id = ? AND status = 'Pending'
+        """;
+        try (Connection conn = DatabaseConnection.openDedicatedConnection()) {
+            conn.setAutoCommit(false);
+            boolean released;
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setString(1, giveUp ? "Failed" : "Pending");
+                ps.setInt(2, attempts);
+                ps.setTimestamp(3, new Timestamp(System.currentTimeMillis() + (FIRST_RETRY_MILLIS << (attempts - 1))));
+                ps.setString(4, cause.getMessage());
+                ps.setInt(5, row.outboxId);
+                released = ps.executeUpdate() > 0 && giveUp;
+            }
+            if (released) {
+                events.append(conn, row.releasedEvent());
+            }
+            conn.commit();
+            if (released) {
+                inventory.released(row.flightCode, row.travelDate, row.seatClass, row.fareBucket);
+                seatMaps.release(row.flightCode, row.travelDate, row.seatClass, row.seatNumber);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Failed to record promotion failure for outbox row " + row.outboxId, e);
+        }
+        LOGGER.log(giveUp ? Level.SEVERE : Level.WARNING, "Promotion for outbox row " + row.outboxId
+            + (giveUp ? " failed for good" : " failed (attempt " + attempts + ")"), cause);
+    }
+
+    /**
+     * One freed seat waiting to be passed on
+     */
+    private static final class Row {
+        final int outboxId;
+        final int flightCode;
+        final LocalDate travelDate;
+        final String seatClass;
+        final int fareBucket;
+        final int seatNumber;
+        final int attempts;
+
+        Row(int outboxId, int flightCode, LocalDate travelDate, String seatClass, int fareBucket, int seatNumber,
+            int attempts) {
+            this.outboxId = outboxId;
+            this.flightCode = flightCode;
+            this.travelDate = travelDate;
+            this.seatClass = seatClass;
+            this.fareBucket = fareBucket;
+            this.seatNumber = seatNumber;
+            this.attempts = attempts;
+        }
+
+        BookingEventLog.Event releasedEvent() {
+            return new BookingEventLog.Event(BookingEventLog.RELEASED, 0, 0, flightCode, travelDate, seatClass,
+                                             fareBucket, seatNumber, 0, 0);
+        }
+    }
+}
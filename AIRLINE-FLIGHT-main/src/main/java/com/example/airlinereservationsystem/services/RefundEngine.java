@@ -0,0 +1,190 @@
+package com.example.airlinereservationsystem.services;
+
+import com.example.airlinereservationsystem.DatabaseConnection;
+import com.example.airlinereservationsystem.models.Reservation;
+import com.example.airlinereservationsystem.utils.Money;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+/**
+ * Works out cancellation fees and refunds from the refund rules.
+ *
+ * A rule applies to one cancellation reason, optionally narrowed to a fare bucket and a concession, from
+ * a number of days before departure onwards. The most specific matching rule wins (bucket before
+ * concession before neither), then the one starting furthest from departure. When nothing matches,
+ * nothing is refunded. Rules are held in an immutable snapshot that {@link #refresh()} swaps in
+ * atomically, like {@link FareEngine}.
+ */
+public final class RefundEngine {
+    private static final Logger LOGGER = Logger.getLogger(RefundEngine.class.getName());
+
+    private static final RefundEngine INSTANCE = new RefundEngine();
+
+    public static final String VOLUNTARY = "Voluntary";
+    public static final String FLIGHT_CANCELLED = "Flight Cancelled";
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.defaults());
+
+    RefundEngine() { }
+
+    public static RefundEngine getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Reload the refund rules and publish them as one new snapshot.
+     */
+    public void refresh() throws SQLException {
+        String sql = "SELECT reason, fare_bucket, concession, min_days_out, fee_bp, description FROM refund_rules";
+
+        Snapshot.Builder builder = new Snapshot.Builder();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                String bucket = rs.getString("fare_bucket");
+                builder.addRule(rs.getString("reason"), bucket != null ? SeatInventory.bucketIndex(bucket) : -1,
+                    rs.getString("concession"), rs.getInt("min_days_out"), rs.getInt("fee_bp"), rs.getString("description"));
+            }
+        }
+
+        publish(builder.build());
+    }
+
+    /**
+     * Replace the rules in effect
+     */
+    void publish(Snapshot next) {
+        snapshot.set(next);
+        LOGGER.info("Refund engine loaded " + next.ruleCount + " refund rules");
+    }
+
+    /**
+     * Refund for cancelling a booking today
+     */
+    public Refund quote(Reservation reservation, String reason) {
+        return quote(reservation.getFareCents(), SeatInventory.bucketIndex(reservation.getFareBucket()),
+            reservation.getConcession(), reservation.getTravelDate(), reason);
+    }
+
+    public Refund quote(long fareCents, int fareBucket, String concession, LocalDate travelDate, String reason) {
+        return quote(fareCents, fareBucket, concession, ChronoUnit.DAYS.between(LocalDate.now(), travelDate), reason);
+    }
+
+    /**
+     * @param daysOut Days from today until departure; negative once the travel date has passed
+     */
+    public Refund quote(long fareCents, int fareBucket, String concession, long daysOut, String reason) {
+        Rule[] rules = snapshot.get().rules.get(reason);
+        if (rules != null) {
+            for (Rule rule : rules) {
+                if (rule.matches(fareBucket, concession, daysOut)) {
+                    long fee = Money.applyBasisPoints(fareCents, rule.feeBasisPoints);
+                    return new Refund(Money.subtract(fareCents, fee), fee, rule.description);
+                }
+            }
+        }
+        return new Refund(Money.ZERO, fareCents, daysOut < 0 ? "No refund (past travel date)" : "No refund");
+    }
+
+    /**
+     * One row of the refund rules
+     */
+    private static final class Rule {
+        final int fareBucket;
+        final String concession;
+        final int minDaysOut;
+        final int feeBasisPoints;
+        final String description;
+
+        Rule(int fareBucket, String concession, int minDaysOut, int feeBasisPoints, String description) {
+            this.fareBucket = fareBucket;
+            this.concession = concession;
+            this.minDaysOut = minDaysOut;
+            this.feeBasisPoints = feeBasisPoints;
+            this.description = description;
+        }
+
+        boolean matches(int bucket, String concession, long daysOut) {
+            return daysOut >= minDaysOut
+                && (fareBucket < 0 || fareBucket == bucket)
+                && (this.concession == null || this.concession.equals(concession));
+        }
+
+        int specificity() {
+            return (fareBucket >= 0 ? 2 : 0) + (concession != null ? 1 : 0);
+        }
+    }
+
+    /**
+     * Immutable rule lists per reason, in the order they are tried
+     */
+    static final class Snapshot {
+        final Map<String, Rule[]> rules;
+        final int ruleCount;
+
+        Snapshot(Map<String, Rule[]> rules, int ruleCount) {
+            this.rules = rules;
+            this.ruleCount = ruleCount;
+        }
+
+        /**
+         * Rules in effect before the first load: the standard fees, and full refunds for cancelled flights.
+         */
+        static Snapshot defaults() {
+            Builder builder = new Builder();
+            builder.addRule(VOLUNTARY, -1, null, 1, 1000, "10% cancellation fee (more than 24 hours)");
+            builder.addRule(VOLUNTARY, -1, null, 0, 2500, "25% cancellation fee (within 24 hours)");
+            builder.addRule(FLIGHT_CANCELLED, -1, null, 0, 0, "Full refund (flight cancelled)");
+            return builder.build();
+        }
+
+        static final class Builder {
+            private final Map<String, List<Rule>> rules = new HashMap<>();
+            private int ruleCount;
+
+            void addRule(String reason, int fareBucket, String concession, int minDaysOut, int feeBasisPoints,
+                         String description) {
+                ruleCount++;
+                rules.computeIfAbsent(reason, r -> new ArrayList<>())
+                     .add(new Rule(fareBucket, concession, minDaysOut, feeBasisPoints, description));
+            }
+
+            Snapshot build() {
+                Comparator<Rule> order = Comparator.comparingInt(Rule::specificity).reversed()
+                    .thenComparing(Comparator.comparingInt((Rule rule) -> rule.minDaysOut).reversed());
+                Map<String, Rule[]> sorted = new HashMap<>();
+                rules.forEach((reason, list) -> sorted.put(reason, list.stream().sorted(order).toArray(Rule[]::new)));
+                return new Snapshot(Map.copyOf(sorted), ruleCount);
+            }
+        }
+    }
+
+    /**
+     * Fee and refund for one cancellation, and the policy that set them
+     */
+    public static final class Refund {
+        private final long refundCents;
+        private final long feeCents;
+        private final String policy;
+
+        Refund(long refundCents, long feeCents, String policy) {
+            this.refundCents = refundCents;
+            this.feeCents = feeCents;
+            this.policy = policy;
+        }
+
+        public long getRefundCents() { return refundCents; }
+        public long getFeeCents() { return feeCents; }
+        public String getPolicy() { return policy; }
+    }
+}
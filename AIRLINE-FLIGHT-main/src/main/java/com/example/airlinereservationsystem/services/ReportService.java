@@ -0,0 +1,473 @@
+package com.example.airlinereservationsystem.services;
+
+import com.example.airlinereservationsystem.DatabaseConnection;
+import com.example.airlinereservationsystem.utils.Money;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Standard reports, rendered in the background and served from cache.
+ *
+ * Each rendering is stored as a new version in {@code report_artifacts} together with the booking
+ * event sequence it reflects. A report stays current until a booking event that affects it arrives
+ * (or it reaches {@link #MAX_AGE_MILLIS}, which covers edits that are not booking events), so asking
+ * for it again costs nothing. A scheduler re-renders stale reports every few minutes, so they are
+ * usually ready before anyone asks. Flight manifests are rendered per flight on a fork/join pool.
+ */
+public final class ReportService implements BookingEventLog.Handler {
+    private static final Logger LOGGER = Logger.getLogger(ReportService.class.getName());
+
+    private static final ReportService INSTANCE = new ReportService(BookingEventLog.getInstance(),
+        ReportingStore.getInstance(), BookingPaceStore.getInstance(), ManifestGenerator.getInstance());
+
+    public static final String SUMMARY = "summary";
+    public static final String DAILY_SALES = "daily-sales";
+    public static final String CANCELLATIONS = "cancellations";
+    public static final String MANIFESTS = "manifests";
+    public static final String WAITLIST = "waitlist";
+    public static final String BOOKING_PACE = "booking-pace";
+
+    // Event types that change each report
+    private static final Map<String, Set<String>> INPUTS = Map.of(
+        SUMMARY, Set.of(BookingEventLog.BOOKED, BookingEventLog.PROMOTED, BookingEventLog.CLEARED,
+                        BookingEventLog.CANCELLED, BookingEventLog.OFFLOADED),
+        DAILY_SALES, Set.of(BookingEventLog.BOOKED, BookingEventLog.PROMOTED, BookingEventLog.CLEARED,
+                            BookingEventLog.CANCELLED, BookingEventLog.OFFLOADED),
+        CANCELLATIONS, Set.of(BookingEventLog.CANCELLED, BookingEventLog.OFFLOADED),
+        MANIFESTS, Set.of(BookingEventLog.BOOKED, BookingEventLog.PROMOTED, BookingEventLog.CLEARED,
+                          BookingEventLog.CANCELLED, BookingEventLog.OFFLOADED, BookingEventLog.CHECKED_IN,
+                          BookingEventLog.RESEATED),
+        WAITLIST, Set.of(BookingEventLog.WAITLISTED, BookingEventLog.PROMOTED, BookingEventLog.CLEARED,
+                         BookingEventLog.OFFLOADED),
+        BOOKING_PACE, Set.of(BookingEventLog.BOOKED, BookingEventLog.PROMOTED, BookingEventLog.CLEARED,
+                             BookingEventLog.CANCELLED, BookingEventLog.OFFLOADED));
+
+    static final long MAX_AGE_MILLIS = 60 * 60_000;
+
+    private static final long PRECOMPUTE_MINUTES = 5;
+    private static final int KEEP_VERSIONS = 10;
+    private static final int SALES_DAYS_BACK = 30;
+    private static final int SALES_DAYS_AHEAD = 90;
+    private static final int MANIFEST_DAYS = 7;
+    private static final int PACE_DAYS = 14;
+
+    private final BookingEventLog log;
+    private final ReportingStore rollups;
+    private final BookingPaceStore pace;
+    private final ManifestGenerator manifests;
+    private final Map<String, Artifact> artifacts = new ConcurrentHashMap<>();
+    private final Set<String> stale = ConcurrentHashMap.newKeySet();
+    private final Map<String, CompletableFuture<Artifact>> rendering = new ConcurrentHashMap<>();
+    // Renders one report at a time, so precompute and on-demand requests never race on a version number
+    private final ScheduledExecutorService renderer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "report-renderer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    ReportService(BookingEventLog log, ReportingStore rollups, BookingPaceStore pace, ManifestGenerator manifests) {
+        this.log = log;
+        this.rollups = rollups;
+        this.pace = pace;
+        this.manifests = manifests;
+    }
+
+    public static ReportService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Follow booking events, reuse stored versions that are still current and start precomputing.
+     */
+    public void start() throws SQLException {
+        log.subscribe("report-cache", false, this);
+        loadStored();
+        renderer.scheduleWithFixedDelay(this::precompute, 0, PRECOMPUTE_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * @return The cached report if it is current, otherwise one rendered now (joining a render in progress)
+     */
+    public CompletableFuture<Artifact> get(String report) {
+        if (!INPUTS.containsKey(report)) {
+            throw new IllegalArgumentException("Unknown report: " + report);
+        }
+        Artifact artifact = artifacts.get(report);
+        if (artifact != null && isCurrent(artifact)) {
+            return CompletableFuture.completedFuture(artifact);
+        }
+        return render(report);
+    }
+
+    @Override
+    public void handle(List<BookingEventLog.Event> events) {
+        for (BookingEventLog.Event event : events) {
+            for (Map.Entry<String, Set<String>> inputs : INPUTS.entrySet()) {
+                if (inputs.getValue().contains(event.getType())) {
+                    stale.add(inputs.getKey());
+                }
+            }
+        }
+    }
+
+    private boolean isCurrent(Artifact artifact) {
+        return !stale.contains(artifact.name)
+            && System.currentTimeMillis() - artifact.generatedAtMillis < MAX_AGE_MILLIS;
+    }
+
+    private void precompute() {
+        for (String report : INPUTS.keySet()) {
+            Artifact artifact = artifacts.get(report);
+            if (artifact != null && isCurrent(artifact)) continue;
+            try {
+                renderNow(report);
+            } catch (SQLException | RuntimeException e) {
+                // An exception escaping here would stop the schedule for good
+                LOGGER.log(Level.WARNING, "Failed to precompute report " + report, e);
+            }
+        }
+    }
+
+    private CompletableFuture<Artifact> render(String report) {
+        CompletableFuture<Artifact> pending = rendering.computeIfAbsent(report, r -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return renderNow(r);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, renderer));
+        pending.whenComplete((artifact, error) -> rendering.remove(report, pending));
+        return pending;
+    }
+
+    /**
+     * Render a report, store it as the next version and cache it. Runs on the renderer thread.
+     */
+    private Artifact renderNow(String report) throws SQLException {
+        // Cleared first: an event arriving while this renders marks the new version stale again
+        stale.remove(report);
+        long inputSeq = log.head();
+        long started = System.nanoTime();
+        String body;
+        try (Connection conn = DatabaseConnection.openDedicatedConnection()) {
+            body = switch (report) {
+                case SUMMARY -> renderSummary(conn);
+                case DAILY_SALES -> renderDailySales(conn);
+                case CANCELLATIONS -> renderCancellations(conn);
+                case MANIFESTS -> renderManifests(conn);
+                case BOOKING_PACE -> renderBookingPace();
+                default -> renderWaitlist(conn);
+            };
+        } catch (SQLException | RuntimeException e) {
+            stale.add(report);
+            throw e;
+        }
+        long renderMillis = (System.nanoTime() - started) / 1_000_000;
+
+        Artifact artifact = store(report, inputSeq, renderMillis, body);
+        artifacts.put(report, artifact);
+        LOGGER.info("Rendered report " + report + " version " + artifact.version + " in " + renderMillis + " ms");
+        return artifact;
+    }
+
+    private Artifact store(String report, long inputSeq, long renderMillis, String body) throws SQLException {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.openDedicatedConnection();
+            conn.setAutoCommit(false);
+
+            int version;
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT COALESCE(MAX(version), 0) + 1 FROM report_artifacts WHERE report_name = ?")) {
+                ps.setString(1, report);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    version = rs.getInt(1);
+                }
+            }
+            Timestamp generatedAt = new Timestamp(System.currentTimeMillis());
+            String insertSql = """
+                INSERT INTO report_artifacts (report_name, version, input_seq, generated_at, render_millis, body)
+                VALUES (?, ?, ?, ?, ?, ?)
+            """;
+            try (PreparedStatement ps = conn.prepareStatement(insertSql)) {
+                ps.setString(1, report);
+                ps.setInt(2, version);
+                ps.setLong(3, inputSeq);
+                ps.setTimestamp(4, generatedAt);
+                ps.setLong(5, renderMillis);
+                ps.setString(6, body);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "DELETE FROM report_artifacts WHERE report_name = ? AND version <= ?")) {
+                ps.setString(1, report);
+                ps.setInt(2, version - KEEP_VERSIONS);
+                ps.executeUpdate();
+            }
+
+            conn.commit();
+            return new Artifact(report, version, inputSeq, generatedAt.getTime(), renderMillis, body);
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    LOGGER.log(Level.SEVERE, "Failed to rollback transaction", rollbackEx);
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.WARNING, "Failed to close connection", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cache the newest stored version of each report if no event affecting it has arrived since.
+     */
+    private void loadStored() throws SQLException {
+        String latestSql = """
+            SELECT a.report_name, a.version, a.input_seq, a.generated_at, a.render_millis, a.body
+            FROM report_artifacts a
+            WHERE a.version = (SELECT MAX(b.version) FROM report_artifacts b WHERE b.report_name = a.report_name)
+        """;
+        try (Connection conn = DatabaseConnection.openDedicatedConnection()) {
+            List<Artifact> latest = new ArrayList<>();
+            try (PreparedStatement ps = conn.prepareStatement(latestSql);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (!INPUTS.containsKey(rs.getString("report_name"))) continue;
+                    latest.add(new Artifact(rs.getString("report_name"), rs.getInt("version"), rs.getLong("input_seq"),
+                                            rs.getTimestamp("generated_at").getTime(), rs.getLong("render_millis"),
+                                            rs.getString("body")));
+                }
+            }
+            for (Artifact artifact : latest) {
+                Set<String> types = INPUTS.get(artifact.name);
+                String placeholders = String.join(", ", types.stream().map(t -> "?").toList());
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "SELECT 1 FROM booking_events WHERE event_seq > ? AND event_type IN (" + placeholders + ") LIMIT 1")) {
+                    ps.setLong(1, artifact.inputSeq);
+                    int index = 2;
+                    for (String type : types) {
+                        ps.setString(index++, type);
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (!rs.next()) artifacts.put(artifact.name, artifact);
+                    }
+                }
+            }
+        }
+    }
+
+    private String renderSummary(Connection conn) throws SQLException {
+        ReportingStore.Summary summary = rollups.summary(conn, null, null);
+        ReportingStore.Line total = summary.getTotal();
+        StringBuilder report = new StringBuilder();
+
+        report.append("RESERVATION STATISTICS:\n");
+        report.append("- Total Reservations: ").append(total.getBooked()).append("\n");
+        report.append("- Confirmed: ").append(total.getConfirmed()).append("\n");
+        report.append("- Cancelled: ").append(total.getCancelled()).append("\n");
+        report.append("- Total Revenue: M").append(Money.format(total.getRevenueCents())).append(" LSL\n");
+        report.append(String.format("- Load Factor: %.1f%%%n%n", total.getLoadFactor()));
+
+        report.append("SEAT ALLOCATION:\n");
+        for (ReportingStore.Line line : summary.getByClass()) {
+            report.append("- ").append(line.getName()).append(" Class: ").append(line.getConfirmed()).append(" seats\n");
+        }
+        report.append("\n");
+
+        report.append("BY FLIGHT:\n");
+        for (ReportingStore.Line line : summary.getByFlight()) {
+            appendLine(report, line);
+        }
+        report.append("\n");
+
+        report.append("BY ROUTE:\n");
+        for (ReportingStore.Line line : summary.getByRoute()) {
+            appendLine(report, line);
+        }
+        return report.toString();
+    }
+
+    private static void appendLine(StringBuilder report, ReportingStore.Line line) {
+        report.append(String.format("- %s | %d confirmed | %d cancelled | M%s LSL | %.1f%% load%n",
+            line.getName(), line.getConfirmed(), line.getCancelled(), Money.format(line.getRevenueCents()),
+            line.getLoadFactor()));
+    }
+
+    private String renderDailySales(Connection conn) throws SQLException {
+        String sql = """
+            SELECT travel_date, SUM(booked) AS booked, SUM(confirmed) AS confirmed, SUM(cancelled) AS cancelled,
+                   SUM(fares) AS fares, SUM(refunds) AS refunds
+            FROM booking_rollups
+            WHERE travel_date >= ? AND travel_date <= ?
+            GROUP BY travel_date
+            ORDER BY travel_date
+        """;
+        LocalDate today = LocalDate.now();
+        StringBuilder report = new StringBuilder("DAILY SALES BY TRAVEL DATE:\n");
+        report.append(String.format("%-12s %8s %10s %10s %14s %14s%n",
+            "Date", "Booked", "Confirmed", "Cancelled", "Fares (M)", "Revenue (M)"));
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setDate(1, Date.valueOf(today.minusDays(SALES_DAYS_BACK)));
+            ps.setDate(2, Date.valueOf(today.plusDays(SALES_DAYS_AHEAD)));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long fares = Money.read(rs, "fares");
+                    report.append(String.format("%-12s %8d %10d %10d %14s %14s%n", rs.getDate("travel_date").toLocalDate(),
+                        rs.getInt("booked"), rs.getInt("confirmed"), rs.getInt("cancelled"), Money.format(fares),
+                        Money.format(Money.subtract(fares, Money.read(rs, "refunds")))));
+                }
+            }
+        }
+        return report.toString();
+    }
+
+    private String renderCancellations(Connection conn) throws SQLException {
+        String sql = """
+            SELECT f.flight_name, r.seat_class, COUNT(*) AS cancelled,
+                   COALESCE(SUM(c.refund_amount), 0) AS refunds, COALESCE(SUM(c.cancellation_fee), 0) AS fees
+            FROM cancellations c
+            JOIN reservations r ON r.reservation_id = c.reservation_id
+            JOIN flights f ON f.flight_code = r.flight_code
+            GROUP BY f.flight_name, r.seat_class
+            ORDER BY f.flight_name, r.seat_class
+        """;
+        StringBuilder report = new StringBuilder("CANCELLATIONS AND REFUNDS:\n");
+        long totalRefunds = 0;
+        long totalFees = 0;
+        int totalCancelled = 0;
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                long refunds = Money.read(rs, "refunds");
+                long fees = Money.read(rs, "fees");
+                int cancelled = rs.getInt("cancelled");
+                report.append(String.format("- %s %s | %d cancelled | refunds M%s | fees M%s%n", rs.getString("flight_name"),
+                    rs.getString("seat_class"), cancelled, Money.format(refunds), Money.format(fees)));
+                totalRefunds = Money.add(totalRefunds, refunds);
+                totalFees = Money.add(totalFees, fees);
+                totalCancelled += cancelled;
+            }
+        }
+        report.append(String.format("%nTotal: %d cancelled | refunds M%s LSL | fees retained M%s LSL%n",
+            totalCancelled, Money.format(totalRefunds), Money.format(totalFees)));
+        return report.toString();
+    }
+
+    /**
+     * Confirmed passengers for the coming week, one section per flight and day
+     */
+    private String renderManifests(Connection conn) throws SQLException {
+        LocalDate today = LocalDate.now();
+        List<ManifestGenerator.FlightManifest> flights = manifests.load(conn, today, today.plusDays(MANIFEST_DAYS));
+        StringBuilder report = new StringBuilder("FLIGHT MANIFESTS (next " + MANIFEST_DAYS + " days):\n");
+        if (flights.isEmpty()) {
+            return report.append("No confirmed passengers.\n").toString();
+        }
+        return report.append(manifests.renderAll(flights, ManifestGenerator.Format.TEXT)).toString();
+    }
+
+    /**
+     * Bookings on hand for the next two weeks of departures against the same flights a year earlier
+     */
+    private String renderBookingPace() throws SQLException {
+        // Waits for the initial load and picks up bookings the store has not seen yet
+        pace.refresh();
+        LocalDate today = LocalDate.now();
+        StringBuilder report = new StringBuilder("BOOKING PACE (next " + PACE_DAYS + " days, against last year):\n");
+        for (int d = 0; d < PACE_DAYS; d++) {
+            List<BookingPaceStore.Pace> lines = pace.pace(today.plusDays(d), today);
+            if (lines.isEmpty()) continue;
+            report.append("\n").append(today.plusDays(d)).append(" (").append(d).append(" days out):\n");
+            report.append(String.format("  %-14s %8s %10s %9s %10s %10s%n",
+                "Flight", "On hand", "Last year", "Variance", "LY final", "Projected"));
+            for (BookingPaceStore.Pace line : lines) {
+                report.append(String.format("  %-14s %8d %10d %+9d %10d %10d%n", line.getFlightName(), line.getOnHand(),
+                    line.getLastYearOnHand(), line.getVariance(), line.getLastYearFinal(), line.getProjected()));
+            }
+        }
+        return report.toString();
+    }
+
+    private String renderWaitlist(Connection conn) throws SQLException {
+        String sql = """
+            SELECT f.flight_name, w.travel_date, w.seat_class, COUNT(*) AS waiting,
+                   SUM(CASE WHEN w.priority_tier = ? THEN 1 ELSE 0 END) AS reaccommodation
+            FROM waiting_list w
+            JOIN flights f ON f.flight_code = w.flight_code
+            WHERE w.travel_date >= ?
+            GROUP BY f.flight_name, w.travel_date, w.seat_class
+            ORDER BY f.flight_name, w.travel_date, w.seat_class
+        """;
+        StringBuilder report = new StringBuilder("WAITING LISTS:\n");
+        int total = 0;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, WaitlistService.TIER_REACCOMMODATION);
+            ps.setDate(2, Date.valueOf(LocalDate.now()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int waiting = rs.getInt("waiting");
+                    report.append(String.format("- %s | %s | %s | %d waiting (%d offloaded)%n", rs.getString("flight_name"),
+                        rs.getDate("travel_date").toLocalDate(), rs.getString("seat_class"), waiting,
+                        rs.getInt("reaccommodation")));
+                    total += waiting;
+                }
+            }
+        }
+        report.append("\nTotal waiting: ").append(total).append("\n");
+        return report.toString();
+    }
+
+    /**
+     * One stored rendering of a report
+     */
+    public static final class Artifact {
+        private final String name;
+        private final int version;
+        private final long inputSeq;
+        private final long generatedAtMillis;
+        private final long renderMillis;
+        private final String body;
+
+        Artifact(String name, int version, long inputSeq, long generatedAtMillis, long renderMillis, String body) {
+            this.name = name;
+            this.version = version;
+            this.inputSeq = inputSeq;
+            this.generatedAtMillis = generatedAtMillis;
+            this.renderMillis = renderMillis;
+            this.body = body;
+        }
+
+        public String getName() { return name; }
+        public int getVersion() { return version; }
+        /** Newest booking event reflected in the report */
+        public long getInputSeq() { return inputSeq; }
+        public LocalDateTime getGeneratedAt() { return new Timestamp(generatedAtMillis).toLocalDateTime(); }
+        public long getRenderMillis() { return renderMillis; }
+        public String getBody() { return body; }
+    }
+}
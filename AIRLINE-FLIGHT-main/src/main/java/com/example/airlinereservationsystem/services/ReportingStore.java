@@ -0,0 +1,321 @@
+package com.example.airlinereservationsystem.services;
+
+import com.example.airlinereservationsystem.DatabaseConnection;
+import com.example.airlinereservationsystem.utils.Money;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Daily booking totals per travel date, flight and cabin in {@code booking_rollups}, for reports.
+ *
+ * The totals are built once from the reservation tables and from then on kept up to date from the
+ * booking event log: each batch of events is folded into the rows it touches in the same transaction
+ * that advances the consumer's offset. A report reads one row per flight date and cabin, however many
+ * bookings there are.
+ */
+public final class ReportingStore implements BookingEventLog.TransactionalHandler {
+    private static final Logger LOGGER = Logger.getLogger(ReportingStore.class.getName());
+
+    private static final ReportingStore INSTANCE = new ReportingStore(BookingEventLog.getInstance());
+
+    static final String CONSUMER = "booking_rollups";
+
+    private final BookingEventLog log;
+
+    ReportingStore(BookingEventLog log) {
+        this.log = log;
+    }
+
+    public static ReportingStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Build the totals if they never have been, then follow the event log.
+     */
+    public void start() throws SQLException {
+        try (Connection conn = DatabaseConnection.openDedicatedConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM event_offsets WHERE consumer = ?")) {
+            ps.setString(1, CONSUMER);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) rebuild();
+            }
+        }
+        log.subscribe(CONSUMER, this);
+    }
+
+    /**
+     * Recompute every total from the reservation tables and move the offset past the events they include.
+     * Runs in one repeatable-read transaction, so the totals and the offset describe the same moment.
+     */
+    public synchronized void rebuild() throws SQLException {
+        String totalsSql = """
+            INSERT INTO booking_rollups (travel_date, flight_code, seat_class, booked, confirmed, cancelled, fares, refunds)
+            SELECT r.travel_date, r.flight_code, r.seat_class, COUNT(*),
+                   SUM(CASE WHEN r.status = 'Confirmed' THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN r.status = 'Cancelled' THEN 1 ELSE 0 END),
+                   COALESCE(SUM(r.fare), 0), COALESCE(SUM(c.refund_amount), 0)
+            FROM reservations r
+            LEFT JOIN cancellations c ON c.reservation_id = r.reservation_id
+            WHERE r.travel_date IS NOT NULL AND r.seat_class IS NOT NULL
+            GROUP BY r.travel_date, r.flight_code, r.seat_class
+        """;
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.openDedicatedConnection();
+            conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            conn.setAutoCommit(false);
+
+            // Events below the newest that have not committed yet are not in the totals; they are
+            // delivered once they commit
+            BookingEventLog.Position position = log.position(conn);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE FROM booking_rollups");
+                stmt.executeUpdate(totalsSql);
+            }
+            log.saveOffset(conn, CONSUMER, position);
+
+            conn.commit();
+            LOGGER.info("Booking rollups rebuilt up to event " + position.getAfterSeq());
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    LOGGER.log(Level.SEVERE, "Failed to rollback transaction", rollbackEx);
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.WARNING, "Failed to close connection", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fold a batch of events into the totals: changes are summed per row in memory first, then
+     * written with one batched update and one batched insert for rows seen for the first time.
+     */
+    @Override
+    public void handle(Connection conn, List<BookingEventLog.Event> events) throws SQLException {
+        Map<String, Delta> deltas = new LinkedHashMap<>();
+        for (BookingEventLog.Event event : events) {
+            switch (event.getType()) {
+                case BookingEventLog.BOOKED, BookingEventLog.PROMOTED, BookingEventLog.CLEARED -> {
+                    Delta delta = delta(deltas, event);
+                    delta.booked++;
+                    delta.confirmed++;
+                    delta.fares += event.getAmountCents();
+                }
+                case BookingEventLog.CANCELLED, BookingEventLog.OFFLOADED -> {
+                    Delta delta = delta(deltas, event);
+                    delta.confirmed--;
+                    delta.cancelled++;
+                    delta.refunds += event.getAmountCents();
+                }
+                default -> {
+                    // Seat moves, check-ins and the waiting list do not change the totals
+                }
+            }
+        }
+        if (deltas.isEmpty()) return;
+
+        String updateSql = """
+            UPDATE booking_rollups
+            SET booked = booked + ?, confirmed = confirmed + ?, cancelled = cancelled + ?,
+                fares = fares + ?, refunds = refunds + ?
+            WHERE travel_date = ? AND flight_code = ? AND seat_class = ?
+        """;
+        List<Delta> ordered = new ArrayList<>(deltas.values());
+        List<Delta> missing = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(updateSql)) {
+            for (Delta delta : ordered) {
+                delta.bind(ps, 1);
+                ps.addBatch();
+            }
+            int[] updated = ps.executeBatch();
+            for (int i = 0; i < ordered.size(); i++) {
+                if (updated[i] == 0) missing.add(ordered.get(i));
+            }
+        }
+        if (missing.isEmpty()) return;
+
+        String insertSql = """
+            INSERT INTO booking_rollups (booked, confirmed, cancelled, fares, refunds, travel_date, flight_code, seat_class)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+        try (PreparedStatement ps = conn.prepareStatement(insertSql)) {
+            for (Delta delta : missing) {
+                delta.bind(ps, 1);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private static Delta delta(Map<String, Delta> deltas, BookingEventLog.Event event) {
+        String key = event.getTravelDate() + "/" + event.getFlightCode() + "/" + event.getSeatClass();
+        return deltas.computeIfAbsent(key, k -> new Delta(event.getTravelDate(), event.getFlightCode(), event.getSeatClass()));
+    }
+
+    /**
+     * Totals over a range of travel dates, by cabin, flight and route. Load factor is confirmed seats
+     * over physical seats on the flight dates that have bookings.
+     * @param conn Connection of the caller, which keeps it
+     * @param from First travel date, or null for no lower bound
+     * @param to Last travel date, or null for no upper bound
+     */
+    public Summary summary(Connection conn, LocalDate from, LocalDate to) throws SQLException {
+        String sql = """
+            SELECT r.flight_code, f.flight_name, r.seat_class,
+                   SUM(r.booked) AS booked, SUM(r.confirmed) AS confirmed, SUM(r.cancelled) AS cancelled,
+                   SUM(r.fares) AS fares, SUM(r.refunds) AS refunds,
+                   SUM(CASE WHEN r.seat_class = 'Business' THEN f.total_exe_seats ELSE f.total_eco_seats END) AS seats
+            FROM booking_rollups r
+            JOIN flights f ON f.flight_code = r.flight_code
+            WHERE r.travel_date >= ? AND r.travel_date <= ?
+            GROUP BY r.flight_code, f.flight_name, r.seat_class
+            ORDER BY f.flight_name, r.seat_class
+        """;
+        String routeSql = "SELECT flight_code, source_place, dest_place FROM fare WHERE source_place IS NOT NULL ORDER BY fare_id";
+
+        Summary summary = new Summary();
+        Map<Integer, String> routes = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(routeSql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                routes.putIfAbsent(rs.getInt("flight_code"),
+                                   FareEngine.routeName(rs.getString("source_place"), rs.getString("dest_place")));
+            }
+        }
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setDate(1, Date.valueOf(from != null ? from : LocalDate.of(1900, 1, 1)));
+            ps.setDate(2, Date.valueOf(to != null ? to : LocalDate.of(9999, 12, 31)));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int flightCode = rs.getInt("flight_code");
+                    Line line = new Line(rs.getString("flight_name"), rs.getInt("booked"), rs.getInt("confirmed"),
+                                         rs.getInt("cancelled"), Money.read(rs, "fares"), Money.read(rs, "refunds"),
+                                         rs.getInt("seats"));
+                    summary.add(summary.total, line);
+                    summary.add(summary.byClass.computeIfAbsent(rs.getString("seat_class"), Line::new), line);
+                    summary.add(summary.byFlight.computeIfAbsent(rs.getString("flight_name"), Line::new), line);
+                    String route = routes.getOrDefault(flightCode, "Unassigned route");
+                    summary.add(summary.byRoute.computeIfAbsent(route, Line::new), line);
+                }
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Changes to one row of totals
+     */
+    private static final class Delta {
+        final LocalDate travelDate;
+        final int flightCode;
+        final String seatClass;
+        int booked;
+        int confirmed;
+        int cancelled;
+        long fares;
+        long refunds;
+
+        Delta(LocalDate travelDate, int flightCode, String seatClass) {
+            this.travelDate = travelDate;
+            this.flightCode = flightCode;
+            this.seatClass = seatClass;
+        }
+
+        void bind(PreparedStatement ps, int index) throws SQLException {
+            ps.setInt(index, booked);
+            ps.setInt(index + 1, confirmed);
+            ps.setInt(index + 2, cancelled);
+            Money.bind(ps, index + 3, fares);
+            Money.bind(ps, index + 4, refunds);
+            ps.setDate(index + 5, Date.valueOf(travelDate));
+            ps.setInt(index + 6, flightCode);
+            ps.setString(index + 7, seatClass);
+        }
+    }
+
+    /**
+     * Totals for one cabin, flight, route or everything
+     */
+    public static final class Line {
+        private final String name;
+        private int booked;
+        private int confirmed;
+        private int cancelled;
+        private long faresCents;
+        private long refundsCents;
+        private int seats;
+
+        Line(String name) {
+            this.name = name;
+        }
+
+        Line(String name, int booked, int confirmed, int cancelled, long faresCents, long refundsCents, int seats) {
+            this.name = name;
+            this.booked = booked;
+            this.confirmed = confirmed;
+            this.cancelled = cancelled;
+            this.faresCents = faresCents;
+            this.refundsCents = refundsCents;
+            this.seats = seats;
+        }
+
+        public String getName() { return name; }
+        public int getBooked() { return booked; }
+        public int getConfirmed() { return confirmed; }
+        public int getCancelled() { return cancelled; }
+        public long getFaresCents() { return faresCents; }
+        public long getRefundsCents() { return refundsCents; }
+        /** Fares taken less refunds paid */
+        public long getRevenueCents() { return Money.subtract(faresCents, refundsCents); }
+
+        /** Confirmed seats as a percentage of physical seats */
+        public double getLoadFactor() {
+            return seats > 0 ? 100.0 * confirmed / seats : 0;
+        }
+    }
+
+    /**
+     * Report totals, in flight and route name order
+     */
+    public static final class Summary {
+        private final Line total = new Line("Total");
+        private final Map<String, Line> byClass = new LinkedHashMap<>();
+        private final Map<String, Line> byFlight = new LinkedHashMap<>();
+        private final Map<String, Line> byRoute = new TreeMap<>();
+
+        private void add(Line into, Line line) {
+            into.booked += line.booked;
+            into.confirmed += line.confirmed;
+            into.cancelled += line.cancelled;
+            into.faresCents = Money.add(into.faresCents, line.faresCents);
+            into.refundsCents = Money.add(into.refundsCents, line.refundsCents);
+            into.seats += line.seats;
+        }
+
+        public Line getTotal() { return total; }
+        public List<Line> getByClass() { return new ArrayList<>(byClass.values()); }
+        public List<Line> getByFlight() { return new ArrayList<>(byFlight.values()); }
+        public List<Line> getByRoute() { return new ArrayList<>(byRoute.values()); }
+    }
+}
@@ -2,14 +2,17 @@ package com.example.airlinereservationsystem.services;
 
 import com.example.airlinereservationsystem.DatabaseConnection;
 import com.example.airlinereservationsystem.models.*;
-import com.example.airlinereservationsystem.utils.ConcessionCalculator;
+import com.example.airlinereservationsystem.utils.Money;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 /**
  * Service class for handling all reservation-related operations
@@ -18,27 +21,30 @@ import java.util.logging.Logger;
 public class ReservationService {
     private static final Logger LOGGER = Logger.getLogger(ReservationService.class.getName());
     
+    private final FareEngine fareEngine = FareEngine.getInstance();
+    private final SeatInventory seatInventory = SeatInventory.getInstance();
+    private final DynamicPricingEngine pricingEngine = DynamicPricingEngine.getInstance();
+    private final SeatHoldService seatHolds = SeatHoldService.getInstance();
+    private final SeatMapService seatMaps = SeatMapService.getInstance();
+    private final WaitlistService waitlist = WaitlistService.getInstance();
+    private final PromotionOutbox promotions = PromotionOutbox.getInstance();
+    private final BookingEventLog events = BookingEventLog.getInstance();
+    private final RefundEngine refunds = RefundEngine.getInstance();
+    private final CustomerIdentityService customers = CustomerIdentityService.getInstance();
+    
     /**
-     * Search available flights based on criteria
+     * Search available flights based on criteria.
+     * Seats left and prices come from the in-memory inventory, so no reservation rows are counted here.
      */
     public List<Flight> searchFlights(LocalDate travelDate, String seatClass, String route) throws SQLException {
         List<Flight> flights = new ArrayList<>();
+        seatInventory.ensureLoaded();
         
         String sql = """
-            SELECT f.*, fa.source_place, fa.dest_place, fa.depart_time, fa.arrival_time, fa.fare as base_fare,
-                   CASE WHEN ? = 'Economy' THEN f.total_eco_seats ELSE f.total_exe_seats END as total_seats,
-                   COALESCE(r.reserved_seats, 0) as reserved_seats,
-                   (CASE WHEN ? = 'Economy' THEN f.total_eco_seats ELSE f.total_exe_seats END - COALESCE(r.reserved_seats, 0)) as available_seats
+            SELECT f.*, fa.source_place, fa.dest_place, fa.depart_time, fa.arrival_time
             FROM flights f
             LEFT JOIN fare fa ON f.flight_code = fa.flight_code
-            LEFT JOIN (
-                SELECT flight_code, seat_class, COUNT(*) as reserved_seats
-                FROM reservations 
-                WHERE travel_date = ? AND status = 'Confirmed'
-                GROUP BY flight_code, seat_class
-            ) r ON f.flight_code = r.flight_code AND r.seat_class = ?
-            WHERE (CASE WHEN ? = 'Economy' THEN f.total_eco_seats ELSE f.total_exe_seats END - COALESCE(r.reserved_seats, 0)) > 0
-              AND (? = 'Any Route' OR CONCAT(COALESCE(fa.source_place, 'Maseru'), ' → ', COALESCE(fa.dest_place, 'Johannesburg')) = ?)
+            WHERE (? = 'Any Route' OR ? = 'Any' OR CONCAT(COALESCE(fa.source_place, 'Maseru'), ' → ', COALESCE(fa.dest_place, 'Johannesburg')) = ?)
               AND (fa.class_code = ? OR fa.class_code = 'BOTH')
             ORDER BY f.flight_name
         """;
@@ -46,14 +52,10 @@ public class ReservationService {
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             
-            ps.setString(1, seatClass);
-            ps.setString(2, seatClass);
-            ps.setDate(3, Date.valueOf(travelDate));
+            ps.setString(1, route);
+            ps.setString(2, route);
+            ps.setString(3, route);
             ps.setString(4, seatClass);
-            ps.setString(5, seatClass);
-            ps.setString(6, route);
-            ps.setString(7, route);
-            ps.setString(8, seatClass);
             
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
@@ -65,16 +67,17 @@ public class ReservationService {
                         rs.getInt("total_eco_seats")
                     );
                     
-                    flight.setAvailableSeats(rs.getInt("available_seats"));
-                    
-                    // Get fare from database or use default
-                    double dbFare = rs.getDouble("base_fare");
-                    flight.setBaseFare(dbFare > 0 ? dbFare : (seatClass.equals("Economy") ? 850.0 : 2040.0));
-                    
                     // Get route from database or use default
                     String source = rs.getString("source_place");
                     String dest = rs.getString("dest_place");
-                    flight.setRoute(source != null && dest != null ? source + " → " + dest : "Maseru → Johannesburg");
+                    String routeName = FareEngine.routeName(source, dest);
+                    flight.setRoute(routeName != null ? routeName : "Maseru → Johannesburg");
+                    
+                    // Seats left and dynamic fare for this flight, date, class and route
+                    DynamicPricingEngine.Quote quote = pricingEngine.quote(flight.getFlightCode(), travelDate, seatClass, routeName);
+                    if (quote.getSeatsLeft() <= 0) continue;
+                    flight.setAvailableSeats(quote.getSeatsLeft());
+                    flight.setBaseFareCents(quote.getPriceCents());
                     
                     // Get times from database or use default
                     Time departTime = rs.getTime("depart_time");
@@ -95,35 +98,89 @@ public class ReservationService {
      */
     public ReservationResult makeReservation(Customer customer, int flightCode, String seatClass, 
                                            String seatPreference, LocalDate travelDate) throws SQLException {
+        return makeReservation(customer, flightCode, seatClass, seatPreference, travelDate, null);
+    }
+    
+    /**
+     * Make a reservation priced for a specific route ("Source → Dest")
+     */
+    public ReservationResult makeReservation(Customer customer, int flightCode, String seatClass, 
+                                           String seatPreference, LocalDate travelDate, String route) throws SQLException {
+        return book(customer, flightCode, seatClass, seatPreference, 0, travelDate, route, null);
+    }
+    
+    /**
+     * Make a reservation for a seat picked on the seat map; if it has gone, the preference decides
+     */
+    public ReservationResult makeReservation(Customer customer, int flightCode, String seatClass, String seatPreference,
+                                           int requestedSeat, LocalDate travelDate, String route) throws SQLException {
+        return book(customer, flightCode, seatClass, seatPreference, requestedSeat, travelDate, route, null);
+    }
+    
+    /**
+     * Book the seat a customer is holding, at the fare it was held at.
+     * If the hold has expired meanwhile, books like {@link #makeReservation} at the current fare.
+     */
+    public ReservationResult makeReservation(Customer customer, SeatHoldService.Hold hold, String seatPreference,
+                                           int requestedSeat, String route) throws SQLException {
+        return book(customer, hold.getFlightCode(), hold.getSeatClass(), seatPreference, requestedSeat,
+                    hold.getTravelDate(), route, hold);
+    }
+    
+    private ReservationResult book(Customer customer, int flightCode, String seatClass, String seatPreference,
+                                   int requestedSeat, LocalDate travelDate, String route,
+                                   SeatHoldService.Hold hold) throws SQLException {
         Connection conn = null;
+        // Bucket and physical seat held for this booking; given back unless the booking commits
+        int heldBucket = -1;
+        int heldSeat = 0;
+        boolean claimedHold = false;
         try {
+            seatInventory.ensureLoaded();
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false);
             
             // 1. Insert or update customer
-            int customerId = insertOrUpdateCustomer(conn, customer);
+            int customerId = customers.resolve(conn, customer);
             
-            // 2. Check seat availability and assign
-            int assignedSeat = assignSeat(conn, flightCode, seatClass, seatPreference);
+            // 2. Use the customer's seat hold, or take a seat in the cheapest open fare bucket;
+            //    then assign a physical seat. Past the physical seats the cabin may be overbooked:
+            //    the booking is confirmed with seat 0 and gets a seat at check-in
+            claimedHold = seatHolds.claim(conn, hold);
+            heldBucket = claimedHold ? hold.getBucket() : seatInventory.sell(flightCode, travelDate, seatClass);
             
-            if (assignedSeat > 0) {
-                // 3. Create confirmed reservation
-                String pnr = generatePNR();
-                double baseFare = seatClass.equals("Economy") ? 850.0 : 2040.0;
-                double finalFare = ConcessionCalculator.calculateFinalFare(baseFare, customer.getConcession());
+            if (heldBucket >= 0) {
+                heldSeat = seatMaps.reserve(flightCode, travelDate, seatClass, requestedSeat, seatPreference);
+                int assignedSeat = heldSeat;
+                
+                // 3. Create confirmed reservation at the held or the bucket's fare
+                String pnr = nextPnr(conn);
+                long baseCents = claimedHold ? hold.getFareCents()
+                    : pricingEngine.priceCents(flightCode, travelDate, seatClass, route, heldBucket);
+                long fareCents = fareEngine.finalFareCents(baseCents, customer.getConcession());
                 
-                insertReservation(conn, customerId, flightCode, seatClass, 
-                                assignedSeat, pnr, "Confirmed", finalFare, travelDate);
+                int reservationId = insertReservation(conn, customerId, flightCode, seatClass,
+                                assignedSeat, pnr, "Confirmed", fareCents, travelDate, heldBucket);
+                events.append(conn, new BookingEventLog.Event(BookingEventLog.BOOKED, reservationId, customerId,
+                    flightCode, travelDate, seatClass, heldBucket, assignedSeat, 0, fareCents));
+                requireScheduled(conn, flightCode, travelDate);
                 
                 conn.commit();
-                return new ReservationResult(true, pnr, assignedSeat, finalFare, 0);
+                heldBucket = -1;
+                heldSeat = 0;
+                return new ReservationResult(true, pnr, assignedSeat, fareCents, 0);
                 
             } else {
-                // 4. Add to waiting list
-                int waitingNumber = addToWaitingList(conn, customerId, flightCode, seatClass, travelDate);
+                // 4. Add to waiting list for this travel date
+                WaitlistService.Entry entry = waitlist.enqueue(conn, customerId, flightCode, travelDate, seatClass,
+                                                               WaitlistService.TIER_STANDARD);
+                events.append(conn, new BookingEventLog.Event(BookingEventLog.WAITLISTED, 0, customerId,
+                    flightCode, travelDate, seatClass, -1, 0, 0, 0));
+                requireScheduled(conn, flightCode, travelDate);
                 
                 conn.commit();
-                return new ReservationResult(false, null, 0, 0, waitingNumber);
+                waitlist.enqueued(List.of(entry));
+                return new ReservationResult(false, null, 0, 0, entry.getWaitingNumber());
             }
             
         } catch (SQLException e) {
@@ -136,6 +193,14 @@ public class ReservationService {
             }
             throw e;
         } finally {
+            seatMaps.release(flightCode, travelDate, seatClass, heldSeat);
+            if (heldBucket >= 0) {
+                if (claimedHold) {
+                    seatHolds.unclaim(hold);
+                } else {
+                    seatInventory.released(flightCode, travelDate, seatClass, heldBucket);
+                }
+            }
             if (conn != null) {
                 try {
                     conn.setAutoCommit(true);
@@ -163,21 +228,25 @@ public class ReservationService {
             }
             
             // 2. Calculate refund
-            RefundCalculation refund = calculateRefund(reservation);
+            RefundEngine.Refund refund = refunds.quote(reservation, RefundEngine.VOLUNTARY);
             
             // 3. Update reservation status
             updateReservationStatus(conn, reservation.getReservationId(), "Cancelled");
             
             // 4. Insert cancellation record
-            insertCancellation(conn, reservation.getReservationId(), refund.getRefundAmount(), 
-                             refund.getCancellationFee());
+            insertCancellation(conn, reservation.getReservationId(), refund.getRefundCents(), 
+                             refund.getFeeCents());
+            events.append(conn, BookingEventLog.cancelled(reservation, refund.getRefundCents()));
             
-            // 5. Free up the seat and promote waiting list
-            promoteWaitingList(conn, reservation.getFlightCode(), reservation.getSeatClass(), 
-                             reservation.getTravelDate());
+            // 5. Hand the seat to the promotion worker; the first passenger waiting for the date gets it
+            //    after this commits, along with its fare bucket
+            promotions.enqueue(conn, "cancel-" + reservation.getReservationId(), reservation.getFlightCode(),
+                               reservation.getTravelDate(), reservation.getSeatClass(),
+                               SeatInventory.bucketIndex(reservation.getFareBucket()), reservation.getSeatNumber());
             
             conn.commit();
-            return new CancellationResult(true, refund.getRefundAmount(), refund.getCancellationFee());
+            promotions.wake();
+            return new CancellationResult(true, refund.getRefundCents(), refund.getFeeCents());
             
         } catch (SQLException e) {
             if (conn != null) {
@@ -200,179 +269,461 @@ public class ReservationService {
         }
     }
     
-    // Private helper methods
-    
-    private int insertOrUpdateCustomer(Connection conn, Customer customer) throws SQLException {
-        // Check if customer exists
-        String checkSql = "SELECT cust_id FROM customer_details WHERE tel_no = ?";
+    /**
+     * Cancel a flight date: record it in {@code cancelled_flights} so nothing more is sold on it, cancel
+     * every confirmed booking, refunding each under the {@link RefundEngine#FLIGHT_CANCELLED} rules, and
+     * drop the date's waiting list, all in one transaction. All statements are batched, so the work per
+     * passenger is a few bound parameters rather than a round trip. The seats are not offered to the
+     * waiting list; they are released from the inventory and seat maps once the transaction commits.
+     */
+    public FlightCancellationResult cancelFlight(int flightCode, LocalDate travelDate) throws SQLException {
+        long started = System.nanoTime();
+        String selectSql = """
+            SELECT r.reservation_id, r.cust_id, r.seat_class, r.seat_number, r.fare, r.fare_bucket, c.concession
+            FROM reservations r
+            JOIN customer_details c ON r.cust_id = c.cust_id
+            WHERE r.flight_code = ? AND r.travel_date = ? AND r.status = 'Confirmed'
+            ORDER BY r.reservation_id
+        """;
+        // The status check claims each booking, so one cancelled meanwhile by the passenger is skipped
+        String cancelSql = "UPDATE reservations SET status = 'Cancelled' WHERE reservation_id = ? AND status = 'Confirmed'";
+        String refundSql = """
+            INSERT INTO cancellations (reservation_id, cancel_date, refund_amount, cancellation_fee)
+            VALUES (?, CURRENT_TIMESTAMP, ?, ?)
+        """;
+        // Bookings and waiting-list entries reference the flight row, so this lock waits for any still
+        // being made and holds off new ones until the date is recorded as cancelled
+        String lockSql = "SELECT flight_code FROM flights WHERE flight_code = ? FOR UPDATE";
+        String closeSql = """
+            INSERT INTO cancelled_flights (flight_code, travel_date)
+            SELECT ?, ? WHERE NOT EXISTS (SELECT 1 FROM cancelled_flights WHERE flight_code = ? AND travel_date = ?)
+        """;
+        String waitlistSql = "DELETE FROM waiting_list WHERE flight_code = ? AND travel_date = ?";
         
-        try (PreparedStatement ps = conn.prepareStatement(checkSql)) {
-            ps.setString(1, customer.getPhoneNumber());
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.openDedicatedConnection();
+            conn.setAutoCommit(false);
             
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("cust_id");
+            // 1. Close the date for sale
+            try (PreparedStatement ps = conn.prepareStatement(lockSql)) {
+                ps.setInt(1, flightCode);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new SQLException("Flight not found: " + flightCode);
+                    }
                 }
             }
-        }
-        
-        // Insert new customer
-        String insertSql = """
-            INSERT INTO customer_details (cust_name, father_name, gender, dob, address, tel_no, profession, concession, travel_date)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
-        """;
-        
-        try (PreparedStatement ps = conn.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setString(1, customer.getName());
-            ps.setString(2, customer.getFatherName());
-            ps.setString(3, customer.getGender());
-            ps.setDate(4, Date.valueOf(customer.getDateOfBirth()));
-            ps.setString(5, customer.getAddress());
-            ps.setString(6, customer.getPhoneNumber());
-            ps.setString(7, customer.getProfession());
-            ps.setString(8, customer.getConcession());
-            ps.setDate(9, Date.valueOf(customer.getTravelDate()));
+            try (PreparedStatement ps = conn.prepareStatement(closeSql)) {
+                ps.setInt(1, flightCode);
+                ps.setDate(2, Date.valueOf(travelDate));
+                ps.setInt(3, flightCode);
+                ps.setDate(4, Date.valueOf(travelDate));
+                ps.executeUpdate();
+            }
             
-            ps.executeUpdate();
+            // 2. Every confirmed booking, with its refund under the rules
+            List<BookingEventLog.Event> cancelled = new ArrayList<>();
+            List<RefundEngine.Refund> amounts = new ArrayList<>();
+            try (PreparedStatement ps = conn.prepareStatement(selectSql)) {
+                ps.setInt(1, flightCode);
+                ps.setDate(2, Date.valueOf(travelDate));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        long fare = Money.read(rs, "fare");
+                        int bucket = SeatInventory.bucketIndex(rs.getString("fare_bucket"));
+                        RefundEngine.Refund refund = refunds.quote(fare, bucket, rs.getString("concession"),
+                                                                   travelDate, RefundEngine.FLIGHT_CANCELLED);
+                        amounts.add(refund);
+                        cancelled.add(new BookingEventLog.Event(BookingEventLog.CANCELLED, rs.getInt("reservation_id"),
+                            rs.getInt("cust_id"), flightCode, travelDate, rs.getString("seat_class"), bucket,
+                            rs.getInt("seat_number"), 0, refund.getRefundCents()));
+                    }
+                }
+            }
             
-            try (ResultSet rs = ps.getGeneratedKeys()) {
-                if (rs.next()) {
-                    return rs.getInt(1);
+            // 3. Claim them all in one batch
+            int[] claimed;
+            try (PreparedStatement ps = conn.prepareStatement(cancelSql)) {
+                for (BookingEventLog.Event event : cancelled) {
+                    ps.setInt(1, event.getReservationId());
+                    ps.addBatch();
+                }
+                claimed = ps.executeBatch();
+            }
+            
+            // 4. Refund the claimed ones in another; each seat goes straight back rather than to the outbox
+            List<BookingEventLog.Event> claimedEvents = new ArrayList<>();
+            List<BookingEventLog.Event> releasedEvents = new ArrayList<>();
+            long refundTotal = 0;
+            long feeTotal = 0;
+            try (PreparedStatement ps = conn.prepareStatement(refundSql)) {
+                for (int i = 0; i < cancelled.size(); i++) {
+                    if (claimed[i] == 0) continue;
+                    RefundEngine.Refund refund = amounts.get(i);
+                    ps.setInt(1, cancelled.get(i).getReservationId());
+                    Money.bind(ps, 2, refund.getRefundCents());
+                    Money.bind(ps, 3, refund.getFeeCents());
+                    ps.addBatch();
+                    BookingEventLog.Event event = cancelled.get(i);
+                    claimedEvents.add(event);
+                    releasedEvents.add(new BookingEventLog.Event(BookingEventLog.RELEASED, 0, 0, flightCode, travelDate,
+                        event.getSeatClass(), event.getFareBucket(), event.getSeatNumber(), 0, 0));
+                    refundTotal = Money.add(refundTotal, refund.getRefundCents());
+                    feeTotal = Money.add(feeTotal, refund.getFeeCents());
+                }
+                ps.executeBatch();
+            }
+            
+            // 5. Nobody is left waiting for the date
+            int waitlistRemoved;
+            try (PreparedStatement ps = conn.prepareStatement(waitlistSql)) {
+                ps.setInt(1, flightCode);
+                ps.setDate(2, Date.valueOf(travelDate));
+                waitlistRemoved = ps.executeUpdate();
+            }
+            
+            List<BookingEventLog.Event> logged = new ArrayList<>(claimedEvents);
+            logged.addAll(releasedEvents);
+            logged.add(new BookingEventLog.Event(BookingEventLog.FLIGHT_CANCELLED, 0, 0, flightCode, travelDate,
+                "Economy", -1, 0, 0, 0));
+            events.append(conn, logged);
+            
+            conn.commit();
+            seatInventory.cancelled(flightCode, travelDate);
+            for (BookingEventLog.Event event : releasedEvents) {
+                seatInventory.released(flightCode, travelDate, event.getSeatClass(), event.getFareBucket());
+                seatMaps.release(flightCode, travelDate, event.getSeatClass(), event.getSeatNumber());
+            }
+            waitlist.invalidate(flightCode);
+            
+            long durationMillis = (System.nanoTime() - started) / 1_000_000;
+            LOGGER.info(String.format("Cancelled flight %d on %s: %d bookings, %d waiting, M%s refunded in %d ms",
+                flightCode, travelDate, claimedEvents.size(), waitlistRemoved, Money.format(refundTotal), durationMillis));
+            return new FlightCancellationResult(claimedEvents.size(), waitlistRemoved, refundTotal, feeTotal, durationMillis);
+            
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    LOGGER.log(Level.SEVERE, "Failed to rollback transaction", rollbackEx);
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.WARNING, "Failed to close connection", e);
                 }
             }
         }
-        
-        throw new SQLException("Failed to insert customer");
     }
     
-    private int assignSeat(Connection conn, int flightCode, String seatClass, String seatPreference) throws SQLException {
-        // Get total seats for the class
-        String seatsSql = """
-            SELECT CASE WHEN ? = 'Economy' THEN total_eco_seats ELSE total_exe_seats END as total_seats
-            FROM flights WHERE flight_code = ?
-        """;
-        
-        int totalSeats = 0;
-        try (PreparedStatement ps = conn.prepareStatement(seatsSql)) {
-            ps.setString(1, seatClass);
-            ps.setInt(2, flightCode);
-            
+    /**
+     * Fail unless the flight date is still scheduled. Called after the booking's own rows are written:
+     * they lock the flight row against {@link #cancelFlight}, so a cancellation either committed before
+     * this check sees it or waits for the booking to commit and then cancels it.
+     */
+    public static void requireScheduled(Connection conn, int flightCode, LocalDate travelDate) throws SQLException {
+        String sql = "SELECT 1 FROM cancelled_flights WHERE flight_code = ? AND travel_date = ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, flightCode);
+            ps.setDate(2, Date.valueOf(travelDate));
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    totalSeats = rs.getInt("total_seats");
+                    throw new SQLException("Flight " + flightCode + " on " + travelDate + " has been cancelled");
                 }
             }
         }
+    }
+    
+    /**
+     * Promote waiting passengers into every seat that is free for sale, across all upcoming flight dates
+     * and cabins, in one transaction. Used when capacity grows or several seats free up at once; each
+     * promoted passenger takes a seat sold from the inventory and a physical seat if one is free.
+     */
+    public ClearingResult clearWaitingLists() throws SQLException {
+        long started = System.nanoTime();
+        seatInventory.ensureLoaded();
         
-        if (totalSeats == 0) return 0;
-        
-        // Get reserved seats
-        String reservedSql = """
-            SELECT seat_number FROM reservations 
-            WHERE flight_code = ? AND seat_class = ? AND status = 'Confirmed'
-        """;
-        
-        boolean[] reserved = new boolean[totalSeats + 1];
-        try (PreparedStatement ps = conn.prepareStatement(reservedSql)) {
-            ps.setInt(1, flightCode);
-            ps.setString(2, seatClass);
+        // Seats sold for promotion as {bucket, seat, taken}, given back unless taken by a promoted passenger and committed
+        List<Pending> pending = new ArrayList<>();
+        boolean committed = false;
+        int cleared = 0;
+        Connection conn = null;
+        try {
+            // Own connection: this runs on a background thread next to the screens' shared connection
+            conn = DatabaseConnection.openDedicatedConnection();
+            conn.setAutoCommit(false);
             
-            try (ResultSet rs = ps.executeQuery()) {
+            // 1. Upcoming dates and cabins with someone waiting
+            String sql = """
+                SELECT flight_code, travel_date, seat_class, COUNT(*) AS waiting
+                FROM waiting_list
+                WHERE travel_date >= CURRENT_DATE
+                GROUP BY flight_code, travel_date, seat_class
+            """;
+            try (PreparedStatement ps = conn.prepareStatement(sql);
+                 ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    reserved[rs.getInt("seat_number")] = true;
+                    Pending group = new Pending(rs.getInt("flight_code"), rs.getDate("travel_date").toLocalDate(),
+                                                rs.getString("seat_class"));
+                    int free = Math.min(rs.getInt("waiting"),
+                                        seatInventory.seatsLeft(group.flightCode, group.travelDate, group.seatClass));
+                    if (free > 0) {
+                        group.waiting = free;
+                        pending.add(group);
+                    }
                 }
             }
-        }
-        
-        // Assign seat based on preference
-        if ("Window".equals(seatPreference)) {
-            for (int i = 1; i <= totalSeats; i++) {
-                if (!reserved[i] && isWindowSeat(i)) {
-                    return i;
+            
+            // 2. Sell a seat per waiting passenger and promote them, one batch per fare bucket
+            for (Pending group : pending) {
+                for (int i = 0; i < group.waiting; i++) {
+                    int bucket = seatInventory.sell(group.flightCode, group.travelDate, group.seatClass);
+                    if (bucket < 0) break;
+                    int seat = seatMaps.reserve(group.flightCode, group.travelDate, group.seatClass, 0, "Any");
+                    group.seats.add(new int[] { bucket, seat, 0 });
+                }
+                
+                Map<Integer, List<int[]>> byBucket = group.seats.stream()
+                    .collect(Collectors.groupingBy(seat -> seat[0]));
+                for (Map.Entry<Integer, List<int[]>> bucketSeats : byBucket.entrySet()) {
+                    int[] seatNumbers = bucketSeats.getValue().stream().mapToInt(seat -> seat[1]).toArray();
+                    List<WaitlistService.Entry> promoted = promoteWaitingList(conn, group.flightCode, group.seatClass,
+                        group.travelDate, bucketSeats.getKey(), seatNumbers, BookingEventLog.CLEARED);
+                    group.promoted.addAll(promoted);
+                    // Seats beyond the passengers actually promoted stay unused
+                    for (int i = 0; i < promoted.size(); i++) {
+                        bucketSeats.getValue().get(i)[2] = 1;
+                    }
+                }
+            }
+            
+            conn.commit();
+            committed = true;
+            for (Pending group : pending) {
+                cleared += group.promoted.size();
+            }
+            
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    LOGGER.log(Level.SEVERE, "Failed to rollback transaction", rollbackEx);
+                }
+            }
+            throw e;
+        } finally {
+            for (Pending group : pending) {
+                if (!committed) waitlist.restore(group.promoted);
+                for (int[] seat : group.seats) {
+                    if (!committed || seat[2] == 0) {
+                        seatInventory.released(group.flightCode, group.travelDate, group.seatClass, seat[0]);
+                        seatMaps.release(group.flightCode, group.travelDate, group.seatClass, seat[1]);
+                    }
+                }
+            }
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.WARNING, "Failed to close connection", e);
                 }
             }
         }
         
-        // Find any available seat
-        for (int i = 1; i <= totalSeats; i++) {
-            if (!reserved[i]) {
-                return i;
+        return new ClearingResult(cleared, (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    /**
+     * Check in a confirmed booking. Overbooked passengers (seat 0) get the first free physical seat
+     * for their travel date, or are denied boarding when the cabin has shown up full.
+     */
+    public CheckInResult checkIn(String pnr) throws SQLException {
+        Connection conn = null;
+        Reservation reservation = null;
+        // Seat taken on the seat map for an overbooked passenger; given back unless check-in commits
+        int newSeat = 0;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            
+            reservation = getReservationByPNR(conn, pnr);
+            if (reservation == null) {
+                throw new SQLException("Reservation not found with PNR: " + pnr);
+            }
+            if (reservation.isCheckedIn()) {
+                conn.commit();
+                return new CheckInResult(true, reservation.getSeatNumber(), "Already checked in");
+            }
+            
+            int seatNumber = reservation.getSeatNumber();
+            if (seatNumber <= 0) {
+                seatNumber = seatMaps.reserve(reservation.getFlightCode(), reservation.getTravelDate(), 
+                                              reservation.getSeatClass(), 0, "Any");
+                newSeat = seatNumber;
+            }
+            if (seatNumber <= 0) {
+                conn.commit();
+                LOGGER.warning("Denied boarding on overbooked flight for " + pnr);
+                return new CheckInResult(false, 0, "Denied boarding: every physical seat is taken");
+            }
+            
+            String sql = "UPDATE reservations SET seat_number = ?, checked_in = TRUE WHERE reservation_id = ?";
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setInt(1, seatNumber);
+                ps.setInt(2, reservation.getReservationId());
+                ps.executeUpdate();
+            }
+            events.append(conn, new BookingEventLog.Event(BookingEventLog.CHECKED_IN, reservation.getReservationId(),
+                reservation.getCustId(), reservation.getFlightCode(), reservation.getTravelDate(),
+                reservation.getSeatClass(), SeatInventory.bucketIndex(reservation.getFareBucket()), seatNumber,
+                reservation.getSeatNumber(), reservation.getFareCents()));
+            
+            conn.commit();
+            newSeat = 0;
+            return new CheckInResult(true, seatNumber, "Checked in");
+            
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    LOGGER.log(Level.SEVERE, "Failed to rollback transaction", rollbackEx);
+                }
+            }
+            throw e;
+        } finally {
+            if (newSeat > 0) {
+                seatMaps.release(reservation.getFlightCode(), reservation.getTravelDate(), reservation.getSeatClass(), newSeat);
+            }
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.WARNING, "Failed to close connection", e);
+                }
             }
         }
-        
-        return 0;
     }
     
-    private boolean isWindowSeat(int seatNumber) {
-        int seatInRow = ((seatNumber - 1) % 6) + 1;
-        return seatInRow == 1 || seatInRow == 6;
+    /**
+     * Move a confirmed booking to another seat number, as entered by an administrator.
+     */
+    public void reassignSeat(String pnr, int seatNumber) throws SQLException {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            
+            Reservation reservation = getReservationByPNR(conn, pnr);
+            if (reservation == null) {
+                throw new SQLException("Reservation not found with PNR: " + pnr);
+            }
+            
+            try (PreparedStatement ps = conn.prepareStatement("UPDATE reservations SET seat_number = ? WHERE reservation_id = ?")) {
+                ps.setInt(1, seatNumber);
+                ps.setInt(2, reservation.getReservationId());
+                ps.executeUpdate();
+            }
+            events.append(conn, new BookingEventLog.Event(BookingEventLog.RESEATED, reservation.getReservationId(),
+                reservation.getCustId(), reservation.getFlightCode(), reservation.getTravelDate(),
+                reservation.getSeatClass(), SeatInventory.bucketIndex(reservation.getFareBucket()), seatNumber,
+                reservation.getSeatNumber(), reservation.getFareCents()));
+            
+            conn.commit();
+            seatMaps.invalidate();
+            
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    LOGGER.log(Level.SEVERE, "Failed to rollback transaction", rollbackEx);
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.WARNING, "Failed to close connection", e);
+                }
+            }
+        }
     }
     
-    private void insertReservation(Connection conn, int customerId, int flightCode, String seatClass,
-                                 int seatNumber, String pnr, String status, double fare, LocalDate travelDate) throws SQLException {
+    // Private helper methods
+    
+    private int insertReservation(Connection conn, int customerId, int flightCode, String seatClass,
+                                int seatNumber, String pnr, String status, long fareCents, LocalDate travelDate,
+                                int fareBucket) throws SQLException {
         String sql = """
-            INSERT INTO reservations (cust_id, flight_code, seat_class, seat_number, status, fare, travel_date, pnr)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            INSERT INTO reservations (cust_id, flight_code, seat_class, seat_number, status, fare, travel_date, pnr, fare_bucket)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
         """;
         
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PreparedStatement ps = conn.prepareStatement(sql, new String[] { "reservation_id" })) {
             ps.setInt(1, customerId);
             ps.setInt(2, flightCode);
             ps.setString(3, seatClass);
             ps.setInt(4, seatNumber);
             ps.setString(5, status);
-            ps.setDouble(6, fare);
+            Money.bind(ps, 6, fareCents);
             ps.setDate(7, Date.valueOf(travelDate));
             ps.setString(8, pnr);
+            ps.setString(9, SeatInventory.bucketCode(fareBucket));
             
             ps.executeUpdate();
+            
+            try (ResultSet rs = ps.getGeneratedKeys()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
         }
+        
+        throw new SQLException("Failed to insert reservation");
     }
     
-    private int addToWaitingList(Connection conn, int customerId, int flightCode, String seatClass, LocalDate travelDate) throws SQLException {
-        String countSql = """
-            SELECT COALESCE(MAX(waiting_no), 0) + 1 as next_waiting 
-            FROM waiting_list 
-            WHERE flight_code = ? AND seat_class = ?
-        """;
-        
-        int waitingNumber = 1;
-        try (PreparedStatement ps = conn.prepareStatement(countSql)) {
-            ps.setInt(1, flightCode);
-            ps.setString(2, seatClass);
-            
+    /**
+     * Claim {@code count} PNRs from {@code pnr_seq} in one query. Sequence values are never handed out
+     * twice, even to transactions that roll back, so concurrent bookings cannot share a PNR.
+     */
+    public static List<String> nextPnrs(Connection conn, int count) throws SQLException {
+        List<String> pnrs = new ArrayList<>(count);
+        if (count == 0) return pnrs;
+        try (PreparedStatement ps = conn.prepareStatement("SELECT nextval('pnr_seq') FROM generate_series(1, ?)")) {
+            ps.setInt(1, count);
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    waitingNumber = rs.getInt("next_waiting");
+                while (rs.next()) {
+                    pnrs.add("PNR" + rs.getLong(1));
                 }
             }
         }
-        
-        String insertSql = """
-            INSERT INTO waiting_list (flight_code, cust_id, seat_class, waiting_no, travel_date)
-            VALUES (?, ?, ?, ?, ?)
-        """;
-        
-        try (PreparedStatement ps = conn.prepareStatement(insertSql)) {
-            ps.setInt(1, flightCode);
-            ps.setInt(2, customerId);
-            ps.setString(3, seatClass);
-            ps.setInt(4, waitingNumber);
-            ps.setDate(5, Date.valueOf(travelDate));
-            
-            ps.executeUpdate();
+        if (pnrs.size() != count) {
+            throw new SQLException("Failed to generate PNRs");
         }
-        
-        return waitingNumber;
+        return pnrs;
     }
     
-    private String generatePNR() {
-        return "PNR" + System.currentTimeMillis() % 1000000;
+    public static String nextPnr(Connection conn) throws SQLException {
+        return nextPnrs(conn, 1).get(0);
     }
     
     private Reservation getReservationByPNR(Connection conn, String pnr) throws SQLException {
         String sql = """
-            SELECT r.*, f.flight_name, c.cust_name
+            SELECT r.*, f.flight_name, c.cust_name, c.concession
             FROM reservations r
             JOIN flights f ON r.flight_code = f.flight_code
             JOIN customer_details c ON r.cust_id = c.cust_id
@@ -392,10 +743,13 @@ public class ReservationService {
                     reservation.setSeatClass(rs.getString("seat_class"));
                     reservation.setSeatNumber(rs.getInt("seat_number"));
                     reservation.setStatus(rs.getString("status"));
-                    reservation.setFare(rs.getDouble("fare"));
+                    reservation.setFareCents(Money.read(rs, "fare"));
                     reservation.setTravelDate(rs.getDate("travel_date").toLocalDate());
+                    reservation.setFareBucket(rs.getString("fare_bucket"));
+                    reservation.setCheckedIn(rs.getBoolean("checked_in"));
                     reservation.setFlightName(rs.getString("flight_name"));
                     reservation.setCustomerName(rs.getString("cust_name"));
+                    reservation.setConcession(rs.getString("concession"));
                     
                     return reservation;
                 }
@@ -405,26 +759,6 @@ public class ReservationService {
         return null;
     }
     
-    private RefundCalculation calculateRefund(Reservation reservation) {
-        LocalDate travelDate = reservation.getTravelDate();
-        LocalDate today = LocalDate.now();
-        double fare = reservation.getFare();
-        
-        long daysUntilTravel = java.time.temporal.ChronoUnit.DAYS.between(today, travelDate);
-        
-        double cancellationFee;
-        if (daysUntilTravel < 0) {
-            cancellationFee = fare;
-        } else if (daysUntilTravel < 1) {
-            cancellationFee = fare * 0.25;
-        } else {
-            cancellationFee = fare * 0.10;
-        }
-        
-        double refundAmount = fare - cancellationFee;
-        return new RefundCalculation(refundAmount, cancellationFee);
-    }
-    
     private void updateReservationStatus(Connection conn, int reservationId, String status) throws SQLException {
         String sql = "UPDATE reservations SET status = ? WHERE reservation_id = ?";
         
@@ -435,8 +769,8 @@ public class ReservationService {
         }
     }
     
-    private void insertCancellation(Connection conn, int reservationId, double refundAmount, 
-                                  double cancellationFee) throws SQLException {
+    private void insertCancellation(Connection conn, int reservationId, long refundAmount, 
+                                  long cancellationFee) throws SQLException {
         String sql = """
             INSERT INTO cancellations (reservation_id, cancel_date, refund_amount, cancellation_fee)
             VALUES (?, CURRENT_TIMESTAMP, ?, ?)
@@ -444,52 +778,83 @@ public class ReservationService {
         
         try (PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, reservationId);
-            ps.setDouble(2, refundAmount);
-            ps.setDouble(3, cancellationFee);
+            Money.bind(ps, 2, refundAmount);
+            Money.bind(ps, 3, cancellationFee);
             ps.executeUpdate();
         }
     }
     
-    private void promoteWaitingList(Connection conn, int flightCode, String seatClass, LocalDate travelDate) throws SQLException {
-        String waitingSql = """
-            SELECT w.*, c.cust_name
-            FROM waiting_list w
-            JOIN customer_details c ON w.cust_id = c.cust_id
-            WHERE w.flight_code = ? AND w.seat_class = ? AND w.travel_date = ?
-            ORDER BY w.waiting_no
-            LIMIT 1
-        """;
+    /**
+     * Move waiting customers for the travel date into freed seats, one per entry of {@code freedSeats}
+     * (0 for an overbooked slot), in queue order. Each promoted customer keeps the freed seats' fare bucket.
+     * @param eventType {@link BookingEventLog#PROMOTED} for seats freed by a cancellation, otherwise
+     *                  {@link BookingEventLog#CLEARED}
+     * @return Customers promoted; the caller restores them to the queue if its transaction rolls back
+     */
+    List<WaitlistService.Entry> promoteWaitingList(Connection conn, int flightCode, String seatClass, LocalDate travelDate,
+                                                   int fareBucket, int[] freedSeats, String eventType) throws SQLException {
+        List<WaitlistService.Entry> promoted = waitlist.promote(conn, flightCode, travelDate, seatClass, freedSeats.length);
+        if (promoted.isEmpty()) return promoted;
         
-        try (PreparedStatement ps = conn.prepareStatement(waitingSql)) {
-            ps.setInt(1, flightCode);
-            ps.setString(2, seatClass);
-            ps.setDate(3, Date.valueOf(travelDate));
+        try {
+            // Concessions of all promoted customers in one query
+            Map<Integer, String> concessions = new HashMap<>();
+            String ids = promoted.stream().map(e -> "?").collect(Collectors.joining(", "));
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT cust_id, concession FROM customer_details WHERE cust_id IN (" + ids + ")")) {
+                for (int i = 0; i < promoted.size(); i++) {
+                    ps.setInt(i + 1, promoted.get(i).getCustomerId());
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        concessions.put(rs.getInt("cust_id"), rs.getString("concession"));
+                    }
+                }
+            }
             
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    int customerId = rs.getInt("cust_id");
-                    int waitId = rs.getInt("wait_id");
+            String sql = """
+                INSERT INTO reservations (cust_id, flight_code, seat_class, seat_number, status, fare, travel_date, pnr, fare_bucket)
+                VALUES (?, ?, ?, ?, 'Confirmed', ?, ?, ?, ?)
+            """;
+            long baseCents = pricingEngine.priceCents(flightCode, travelDate, seatClass, null, fareBucket);
+            List<String> pnrs = nextPnrs(conn, promoted.size());
+            long[] fares = new long[promoted.size()];
+            try (PreparedStatement ps = conn.prepareStatement(sql, new String[] { "reservation_id" })) {
+                for (int i = 0; i < promoted.size(); i++) {
+                    WaitlistService.Entry entry = promoted.get(i);
+                    String pnr = pnrs.get(i);
+                    fares[i] = fareEngine.finalFareCents(baseCents, concessions.get(entry.getCustomerId()));
                     
-                    int assignedSeat = assignSeat(conn, flightCode, seatClass, "Any");
+                    ps.setInt(1, entry.getCustomerId());
+                    ps.setInt(2, flightCode);
+                    ps.setString(3, seatClass);
+                    ps.setInt(4, freedSeats[i]);
+                    Money.bind(ps, 5, fares[i]);
+                    ps.setDate(6, Date.valueOf(travelDate));
+                    ps.setString(7, pnr);
+                    ps.setString(8, SeatInventory.bucketCode(fareBucket));
+                    ps.addBatch();
                     
-                    if (assignedSeat > 0) {
-                        String pnr = generatePNR();
-                        double baseFare = seatClass.equals("Economy") ? 850.0 : 2040.0;
-                        
-                        insertReservation(conn, customerId, flightCode, seatClass, assignedSeat, 
-                                        pnr, "Confirmed", baseFare, travelDate);
-                        
-                        String deleteSql = "DELETE FROM waiting_list WHERE wait_id = ?";
-                        try (PreparedStatement deletePs = conn.prepareStatement(deleteSql)) {
-                            deletePs.setInt(1, waitId);
-                            deletePs.executeUpdate();
-                        }
-                        
-                        LOGGER.info("Promoted waiting list customer to confirmed reservation: " + pnr);
+                    LOGGER.info("Promoted waiting list customer to confirmed reservation: " + pnr);
+                }
+                ps.executeBatch();
+                
+                List<BookingEventLog.Event> promotedEvents = new ArrayList<>();
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    for (int i = 0; i < promoted.size(); i++) {
+                        if (!rs.next()) throw new SQLException("Failed to insert reservation");
+                        promotedEvents.add(new BookingEventLog.Event(eventType, rs.getInt(1),
+                            promoted.get(i).getCustomerId(), flightCode, travelDate, seatClass, fareBucket,
+                            freedSeats[i], 0, fares[i]));
                     }
                 }
+                events.append(conn, promotedEvents);
             }
+        } catch (SQLException e) {
+            waitlist.restore(promoted);
+            throw e;
         }
+        return promoted;
     }
     
     /**
@@ -523,8 +888,10 @@ public class ReservationService {
                     reservation.setSeatClass(rs.getString("seat_class"));
                     reservation.setSeatNumber(rs.getInt("seat_number"));
                     reservation.setStatus(rs.getString("status"));
-                    reservation.setFare(rs.getDouble("fare"));
+                    reservation.setFareCents(Money.read(rs, "fare"));
                     reservation.setTravelDate(rs.getDate("travel_date").toLocalDate());
+                    reservation.setFareBucket(rs.getString("fare_bucket"));
+                    reservation.setCheckedIn(rs.getBoolean("checked_in"));
                     reservation.setFlightName(rs.getString("flight_name"));
                     reservation.setCustomerName(rs.getString("cust_name"));
                     
@@ -535,56 +902,170 @@ public class ReservationService {
         
         return reservations;
     }
-    
+
+    /**
+     * Get reservations by id, in the order given; ids no longer found are left out
+     */
+    public List<Reservation> getReservations(List<Integer> reservationIds) throws SQLException {
+        if (reservationIds.isEmpty()) return new ArrayList<>();
+
+        String placeholders = reservationIds.stream().map(id -> "?").collect(Collectors.joining(", "));
+        String sql = """
+            SELECT r.*, f.flight_name, c.cust_name
+            FROM reservations r
+            JOIN flights f ON r.flight_code = f.flight_code
+            JOIN customer_details c ON r.cust_id = c.cust_id
+            WHERE r.reservation_id IN (%s)
+        """.formatted(placeholders);
+
+        Map<Integer, Reservation> found = new HashMap<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            for (int i = 0; i < reservationIds.size(); i++) {
+                ps.setInt(i + 1, reservationIds.get(i));
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Reservation reservation = new Reservation();
+                    reservation.setReservationId(rs.getInt("reservation_id"));
+                    reservation.setPnr(rs.getString("pnr"));
+                    reservation.setCustomerId(rs.getInt("cust_id"));
+                    reservation.setFlightCode(rs.getInt("flight_code"));
+                    reservation.setSeatClass(rs.getString("seat_class"));
+                    reservation.setSeatNumber(rs.getInt("seat_number"));
+                    reservation.setStatus(rs.getString("status"));
+                    reservation.setFareCents(Money.read(rs, "fare"));
+                    reservation.setTravelDate(rs.getDate("travel_date").toLocalDate());
+                    reservation.setFareBucket(rs.getString("fare_bucket"));
+                    reservation.setCheckedIn(rs.getBoolean("checked_in"));
+                    reservation.setFlightName(rs.getString("flight_name"));
+                    reservation.setCustomerName(rs.getString("cust_name"));
+
+                    found.put(reservation.getReservationId(), reservation);
+                }
+            }
+        }
+
+        List<Reservation> reservations = new ArrayList<>(found.size());
+        for (int id : reservationIds) {
+            Reservation reservation = found.get(id);
+            if (reservation != null) reservations.add(reservation);
+        }
+        return reservations;
+    }
+
     // Result classes
     public static class ReservationResult {
         private final boolean confirmed;
         private final String pnr;
         private final int seatNumber;
-        private final double fare;
+        private final long fareCents;
         private final int waitingNumber;
         
-        public ReservationResult(boolean confirmed, String pnr, int seatNumber, double fare, int waitingNumber) {
+        public ReservationResult(boolean confirmed, String pnr, int seatNumber, long fareCents, int waitingNumber) {
             this.confirmed = confirmed;
             this.pnr = pnr;
             this.seatNumber = seatNumber;
-            this.fare = fare;
+            this.fareCents = fareCents;
             this.waitingNumber = waitingNumber;
         }
         
         public boolean isConfirmed() { return confirmed; }
         public String getPnr() { return pnr; }
         public int getSeatNumber() { return seatNumber; }
-        public double getFare() { return fare; }
+        public long getFareCents() { return fareCents; }
         public int getWaitingNumber() { return waitingNumber; }
     }
     
     public static class CancellationResult {
         private final boolean success;
-        private final double refundAmount;
-        private final double cancellationFee;
+        private final long refundCents;
+        private final long cancellationFeeCents;
         
-        public CancellationResult(boolean success, double refundAmount, double cancellationFee) {
+        public CancellationResult(boolean success, long refundCents, long cancellationFeeCents) {
             this.success = success;
-            this.refundAmount = refundAmount;
-            this.cancellationFee = cancellationFee;
+            this.refundCents = refundCents;
+            this.cancellationFeeCents = cancellationFeeCents;
         }
         
         public boolean isSuccess() { return success; }
-        public double getRefundAmount() { return refundAmount; }
-        public double getCancellationFee() { return cancellationFee; }
+        public long getRefundCents() { return refundCents; }
+        public long getCancellationFeeCents() { return cancellationFeeCents; }
     }
     
-    private static class RefundCalculation {
-        private final double refundAmount;
-        private final double cancellationFee;
+    public static class CheckInResult {
+        private final boolean boarded;
+        private final int seatNumber;
+        private final String message;
         
-        public RefundCalculation(double refundAmount, double cancellationFee) {
-            this.refundAmount = refundAmount;
-            this.cancellationFee = cancellationFee;
+        public CheckInResult(boolean boarded, int seatNumber, String message) {
+            this.boarded = boarded;
+            this.seatNumber = seatNumber;
+            this.message = message;
         }
         
-        public double getRefundAmount() { return refundAmount; }
-        public double getCancellationFee() { return cancellationFee; }
+        public boolean isBoarded() { return boarded; }
+        public int getSeatNumber() { return seatNumber; }
+        public String getMessage() { return message; }
+    }
+    
+    public static class FlightCancellationResult {
+        private final int cancelled;
+        private final int waitlistRemoved;
+        private final long refundCents;
+        private final long feeCents;
+        private final long durationMillis;
+        
+        public FlightCancellationResult(int cancelled, int waitlistRemoved, long refundCents, long feeCents,
+                                        long durationMillis) {
+            this.cancelled = cancelled;
+            this.waitlistRemoved = waitlistRemoved;
+            this.refundCents = refundCents;
+            this.feeCents = feeCents;
+            this.durationMillis = durationMillis;
+        }
+        
+        public int getCancelled() { return cancelled; }
+        public int getWaitlistRemoved() { return waitlistRemoved; }
+        public long getRefundCents() { return refundCents; }
+        public long getFeeCents() { return feeCents; }
+        public long getDurationMillis() { return durationMillis; }
+    }
+    
+    public static class ClearingResult {
+        private final int cleared;
+        private final long durationMillis;
+        
+        public ClearingResult(int cleared, long durationMillis) {
+            this.cleared = cleared;
+            this.durationMillis = durationMillis;
+        }
+        
+        public int getCleared() { return cleared; }
+        public long getDurationMillis() { return durationMillis; }
+        
+        public String getSummary() {
+            return cleared + " waiting list passengers confirmed in " + durationMillis + " ms";
+        }
+    }
+    
+    /**
+     * One flight date and cabin being cleared
+     */
+    private static class Pending {
+        private final int flightCode;
+        private final LocalDate travelDate;
+        private final String seatClass;
+        private final List<int[]> seats = new ArrayList<>();
+        private final List<WaitlistService.Entry> promoted = new ArrayList<>();
+        private int waiting;
+        
+        Pending(int flightCode, LocalDate travelDate, String seatClass) {
+            this.flightCode = flightCode;
+            this.travelDate = travelDate;
+            this.seatClass = seatClass;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,258 @@
+package com.example.airlinereservationsystem.services;
+
+import com.example.airlinereservationsystem.DatabaseConnection;
+import com.example.airlinereservationsystem.utils.Money;
+import com.example.airlinereservationsystem.utils.TimingWheel;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Short-lived seat holds that keep a seat (and its fare) for a customer between seeing availability
+ * and booking, without creating a reservation.
+ *
+ * A hold takes a seat from {@link SeatInventory} like a sale, so held seats are already counted in
+ * availability. Holds are mirrored to {@code seat_holds}, which the inventory also counts on reload.
+ * Expiry runs on a {@link TimingWheel} ticking once a second, so each sweep only touches the holds
+ * due in that second; an expired hold's row is deleted and its seat handed back. Holds are written
+ * over dedicated connections, as the expiry thread must not touch a booking transaction in progress
+ * on the shared one.
+ */
+public final class SeatHoldService {
+    private static final Logger LOGGER = Logger.getLogger(SeatHoldService.class.getName());
+
+    private static final SeatHoldService INSTANCE = new SeatHoldService(SeatInventory.getInstance(),
+        DynamicPricingEngine.getInstance());
+
+    public static final int HOLD_MINUTES = 10;
+
+    private static final long TICK_MILLIS = 1_000;
+    private static final int WHEEL_SLOTS = 1024;
+
+    private final SeatInventory inventory;
+    private final DynamicPricingEngine pricing;
+    private final TimingWheel<Hold> wheel = new TimingWheel<>(TICK_MILLIS, WHEEL_SLOTS, System.currentTimeMillis());
+    private ScheduledExecutorService ticker;
+
+    SeatHoldService(SeatInventory inventory, DynamicPricingEngine pricing) {
+        this.inventory = inventory;
+        this.pricing = pricing;
+    }
+
+    public static SeatHoldService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Reload holds left in {@code seat_holds} by a previous run. Their seats are already counted by
+     * {@link SeatInventory#refresh()}; holds whose time ran out while the application was down
+     * expire on the first tick.
+     */
+    public void recover() throws SQLException {
+        String sql = "SELECT hold_id, flight_code, travel_date, seat_class, fare_bucket, fare, expires_at FROM seat_holds";
+        List<Hold> holds = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.openDedicatedConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                holds.add(new Hold(rs.getInt("hold_id"), rs.getInt("flight_code"), rs.getDate("travel_date").toLocalDate(),
+                                   rs.getString("seat_class"), SeatInventory.bucketIndex(rs.getString("fare_bucket")),
+                                   Money.read(rs, "fare"), rs.getTimestamp("expires_at").getTime()));
+            }
+        }
+        synchronized (wheel) {
+            for (Hold hold : holds) {
+                hold.timeout = wheel.schedule(hold, hold.expiresAtMillis);
+            }
+        }
+        startTicker();
+        LOGGER.info("Recovered " + holds.size() + " seat holds");
+    }
+
+    /**
+     * Hold a seat in the cheapest open fare bucket for {@link #HOLD_MINUTES} minutes.
+     * @return The hold, or null if the cabin is closed
+     */
+    public Hold hold(int flightCode, LocalDate travelDate, String seatClass, String route) throws SQLException {
+        inventory.ensureLoaded();
+        int bucket = inventory.sell(flightCode, travelDate, seatClass);
+        if (bucket < 0) return null;
+
+        long fareCents = pricing.priceCents(flightCode, travelDate, seatClass, route, bucket);
+        long expiresAt = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(HOLD_MINUTES);
+        String sql = """
+            INSERT INTO seat_holds (flight_code, travel_date, seat_class, fare_bucket, fare, expires_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+        """;
+
+        Hold hold;
+        try (Connection conn = DatabaseConnection.openDedicatedConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            ps.setInt(1, flightCode);
+            ps.setDate(2, Date.valueOf(travelDate));
+            ps.setString(3, seatClass);
+            ps.setString(4, SeatInventory.bucketCode(bucket));
+            Money.bind(ps, 5, fareCents);
+            ps.setTimestamp(6, new Timestamp(expiresAt));
+            ps.executeUpdate();
+
+            try (ResultSet rs = ps.getGeneratedKeys()) {
+                if (!rs.next()) throw new SQLException("Failed to create seat hold");
+                hold = new Hold(rs.getInt(1), flightCode, travelDate, seatClass, bucket, fareCents, expiresAt);
+            }
+        } catch (SQLException e) {
+            inventory.released(flightCode, travelDate, seatClass, bucket);
+            throw e;
+        }
+
+        synchronized (wheel) {
+            hold.timeout = wheel.schedule(hold, expiresAt);
+        }
+        startTicker();
+        return hold;
+    }
+
+    /**
+     * Give a hold back before it expires, e.g. when the customer picks another flight.
+     */
+    public void release(Hold hold) {
+        if (hold == null) return;
+        synchronized (wheel) {
+            if (!wheel.cancel(hold.timeout)) return;
+        }
+        try {
+            deleteHolds(List.of(hold));
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to delete seat hold " + hold.holdId, e);
+        }
+        inventory.released(hold.flightCode, hold.travelDate, hold.seatClass, hold.bucket);
+    }
+
+    /**
+     * Turn a hold into a booking inside the caller's transaction: stops its expiry and deletes its row,
+     * leaving its seat sold. If the transaction rolls back, call {@link #unclaim}.
+     * @return false if the hold has already expired or been used
+     */
+    public boolean claim(Connection conn, Hold hold) throws SQLException {
+        if (hold == null) return false;
+        synchronized (wheel) {
+            if (!wheel.cancel(hold.timeout)) return false;
+        }
+        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM seat_holds WHERE hold_id = ?")) {
+            ps.setInt(1, hold.holdId);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            unclaim(hold);
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Put a claimed hold back on the wheel after its booking failed; it keeps its original expiry.
+     */
+    public void unclaim(Hold hold) {
+        synchronized (wheel) {
+            hold.timeout = wheel.schedule(hold, hold.expiresAtMillis);
+        }
+    }
+
+    /**
+     * @return Number of holds still waiting to expire
+     */
+    public int activeHolds() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    private synchronized void startTicker() {
+        if (ticker != null) return;
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "seat-hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::expireDue, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void expireDue() {
+        // An exception escaping here would stop the ticker for good
+        try {
+            List<Hold> expired = new ArrayList<>();
+            synchronized (wheel) {
+                wheel.advance(System.currentTimeMillis(), expired::add);
+            }
+            if (expired.isEmpty()) return;
+
+            try {
+                deleteHolds(expired);
+            } catch (SQLException e) {
+                // The rows expire again after a restart; the seats are handed back now either way
+                LOGGER.log(Level.WARNING, "Failed to delete expired seat holds", e);
+            }
+            for (Hold hold : expired) {
+                inventory.released(hold.flightCode, hold.travelDate, hold.seatClass, hold.bucket);
+            }
+            LOGGER.fine("Expired " + expired.size() + " seat holds");
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Seat hold expiry failed", e);
+        }
+    }
+
+    private static void deleteHolds(List<Hold> holds) throws SQLException {
+        try (Connection conn = DatabaseConnection.openDedicatedConnection();
+             PreparedStatement ps = conn.prepareStatement("DELETE FROM seat_holds WHERE hold_id = ?")) {
+            for (Hold hold : holds) {
+                ps.setInt(1, hold.holdId);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * One held seat: flight, date, cabin and the fare bucket and price it was held at.
+     */
+    public static final class Hold {
+        private final int holdId;
+        private final int flightCode;
+        private final LocalDate travelDate;
+        private final String seatClass;
+        private final int bucket;
+        private final long fareCents;
+        private final long expiresAtMillis;
+        // Guarded by the wheel's lock
+        private TimingWheel.Timeout<Hold> timeout;
+
+        Hold(int holdId, int flightCode, LocalDate travelDate, String seatClass, int bucket,
+             long fareCents, long expiresAtMillis) {
+            this.holdId = holdId;
+            this.flightCode = flightCode;
+            this.travelDate = travelDate;
+            this.seatClass = seatClass;
+            this.bucket = bucket;
+            this.fareCents = fareCents;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public int getHoldId() { return holdId; }
+        public int getFlightCode() { return flightCode; }
+        public LocalDate getTravelDate() { return travelDate; }
+        public String getSeatClass() { return seatClass; }
+        public int getBucket() { return bucket; }
+        public long getFareCents() { return fareCents; }
+        public long getExpiresAtMillis() { return expiresAtMillis; }
+
+        public boolean matches(int flightCode, LocalDate travelDate, String seatClass) {
+            return this.flightCode == flightCode && this.travelDate.equals(travelDate) && this.seatClass.equals(seatClass);
+        }
+    }
+}
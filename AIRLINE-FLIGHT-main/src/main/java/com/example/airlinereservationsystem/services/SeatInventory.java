@@ -0,0 +1,602 @@
+package com.example.airlinereservationsystem.services;
+
+import com.example.airlinereservationsystem.DatabaseConnection;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * In-memory seat counters per flight, travel date and cabin, split into nested fare buckets.
+ * Loaded once from the database and then kept current by the booking, hold and cancellation paths,
+ * so availability and pricing never have to count rows in {@code reservations}.
+ *
+ * Each cabin sells through buckets Y, B, M and Q, from most to least expensive. Booking limits
+ * are nested: a bucket's limit caps the seats sold in that bucket and every cheaper one, so selling
+ * Q uses up M, B and Y availability too. The four per-bucket counts of one flight, date and cabin
+ * are packed into a single {@link AtomicLong} (16 bits each), which makes "can I sell this bucket?"
+ * a constant-time check and lets a sale be applied with one compare-and-set.
+ *
+ * A cabin may be authorized to sell more seats than it physically has (see {@link OverbookingService}).
+ * The extra seats only ever go into Y; the cheaper buckets stay sized on the physical cabin.
+ *
+ * A flight date the airline cancelled (see {@code cancelled_flights}) is closed in both cabins.
+ */
+public final class SeatInventory {
+    private static final Logger LOGGER = Logger.getLogger(SeatInventory.class.getName());
+
+    private static final SeatInventory INSTANCE = new SeatInventory();
+
+    /**
+     * Passed to listeners when every counter may have changed (reload, flight edits).
+     */
+    public static final long ALL = -1L;
+
+    public static final int BUCKETS = 4;
+    private static final String[] BUCKET_CODES = { "Y", "B", "M", "Q" };
+
+    // Used when fare_buckets has no row for a flight, not even the network default (flight code 0)
+    private static final int[] DEFAULT_LIMIT_BP = { 10_000, 8_500, 7_000, 5_000 };
+    private static final int[] DEFAULT_FARE_BP = { 16_000, 12_500, 10_000, 8_500 };
+
+    private static final int LANE_BITS = 16;
+    private static final long LANE_MASK = (1L << LANE_BITS) - 1;
+
+    /**
+     * Notified after a counter changes.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void inventoryChanged(long key);
+    }
+
+    private volatile Cabins cabins = Cabins.empty();
+    private final ConcurrentHashMap<Long, AtomicLong> sold = new ConcurrentHashMap<>();
+    // Cancelled flight dates, by the economy cabin's key
+    private final Set<Long> cancelledDates = ConcurrentHashMap.newKeySet();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean loaded;
+    // Booking event log position of the snapshot the counts were last loaded from
+    private volatile BookingEventLog.Position loadedAt;
+
+    SeatInventory() { }
+
+    public static SeatInventory getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Reload cabin capacities, bucket rules and confirmed seat counts from the database.
+     * Sales and releases made while the counts are read are kept on top of the reloaded counts
+     * (see {@link #merge}).
+     */
+    public synchronized void refresh() throws SQLException {
+        String capacitySql = """
+            SELECT flight_code, total_eco_seats, total_exe_seats,
+                   COALESCE(auth_eco_seats, total_eco_seats) AS auth_eco_seats,
+                   COALESCE(auth_exe_seats, total_exe_seats) AS auth_exe_seats
+            FROM flights
+        """;
+        String bucketSql = "SELECT flight_code, seat_class, bucket_code, limit_bp, fare_bp FROM fare_buckets";
+        // Seats held but not yet booked count as sold until their hold expires, and seats freed by a
+        // cancellation until the promotion worker has passed them on
+        String soldSql = """
+            SELECT flight_code, travel_date, seat_class, fare_bucket, COUNT(*) AS seats
+            FROM (
+                SELECT flight_code, travel_date, seat_class, fare_bucket
+                FROM reservations
+                WHERE status = 'Confirmed' AND travel_date IS NOT NULL
+                UNION ALL
+                SELECT flight_code, travel_date, seat_class, fare_bucket
+                FROM seat_holds
+                UNION ALL
+                SELECT flight_code, travel_date, seat_class, fare_bucket
+                FROM promotion_outbox
+                WHERE status = 'Pending'
+            ) taken
+            GROUP BY flight_code, travel_date, seat_class, fare_bucket
+        """;
+        String cancelledSql = "SELECT flight_code, travel_date FROM cancelled_flights";
+
+        Cabins.Builder builder = new Cabins.Builder();
+        Map<Long, Long> nextSold = new HashMap<>();
+        Set<Long> nextCancelled = new HashSet<>();
+        Map<Long, Long> before = new HashMap<>();
+        sold.forEach((key, counter) -> before.put(key, counter.get()));
+        BookingEventLog.Position position;
+        try (Connection conn = DatabaseConnection.openDedicatedConnection()) {
+            // One snapshot for the counts and the log position, so events after it can be applied exactly once
+            conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            conn.setAutoCommit(false);
+            position = BookingEventLog.getInstance().position(conn);
+            try (PreparedStatement ps = conn.prepareStatement(capacitySql);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    builder.capacity(rs.getInt("flight_code"), rs.getInt("total_eco_seats"), rs.getInt("total_exe_seats"),
+                                     rs.getInt("auth_eco_seats"), rs.getInt("auth_exe_seats"));
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(bucketSql);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    builder.bucket(rs.getInt("flight_code"), FareEngine.classId(rs.getString("seat_class")),
+                                   bucketIndex(rs.getString("bucket_code")), rs.getInt("limit_bp"), rs.getInt("fare_bp"));
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(soldSql);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long key = key(rs.getInt("flight_code"), rs.getDate("travel_date").toLocalDate(),
+                                   FareEngine.classId(rs.getString("seat_class")));
+                    long seats = Math.min(rs.getLong("seats"), LANE_MASK);
+                    int lane = bucketIndex(rs.getString("fare_bucket"));
+                    nextSold.merge(key, seats << (lane * LANE_BITS), Long::sum);
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(cancelledSql);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    nextCancelled.add(key(rs.getInt("flight_code"), rs.getDate("travel_date").toLocalDate(), FareEngine.ECONOMY));
+                }
+            }
+            conn.commit();
+        }
+
+        cabins = builder.build();
+        // Cancellations are never undone, so dates cancelled during the reload stay closed
+        cancelledDates.addAll(nextCancelled);
+        // Counters are updated in place, never replaced, so a sale racing the reload lands on the live counter
+        for (long key : sold.keySet()) {
+            nextSold.putIfAbsent(key, 0L);
+        }
+        nextSold.forEach((key, reloaded) -> {
+            long was = before.getOrDefault(key, 0L);
+            sold.computeIfAbsent(key, k -> new AtomicLong()).updateAndGet(now -> merge(reloaded, was, now));
+        });
+        loadedAt = position;
+        loaded = true;
+        LOGGER.info("Seat inventory loaded " + builder.flights + " flights and " + nextSold.size() + " counters");
+        fire(ALL);
+    }
+
+    /**
+     * Load from the database on first use if nothing has been loaded yet.
+     */
+    public void ensureLoaded() throws SQLException {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) refresh();
+            }
+        }
+    }
+
+    /**
+     * @return Position in the booking event log the counts were last loaded at; events after it are not
+     * in the counts yet
+     */
+    public BookingEventLog.Position loadedAt() throws SQLException {
+        ensureLoaded();
+        return loadedAt;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return Physical seats in the cabin
+     */
+    public int capacity(int flightCode, int classId) {
+        return cabins.capacity(flightCode, classId);
+    }
+
+    /**
+     * @return Seats that may be sold in the cabin, physical seats plus any overbooking allowance
+     */
+    public int authorized(int flightCode, int classId) {
+        return cabins.authorized(flightCode, classId);
+    }
+
+    /**
+     * @return Most seats that may be sold in a bucket and all cheaper ones together
+     */
+    public int bookingLimit(int flightCode, int classId, int bucket) {
+        return cabins.limit(flightCode, classId, bucket);
+    }
+
+    /**
+     * @return Fare multiplier for a bucket in basis points (10000 = the base fare)
+     */
+    public int fareBasisPoints(int flightCode, int classId, int bucket) {
+        return cabins.fareBp(flightCode, classId, bucket);
+    }
+
+    /**
+     * @return Confirmed seats across all buckets
+     */
+    public int sold(long key) {
+        AtomicLong counter = sold.get(key);
+        return counter != null ? total(counter.get()) : 0;
+    }
+
+    public int soldInBucket(long key, int bucket) {
+        AtomicLong counter = sold.get(key);
+        return counter != null ? lane(counter.get(), bucket) : 0;
+    }
+
+    public int seatsLeft(int flightCode, LocalDate travelDate, String seatClass) {
+        if (isCancelled(flightCode, travelDate.toEpochDay())) return 0;
+        int classId = FareEngine.classId(seatClass);
+        return Math.max(0, authorized(flightCode, classId) - sold(key(flightCode, travelDate, classId)));
+    }
+
+    /**
+     * @return Share of the cabin already sold, in basis points (10000 = full)
+     */
+    public int loadFactorBasisPoints(int flightCode, long travelEpochDay, int classId) {
+        int capacity = capacity(flightCode, classId);
+        if (capacity <= 0) return 10_000;
+        long sold = sold(key(flightCode, travelEpochDay, classId));
+        return (int) Math.min(10_000, sold * 10_000 / capacity);
+    }
+
+    /**
+     * @return Cheapest bucket still open for sale, or -1 when the cabin is closed
+     */
+    public int lowestOpenBucket(int flightCode, long travelEpochDay, int classId) {
+        if (isCancelled(flightCode, travelEpochDay)) return -1;
+        AtomicLong counter = sold.get(key(flightCode, travelEpochDay, classId));
+        return lowestOpen(counter != null ? counter.get() : 0L, flightCode, classId);
+    }
+
+    public boolean canSell(int flightCode, LocalDate travelDate, String seatClass, int bucket) {
+        return lowestOpenBucket(flightCode, travelDate.toEpochDay(), FareEngine.classId(seatClass)) >= bucket;
+    }
+
+    /**
+     * Take one seat in the cheapest open bucket.
+     * Call before writing the booking; give the seat back with {@link #released} if the write fails.
+     * @return The bucket sold, or -1 if the cabin is closed
+     */
+    public int sell(int flightCode, LocalDate travelDate, String seatClass) {
+        if (isCancelled(flightCode, travelDate.toEpochDay())) return -1;
+        int classId = FareEngine.classId(seatClass);
+        long key = key(flightCode, travelDate, classId);
+        AtomicLong counter = sold.computeIfAbsent(key, k -> new AtomicLong());
+        while (true) {
+            long packed = counter.get();
+            int bucket = lowestOpen(packed, flightCode, classId);
+            if (bucket < 0) return -1;
+            if (counter.compareAndSet(packed, packed + (1L << (bucket * LANE_BITS)))) {
+                fire(key);
+                return bucket;
+            }
+        }
+    }
+
+    /**
+     * Take one seat in a specific bucket if its nested limits still allow it.
+     */
+    public boolean sell(int flightCode, LocalDate travelDate, String seatClass, int bucket) {
+        if (isCancelled(flightCode, travelDate.toEpochDay())) return false;
+        int classId = FareEngine.classId(seatClass);
+        long key = key(flightCode, travelDate, classId);
+        AtomicLong counter = sold.computeIfAbsent(key, k -> new AtomicLong());
+        while (true) {
+            long packed = counter.get();
+            if (lowestOpen(packed, flightCode, classId) < bucket) return false;
+            if (counter.compareAndSet(packed, packed + (1L << (bucket * LANE_BITS)))) {
+                fire(key);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Record seats that were confirmed without going through {@link #sell},
+     * e.g. a group booking or a waiting-list promotion. Call after the transaction has committed.
+     */
+    public void booked(int flightCode, LocalDate travelDate, String seatClass, int bucket, int seats) {
+        if (travelDate == null || seats <= 0) return;
+        long key = key(flightCode, travelDate, FareEngine.classId(seatClass));
+        AtomicLong counter = sold.computeIfAbsent(key, k -> new AtomicLong());
+        counter.updateAndGet(packed -> withLane(packed, bucket, Math.min(LANE_MASK, lane(packed, bucket) + (long) seats)));
+        fire(key);
+    }
+
+    /**
+     * Give back one seat in a bucket, after a cancellation commits or a booking write fails.
+     */
+    public void released(int flightCode, LocalDate travelDate, String seatClass, int bucket) {
+        if (travelDate == null) return;
+        long key = key(flightCode, travelDate, FareEngine.classId(seatClass));
+        AtomicLong counter = sold.computeIfAbsent(key, k -> new AtomicLong());
+        counter.updateAndGet(packed -> withLane(packed, bucket, Math.max(0, lane(packed, bucket) - 1)));
+        fire(key);
+    }
+
+    /**
+     * Close a flight date in both cabins after its cancellation commits. Seats its bookings held are
+     * given back separately with {@link #released}.
+     */
+    public void cancelled(int flightCode, LocalDate travelDate) {
+        cancelledDates.add(key(flightCode, travelDate, FareEngine.ECONOMY));
+        fire(key(flightCode, travelDate, FareEngine.ECONOMY));
+        fire(key(flightCode, travelDate, FareEngine.BUSINESS));
+    }
+
+    public boolean isCancelled(int flightCode, LocalDate travelDate) {
+        return isCancelled(flightCode, travelDate.toEpochDay());
+    }
+
+    private boolean isCancelled(int flightCode, long travelEpochDay) {
+        return !cancelledDates.isEmpty() && cancelledDates.contains(key(flightCode, travelEpochDay, FareEngine.ECONOMY));
+    }
+
+    /**
+     * Replace a flight's cabin sizes after it is added or edited. Bucket limits follow the new size
+     * and the overbooking allowance is dropped until {@link #setAuthorized} is called again.
+     */
+    public synchronized void setCapacity(int flightCode, int economySeats, int businessSeats) {
+        cabins = cabins.withCapacity(flightCode, economySeats, businessSeats, economySeats, businessSeats);
+        fire(ALL);
+    }
+
+    /**
+     * Set how many seats each cabin may sell, at least its physical size.
+     */
+    public synchronized void setAuthorized(int flightCode, int economySeats, int businessSeats) {
+        Cabins c = cabins;
+        cabins = c.withCapacity(flightCode, c.capacity(flightCode, FareEngine.ECONOMY), c.capacity(flightCode, FareEngine.BUSINESS),
+                                economySeats, businessSeats);
+        fire(ALL);
+    }
+
+    /**
+     * Drop a deleted flight and all of its counters.
+     */
+    public synchronized void removeFlight(int flightCode) {
+        cabins = cabins.withCapacity(flightCode, 0, 0, 0, 0);
+        sold.keySet().removeIf(key -> flightCode(key) == flightCode);
+        cancelledDates.removeIf(key -> flightCode(key) == flightCode);
+        fire(ALL);
+    }
+
+    /**
+     * Walks the buckets from Y down. A bucket is open while the seats sold in it and all cheaper
+     * buckets are under its limit and every more expensive bucket is open too.
+     */
+    private int lowestOpen(long packed, int flightCode, int classId) {
+        Cabins c = cabins;
+        int base = c.index(flightCode, classId);
+        if (base < 0) return -1;
+        int remaining = total(packed);
+        int open = -1;
+        for (int b = 0; b < BUCKETS; b++) {
+            if (remaining >= c.limits[base + b]) break;
+            open = b;
+            remaining -= lane(packed, b);
+        }
+        return open;
+    }
+
+    /**
+     * Reloaded counts plus whatever changed in memory since the reload started, lane by lane.
+     * A booking that sold its seat during the reload and committed before its row was read is counted
+     * twice until the next reload; that closes a seat early rather than selling one seat twice.
+     */
+    static long merge(long reloaded, long before, long now) {
+        long merged = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            long seats = (long) lane(reloaded, b) + lane(now, b) - lane(before, b);
+            merged = withLane(merged, b, Math.max(0, Math.min(LANE_MASK, seats)));
+        }
+        return merged;
+    }
+
+    private void fire(long key) {
+        for (Listener listener : listeners) {
+            listener.inventoryChanged(key);
+        }
+    }
+
+    private static int lane(long packed, int bucket) {
+        return (int) ((packed >>> (bucket * LANE_BITS)) & LANE_MASK);
+    }
+
+    private static long withLane(long packed, int bucket, long value) {
+        int shift = bucket * LANE_BITS;
+        return (packed & ~(LANE_MASK << shift)) | (value << shift);
+    }
+
+    private static int total(long packed) {
+        return lane(packed, 0) + lane(packed, 1) + lane(packed, 2) + lane(packed, 3);
+    }
+
+    /**
+     * @return Index of a bucket code; unknown or missing codes count as Y (full fare)
+     */
+    public static int bucketIndex(String code) {
+        for (int b = 0; b < BUCKETS; b++) {
+            if (BUCKET_CODES[b].equalsIgnoreCase(code)) return b;
+        }
+        return 0;
+    }
+
+    public static String bucketCode(int bucket) {
+        return BUCKET_CODES[bucket];
+    }
+
+    public static long key(int flightCode, LocalDate travelDate, int classId) {
+        return key(flightCode, travelDate.toEpochDay(), classId);
+    }
+
+    /**
+     * Packs flight code (high 32 bits), epoch day and cabin into one long.
+     */
+    public static long key(int flightCode, long travelEpochDay, int classId) {
+        return ((long) flightCode << 32) | ((travelEpochDay & 0x7FFF_FFFFL) << 1) | classId;
+    }
+
+    public static int flightCode(long key) {
+        return (int) (key >>> 32);
+    }
+
+    public static long epochDay(long key) {
+        return (key >>> 1) & 0x7FFF_FFFFL;
+    }
+
+    public static int classId(long key) {
+        return (int) (key & 1);
+    }
+
+    /**
+     * Immutable cabin layout: physical and authorized capacity plus resolved per-bucket seat limits and fare multipliers,
+     * in flat arrays indexed by flight code and cabin so lookups neither box nor hash.
+     */
+    private static final class Cabins {
+        final int[] capacities;   // [flight * 2 + class]
+        final int[] authorized;   // same layout as capacities, never below it
+        final int[] limits;       // [(flight * 2 + class) * BUCKETS + bucket], in seats
+        final int[] fareBp;       // same layout as limits
+        final int[] limitBp;      // configured shares, kept so a capacity change can re-resolve limits
+
+        Cabins(int[] capacities, int[] authorized, int[] limits, int[] fareBp, int[] limitBp) {
+            this.capacities = capacities;
+            this.authorized = authorized;
+            this.limits = limits;
+            this.fareBp = fareBp;
+            this.limitBp = limitBp;
+        }
+
+        static Cabins empty() {
+            return new Cabins(new int[0], new int[0], new int[0], new int[0], new int[0]);
+        }
+
+        int index(int flightCode, int classId) {
+            int slot = flightCode * 2 + classId;
+            return slot >= 0 && slot < capacities.length ? slot * BUCKETS : -1;
+        }
+
+        int capacity(int flightCode, int classId) {
+            int slot = flightCode * 2 + classId;
+            return slot >= 0 && slot < capacities.length ? capacities[slot] : 0;
+        }
+
+        int authorized(int flightCode, int classId) {
+            int slot = flightCode * 2 + classId;
+            return slot >= 0 && slot < authorized.length ? authorized[slot] : 0;
+        }
+
+        int limit(int flightCode, int classId, int bucket) {
+            int base = index(flightCode, classId);
+            return base >= 0 ? limits[base + bucket] : 0;
+        }
+
+        int fareBp(int flightCode, int classId, int bucket) {
+            int base = index(flightCode, classId);
+            return base >= 0 ? fareBp[base + bucket] : DEFAULT_FARE_BP[bucket];
+        }
+
+        Cabins withCapacity(int flightCode, int economySeats, int businessSeats,
+                            int authorizedEconomy, int authorizedBusiness) {
+            int slots = Math.max(capacities.length, flightCode * 2 + 2);
+            int[] nextCapacities = Arrays.copyOf(capacities, slots);
+            int[] nextAuthorized = Arrays.copyOf(authorized, slots);
+            int[] nextLimits = Arrays.copyOf(limits, slots * BUCKETS);
+            int[] nextFareBp = Arrays.copyOf(fareBp, slots * BUCKETS);
+            int[] nextLimitBp = Arrays.copyOf(limitBp, slots * BUCKETS);
+            for (int classId = 0; classId < 2; classId++) {
+                int slot = flightCode * 2 + classId;
+                nextCapacities[slot] = classId == FareEngine.BUSINESS ? businessSeats : economySeats;
+                nextAuthorized[slot] = Math.max(nextCapacities[slot],
+                                                classId == FareEngine.BUSINESS ? authorizedBusiness : authorizedEconomy);
+                for (int b = 0; b < BUCKETS; b++) {
+                    int i = slot * BUCKETS + b;
+                    if (nextLimitBp[i] == 0) {
+                        nextLimitBp[i] = DEFAULT_LIMIT_BP[b];
+                        nextFareBp[i] = DEFAULT_FARE_BP[b];
+                    }
+                }
+                resolve(nextCapacities, nextAuthorized, nextLimits, nextLimitBp, slot);
+            }
+            return new Cabins(nextCapacities, nextAuthorized, nextLimits, nextFareBp, nextLimitBp);
+        }
+
+        /**
+         * Turn configured shares into seat limits, kept nested (Y ≥ B ≥ M ≥ Q) and within capacity.
+         * Y's share applies to the authorized seats, every other bucket's to the physical ones.
+         */
+        static void resolve(int[] capacities, int[] authorized, int[] limits, int[] limitBp, int slot) {
+            int ceiling = authorized[slot];
+            for (int b = 0; b < BUCKETS; b++) {
+                int i = slot * BUCKETS + b;
+                int seats = b == 0 ? authorized[slot] : capacities[slot];
+                ceiling = Math.min(ceiling, (int) ((long) seats * limitBp[i] / 10_000));
+                limits[i] = ceiling;
+            }
+        }
+
+        static final class Builder {
+            private final Map<Integer, int[]> capacities = new HashMap<>();
+            // flight code -> [class * BUCKETS + bucket] -> {limit bp, fare bp}; flight 0 is the network default
+            private final Map<Integer, int[][]> rules = new HashMap<>();
+            int flights;
+
+            void capacity(int flightCode, int economySeats, int businessSeats,
+                          int authorizedEconomy, int authorizedBusiness) {
+                capacities.put(flightCode, new int[] { economySeats, businessSeats,
+                    Math.max(economySeats, authorizedEconomy), Math.max(businessSeats, authorizedBusiness) });
+                flights++;
+            }
+
+            void bucket(int flightCode, int classId, int bucket, int limitBp, int fareBp) {
+                rules.computeIfAbsent(flightCode, f -> new int[2 * BUCKETS][])[classId * BUCKETS + bucket] =
+                    new int[] { limitBp, fareBp };
+            }
+
+            Cabins build() {
+                int slots = 0;
+                for (int flightCode : capacities.keySet()) {
+                    slots = Math.max(slots, flightCode * 2 + 2);
+                }
+                int[] caps = new int[slots];
+                int[] auth = new int[slots];
+                int[] limits = new int[slots * BUCKETS];
+                int[] fareBp = new int[slots * BUCKETS];
+                int[] limitBp = new int[slots * BUCKETS];
+                int[][] network = rules.getOrDefault(0, new int[2 * BUCKETS][]);
+
+                capacities.forEach((flightCode, seats) -> {
+                    int[][] own = rules.getOrDefault(flightCode, new int[2 * BUCKETS][]);
+                    for (int classId = 0; classId < 2; classId++) {
+                        int slot = flightCode * 2 + classId;
+                        caps[slot] = seats[classId];
+                        auth[slot] = seats[2 + classId];
+                        for (int b = 0; b < BUCKETS; b++) {
+                            int r = classId * BUCKETS + b;
+                            int[] rule = own[r] != null ? own[r] : network[r];
+                            limitBp[slot * BUCKETS + b] = rule != null ? rule[0] : DEFAULT_LIMIT_BP[b];
+                            fareBp[slot * BUCKETS + b] = rule != null ? rule[1] : DEFAULT_FARE_BP[b];
+                        }
+                        resolve(caps, auth, limits, limitBp, slot);
+                    }
+                });
+                return new Cabins(caps, auth, limits, fareBp, limitBp);
+            }
+        }
+    }
+}
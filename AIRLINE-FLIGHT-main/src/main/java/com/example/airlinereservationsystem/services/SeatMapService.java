@@ -0,0 +1,402 @@
+package com.example.airlinereservationsystem.services;
+
+import com.example.airlinereservationsystem.DatabaseConnection;
+import com.example.airlinereservationsystem.models.SeatMap;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Seat maps per flight and cabin, and which physical seats are taken per flight, travel date and cabin.
+ *
+ * Layouts come from {@code seat_layouts} per fleet type (fleet 0 is the default for flights without one)
+ * and are sized to the cabin's capacity in {@link SeatInventory}. Taken seats are read from the database
+ * the first time a flight date is looked at and then kept current by the booking paths, so drawing the
+ * map and picking seats never goes back to the database. Seats are taken like inventory is sold: reserve
+ * before writing the booking and give the seat back with {@link #release} if the write fails.
+ */
+public final class SeatMapService {
+    private static final Logger LOGGER = Logger.getLogger(SeatMapService.class.getName());
+
+    private static final SeatMapService INSTANCE = new SeatMapService(SeatInventory.getInstance());
+
+    // Used when seat_layouts has no row for a fleet type, not even the default (fleet 0)
+    private static final String DEFAULT_PATTERN = "ABC|DEF";
+
+    private final SeatInventory inventory;
+    // fleet id -> [class] -> layout; fleet 0 is the default
+    private volatile Map<Integer, Layout[]> layouts = Map.of();
+    private volatile Map<Integer, Integer> fleetOfFlight = Map.of();
+    private volatile boolean loaded;
+    private final ConcurrentHashMap<Integer, SeatMap> seatMaps = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Occupancy> occupancy = new ConcurrentHashMap<>();
+
+    SeatMapService(SeatInventory inventory) {
+        this.inventory = inventory;
+    }
+
+    public static SeatMapService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Reload layouts and which fleet type each flight uses, and forget every cached map and taken seat.
+     */
+    public synchronized void refresh() throws SQLException {
+        String layoutSql = "SELECT fleet_id, seat_class, seat_pattern, first_row, exit_rows, blocked_seats FROM seat_layouts";
+        String flightSql = "SELECT flight_code, fleet_id FROM flights";
+
+        Map<Integer, Layout[]> nextLayouts = new HashMap<>();
+        Map<Integer, Integer> nextFleets = new HashMap<>();
+        try (Connection conn = DatabaseConnection.openDedicatedConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement(layoutSql);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    nextLayouts.computeIfAbsent(rs.getInt("fleet_id"), f -> new Layout[2])[FareEngine.classId(rs.getString("seat_class"))] =
+                        new Layout(rs.getString("seat_pattern"), rs.getInt("first_row"),
+                                   rs.getString("exit_rows"), rs.getString("blocked_seats"));
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(flightSql);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    nextFleets.put(rs.getInt("flight_code"), rs.getInt("fleet_id"));
+                }
+            }
+        }
+
+        layouts = nextLayouts;
+        fleetOfFlight = nextFleets;
+        invalidate();
+        loaded = true;
+        LOGGER.info("Seat layouts loaded for " + nextLayouts.size() + " fleet types");
+    }
+
+    public void ensureLoaded() throws SQLException {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) refresh();
+            }
+        }
+        inventory.ensureLoaded();
+    }
+
+    /**
+     * Forget cached taken seats, e.g. after reservations were edited outside the booking paths.
+     */
+    public void invalidate() {
+        seatMaps.clear();
+        occupancy.clear();
+    }
+
+    /**
+     * Layout of a flight's cabin, rebuilt when the cabin's capacity changes.
+     */
+    public SeatMap seatMap(int flightCode, String seatClass) throws SQLException {
+        ensureLoaded();
+        int classId = FareEngine.classId(seatClass);
+        int capacity = inventory.capacity(flightCode, classId);
+        int slot = flightCode * 2 + classId;
+        SeatMap cached = seatMaps.get(slot);
+        if (cached != null && cached.getCapacity() == capacity) return cached;
+
+        Layout layout = layout(fleetOfFlight.getOrDefault(flightCode, 0), classId);
+        SeatMap map = SeatMap.of(seatClass, layout.pattern, layout.firstRow, layout.exitRows, layout.blockedSeats, capacity);
+        seatMaps.put(slot, map);
+        return map;
+    }
+
+    /**
+     * Layout a cabin would have on a fleet type with the given number of seats, e.g. before an equipment swap.
+     */
+    public SeatMap seatMapFor(int fleetId, String seatClass, int capacity) throws SQLException {
+        ensureLoaded();
+        Layout layout = layout(fleetId, FareEngine.classId(seatClass));
+        return SeatMap.of(seatClass, layout.pattern, layout.firstRow, layout.exitRows, layout.blockedSeats, capacity);
+    }
+
+    /**
+     * @return Seat label such as {@code 12C}; falls back to the plain number
+     */
+    public String label(int flightCode, String seatClass, int seatNumber) {
+        try {
+            return seatMap(flightCode, seatClass).label(seatNumber);
+        } catch (SQLException e) {
+            return String.valueOf(seatNumber);
+        }
+    }
+
+    /**
+     * Copy of the taken-seat masks per row, for drawing the map.
+     */
+    public long[] takenSeats(int flightCode, LocalDate travelDate, String seatClass) throws SQLException {
+        Occupancy taken = occupancy(flightCode, travelDate, seatClass);
+        synchronized (taken) {
+            return taken.rows.clone();
+        }
+    }
+
+    /**
+     * Take one physical seat: the requested one if it is free, otherwise the first free seat that
+     * suits the preference ("Window", "Aisle" or "Any"), otherwise any free seat.
+     * @return The seat number, or 0 if every seat is taken
+     */
+    public int reserve(int flightCode, LocalDate travelDate, String seatClass, int requestedSeat,
+                       String preference) throws SQLException {
+        Occupancy taken = occupancy(flightCode, travelDate, seatClass);
+        SeatMap map = taken.map;
+        synchronized (taken) {
+            int requestedRow = map.rowOf(requestedSeat);
+            if (requestedRow >= 0) {
+                long bit = 1L << map.columnOf(requestedSeat);
+                if ((taken.rows[requestedRow] & bit) == 0) {
+                    taken.rows[requestedRow] |= bit;
+                    return requestedSeat;
+                }
+            }
+
+            long preferred = "Window".equals(preference) ? map.windowMask()
+                           : "Aisle".equals(preference) ? map.aisleMask() : -1L;
+            int seat = takeFirst(taken, preferred);
+            return seat > 0 ? seat : takeFirst(taken, -1L);
+        }
+    }
+
+    /**
+     * Seat a party together: a run in one row (within one block between aisles if possible), then split
+     * across two adjacent rows, then the fewest consecutive rows that fit everyone. Passengers who do not
+     * fit get seat 0.
+     */
+    public int[] reserveGroup(int flightCode, LocalDate travelDate, String seatClass, int partySize) throws SQLException {
+        Occupancy taken = occupancy(flightCode, travelDate, seatClass);
+        synchronized (taken) {
+            int[] seats = allocateGroup(taken.map, taken.rows, partySize);
+            for (int seat : seats) {
+                if (seat > 0) {
+                    taken.rows[taken.map.rowOf(seat)] |= 1L << taken.map.columnOf(seat);
+                }
+            }
+            return seats;
+        }
+    }
+
+    /**
+     * Mark a seat free again, after a cancellation commits or a booking write fails.
+     */
+    public void release(int flightCode, LocalDate travelDate, String seatClass, int seatNumber) {
+        if (seatNumber <= 0 || travelDate == null) return;
+        Occupancy taken = occupancy.get(SeatInventory.key(flightCode, travelDate, FareEngine.classId(seatClass)));
+        if (taken == null) return;
+        synchronized (taken) {
+            int row = taken.map.rowOf(seatNumber);
+            if (row >= 0) {
+                taken.rows[row] &= ~(1L << taken.map.columnOf(seatNumber));
+            }
+        }
+    }
+
+    /**
+     * Mark a seat taken that was assigned elsewhere, e.g. by another running copy of the application.
+     * Flight dates not loaded yet read it from the database when first used.
+     */
+    public void occupy(int flightCode, LocalDate travelDate, String seatClass, int seatNumber) {
+        if (seatNumber <= 0 || travelDate == null) return;
+        Occupancy taken = occupancy.get(SeatInventory.key(flightCode, travelDate, FareEngine.classId(seatClass)));
+        if (taken == null) return;
+        synchronized (taken) {
+            int row = taken.map.rowOf(seatNumber);
+            if (row >= 0) {
+                taken.rows[row] |= 1L << taken.map.columnOf(seatNumber);
+            }
+        }
+    }
+
+    private Occupancy occupancy(int flightCode, LocalDate travelDate, String seatClass) throws SQLException {
+        SeatMap map = seatMap(flightCode, seatClass);
+        long key = SeatInventory.key(flightCode, travelDate, FareEngine.classId(seatClass));
+        Occupancy cached = occupancy.get(key);
+        if (cached != null && cached.map == map) return cached;
+
+        // First look at this flight date (or its cabin was resized): read the taken seats once
+        Occupancy loaded = new Occupancy(map);
+        // A cancelled seat stays taken until the promotion worker has passed it on
+        String sql = """
+            SELECT seat_number FROM reservations
+            WHERE flight_code = ? AND seat_class = ? AND travel_date = ? AND status = 'Confirmed' AND seat_number > 0
+            UNION ALL
+            SELECT seat_number FROM promotion_outbox
+            WHERE flight_code = ? AND seat_class = ? AND travel_date = ? AND status = 'Pending' AND seat_number > 0
+        """;
+        try (Connection conn = DatabaseConnection.openDedicatedConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < 6; i += 3) {
+                ps.setInt(i + 1, flightCode);
+                ps.setString(i + 2, seatClass);
+                ps.setDate(i + 3, Date.valueOf(travelDate));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int seat = rs.getInt("seat_number");
+                    int row = map.rowOf(seat);
+                    if (row >= 0) loaded.rows[row] |= 1L << map.columnOf(seat);
+                }
+            }
+        }
+
+        // Keep whichever copy another thread may have installed meanwhile, so no reservation is lost
+        return occupancy.compute(key, (k, current) -> current != null && current.map == map ? current : loaded);
+    }
+
+    private Layout layout(int fleetId, int classId) {
+        Layout[] own = layouts.get(fleetId);
+        if (own != null && own[classId] != null) return own[classId];
+        Layout[] fallback = layouts.get(0);
+        if (fallback != null && fallback[classId] != null) return fallback[classId];
+        return new Layout(DEFAULT_PATTERN, 1, "", "");
+    }
+
+    private static int takeFirst(Occupancy taken, long columns) {
+        SeatMap map = taken.map;
+        for (int r = 0; r < taken.rows.length; r++) {
+            long free = map.seatMask(r) & ~taken.rows[r] & columns;
+            if (free != 0) {
+                int column = Long.numberOfTrailingZeros(free);
+                taken.rows[r] |= 1L << column;
+                return map.seatNumber(r, column);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Pick seats for a party against the given taken masks without marking them.
+     */
+    static int[] allocateGroup(SeatMap map, long[] takenRows, int partySize) {
+        int[] seats = new int[partySize];
+        if (partySize <= 0) return seats;
+        int rows = takenRows.length;
+        long[] free = new long[rows];
+        for (int r = 0; r < rows; r++) {
+            free[r] = map.seatMask(r) & ~takenRows[r];
+        }
+
+        // 1. One row, within a block between aisles first, then across an aisle
+        if (partySize <= map.getColumnCount()) {
+            for (long[] scope : new long[][] { map.segments(), { -1L } }) {
+                for (int r = 0; r < rows; r++) {
+                    for (long columns : scope) {
+                        long starts = runStarts(free[r] & columns, partySize);
+                        if (starts != 0) {
+                            fillRun(map, r, Long.numberOfTrailingZeros(starts), partySize, seats, 0);
+                            return seats;
+                        }
+                    }
+                }
+            }
+        }
+
+        // 2. Two adjacent rows, one run each, as close to one above the other as possible
+        int front = (partySize + 1) / 2;
+        int back = partySize - front;
+        if (back > 0 && front <= map.getColumnCount()) {
+            for (int r = 0; r + 1 < rows; r++) {
+                long frontStarts = runStarts(free[r], front);
+                long backStarts = runStarts(free[r + 1], back);
+                if (frontStarts == 0 || backStarts == 0) continue;
+                int frontColumn = Long.numberOfTrailingZeros(frontStarts);
+                int backColumn = closestBit(backStarts, frontColumn);
+                fillRun(map, r, frontColumn, front, seats, 0);
+                fillRun(map, r + 1, backColumn, back, seats, front);
+                return seats;
+            }
+        }
+
+        // 3. The fewest consecutive rows with enough free seats, filled front to back
+        int[] counts = new int[rows];
+        for (int r = 0; r < rows; r++) {
+            counts[r] = Long.bitCount(free[r]);
+        }
+        for (int span = 1; span <= rows; span++) {
+            int sum = 0;
+            for (int r = 0; r < rows; r++) {
+                sum += counts[r];
+                if (r >= span) sum -= counts[r - span];
+                if (r >= span - 1 && sum >= partySize) {
+                    fillRows(map, free, r - span + 1, r, seats);
+                    return seats;
+                }
+            }
+        }
+
+        // 4. Not enough seats for everyone: seat who fits, the rest get 0
+        fillRows(map, free, 0, rows - 1, seats);
+        return seats;
+    }
+
+    /**
+     * @return Bit c set where columns c .. c + length - 1 are all free
+     */
+    static long runStarts(long free, int length) {
+        long starts = free;
+        for (int i = 1; i < length && starts != 0; i++) {
+            starts &= free >>> i;
+        }
+        return starts;
+    }
+
+    private static int closestBit(long bits, int target) {
+        int best = Long.numberOfTrailingZeros(bits);
+        for (long rest = bits; rest != 0; rest &= rest - 1) {
+            int column = Long.numberOfTrailingZeros(rest);
+            if (Math.abs(column - target) < Math.abs(best - target)) best = column;
+        }
+        return best;
+    }
+
+    private static void fillRun(SeatMap map, int row, int column, int length, int[] seats, int offset) {
+        for (int i = 0; i < length; i++) {
+            seats[offset + i] = map.seatNumber(row, column + i);
+        }
+    }
+
+    private static void fillRows(SeatMap map, long[] free, int fromRow, int toRow, int[] seats) {
+        int placed = 0;
+        for (int r = fromRow; r <= toRow && placed < seats.length; r++) {
+            for (long rest = free[r]; rest != 0 && placed < seats.length; rest &= rest - 1) {
+                seats[placed++] = map.seatNumber(r, Long.numberOfTrailingZeros(rest));
+            }
+        }
+    }
+
+    private static final class Layout {
+        final String pattern;
+        final int firstRow;
+        final String exitRows;
+        final String blockedSeats;
+
+        Layout(String pattern, int firstRow, String exitRows, String blockedSeats) {
+            this.pattern = pattern != null ? pattern : DEFAULT_PATTERN;
+            this.firstRow = Math.max(1, firstRow);
+            this.exitRows = exitRows != null ? exitRows : "";
+            this.blockedSeats = blockedSeats != null ? blockedSeats : "";
+        }
+    }
+
+    /**
+     * Taken seats of one flight date and cabin, as one column mask per row of {@link #map}.
+     * Guarded by its own monitor.
+     */
+    private static final class Occupancy {
+        final SeatMap map;
+        final long[] rows;
+
+        Occupancy(SeatMap map) {
+            this.map = map;
+            this.rows = new long[map.getRowCount()];
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.example.airlinereservationsystem.services;
+
+import com.example.airlinereservationsystem.DatabaseConnection;
+import com.example.airlinereservationsystem.models.Fleet;
+import com.example.airlinereservationsystem.models.Flight;
+import com.example.airlinereservationsystem.models.User;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * The logged-in user and the reference data the screens share while they are logged in.
+ *
+ * Flights, the fleet, routes, the flight schedule, the fare and refund rules and pages of the users table are loaded on first
+ * use and kept for a while, so moving between screens does not fetch them again. A screen that changes
+ * one of them invalidates it; changes made by other clients show once it expires. Cached lists are
+ * shared between screens and must not be modified.
+ */
+public final class SessionContext {
+    private static final Logger LOGGER = Logger.getLogger(SessionContext.class.getName());
+
+    private static final SessionContext INSTANCE = new SessionContext();
+
+    public static final String ADMIN = "Admin";
+    public static final String STAFF = "Staff";
+    public static final String CUSTOMER = "Customer";
+
+    public static final int USERS_PAGE_SIZE = 50;
+
+    private static final long REFERENCE_TTL_MILLIS = 5 * 60_000;
+    private static final long USERS_TTL_MILLIS = 60_000;
+
+    private final FleetService fleetService = new FleetService();
+
+    private final Cached<List<Flight>> flights = new Cached<>(this::loadFlights, REFERENCE_TTL_MILLIS);
+    private final Cached<List<Fleet>> fleet = new Cached<>(() -> List.copyOf(fleetService.getAllFleets()), REFERENCE_TTL_MILLIS);
+    private final Cached<List<String>> routes = new Cached<>(this::loadRoutes, REFERENCE_TTL_MILLIS);
+    private final Cached<List<Flight>> schedule = new Cached<>(this::loadSchedule, REFERENCE_TTL_MILLIS);
+    private final Cached<Boolean> rules = new Cached<>(this::loadRules, REFERENCE_TTL_MILLIS);
+    private final Cached<Integer> userCount = new Cached<>(this::countUsers, USERS_TTL_MILLIS);
+    private final Map<Integer, Cached<List<User>>> userPages = new HashMap<>();
+
+    private volatile User user;
+    private volatile Set<String> roles = Set.of();
+
+    private SessionContext() { }
+
+    public static SessionContext getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start a session for a user who has just logged in
+     */
+    public void begin(User user) {
+        this.user = user;
+        this.roles = user.isAdmin() ? Set.of(ADMIN, STAFF) : Set.of(user.getRole());
+        LOGGER.info("Session started for " + user.getUsername() + " " + roles);
+    }
+
+    /**
+     * End the session on logout. Reference data is not the user's own, so it stays cached.
+     */
+    public void end() {
+        user = null;
+        roles = Set.of();
+    }
+
+    /**
+     * @return The logged-in user, or null when nobody is
+     */
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * Whether the logged-in user may act in a role; an admin may act as staff
+     */
+    public boolean hasRole(String role) {
+        return roles.contains(role);
+    }
+
+    /**
+     * @return Every flight with its aircraft, by flight name
+     */
+    public List<Flight> getFlights() throws SQLException {
+        return flights.get();
+    }
+
+    /**
+     * @return Every aircraft in the fleet
+     */
+    public List<Fleet> getFleet() throws SQLException {
+        return fleet.get();
+    }
+
+    /**
+     * @return Routes fares are set for, as "source → destination"
+     */
+    public List<String> getRoutes() throws SQLException {
+        return routes.get();
+    }
+
+    /**
+     * @return Every flight once per fare row, with that row's route and times, by flight name. A flight
+     *         without a fare appears once with no route or times.
+     */
+    public List<Flight> getSchedule() throws SQLException {
+        return schedule.get();
+    }
+
+    /**
+     * Reload the fare, refund and overbooking rules unless they were loaded recently
+     */
+    public void refreshRules() throws SQLException {
+        rules.get();
+    }
+
+    /**
+     * One page of the users table, newest first
+     * @param page Page number from 0
+     */
+    public List<User> getUsers(int page) throws SQLException {
+        Cached<List<User>> cached;
+        synchronized (userPages) {
+            cached = userPages.computeIfAbsent(page, p -> new Cached<>(() -> loadUsers(p), USERS_TTL_MILLIS));
+        }
+        return cached.get();
+    }
+
+    public int getUserCount() throws SQLException {
+        return userCount.get();
+    }
+
+    public void invalidateFlights() {
+        flights.invalidate();
+        routes.invalidate();
+        schedule.invalidate();
+    }
+
+    public void invalidateFleet() {
+        fleet.invalidate();
+    }
+
+    public void invalidateRules() {
+        rules.invalidate();
+    }
+
+    public void invalidateUsers() {
+        userCount.invalidate();
+        synchronized (userPages) {
+            userPages.clear();
+        }
+    }
+
+    /**
+     * Drop everything cached, for an explicit refresh
+     */
+    public void invalidateAll() {
+        invalidateFlights();
+        invalidateFleet();
+        invalidateRules();
+        invalidateUsers();
+    }
+
+    private List<Flight> loadFlights() throws SQLException {
+        List<Flight> loaded = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT * FROM flights ORDER BY flight_name");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                Flight flight = new Flight(
+                    rs.getString("flight_name"),
+                    rs.getInt("flight_code"),
+                    rs.getString("class_code"),
+                    rs.getInt("total_exe_seats"),
+                    rs.getInt("total_eco_seats")
+                );
+                flight.setFleetId(rs.getInt("fleet_id"));
+                loaded.add(flight);
+            }
+        }
+        return List.copyOf(loaded);
+    }
+
+    private List<String> loadRoutes() throws SQLException {
+        String sql = """
+            SELECT DISTINCT source_place, dest_place FROM fare
+            WHERE source_place IS NOT NULL AND dest_place IS NOT NULL
+            ORDER BY source_place, dest_place
+        """;
+        List<String> loaded = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                loaded.add(FareEngine.routeName(rs.getString("source_place"), rs.getString("dest_place")));
+            }
+        }
+        return List.copyOf(loaded);
+    }
+
+    private List<Flight> loadSchedule() throws SQLException {
+        String sql = """
+            SELECT f.*, fa.source_place, fa.dest_place, fa.depart_time, fa.arrival_time
+            FROM flights f
+            LEFT JOIN fare fa ON f.flight_code = fa.flight_code
+            ORDER BY f.flight_name
+        """;
+        List<Flight> loaded = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                Flight flight = new Flight(
+                    rs.getString("flight_name"),
+                    rs.getInt("flight_code"),
+                    rs.getString("class_code"),
+                    rs.getInt("total_exe_seats"),
+                    rs.getInt("total_eco_seats")
+                );
+                flight.setFleetId(rs.getInt("fleet_id"));
+                flight.setRoute(FareEngine.routeName(rs.getString("source_place"), rs.getString("dest_place")));
+                Time departTime = rs.getTime("depart_time");
+                Time arrivalTime = rs.getTime("arrival_time");
+                flight.setDepartureTime(departTime != null ? departTime.toString().substring(0, 5) : null);
+                flight.setArrivalTime(arrivalTime != null ? arrivalTime.toString().substring(0, 5) : null);
+                loaded.add(flight);
+            }
+        }
+        return List.copyOf(loaded);
+    }
+
+    private Boolean loadRules() throws SQLException {
+        FareEngine.getInstance().refresh();
+        RefundEngine.getInstance().refresh();
+        OverbookingService.getInstance().refresh();
+        DynamicPricingEngine.getInstance().invalidate();
+        return Boolean.TRUE;
+    }
+
+    private Integer countUsers() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) FROM users");
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private List<User> loadUsers(int page) throws SQLException {
+        String sql = "SELECT user_id, username, full_name, role, created_at FROM users ORDER BY created_at DESC, user_id DESC LIMIT ? OFFSET ?";
+        List<User> loaded = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, USERS_PAGE_SIZE);
+            ps.setInt(2, page * USERS_PAGE_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    User user = new User(
+                        rs.getString("username"),
+                        "", // Passwords are never loaded
+                        rs.getString("full_name"),
+                        rs.getString("role")
+                    );
+                    user.setUserId(rs.getInt("user_id"));
+                    Timestamp created = rs.getTimestamp("created_at");
+                    user.setCreatedAt(created != null ? created.toLocalDateTime() : null);
+                    loaded.add(user);
+                }
+            }
+        }
+        return List.copyOf(loaded);
+    }
+
+    @FunctionalInterface
+    private interface Loader<T> {
+        T load() throws SQLException;
+    }
+
+    /**
+     * A value loaded on first use and again once older than its time to live. Callers asking while it
+     * loads wait for that load rather than starting another.
+     */
+    private static final class Cached<T> {
+        private final Loader<T> loader;
+        private final long ttlMillis;
+        private T value;
+        private long loadedAt;
+
+        Cached(Loader<T> loader, long ttlMillis) {
+            this.loader = loader;
+            this.ttlMillis = ttlMillis;
+        }
+
+        synchronized T get() throws SQLException {
+            long now = System.currentTimeMillis();
+            if (value == null || now - loadedAt >= ttlMillis) {
+                value = loader.load();
+                loadedAt = now;
+            }
+            return value;
+        }
+
+        synchronized void invalidate() {
+            value = null;
+        }
+    }
+}
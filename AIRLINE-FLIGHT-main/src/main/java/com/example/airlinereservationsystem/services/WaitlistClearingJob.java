@@ -0,0 +1,118 @@
+package com.example.airlinereservationsystem.services;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Background job that confirms waiting passengers whenever seats are free for sale while someone is
+ * still waiting: after a cabin grows, the overbooking allowance rises, holds expire or several
+ * cancellations land together.
+ *
+ * The job listens to {@link SeatInventory}. Requests are coalesced: a run starts a short delay after
+ * the first request and clears every flight date in one transaction, so a burst of changes costs one run.
+ */
+public final class WaitlistClearingJob implements SeatInventory.Listener {
+    private static final Logger LOGGER = Logger.getLogger(WaitlistClearingJob.class.getName());
+
+    private static final WaitlistClearingJob INSTANCE = new WaitlistClearingJob(SeatInventory.getInstance(),
+        WaitlistService.getInstance());
+
+    private static final long DELAY_MILLIS = 2_000;
+
+    private final SeatInventory inventory;
+    private final WaitlistService waitlist;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "waitlist-clearing");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Callers waiting for the next run; non-empty while a run is scheduled. Guarded by this
+    private List<CompletableFuture<ReservationService.ClearingResult>> waiting = new ArrayList<>();
+    private volatile Thread worker;
+    private volatile ReservationService.ClearingResult lastResult;
+
+    WaitlistClearingJob(SeatInventory inventory, WaitlistService waitlist) {
+        this.inventory = inventory;
+        this.waitlist = waitlist;
+    }
+
+    public static WaitlistClearingJob getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start listening for inventory changes and clear anything left waiting since the last run.
+     */
+    public void start() {
+        inventory.addListener(this);
+        requestRun();
+    }
+
+    /**
+     * Schedule a run, or join the one already scheduled.
+     * @return Completes with the run's result, or exceptionally if it failed
+     */
+    public synchronized CompletableFuture<ReservationService.ClearingResult> requestRun() {
+        CompletableFuture<ReservationService.ClearingResult> result = new CompletableFuture<>();
+        waiting.add(result);
+        if (waiting.size() == 1) {
+            scheduler.schedule(this::run, DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        return result;
+    }
+
+    /**
+     * @return Result of the last completed run, or null before the first
+     */
+    public ReservationService.ClearingResult getLastResult() {
+        return lastResult;
+    }
+
+    @Override
+    public void inventoryChanged(long key) {
+        // Seats taken by the job itself must not schedule another run
+        if (Thread.currentThread() == worker) return;
+        if (key == SeatInventory.ALL) {
+            requestRun();
+            return;
+        }
+        // Only queues already in memory are checked, so this stays cheap on the booking path
+        if (waitlist.hasWaiting(key)
+            && inventory.authorized(SeatInventory.flightCode(key), SeatInventory.classId(key)) > inventory.sold(key)) {
+            requestRun();
+        }
+    }
+
+    private void run() {
+        List<CompletableFuture<ReservationService.ClearingResult>> callers;
+        synchronized (this) {
+            callers = waiting;
+            waiting = new ArrayList<>();
+        }
+
+        worker = Thread.currentThread();
+        // Every caller is completed, whatever happens
+        try {
+            ReservationService.ClearingResult result = new ReservationService().clearWaitingLists();
+            lastResult = result;
+            if (result.getCleared() > 0) {
+                LOGGER.info("Waiting list clearing: " + result.getSummary());
+            } else {
+                LOGGER.fine("Waiting list clearing found no free seats (" + result.getDurationMillis() + " ms)");
+            }
+            callers.forEach(caller -> caller.complete(result));
+        } catch (SQLException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Waiting list clearing failed", e);
+            callers.forEach(caller -> caller.completeExceptionally(e));
+        } finally {
+            worker = null;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.airlinereservationsystem.services;
+
+import com.example.airlinereservationsystem.DatabaseConnection;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Waiting lists per flight, travel date and cabin.
+ *
+ * Entries are ordered by priority tier, then arrival. Arrival order is the {@code wait_id} the
+ * database hands out from its sequence, so concurrent enqueues never compete for a number.
+ * Each list is loaded from {@code waiting_list} the first time it is used and then kept as a
+ * priority queue, so the next passenger to promote is found in O(log n) without a query.
+ *
+ * Writes run in the caller's transaction: after {@link #enqueue} commits, publish the entries
+ * with {@link #enqueued}; entries taken by {@link #promote} are gone from the queue at once and
+ * must be put back with {@link #restore} if the transaction rolls back.
+ */
+public final class WaitlistService {
+    private static final Logger LOGGER = Logger.getLogger(WaitlistService.class.getName());
+
+    private static final WaitlistService INSTANCE = new WaitlistService();
+
+    /** Passengers the airline moved off their flight, e.g. after a smaller aircraft was substituted. */
+    public static final int TIER_REACCOMMODATION = 0;
+    /** Everyone else, first come first served. */
+    public static final int TIER_STANDARD = 1;
+
+    private static final Comparator<Entry> PRIORITY =
+        Comparator.<Entry>comparingInt(e -> e.tier).thenComparingInt(e -> e.waitId);
+
+    private final ConcurrentHashMap<Long, Queue> queues = new ConcurrentHashMap<>();
+
+    WaitlistService() {
+    }
+
+    public static WaitlistService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Forget a flight's cached queues after its waiting list was rewritten in bulk; they reload on next use.
+     */
+    public void invalidate(int flightCode) {
+        queues.keySet().removeIf(key -> SeatInventory.flightCode(key) == flightCode);
+    }
+
+    /**
+     * Forget one cached queue, by {@link SeatInventory#key}, after another writer changed it.
+     */
+    public void invalidateQueue(long key) {
+        queues.remove(key);
+    }
+
+    /**
+     * Add a passenger to the waiting list inside the caller's transaction.
+     */
+    public Entry enqueue(Connection conn, int customerId, int flightCode, LocalDate travelDate,
+                         String seatClass, int tier) throws SQLException {
+        return enqueueAll(conn, List.of(customerId), flightCode, travelDate, seatClass, tier).get(0);
+    }
+
+    /**
+     * Add several passengers, in order, with one batched insert inside the caller's transaction.
+     * Each entry's {@code waiting_no} records its place in the queue when it joined.
+     */
+    public List<Entry> enqueueAll(Connection conn, List<Integer> customerIds, int flightCode, LocalDate travelDate,
+                                  String seatClass, int tier) throws SQLException {
+        List<Entry> entries = new ArrayList<>();
+        if (customerIds.isEmpty()) return entries;
+
+        Queue queue = queue(conn, flightCode, travelDate, seatClass);
+        int ahead;
+        synchronized (queue) {
+            ahead = (int) queue.heap.stream().filter(e -> e.tier <= tier).count();
+        }
+
+        String sql = """
+            INSERT INTO waiting_list (flight_code, cust_id, seat_class, waiting_no, travel_date, priority_tier)
+            VALUES (?, ?, ?, ?, ?, ?)
+        """;
+        try (PreparedStatement ps = conn.prepareStatement(sql, new String[] { "wait_id" })) {
+            for (int i = 0; i < customerIds.size(); i++) {
+                ps.setInt(1, flightCode);
+                ps.setInt(2, customerIds.get(i));
+                ps.setString(3, seatClass);
+                ps.setInt(4, ahead + i + 1);
+                ps.setDate(5, Date.valueOf(travelDate));
+                ps.setInt(6, tier);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+
+            try (ResultSet rs = ps.getGeneratedKeys()) {
+                for (int i = 0; i < customerIds.size(); i++) {
+                    if (!rs.next()) throw new SQLException("Failed to add to waiting list");
+                    entries.add(new Entry(rs.getInt(1), customerIds.get(i), flightCode, travelDate,
+                                          seatClass, tier, ahead + i + 1));
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Publish entries once the transaction that added them has committed.
+     */
+    public void enqueued(List<Entry> entries) {
+        for (Entry entry : entries) {
+            Queue queue = queues.get(SeatInventory.key(entry.flightCode, entry.travelDate, FareEngine.classId(entry.seatClass)));
+            // Not loaded yet: the first load reads the committed row
+            if (queue == null) continue;
+            synchronized (queue) {
+                if (queue.ids.add(entry.waitId)) queue.heap.add(entry);
+            }
+        }
+    }
+
+    /**
+     * Take up to {@code count} passengers off the front of the list and delete their rows inside the
+     * caller's transaction. Each entry is handed to one caller only; entries whose row has already gone
+     * are skipped. If the transaction rolls back, call {@link #restore}.
+     */
+    public List<Entry> promote(Connection conn, int flightCode, LocalDate travelDate, String seatClass,
+                               int count) throws SQLException {
+        List<Entry> promoted = new ArrayList<>();
+        if (count <= 0) return promoted;
+        Queue queue = queue(conn, flightCode, travelDate, seatClass);
+
+        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM waiting_list WHERE wait_id = ?")) {
+            while (promoted.size() < count) {
+                List<Entry> taken = new ArrayList<>();
+                synchronized (queue) {
+                    while (taken.size() < count - promoted.size() && !queue.heap.isEmpty()) {
+                        Entry entry = queue.heap.poll();
+                        queue.ids.remove(entry.waitId);
+                        taken.add(entry);
+                    }
+                }
+                if (taken.isEmpty()) break;
+
+                for (Entry entry : taken) {
+                    ps.setInt(1, entry.waitId);
+                    ps.addBatch();
+                }
+                int[] deleted = ps.executeBatch();
+                for (int i = 0; i < taken.size(); i++) {
+                    if (deleted[i] != 0) promoted.add(taken.get(i));
+                }
+            }
+        } catch (SQLException e) {
+            restore(promoted);
+            throw e;
+        }
+        return promoted;
+    }
+
+    /**
+     * Put promoted entries back after their transaction rolled back.
+     */
+    public void restore(List<Entry> entries) {
+        enqueued(entries);
+    }
+
+    /**
+     * @return Passengers waiting for a flight date and cabin
+     */
+    public int size(int flightCode, LocalDate travelDate, String seatClass) throws SQLException {
+        long key = SeatInventory.key(flightCode, travelDate, FareEngine.classId(seatClass));
+        Queue queue = queues.get(key);
+        if (queue == null) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                queue = queue(conn, flightCode, travelDate, seatClass);
+            }
+        }
+        synchronized (queue) {
+            return queue.heap.size();
+        }
+    }
+
+    /**
+     * @return true if a cached queue for a {@link SeatInventory#key} has someone waiting; queues not
+     *         loaded yet count as empty, so this never touches the database
+     */
+    public boolean hasWaiting(long key) {
+        Queue queue = queues.get(key);
+        if (queue == null) return false;
+        synchronized (queue) {
+            return !queue.heap.isEmpty();
+        }
+    }
+
+    /**
+     * Cached queue, loaded on first use through the given connection (which stays open, so this is
+     * safe inside the caller's transaction).
+     */
+    private Queue queue(Connection conn, int flightCode, LocalDate travelDate, String seatClass) throws SQLException {
+        long key = SeatInventory.key(flightCode, travelDate, FareEngine.classId(seatClass));
+        Queue cached = queues.get(key);
+        if (cached != null) return cached;
+
+        Queue loaded = new Queue();
+        String sql = """
+            SELECT wait_id, cust_id, waiting_no, priority_tier FROM waiting_list
+            WHERE flight_code = ? AND travel_date = ? AND seat_class = ?
+        """;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, flightCode);
+            ps.setDate(2, Date.valueOf(travelDate));
+            ps.setString(3, seatClass);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Entry entry = new Entry(rs.getInt("wait_id"), rs.getInt("cust_id"), flightCode, travelDate,
+                                            seatClass, rs.getInt("priority_tier"), rs.getInt("waiting_no"));
+                    loaded.ids.add(entry.waitId);
+                    loaded.heap.add(entry);
+                }
+            }
+        }
+
+        // Keep whichever copy another thread may have installed meanwhile
+        Queue installed = queues.putIfAbsent(key, loaded);
+        if (installed == null) {
+            LOGGER.fine("Loaded " + loaded.heap.size() + " waiting list entries for flight " + flightCode + " on " + travelDate);
+            return loaded;
+        }
+        return installed;
+    }
+
+    /**
+     * One passenger on a waiting list
+     */
+    public static final class Entry {
+        private final int waitId;
+        private final int customerId;
+        private final int flightCode;
+        private final LocalDate travelDate;
+        private final String seatClass;
+        private final int tier;
+        private final int waitingNumber;
+
+        Entry(int waitId, int customerId, int flightCode, LocalDate travelDate, String seatClass,
+              int tier, int waitingNumber) {
+            this.waitId = waitId;
+            this.customerId = customerId;
+            this.flightCode = flightCode;
+            this.travelDate = travelDate;
+            this.seatClass = seatClass;
+            this.tier = tier;
+            this.waitingNumber = waitingNumber;
+        }
+
+        public int getWaitId() { return waitId; }
+        public int getCustomerId() { return customerId; }
+        public int getFlightCode() { return flightCode; }
+        public LocalDate getTravelDate() { return travelDate; }
+        public String getSeatClass() { return seatClass; }
+        public int getTier() { return tier; }
+        /** Place in the queue when the passenger joined */
+        public int getWaitingNumber() { return waitingNumber; }
+    }
+
+    /**
+     * One flight date and cabin's list. Guarded by its own monitor.
+     */
+    private static final class Queue {
+        final PriorityQueue<Entry> heap = new PriorityQueue<>(PRIORITY);
+        final Set<Integer> ids = new HashSet<>();
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.airlinereservationsystem.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writer for a compact column-oriented export file.
+ * Rows are collected into fixed-size row groups; each full group is written column by column,
+ * so only one group is ever held in memory.
+ *
+ * Layout (little-endian):
+ * <pre>
+ *   header : "ARC1", version byte, int columnCount, then per column: name, type byte, scale byte;
+ *            int rowGroupSize
+ *   group  : int rowCount, then per column: null bitmap (long words), values
+ *              FLOAT64  8 bytes per row
+ *              STRING   int dictionarySize, packed entry lengths, int byteCount, UTF-8 bytes,
+ *                       packed per-row dictionary codes
+ *              others   packed values (DECIMAL holds the unscaled value, DATE the epoch day,
+ *                       TIMESTAMP epoch microseconds, BOOLEAN 0/1)
+ *   footer : int groupCount, long offset per group, long totalRows, long footerOffset, "ARC1"
+ * </pre>
+ * A packed run is a long base (the minimum), a byte width (0, 1, 2, 4 or 8) and then
+ * {@code value - base} for every entry in that many bytes; width 0 means every value equals the base.
+ * Names in the header are an int byte count followed by UTF-8 bytes. Null slots hold zero.
+ */
+public final class ColumnarWriter implements Closeable {
+
+    private static final byte[] MAGIC = {'A', 'R', 'C', '1'};
+    private static final int VERSION = 1;
+
+    public enum ColumnType { INT64, DECIMAL, FLOAT64, DATE, TIMESTAMP, BOOLEAN, STRING }
+
+    private final ChannelWriter out;
+    private final ColumnType[] types;
+    private final int rowGroupSize;
+
+    // One row group of buffered values, reused for every group
+    private final long[][] longValues;
+    private final double[][] doubleValues;
+    private final long[][] nullBits;
+
+    // Per-group string dictionaries: distinct values are stored once, rows hold codes
+    private final List<Map<String, Integer>> dictionaries = new ArrayList<>();
+    private final long[][] dictionaryLengths;
+    private final byte[][] dictionaryBytes;
+    private final int[] dictionaryUsed;
+
+    private final List<Long> groupOffsets = new ArrayList<>();
+    private int rowsInGroup;
+    private long totalRows;
+
+    public ColumnarWriter(ChannelWriter out, String[] names, ColumnType[] types, int[] scales,
+                          int rowGroupSize) throws IOException {
+        this.out = out;
+        this.types = types.clone();
+        this.rowGroupSize = rowGroupSize;
+
+        int columns = types.length;
+        longValues = new long[columns][];
+        doubleValues = new double[columns][];
+        nullBits = new long[columns][(rowGroupSize + 63) / 64];
+        dictionaryLengths = new long[columns][];
+        dictionaryBytes = new byte[columns][];
+        dictionaryUsed = new int[columns];
+        for (int c = 0; c < columns; c++) {
+            if (types[c] == ColumnType.FLOAT64) {
+                doubleValues[c] = new double[rowGroupSize];
+            } else {
+                longValues[c] = new long[rowGroupSize];
+            }
+            if (types[c] == ColumnType.STRING) {
+                dictionaries.add(new HashMap<>());
+                dictionaryLengths[c] = new long[rowGroupSize];
+                dictionaryBytes[c] = new byte[rowGroupSize * 8];
+            } else {
+                dictionaries.add(null);
+            }
+        }
+
+        out.writeBytes(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(columns);
+        for (int c = 0; c < columns; c++) {
+            writeString(names[c]);
+            out.writeByte(types[c].ordinal());
+            out.writeByte(scales[c]);
+        }
+        out.writeInt(rowGroupSize);
+    }
+
+    public void setLong(int column, long value) {
+        longValues[column][rowsInGroup] = value;
+    }
+
+    public void setDouble(int column, double value) {
+        doubleValues[column][rowsInGroup] = value;
+    }
+
+    public void setString(int column, String value) {
+        Map<String, Integer> dictionary = dictionaries.get(column);
+        Integer code = dictionary.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.put(value, code);
+
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            int start = dictionaryUsed[column];
+            int end = start + bytes.length;
+            if (end > dictionaryBytes[column].length) {
+                dictionaryBytes[column] = Arrays.copyOf(dictionaryBytes[column],
+                    Math.max(end, dictionaryBytes[column].length * 2));
+            }
+            System.arraycopy(bytes, 0, dictionaryBytes[column], start, bytes.length);
+            dictionaryUsed[column] = end;
+            dictionaryLengths[column][code] = bytes.length;
+        }
+        longValues[column][rowsInGroup] = code;
+    }
+
+    public void setNull(int column) {
+        nullBits[column][rowsInGroup >>> 6] |= 1L << (rowsInGroup & 63);
+        if (types[column] == ColumnType.FLOAT64) {
+            doubleValues[column][rowsInGroup] = 0;
+        } else {
+            longValues[column][rowsInGroup] = 0;
+        }
+    }
+
+    /**
+     * Finish the current row; writes the row group once it is full.
+     */
+    public void endRow() throws IOException {
+        rowsInGroup++;
+        totalRows++;
+        if (rowsInGroup == rowGroupSize) {
+            writeGroup();
+        }
+    }
+
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (rowsInGroup > 0) {
+            writeGroup();
+        }
+        long footerOffset = out.position();
+        out.writeInt(groupOffsets.size());
+        for (long offset : groupOffsets) {
+            out.writeLong(offset);
+        }
+        out.writeLong(totalRows);
+        out.writeLong(footerOffset);
+        out.writeBytes(MAGIC);
+        out.close();
+    }
+
+    private void writeGroup() throws IOException {
+        groupOffsets.add(out.position());
+        int rows = rowsInGroup;
+        out.writeInt(rows);
+
+        for (int c = 0; c < types.length; c++) {
+            int words = (rows + 63) / 64;
+            for (int w = 0; w < words; w++) {
+                out.writeLong(nullBits[c][w]);
+            }
+            Arrays.fill(nullBits[c], 0L);
+
+            if (types[c] == ColumnType.FLOAT64) {
+                for (int r = 0; r < rows; r++) out.writeDouble(doubleValues[c][r]);
+            } else if (types[c] == ColumnType.STRING) {
+                Map<String, Integer> dictionary = dictionaries.get(c);
+                out.writeInt(dictionary.size());
+                writePacked(dictionaryLengths[c], dictionary.size());
+                out.writeInt(dictionaryUsed[c]);
+                out.writeBytes(dictionaryBytes[c], 0, dictionaryUsed[c]);
+                writePacked(longValues[c], rows);
+                dictionary.clear();
+                dictionaryUsed[c] = 0;
+            } else {
+                writePacked(longValues[c], rows);
+            }
+        }
+        rowsInGroup = 0;
+    }
+
+    /**
+     * Frame-of-reference encoding: store the minimum once and each value as a narrow offset from it.
+     */
+    private void writePacked(long[] values, int count) throws IOException {
+        long min = count == 0 ? 0 : Long.MAX_VALUE;
+        long max = count == 0 ? 0 : Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            min = Math.min(min, values[i]);
+            max = Math.max(max, values[i]);
+        }
+
+        // Compare unsigned so a range wider than Long.MAX_VALUE falls through to 8 bytes
+        long range = max - min;
+        int width;
+        if (range == 0) width = 0;
+        else if (Long.compareUnsigned(range, 1L << 8) < 0) width = 1;
+        else if (Long.compareUnsigned(range, 1L << 16) < 0) width = 2;
+        else if (Long.compareUnsigned(range, 1L << 32) < 0) width = 4;
+        else width = 8;
+
+        out.writeLong(min);
+        out.writeByte(width);
+        for (int i = 0; i < count; i++) {
+            long delta = values[i] - min;
+            switch (width) {
+                case 1:
+                    out.writeByte((int) delta);
+                    break;
+                case 2:
+                    out.writeByte((int) delta);
+                    out.writeByte((int) (delta >>> 8));
+                    break;
+                case 4:
+                    out.writeInt((int) delta);
+                    break;
+                case 8:
+                    out.writeLong(delta);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.writeBytes(bytes);
+    }
+}
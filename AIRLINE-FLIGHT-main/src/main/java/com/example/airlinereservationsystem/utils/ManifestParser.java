@@ -0,0 +1,268 @@
+package com.example.airlinereservationsystem.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming reader for passenger manifests used by group and charter bookings.
+ * Supports CSV with a header row and JSON (an array of flat objects, or one object per line).
+ * Each row is handed to the consumer as soon as it is parsed, keyed by lower-case column name.
+ */
+public final class ManifestParser {
+
+    private ManifestParser() { }
+
+    /**
+     * Parse a CSV manifest. The first record is the header.
+     * @param reader Source of the manifest
+     * @param sink Receives the 1-based line number and the parsed columns of each data row
+     */
+    public static void parseCsv(Reader reader, RowSink sink) throws IOException {
+        BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        List<String> header = null;
+        int lineNo = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            int startLine = lineNo;
+
+            // Quoted fields may span lines
+            StringBuilder record = new StringBuilder(line);
+            while (countQuotes(record) % 2 != 0) {
+                String next = in.readLine();
+                if (next == null) break;
+                lineNo++;
+                record.append('\n').append(next);
+            }
+
+            if (record.toString().isBlank()) continue;
+
+            List<String> fields = splitCsv(record);
+            if (header == null) {
+                header = new ArrayList<>(fields.size());
+                for (String name : fields) {
+                    header.add(name.trim().toLowerCase(Locale.ROOT));
+                }
+                continue;
+            }
+
+            Map<String, String> row = new LinkedHashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                row.put(header.get(i), i < fields.size() ? fields.get(i).trim() : "");
+            }
+            sink.accept(startLine, row);
+        }
+    }
+
+    /**
+     * Parse a JSON manifest: either a top-level array of flat objects or newline-delimited objects.
+     * Nested values are not supported; numbers, booleans and null are returned as strings.
+     */
+    public static void parseJson(Reader reader, RowSink sink) throws IOException {
+        JsonCursor cursor = new JsonCursor(reader instanceof BufferedReader ? reader : new BufferedReader(reader));
+        int c = cursor.skipWhitespace();
+        boolean inArray = c == '[';
+        if (inArray) {
+            cursor.read();
+        }
+
+        int rowNo = 0;
+        while (true) {
+            c = cursor.skipWhitespace();
+            if (c == -1) break;
+            if (inArray && c == ']') {
+                cursor.read();
+                break;
+            }
+            if (c == ',') {
+                cursor.read();
+                continue;
+            }
+            if (c != '{') {
+                throw new IOException("Expected '{' at line " + cursor.line + " but found '" + (char) c + "'");
+            }
+            rowNo++;
+            int startLine = cursor.line;
+            Map<String, String> row = cursor.readObject();
+            sink.accept(inArray ? rowNo : startLine, row);
+        }
+    }
+
+    /**
+     * Choose the parser based on the file name extension (.csv, .json or .jsonl).
+     */
+    public static void parse(String fileName, Reader reader, RowSink sink) throws IOException {
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".json") || lower.endsWith(".jsonl") || lower.endsWith(".ndjson")) {
+            parseJson(reader, sink);
+        } else {
+            parseCsv(reader, sink);
+        }
+    }
+
+    private static int countQuotes(CharSequence s) {
+        int count = 0;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) == '"') count++;
+        }
+        return count;
+    }
+
+    private static List<String> splitCsv(CharSequence record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char ch = record.charAt(i);
+            if (quoted) {
+                if (ch == '"') {
+                    if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(ch);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Callback for parsed manifest rows.
+     */
+    @FunctionalInterface
+    public interface RowSink {
+        void accept(int lineNumber, Map<String, String> row) throws IOException;
+    }
+
+    /**
+     * Minimal pull reader for flat JSON objects.
+     */
+    private static final class JsonCursor {
+        private final Reader in;
+        private int peeked = -2;
+        private int line = 1;
+
+        JsonCursor(Reader in) {
+            this.in = in;
+        }
+
+        int peek() throws IOException {
+            if (peeked == -2) {
+                peeked = in.read();
+            }
+            return peeked;
+        }
+
+        int read() throws IOException {
+            int c = peek();
+            peeked = -2;
+            if (c == '\n') line++;
+            return c;
+        }
+
+        int skipWhitespace() throws IOException {
+            int c = peek();
+            while (c != -1 && Character.isWhitespace(c)) {
+                read();
+                c = peek();
+            }
+            return c;
+        }
+
+        Map<String, String> readObject() throws IOException {
+            Map<String, String> row = new LinkedHashMap<>();
+            expect('{');
+            if (skipWhitespace() == '}') {
+                read();
+                return row;
+            }
+            while (true) {
+                skipWhitespace();
+                String key = readString().toLowerCase(Locale.ROOT);
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                row.put(key, readValue());
+                int c = skipWhitespace();
+                if (c == ',') {
+                    read();
+                } else if (c == '}') {
+                    read();
+                    return row;
+                } else {
+                    throw new IOException("Malformed object at line " + line);
+                }
+            }
+        }
+
+        private String readValue() throws IOException {
+            int c = peek();
+            if (c == '"') {
+                return readString();
+            }
+            if (c == '{' || c == '[') {
+                throw new IOException("Nested values are not supported in manifests (line " + line + ")");
+            }
+            StringBuilder literal = new StringBuilder();
+            while (c != -1 && c != ',' && c != '}' && !Character.isWhitespace(c)) {
+                literal.append((char) read());
+                c = peek();
+            }
+            String value = literal.toString();
+            return "null".equals(value) ? "" : value;
+        }
+
+        private String readString() throws IOException {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                int c = read();
+                if (c == -1) throw new IOException("Unterminated string at line " + line);
+                if (c == '"') return sb.toString();
+                if (c == '\\') {
+                    int esc = read();
+                    switch (esc) {
+                        case 'n': sb.append('\n'); break;
+                        case 't': sb.append('\t'); break;
+                        case 'r': sb.append('\r'); break;
+                        case 'b': sb.append('\b'); break;
+                        case 'f': sb.append('\f'); break;
+                        case 'u':
+                            char[] hex = new char[4];
+                            for (int i = 0; i < 4; i++) hex[i] = (char) read();
+                            sb.append((char) Integer.parseInt(new String(hex), 16));
+                            break;
+                        default: sb.append((char) esc);
+                    }
+                } else {
+                    sb.append((char) c);
+                }
+            }
+        }
+
+        private void expect(char expected) throws IOException {
+            int c = read();
+            if (c != expected) {
+                throw new IOException("Expected '" + expected + "' at line " + line);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.airlinereservationsystem.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Exact money arithmetic on amounts held as a primitive {@code long} number of cents.
+ * Matches the NUMERIC(10,2) columns exactly; none of the arithmetic allocates.
+ * Convert to {@code double} only for display bindings.
+ */
+public final class Money {
+
+    public static final long ZERO = 0L;
+
+    private static final int BASIS_POINTS = 10_000;
+
+    private Money() { }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    public static long multiply(long cents, long quantity) {
+        return Math.multiplyExact(cents, quantity);
+    }
+
+    /**
+     * Portion of an amount given in basis points (2500 = 25%), rounded half-up to the cent.
+     */
+    public static long applyBasisPoints(long cents, int basisPoints) {
+        long scaled = Math.multiplyExact(cents, basisPoints);
+        long half = BASIS_POINTS / 2;
+        return scaled >= 0 ? (scaled + half) / BASIS_POINTS : -((-scaled + half) / BASIS_POINTS);
+    }
+
+    public static long fromBigDecimal(BigDecimal amount) {
+        if (amount == null) return ZERO;
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * Read a NUMERIC money column as cents; SQL NULL reads as zero.
+     */
+    public static long read(ResultSet rs, String column) throws SQLException {
+        return fromBigDecimal(rs.getBigDecimal(column));
+    }
+
+    public static long read(ResultSet rs, int column) throws SQLException {
+        return fromBigDecimal(rs.getBigDecimal(column));
+    }
+
+    public static void bind(PreparedStatement ps, int index, long cents) throws SQLException {
+        ps.setBigDecimal(index, toBigDecimal(cents));
+    }
+
+    /**
+     * For display bindings (table columns, charts) only.
+     */
+    public static double toDouble(long cents) {
+        return cents / 100.0;
+    }
+
+    /**
+     * @return The amount as plain digits with two decimals, e.g. "850.00" or "-12.05"
+     */
+    public static String format(long cents) {
+        long abs = Math.abs(cents);
+        long fraction = abs % 100;
+        return (cents < 0 ? "-" : "") + (abs / 100) + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+
+    public static long parse(String amount) {
+        return fromBigDecimal(new BigDecimal(amount.trim()));
+    }
+}
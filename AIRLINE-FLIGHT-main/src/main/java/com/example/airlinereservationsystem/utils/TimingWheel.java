@@ -0,0 +1,125 @@
+package com.example.airlinereservationsystem.utils;
+
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel: a ring of slots, each a doubly linked list of timeouts.
+ * A timeout goes into the slot of the tick at which it is due, with a count of full turns still to wait,
+ * so scheduling and cancelling are O(1) and each tick only visits the entries in one slot,
+ * however many timeouts are pending.
+ *
+ * Not thread-safe; callers synchronize. Time is passed in, so the owner decides what drives the ticks.
+ */
+public final class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final Timeout<T>[] heads;
+    private final int mask;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int slots, long nowMillis) {
+        if (tickMillis <= 0) throw new IllegalArgumentException("tickMillis must be positive");
+        if (slots <= 0 || Integer.bitCount(slots) != 1) throw new IllegalArgumentException("slots must be a power of two");
+        this.tickMillis = tickMillis;
+        this.startMillis = nowMillis;
+        this.heads = (Timeout<T>[]) new Timeout<?>[slots];
+        this.mask = slots - 1;
+    }
+
+    /**
+     * Schedule an item to expire at a wall-clock time. A deadline already past expires on the next tick.
+     */
+    public Timeout<T> schedule(T item, long deadlineMillis) {
+        // Round up so an item never expires before its deadline
+        long dueTick = Math.max(currentTick, Math.floorDiv(deadlineMillis - startMillis + tickMillis - 1, tickMillis));
+        Timeout<T> timeout = new Timeout<>(item, deadlineMillis, (dueTick - currentTick) / heads.length,
+                                           (int) (dueTick & mask));
+        Timeout<T> head = heads[timeout.slot];
+        timeout.next = head;
+        if (head != null) head.prev = timeout;
+        heads[timeout.slot] = timeout;
+        size++;
+        return timeout;
+    }
+
+    /**
+     * @return true if the timeout was pending and is now removed, false if it already expired or was cancelled
+     */
+    public boolean cancel(Timeout<T> timeout) {
+        if (timeout == null || !timeout.pending) return false;
+        unlink(timeout);
+        return true;
+    }
+
+    /**
+     * Process every tick that has come due by {@code nowMillis}, handing expired items to the callback.
+     * @return Number of items expired
+     */
+    public int advance(long nowMillis, Consumer<? super T> onExpired) {
+        int expired = 0;
+        while (startMillis + currentTick * tickMillis <= nowMillis) {
+            int slot = (int) (currentTick & mask);
+            Timeout<T> timeout = heads[slot];
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                if (timeout.rounds <= 0) {
+                    unlink(timeout);
+                    onExpired.accept(timeout.item);
+                    expired++;
+                } else {
+                    timeout.rounds--;
+                }
+                timeout = next;
+            }
+            currentTick++;
+        }
+        return expired;
+    }
+
+    /**
+     * @return Number of pending timeouts
+     */
+    public int size() {
+        return size;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            heads[timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) timeout.next.prev = timeout.prev;
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.pending = false;
+        size--;
+    }
+
+    /**
+     * Handle for one scheduled item.
+     */
+    public static final class Timeout<T> {
+        private final T item;
+        private final long deadlineMillis;
+        private final int slot;
+        private long rounds;
+        private boolean pending = true;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(T item, long deadlineMillis, long rounds, int slot) {
+            this.item = item;
+            this.deadlineMillis = deadlineMillis;
+            this.rounds = rounds;
+            this.slot = slot;
+        }
+
+        public T getItem() { return item; }
+        public long getDeadlineMillis() { return deadlineMillis; }
+        public boolean isPending() { return pending; }
+    }
+}
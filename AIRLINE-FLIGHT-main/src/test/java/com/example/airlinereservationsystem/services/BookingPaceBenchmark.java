@@ -0,0 +1,74 @@
+package com.example.airlinereservationsystem.services;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Measures booking curve and pace queries against a synthetic booking pace store holding two years of
+ * departures. Needs no database; the default of 20 million reservations wants about 1 GB of heap.
+ * Run from the test classpath with: {@code java -Xmx1g ... services.BookingPaceBenchmark [reservations] [flights] [seconds]}
+ */
+public final class BookingPaceBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MAX_LEAD = 330;
+
+    private BookingPaceBenchmark() { }
+
+    public static void main(String[] args) {
+        int reservations = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+        int flights = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        BookingPaceStore store = new BookingPaceStore(BookingEventLog.getInstance());
+        LocalDate today = LocalDate.now();
+        int firstDay = (int) today.minusDays(BookingPaceStore.YEAR_DAYS).toEpochDay();
+        int days = BookingPaceStore.YEAR_DAYS + 90;
+        Random random = new Random(42);
+
+        // Bookings spread over every flight and departure, most of them made in the last few weeks out
+        long started = System.nanoTime();
+        for (int id = 1; id <= reservations; id++) {
+            int flight = 1 + random.nextInt(flights);
+            int lead = (int) Math.min(MAX_LEAD, -Math.log(1 - random.nextDouble()) * 30);
+            store.append(id, flight, "QX" + flight, firstDay + random.nextInt(days), (short) lead, random.nextInt(10) != 0);
+        }
+        store.publish();
+        System.out.printf("Loaded %,d reservations in %d ms%n", store.size(), (System.nanoTime() - started) / 1_000_000);
+
+        LocalDate departure = today.plusDays(30);
+        long sink = 0;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            sink += store.curve(1 + round % flights, departure, MAX_LEAD)[0];
+            sink += store.pace(departure, today).size();
+        }
+
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long curves = 0;
+        started = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            sink += store.curve(1 + random.nextInt(flights), today.plusDays(random.nextInt(90)), MAX_LEAD)[7];
+            curves++;
+        }
+        long curveNanos = System.nanoTime() - started;
+
+        deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long paces = 0;
+        started = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            sink += store.pace(today.plusDays(random.nextInt(90)), today).size();
+            paces++;
+        }
+        long paceNanos = System.nanoTime() - started;
+
+        System.out.printf("Store: %,d reservations, %d flights, %d departure days%n", store.size(), flights, days);
+        report("Booking curve", curves, curveNanos);
+        report("Pace, all flights", paces, paceNanos);
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    private static void report(String name, long operations, long nanos) {
+        System.out.printf("%-20s %,12d ops/s  %8.1f ms/op%n", name,
+            operations * 1_000_000_000L / nanos, nanos / 1_000_000.0 / operations);
+    }
+}
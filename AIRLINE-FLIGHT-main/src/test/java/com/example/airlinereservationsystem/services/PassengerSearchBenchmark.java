@@ -0,0 +1,115 @@
+package com.example.airlinereservationsystem.services;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Measures passenger search against a synthetic index of reservations with generated names, phone
+ * numbers and PNRs. Needs no database; the default of 3 million reservations wants about 3 GB of heap.
+ * Run from the test classpath with: {@code java -Xmx3g ... services.PassengerSearchBenchmark [reservations] [seconds]}
+ */
+public final class PassengerSearchBenchmark {
+
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int FIRST_NAME_COUNT = 400;
+    private static final int SURNAME_COUNT = 5_000;
+
+    private static final String[] FIRST_NAMES = {
+        "Thabo", "Lineo", "Mpho", "Palesa", "Thabiso", "Mamello", "Lebohang", "Refiloe", "Teboho", "Nthabiseng",
+        "Karabo", "Puleng", "Tumelo", "Limpho", "Retselisitsoe", "Mosa", "Keketso", "Lerato", "Tsepo", "Matseliso",
+        "John", "Mary", "Peter", "Grace", "David", "Sarah", "James", "Anna", "Michael", "Ruth"
+    };
+    private static final String[] SURNAMES = {
+        "Monne", "Taki", "Sekhonyana", "Mokoena", "Molefe", "Ntšo", "Khiba", "Mofokeng", "Letsie", "Mohapi",
+        "Ramoholi", "Makara", "Lerotholi", "Mosisili", "Thabane", "Majoro", "Motanyane", "Seeiso", "Nkuebe", "Lekhanya"
+    };
+    private static final String[] SYLLABLES = {
+        "ma", "mo", "tse", "tha", "le", "se", "ke", "ra", "li", "po", "nto", "ho", "bo", "ne", "so", "ku", "pe", "ri",
+        "the", "fo", "ka", "lo", "mpho", "na", "ba", "tsi", "hla", "mo", "e", "a"
+    };
+
+    private PassengerSearchBenchmark() { }
+
+    public static void main(String[] args) {
+        int reservations = args.length > 0 ? Integer.parseInt(args[0]) : 3_000_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        PassengerSearchIndex index = new PassengerSearchIndex(BookingEventLog.getInstance());
+        int today = (int) LocalDate.now().toEpochDay();
+        Random random = new Random(42);
+
+        // The listed names are the most common; rarer ones are made up from syllables
+        String[] firstNames = vocabulary(FIRST_NAMES, FIRST_NAME_COUNT, random);
+        String[] surnames = vocabulary(SURNAMES, SURNAME_COUNT, random);
+        long started = System.nanoTime();
+        String[] names = new String[reservations];
+        String[] phones = new String[reservations];
+        for (int id = 1; id <= reservations; id++) {
+            names[id - 1] = skewed(firstNames, random) + " " + skewed(surnames, random);
+            phones[id - 1] = "+266-" + (5000 + random.nextInt(4000)) + "-" + String.format("%04d", random.nextInt(10_000));
+            index.append(id, "PNR" + String.format("%06d", id % 1_000_000), names[id - 1], phones[id - 1],
+                1 + random.nextInt(200), "QX" + id % 200, today + random.nextInt(365), "Confirmed");
+        }
+        long appended = System.nanoTime();
+        index.publish();
+        System.out.printf("Built index of %,d reservations in %d ms (%d ms indexing)%n", index.size(),
+            (System.nanoTime() - started) / 1_000_000, (System.nanoTime() - appended) / 1_000_000);
+
+        long sink = 0;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            sink += index.search(names[random.nextInt(reservations)], PassengerSearchIndex.DEFAULT_LIMIT).size();
+        }
+
+        String[] kinds = { "Full name", "Name with typo", "Surname prefix", "Phone digits", "PNR" };
+        for (int kind = 0; kind < kinds.length; kind++) {
+            long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+            long queries = 0;
+            long worst = 0;
+            long nanos = 0;
+            while (System.nanoTime() < deadline) {
+                int row = random.nextInt(reservations);
+                String query = switch (kind) {
+                    case 0 -> names[row];
+                    case 1 -> typo(names[row], random);
+                    case 2 -> names[row].substring(names[row].indexOf(' ') + 1, Math.min(names[row].length(), names[row].indexOf(' ') + 5));
+                    case 3 -> phones[row].substring(phones[row].length() - 7);
+                    default -> "PNR" + String.format("%06d", (row + 1) % 1_000_000);
+                };
+                long before = System.nanoTime();
+                sink += index.search(query, PassengerSearchIndex.DEFAULT_LIMIT).size();
+                long took = System.nanoTime() - before;
+                nanos += took;
+                worst = Math.max(worst, took);
+                queries++;
+            }
+            System.out.printf("%-16s %,10d queries  %6.2f ms avg  %6.2f ms worst%n", kinds[kind], queries,
+                nanos / 1_000_000.0 / queries, worst / 1_000_000.0);
+        }
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    private static String[] vocabulary(String[] common, int count, Random random) {
+        String[] words = Arrays.copyOf(common, count);
+        for (int i = common.length; i < count; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int syllables = 2 + random.nextInt(3); syllables > 0; syllables--) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            words[i] = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+        }
+        return words;
+    }
+
+    /**
+     * A word drawn with a long tail: the first ones far more often than the last
+     */
+    private static String skewed(String[] words, Random random) {
+        return words[(int) (words.length * Math.pow(random.nextDouble(), 2.5))];
+    }
+
+    private static String typo(String name, Random random) {
+        int at = 1 + random.nextInt(name.length() - 2);
+        return name.substring(0, at) + (char) ('a' + random.nextInt(26)) + name.substring(at + 1);
+    }
+}
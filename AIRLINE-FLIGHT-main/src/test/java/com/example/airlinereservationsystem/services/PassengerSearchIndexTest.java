@@ -0,0 +1,134 @@
+package com.example.airlinereservationsystem.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PassengerSearchIndexTest {
+    private static final int DAY = (int) LocalDate.of(2026, 12, 1).toEpochDay();
+    private static final int FILLERS = 2_000;
+
+    private PassengerSearchIndex index;
+    private int nextId;
+
+    @BeforeEach
+    void setUp() {
+        index = new PassengerSearchIndex(new BookingEventLog());
+        nextId = 1;
+    }
+
+    @Test
+    void foldDropsAccentsAndCaseAndCollapsesBreaks() {
+        assertArrayEquals(PassengerSearchIndex.fold("zoe o neil", true), PassengerSearchIndex.fold("  ZOË  O'Neil!", true));
+        assertEquals(0, PassengerSearchIndex.fold("mary", true)[0]);
+        assertEquals(4, PassengerSearchIndex.fold("mary", false).length);
+    }
+
+    @Test
+    void mergeFindsRareNamesAmongCommonOnesNewestFirst() {
+        // The common "Mary" trigrams have long lists and the rare surname short ones, so the short lists
+        // are merged and the long ones probed
+        addFillers();
+        int first = add("Mary Mokoena", "+266 5800 0001");
+        int second = add("Mary Mokoena", "+266 5800 0002");
+        int other = add("Thabo Mokoena", "+266 5800 0003");
+        index.publish();
+
+        List<PassengerSearchIndex.Match> matches = index.search("Mary Mokoena", 10);
+        assertEquals(List.of(second, first, other), ids(matches));
+        assertEquals(1.0, matches.get(0).getScore());
+        assertTrue(matches.get(2).getScore() < 1.0);
+    }
+
+    @Test
+    void countReturnsTheNewestOfEqualMatches() {
+        // Every list is as long as every other, so all of them are counted in one pass
+        addFillers();
+        index.publish();
+
+        List<Integer> found = ids(index.search("Mary Smith", 5));
+        assertEquals(List.of(FILLERS, FILLERS - 1, FILLERS - 2, FILLERS - 3, FILLERS - 4), found);
+    }
+
+    @Test
+    void fullMatchRanksAboveNewerPartialOnes() {
+        addFillers();
+        int rare = add("Mary Smithers", "+266 5800 0004");
+        index.publish();
+
+        List<PassengerSearchIndex.Match> matches = index.search("Mary Smithers", 3);
+        assertEquals(rare, matches.get(0).getReservationId());
+        assertEquals(1.0, matches.get(0).getScore());
+        assertEquals(List.of(FILLERS, FILLERS - 1), ids(matches.subList(1, 3)));
+    }
+
+    @Test
+    void shortQueriesAllowNoTypos() {
+        add("Lea Molapo", "+266 5800 0005");
+        index.publish();
+
+        assertEquals(1, index.search("lea", 10).size());
+        assertTrue(index.search("lee", 10).isEmpty());
+    }
+
+    @Test
+    void mediumQueriesAllowOneTypoButNotBelowHalf() {
+        int id = add("Thabo Nkosi", "+266 5800 0006");
+        index.publish();
+
+        // "\0thabo" has four trigrams; at least two must match
+        assertEquals(List.of(id), ids(index.search("thabx", 10)));
+        assertTrue(index.search("thxbo", 10).isEmpty());
+    }
+
+    @Test
+    void longQueriesAllowTwoTypos() {
+        int id = add("Lerato Mokhethi", "+266 5800 0007");
+        index.publish();
+
+        // "\0mokhethi" has seven trigrams; at least four must match
+        assertEquals(List.of(id), ids(index.search("Mokhathi", 10)));
+        assertTrue(index.search("Mxkhethx", 10).isEmpty());
+    }
+
+    @Test
+    void digitQueriesMatchAnywhereInThePhoneNumber() {
+        int id = add("Palesa Ramone", "+266 5812 3456");
+        index.publish();
+
+        assertEquals(List.of(id), ids(index.search("12 34", 10)));
+        assertEquals(List.of(id), ids(index.search("58123456", 10)));
+    }
+
+    @Test
+    void rowsAreSearchableOnlyOncePublished() {
+        index.publish();
+        int id = add("Neo Sello", "+266 5800 0008");
+        assertTrue(index.search("Neo Sello", 10).isEmpty());
+        assertEquals(0, index.size());
+
+        index.publish();
+        assertEquals(List.of(id), ids(index.search("Neo Sello", 10)));
+    }
+
+    private void addFillers() {
+        for (int i = 0; i < FILLERS; i++) {
+            add("Mary Smith", "+266 6" + String.format("%07d", i));
+        }
+    }
+
+    private int add(String name, String phone) {
+        int id = nextId++;
+        index.append(id, String.format("PNR%06d", id), name, phone, 101, "Lesotho101", DAY, "Confirmed");
+        return id;
+    }
+
+    private static List<Integer> ids(List<PassengerSearchIndex.Match> matches) {
+        return matches.stream().map(PassengerSearchIndex.Match::getReservationId).collect(Collectors.toList());
+    }
+}
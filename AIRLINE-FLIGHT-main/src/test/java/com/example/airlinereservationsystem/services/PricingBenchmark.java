@@ -0,0 +1,105 @@
+package com.example.airlinereservationsystem.services;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Measures fare bucket checks and dynamic price computation throughput against a synthetic
+ * in-memory inventory.
+ * Needs no database. Run from the test classpath with: {@code java ... services.PricingBenchmark [flights] [days] [seconds]}
+ */
+public final class PricingBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int QUERIES = 1 << 16;
+
+    private PricingBenchmark() { }
+
+    public static void main(String[] args) {
+        int flights = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int days = args.length > 1 ? Integer.parseInt(args[1]) : 120;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        SeatInventory inventory = new SeatInventory();
+        DynamicPricingEngine engine = new DynamicPricingEngine(inventory, FareEngine.getInstance());
+        LocalDate today = LocalDate.now();
+        Random random = new Random(42);
+
+        // Fill every flight and day to a random load in a random bucket
+        for (int f = 1; f <= flights; f++) {
+            inventory.setCapacity(f, 150, 30);
+            for (int d = 0; d < days; d++) {
+                LocalDate date = today.plusDays(d);
+                inventory.booked(f, date, "Economy", random.nextInt(SeatInventory.BUCKETS), random.nextInt(151));
+                inventory.booked(f, date, "Business", random.nextInt(SeatInventory.BUCKETS), random.nextInt(31));
+            }
+        }
+
+        int[] flightCodes = new int[QUERIES];
+        long[] epochDays = new long[QUERIES];
+        int[] classIds = new int[QUERIES];
+        LocalDate[] dates = new LocalDate[QUERIES];
+        String[] classes = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            flightCodes[i] = 1 + random.nextInt(flights);
+            dates[i] = today.plusDays(random.nextInt(days));
+            epochDays[i] = dates[i].toEpochDay();
+            classIds[i] = random.nextInt(4) == 0 ? FareEngine.BUSINESS : FareEngine.ECONOMY;
+            classes[i] = classIds[i] == FareEngine.BUSINESS ? "Business" : "Economy";
+        }
+
+        long todayEpochDay = today.toEpochDay();
+        long sink = 0;
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (int i = 0; i < QUERIES; i++) {
+                sink += engine.priceCents(flightCodes[i], epochDays[i], classIds[i], null, todayEpochDay);
+                sink += engine.quote(flightCodes[i], dates[i], classes[i], null).getPriceCents();
+            }
+        }
+
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long computed = 0;
+        long started = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < QUERIES; i++) {
+                sink += engine.priceCents(flightCodes[i], epochDays[i], classIds[i], null, todayEpochDay);
+            }
+            computed += QUERIES;
+        }
+        long computeNanos = System.nanoTime() - started;
+
+        deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long checked = 0;
+        started = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < QUERIES; i++) {
+                sink += inventory.lowestOpenBucket(flightCodes[i], epochDays[i], classIds[i]);
+            }
+            checked += QUERIES;
+        }
+        long checkNanos = System.nanoTime() - started;
+
+        deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long quoted = 0;
+        started = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < QUERIES; i++) {
+                sink += engine.quote(flightCodes[i], dates[i], classes[i], null).getPriceCents();
+            }
+            quoted += QUERIES;
+        }
+        long quoteNanos = System.nanoTime() - started;
+
+        System.out.printf("Inventory: %d flights x %d days x 2 cabins%n", flights, days);
+        report("Open bucket check", checked, checkNanos);
+        report("Price computation", computed, computeNanos);
+        report("Cached quote lookup", quoted, quoteNanos);
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    private static void report(String name, long operations, long nanos) {
+        System.out.printf("%-20s %,12d ops/s  %8.1f ns/op%n", name,
+            operations * 1_000_000_000L / nanos, (double) nanos / operations);
+    }
+}
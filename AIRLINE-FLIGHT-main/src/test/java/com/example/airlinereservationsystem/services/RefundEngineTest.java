@@ -0,0 +1,100 @@
+package com.example.airlinereservationsystem.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefundEngineTest {
+    private static final long FARE = 100_000;
+    private static final int Y = 0;
+    private static final int Q = 3;
+
+    private final RefundEngine engine = new RefundEngine();
+
+    @Test
+    void defaultFeeRisesWithinTwentyFourHours() {
+        RefundEngine.Refund early = engine.quote(FARE, Y, null, 1, RefundEngine.VOLUNTARY);
+        assertEquals(10_000, early.getFeeCents());
+        assertEquals(90_000, early.getRefundCents());
+
+        RefundEngine.Refund late = engine.quote(FARE, Y, null, 0, RefundEngine.VOLUNTARY);
+        assertEquals(25_000, late.getFeeCents());
+        assertEquals(75_000, late.getRefundCents());
+    }
+
+    @Test
+    void nothingIsRefundedOnceTheTravelDateHasPassed() {
+        RefundEngine.Refund refund = engine.quote(FARE, Y, null, -1, RefundEngine.VOLUNTARY);
+        assertEquals(0, refund.getRefundCents());
+        assertEquals(FARE, refund.getFeeCents());
+        assertEquals("No refund (past travel date)", refund.getPolicy());
+    }
+
+    @Test
+    void cancelledFlightsAreRefundedInFullOnTheDay() {
+        RefundEngine.Refund refund = engine.quote(FARE, Q, "Student", 0, RefundEngine.FLIGHT_CANCELLED);
+        assertEquals(FARE, refund.getRefundCents());
+        assertEquals(0, refund.getFeeCents());
+    }
+
+    @Test
+    void quotesFromTheTravelDate() {
+        LocalDate today = LocalDate.now();
+        assertEquals(10_000, engine.quote(FARE, Y, null, today.plusDays(1), RefundEngine.VOLUNTARY).getFeeCents());
+        assertEquals(25_000, engine.quote(FARE, Y, null, today, RefundEngine.VOLUNTARY).getFeeCents());
+    }
+
+    @Test
+    void bucketRuleBeatsConcessionRuleBeatsGeneralRule() {
+        RefundEngine.Snapshot.Builder rules = new RefundEngine.Snapshot.Builder();
+        rules.addRule(RefundEngine.VOLUNTARY, -1, null, 1, 1000, "general");
+        rules.addRule(RefundEngine.VOLUNTARY, -1, "Student", 0, 500, "student");
+        rules.addRule(RefundEngine.VOLUNTARY, Q, null, 0, 5000, "saver");
+        engine.publish(rules.build());
+
+        assertEquals("saver", engine.quote(FARE, Q, "Student", 1, RefundEngine.VOLUNTARY).getPolicy());
+        assertEquals("student", engine.quote(FARE, Y, "Student", 1, RefundEngine.VOLUNTARY).getPolicy());
+        assertEquals("general", engine.quote(FARE, Y, null, 1, RefundEngine.VOLUNTARY).getPolicy());
+    }
+
+    @Test
+    void specificRuleNotYetInEffectFallsBackAtTheBoundary() {
+        RefundEngine.Snapshot.Builder rules = new RefundEngine.Snapshot.Builder();
+        rules.addRule(RefundEngine.VOLUNTARY, Q, null, 1, 5000, "saver");
+        rules.addRule(RefundEngine.VOLUNTARY, -1, null, 0, 2500, "within 24 hours");
+        engine.publish(rules.build());
+
+        assertEquals("saver", engine.quote(FARE, Q, null, 1, RefundEngine.VOLUNTARY).getPolicy());
+        RefundEngine.Refund late = engine.quote(FARE, Q, null, 0, RefundEngine.VOLUNTARY);
+        assertEquals("within 24 hours", late.getPolicy());
+        assertEquals(25_000, late.getFeeCents());
+    }
+
+    @Test
+    void amongEquallySpecificRulesTheEarliestWindowWins() {
+        RefundEngine.Snapshot.Builder rules = new RefundEngine.Snapshot.Builder();
+        rules.addRule(RefundEngine.VOLUNTARY, -1, null, 0, 2500, "same day");
+        rules.addRule(RefundEngine.VOLUNTARY, -1, null, 7, 500, "a week out");
+        rules.addRule(RefundEngine.VOLUNTARY, -1, null, 1, 1000, "a day out");
+        engine.publish(rules.build());
+
+        assertEquals("a week out", engine.quote(FARE, Y, null, 7, RefundEngine.VOLUNTARY).getPolicy());
+        assertEquals("a day out", engine.quote(FARE, Y, null, 6, RefundEngine.VOLUNTARY).getPolicy());
+        assertEquals("a day out", engine.quote(FARE, Y, null, 1, RefundEngine.VOLUNTARY).getPolicy());
+        assertEquals("same day", engine.quote(FARE, Y, null, 0, RefundEngine.VOLUNTARY).getPolicy());
+    }
+
+    @Test
+    void noMatchingRuleMeansNoRefund() {
+        RefundEngine.Snapshot.Builder rules = new RefundEngine.Snapshot.Builder();
+        rules.addRule(RefundEngine.VOLUNTARY, -1, null, 1, 1000, "general");
+        engine.publish(rules.build());
+
+        RefundEngine.Refund refund = engine.quote(FARE, Y, null, 0, RefundEngine.VOLUNTARY);
+        assertEquals(0, refund.getRefundCents());
+        assertEquals("No refund", refund.getPolicy());
+        assertEquals("No refund", engine.quote(FARE, Y, null, 5, "Unknown").getPolicy());
+    }
+}
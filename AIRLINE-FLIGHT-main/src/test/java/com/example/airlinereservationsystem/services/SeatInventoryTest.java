@@ -0,0 +1,119 @@
+package com.example.airlinereservationsystem.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatInventoryTest {
+    private static final int FLIGHT = 7;
+    private static final LocalDate DATE = LocalDate.of(2026, 12, 1);
+    private static final String ECONOMY = "Economy";
+
+    private SeatInventory inventory;
+    private long key;
+
+    @BeforeEach
+    void setUp() {
+        // 100 economy seats with the default nested limits: Y 100, B 85, M 70, Q 50
+        inventory = new SeatInventory();
+        inventory.setCapacity(FLIGHT, 100, 20);
+        key = SeatInventory.key(FLIGHT, DATE, FareEngine.ECONOMY);
+    }
+
+    @Test
+    void keyPacksFlightDayAndCabin() {
+        long k = SeatInventory.key(123_456, DATE, FareEngine.BUSINESS);
+        assertEquals(123_456, SeatInventory.flightCode(k));
+        assertEquals(DATE.toEpochDay(), SeatInventory.epochDay(k));
+        assertEquals(FareEngine.BUSINESS, SeatInventory.classId(k));
+    }
+
+    @Test
+    void resolvesNestedLimitsFromCapacity() {
+        assertEquals(100, inventory.bookingLimit(FLIGHT, FareEngine.ECONOMY, 0));
+        assertEquals(85, inventory.bookingLimit(FLIGHT, FareEngine.ECONOMY, 1));
+        assertEquals(70, inventory.bookingLimit(FLIGHT, FareEngine.ECONOMY, 2));
+        assertEquals(50, inventory.bookingLimit(FLIGHT, FareEngine.ECONOMY, 3));
+    }
+
+    @Test
+    void sellsCheapestOpenBucketUntilTheCabinCloses() {
+        int[] sales = new int[SeatInventory.BUCKETS];
+        for (int i = 0; i < 100; i++) {
+            int bucket = inventory.sell(FLIGHT, DATE, ECONOMY);
+            assertTrue(bucket >= 0, "seat " + i + " should sell");
+            sales[bucket]++;
+        }
+        assertArrayEquals(new int[] { 15, 15, 20, 50 }, sales);
+        for (int b = 0; b < SeatInventory.BUCKETS; b++) {
+            assertEquals(sales[b], inventory.soldInBucket(key, b));
+        }
+        assertEquals(100, inventory.sold(key));
+        assertEquals(-1, inventory.sell(FLIGHT, DATE, ECONOMY));
+        assertEquals(0, inventory.seatsLeft(FLIGHT, DATE, ECONOMY));
+    }
+
+    @Test
+    void closedBucketRefusesSaleWhileDearerOnesStayOpen() {
+        for (int i = 0; i < 50; i++) {
+            assertEquals(3, inventory.sell(FLIGHT, DATE, ECONOMY));
+        }
+        assertFalse(inventory.sell(FLIGHT, DATE, ECONOMY, 3));
+        assertEquals(2, inventory.lowestOpenBucket(FLIGHT, DATE.toEpochDay(), FareEngine.ECONOMY));
+        assertTrue(inventory.sell(FLIGHT, DATE, ECONOMY, 0));
+
+        inventory.released(FLIGHT, DATE, ECONOMY, 3);
+        assertTrue(inventory.canSell(FLIGHT, DATE, ECONOMY, 3));
+    }
+
+    @Test
+    void overbookingRaisesOnlyTheFullFareLimit() {
+        inventory.setAuthorized(FLIGHT, 105, 20);
+        assertEquals(100, inventory.capacity(FLIGHT, FareEngine.ECONOMY));
+        assertEquals(105, inventory.bookingLimit(FLIGHT, FareEngine.ECONOMY, 0));
+        assertEquals(85, inventory.bookingLimit(FLIGHT, FareEngine.ECONOMY, 1));
+
+        for (int i = 0; i < 100; i++) {
+            inventory.sell(FLIGHT, DATE, ECONOMY);
+        }
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, inventory.sell(FLIGHT, DATE, ECONOMY));
+        }
+        assertEquals(-1, inventory.sell(FLIGHT, DATE, ECONOMY));
+        assertEquals(20, inventory.soldInBucket(key, 0));
+    }
+
+    @Test
+    void lanesDoNotCarryIntoEachOther() {
+        inventory.booked(FLIGHT, DATE, ECONOMY, 1, 70_000);
+        assertEquals(65_535, inventory.soldInBucket(key, 1));
+        assertEquals(0, inventory.soldInBucket(key, 0));
+        assertEquals(0, inventory.soldInBucket(key, 2));
+
+        inventory.released(FLIGHT, DATE, ECONOMY, 2);
+        assertEquals(0, inventory.soldInBucket(key, 2));
+        assertEquals(65_535, inventory.soldInBucket(key, 1));
+    }
+
+    @Test
+    void mergeKeepsSalesAndReleasesMadeDuringReload() {
+        long before = packed(10, 5, 0, 3);
+        long now = packed(12, 4, 1, 3);
+        long reloaded = packed(11, 5, 0, 2);
+        assertEquals(packed(13, 4, 1, 2), SeatInventory.merge(reloaded, before, now));
+    }
+
+    @Test
+    void mergeClampsEachLane() {
+        assertEquals(packed(0, 0, 0, 0), SeatInventory.merge(packed(0, 0, 0, 0), packed(2, 0, 0, 0), packed(0, 0, 0, 0)));
+        assertEquals(packed(0, 65_535, 0, 0),
+            SeatInventory.merge(packed(0, 65_535, 0, 0), packed(0, 0, 0, 0), packed(0, 1, 0, 0)));
+    }
+
+    private static long packed(long y, long b, long m, long q) {
+        return y | b << 16 | m << 32 | q << 48;
+    }
+}
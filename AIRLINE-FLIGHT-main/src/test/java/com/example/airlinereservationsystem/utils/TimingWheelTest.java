@@ -0,0 +1,71 @@
+package com.example.airlinereservationsystem.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+    // 8 slots of 10 ms: one turn of the wheel is 80 ms
+    private final TimingWheel<String> wheel = new TimingWheel<>(10, 8, 0);
+    private final List<String> expired = new ArrayList<>();
+
+    @Test
+    void neverExpiresBeforeTheDeadline() {
+        wheel.schedule("hold", 25);
+        assertEquals(0, wheel.advance(29, expired::add));
+        assertEquals(1, wheel.advance(30, expired::add));
+        assertEquals(List.of("hold"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void waitsOutFullRoundsInItsSlot() {
+        wheel.schedule("near", 30);
+        wheel.schedule("far", 1_030);
+        assertEquals(1, wheel.advance(30, expired::add));
+        assertEquals(0, wheel.advance(1_029, expired::add));
+        assertEquals(1, wheel.advance(1_030, expired::add));
+        assertEquals(List.of("near", "far"), expired);
+    }
+
+    @Test
+    void pastDeadlineExpiresOnTheNextTick() {
+        wheel.advance(100, expired::add);
+        wheel.schedule("late", 50);
+        assertEquals(0, wheel.advance(109, expired::add));
+        assertEquals(1, wheel.advance(110, expired::add));
+    }
+
+    @Test
+    void schedulesRelativeToTheCurrentTick() {
+        wheel.advance(555, expired::add);
+        TimingWheel.Timeout<String> timeout = wheel.schedule("next", 560);
+        assertEquals(1, wheel.advance(560, expired::add));
+        assertFalse(timeout.isPending());
+    }
+
+    @Test
+    void cancelledTimeoutNeverExpires() {
+        TimingWheel.Timeout<String> first = wheel.schedule("first", 40);
+        TimingWheel.Timeout<String> second = wheel.schedule("second", 40);
+        wheel.schedule("third", 40);
+
+        assertTrue(wheel.cancel(second));
+        assertFalse(wheel.cancel(second));
+        assertEquals(2, wheel.size());
+
+        assertEquals(2, wheel.advance(40, expired::add));
+        assertFalse(expired.contains("second"));
+        assertFalse(wheel.cancel(first));
+        assertFalse(wheel.cancel(null));
+    }
+
+    @Test
+    void rejectsSlotCountsThatAreNotPowersOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<String>(10, 6, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<String>(0, 8, 0));
+    }
+}